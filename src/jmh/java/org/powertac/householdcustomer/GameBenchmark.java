@@ -0,0 +1,259 @@
+/*
+ * Copyright 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS,  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.powertac.householdcustomer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+import org.joda.time.Instant;
+import org.powertac.common.PluginConfig;
+import org.powertac.common.Tariff;
+import org.powertac.common.TimeService;
+import org.powertac.common.configurations.HouseholdConstants;
+import org.powertac.common.repo.RandomSeedRepo;
+import org.powertac.householdcustomer.customers.BenchmarkSupport;
+
+/**
+ * This is a headless driver of a whole game against in-memory stand-ins of the server, publishing
+ * flat and time of use tariffs. It reports the initialization time, the latencies and the heap
+ * peak. Arguments are name=value pairs: villages, houses, period, tariffs, days, window, snapshot,
+ * storage and rescheduling.
+ * @author Antonios Chrysopoulos
+ * @version 1, 17/10/2026
+ */
+public class GameBenchmark
+{
+
+  int villages = 2;
+  int houses = -1;
+  int period = 6;
+  int tariffs = 2;
+  int days = HouseholdConstants.DAYS_OF_COMPETITION + HouseholdConstants.DAYS_OF_BOOTSTRAP;
+  int window = 0;
+  String snapshot = "";
+  String storage = null;
+  int rescheduling = -1;
+
+  public static void main (String[] args) throws Exception
+  {
+    GameBenchmark benchmark = new GameBenchmark();
+    for (String arg : args) {
+      String[] pair = arg.split("=", 2);
+      if (pair.length != 2)
+        throw new IllegalArgumentException("Arguments are given as name=value: " + arg);
+      if (pair[0].equals("snapshot")) {
+        benchmark.snapshot = pair[1];
+        continue;
+      }
+      if (pair[0].equals("storage")) {
+        benchmark.storage = pair[1];
+        continue;
+      }
+      int value = Integer.parseInt(pair[1]);
+      if (pair[0].equals("villages"))
+        benchmark.villages = value;
+      else if (pair[0].equals("houses"))
+        benchmark.houses = value;
+      else if (pair[0].equals("period"))
+        benchmark.period = value;
+      else if (pair[0].equals("tariffs"))
+        benchmark.tariffs = value;
+      else if (pair[0].equals("days"))
+        benchmark.days = value;
+      else if (pair[0].equals("window"))
+        benchmark.window = value;
+      else if (pair[0].equals("rescheduling"))
+        benchmark.rescheduling = value;
+      else
+        throw new IllegalArgumentException("Unknown argument " + pair[0]);
+    }
+    benchmark.run();
+  }
+
+  /**
+   * This function plays the game and prints the measurements.
+   * @throws IOException
+   */
+  void run () throws Exception
+  {
+    BenchmarkSupport.setUp();
+    TimeService timeService = BenchmarkSupport.getTimeService();
+    BenchmarkSupport.getTariffMarket().clear();
+    BenchmarkSupport.getTariffSubscriptionRepo().clear();
+    BenchmarkSupport.getTimeslotRepo().clear();
+    timeService.setCurrentTime(new Instant(timeService.getBase()));
+
+    List<MemoryPoolMXBean> heapPools = new ArrayList<MemoryPoolMXBean>();
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+      if (pool.getType() == MemoryType.HEAP) {
+        pool.resetPeakUsage();
+        heapPools.add(pool);
+      }
+
+    HouseholdCustomerService service = new HouseholdCustomerService();
+    setField(service, "tariffMarketService", BenchmarkSupport.getTariffMarket().getProxy());
+    setField(service, "randomSeedRepo", new RandomSeedRepo());
+    setField(service, "timeService", timeService);
+    PluginConfig config = new PluginConfig("HouseholdCustomer", "").addConfiguration("configFile", writeConfiguration().getPath());
+
+    long start = System.nanoTime();
+    service.init(config);
+    long initialization = System.nanoTime() - start;
+
+    Random gen = new Random(BenchmarkSupport.SEED);
+    int timeslots = days * HouseholdConstants.HOURS_OF_DAY;
+    long[] activations = new long[timeslots];
+    long[] evaluations = new long[(timeslots + period - 1) / period];
+    int publications = 0;
+
+    for (int serial = 0; serial < timeslots; serial++) {
+      Instant now = new Instant(timeService.getBase() + serial * TimeService.HOUR);
+      timeService.setCurrentTime(now);
+      BenchmarkSupport.getTimeslotRepo().setCurrentTimeslot(serial, now);
+
+      if (serial % period == 0) {
+        List<Tariff> published = createTariffs(gen);
+        start = System.nanoTime();
+        BenchmarkSupport.getTariffMarket().publish(published);
+        evaluations[publications++] = System.nanoTime() - start;
+      }
+
+      start = System.nanoTime();
+      service.activate(now, 1);
+      activations[serial] = System.nanoTime() - start;
+    }
+
+    long peak = 0;
+    for (MemoryPoolMXBean pool : heapPools)
+      peak += pool.getPeakUsage().getUsed();
+
+    System.out.println("villages " + villages + ", population " + service.getConfiguration().getVillagePopulation() + ", timeslots " + timeslots + ", publications "
+        + publications);
+    System.out.println("initialization " + millis(initialization) + " ms");
+    report("activation", activations);
+    report("evaluation", evaluations);
+    System.out.println("peak heap " + (peak >> 20) + " MB");
+    System.out.println("total usage " + BenchmarkSupport.getTariffSubscriptionRepo().getTotalUsage() + " kWh, total charge "
+        + BenchmarkSupport.getTariffSubscriptionRepo().getTotalCharge());
+  }
+
+  /**
+   * This function writes the default configuration file, with the number of villages and houses of
+   * the benchmark, to a temporary file for the service to read.
+   * @return
+   * @throws IOException
+   */
+  File writeConfiguration () throws IOException
+  {
+    Properties properties = BenchmarkSupport.loadProperties();
+    properties.setProperty("NumberOfVillages", Integer.toString(villages));
+    properties.setProperty("LoadWindowDays", Integer.toString(window));
+    properties.setProperty("SnapshotDirectory", snapshot);
+    if (storage != null)
+      properties.setProperty("ProfileStorage", storage);
+    if (rescheduling >= 0)
+      properties.setProperty("ReschedulingHours", Integer.toString(rescheduling));
+    if (houses >= 0) {
+      properties.setProperty("NotShiftingCustomers", Integer.toString(houses));
+      properties.setProperty("RandomlyShiftingCustomers", Integer.toString(houses));
+      properties.setProperty("RegularlyShiftingCustomers", Integer.toString(houses));
+      properties.setProperty("SmartShiftingCustomers", Integer.toString(houses));
+    }
+
+    File file = File.createTempFile("Household", ".properties");
+    file.deleteOnExit();
+    OutputStream out = new FileOutputStream(file);
+    try {
+      properties.store(out, "Game benchmark");
+    } finally {
+      out.close();
+    }
+    return file;
+  }
+
+  /**
+   * This function creates the tariffs of a publication, a quarter of them flat tariffs and the rest
+   * time of use tariffs, with random prices and day hours.
+   * @param gen
+   * @return
+   */
+  List<Tariff> createTariffs (Random gen)
+  {
+    List<Tariff> result = new ArrayList<Tariff>();
+    for (int i = 0; i < tariffs; i++) {
+      if (gen.nextInt(4) == 0) {
+        result.add(BenchmarkSupport.createFlatTariff(-0.05 - 0.10 * gen.nextDouble()));
+        continue;
+      }
+      double nightPrice = -0.03 - 0.05 * gen.nextDouble();
+      double dayPrice = -0.10 - 0.10 * gen.nextDouble();
+      int dayBegin = 6 + gen.nextInt(4);
+      int dayEnd = 18 + gen.nextInt(4);
+      result.add(BenchmarkSupport.createTimeOfUseTariff(nightPrice, dayPrice, dayBegin, dayEnd));
+    }
+    return result;
+  }
+
+  /**
+   * This function prints the mean and the percentiles of the latencies given.
+   * @param name
+   * @param latencies
+   */
+  static void report (String name, long[] latencies)
+  {
+    if (latencies.length == 0)
+      return;
+
+    long[] sorted = Arrays.copyOf(latencies, latencies.length);
+    Arrays.sort(sorted);
+    long sum = 0;
+    for (long latency : sorted)
+      sum += latency;
+
+    System.out.println(name + " (ms): mean " + millis(sum / sorted.length) + ", p50 " + millis(percentile(sorted, 0.50)) + ", p90 "
+        + millis(percentile(sorted, 0.90)) + ", p99 " + millis(percentile(sorted, 0.99)) + ", max " + millis(sorted[sorted.length - 1]));
+  }
+
+  static long percentile (long[] sorted, double p)
+  {
+    int index = (int) Math.ceil(p * sorted.length) - 1;
+    return sorted[Math.max(0, index)];
+  }
+
+  static String millis (long nanos)
+  {
+    return String.format("%.3f", nanos / 1e6);
+  }
+
+  static void setField (Object target, String name, Object value) throws Exception
+  {
+    Field field = target.getClass().getDeclaredField(name);
+    field.setAccessible(true);
+    field.set(target, value);
+  }
+
+}
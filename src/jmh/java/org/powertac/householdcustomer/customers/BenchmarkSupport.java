@@ -0,0 +1,311 @@
+/*
+ * Copyright 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS,  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.powertac.householdcustomer.customers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Vector;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.joda.time.Instant;
+import org.powertac.common.Broker;
+import org.powertac.common.CustomerInfo;
+import org.powertac.common.Rate;
+import org.powertac.common.Tariff;
+import org.powertac.common.TariffSpecification;
+import org.powertac.common.TimeService;
+import org.powertac.common.configurations.HouseholdConstants;
+import org.powertac.common.enumerations.CustomerType;
+import org.powertac.common.enumerations.PowerType;
+import org.powertac.common.repo.BrokerRepo;
+import org.powertac.common.repo.CustomerRepo;
+import org.powertac.common.repo.RandomSeedRepo;
+import org.powertac.common.repo.TariffRepo;
+import org.powertac.common.spring.SpringApplicationContext;
+import org.powertac.householdcustomer.configurations.HouseholdConfiguration;
+import org.springframework.context.support.StaticApplicationContext;
+
+/**
+ * The benchmark support builds the configuration, households, villages and tariffs of the
+ * benchmarks from fixed seeds, with in-memory stand-ins of the clock, the tariff market, the
+ * subscriptions and the timeslots, so they run without the server.
+ * @author Antonios Chrysopoulos
+ * @version 1, 17/10/2026
+ */
+public class BenchmarkSupport
+{
+
+  /** The seed of the households and villages of the benchmarks. */
+  public static final long SEED = 20110213L;
+
+  /** The day of the competition the fixed clock of the benchmarks is at. */
+  public static final int CURRENT_DAY = 20;
+
+  /** The clock of the benchmarks. */
+  static FixedTimeService timeService;
+
+  /** The in-memory stand-ins of the tariff market, the subscriptions and the timeslots. */
+  static InMemoryTariffMarket tariffMarket;
+  static InMemoryTariffSubscriptionRepo tariffSubscriptionRepo;
+  static InMemoryTimeslotRepo timeslotRepo;
+
+  /** The public vacation days of the households built outside a village. */
+  static Vector<Integer> publicVacationVector;
+
+  /**
+   * This is a time service that stays at the time it was last set to, so the evaluation days of
+   * the villages are the same in every iteration.
+   */
+  public static class FixedTimeService extends TimeService
+  {
+    Instant current;
+    long base;
+
+    public FixedTimeService (long base, Instant current)
+    {
+      this.base = base;
+      this.current = current;
+    }
+
+    @Override
+    public Instant getCurrentTime ()
+    {
+      return current;
+    }
+
+    @Override
+    public void setCurrentTime (Instant time)
+    {
+      current = time;
+    }
+
+    @Override
+    public long getBase ()
+    {
+      return base;
+    }
+
+    @Override
+    public int getHourOfDay ()
+    {
+      return (int) (((current.getMillis() - base) / HOUR) % HouseholdConstants.HOURS_OF_DAY);
+    }
+  }
+
+  /**
+   * This is a tariff stub charging the prices of a table of hourly prices, without the rate
+   * resolution and the repositories of the real tariffs.
+   */
+  public static class BenchmarkTariff extends Tariff
+  {
+    double[] prices;
+
+    public BenchmarkTariff (TariffSpecification spec, double[] prices)
+    {
+      super(spec);
+      this.prices = prices;
+    }
+
+    @Override
+    public double getUsageCharge (Instant when, double kwh, double cumulativeUsage)
+    {
+      int hour = (int) ((when.getMillis() / TimeService.HOUR) % HouseholdConstants.HOURS_OF_DAY);
+      return prices[hour] * kwh;
+    }
+
+    @Override
+    public boolean isExpired ()
+    {
+      return false;
+    }
+
+    @Override
+    public boolean isRevoked ()
+    {
+      return false;
+    }
+  }
+
+  /**
+   * This function installs the clock, the stand-ins and the repositories in the static application
+   * context, once for the whole benchmark run, and turns the logging of the models down to
+   * warnings. The default tariff of the market is the time of use tariff.
+   */
+  public static synchronized void setUp ()
+  {
+    if (timeService != null)
+      return;
+
+    Logger.getRootLogger().setLevel(Level.WARN);
+
+    timeService = new FixedTimeService(0, new Instant(CURRENT_DAY * TimeService.DAY));
+    tariffSubscriptionRepo = new InMemoryTariffSubscriptionRepo();
+    tariffMarket = new InMemoryTariffMarket(createTimeOfUseTariff(), tariffSubscriptionRepo);
+    timeslotRepo = new InMemoryTimeslotRepo();
+
+    StaticApplicationContext context = new StaticApplicationContext();
+    context.getBeanFactory().registerSingleton("timeService", timeService);
+    context.getBeanFactory().registerSingleton("timeslotRepo", timeslotRepo);
+    context.getBeanFactory().registerSingleton("customerRepo", new CustomerRepo());
+    context.getBeanFactory().registerSingleton("brokerRepo", new BrokerRepo());
+    context.getBeanFactory().registerSingleton("tariffRepo", new TariffRepo());
+    context.getBeanFactory().registerSingleton("tariffSubscriptionRepo", tariffSubscriptionRepo);
+    context.getBeanFactory().registerSingleton("tariffMarketService", tariffMarket.getProxy());
+    context.getBeanFactory().registerSingleton("randomSeedRepo", new RandomSeedRepo());
+    context.refresh();
+    new SpringApplicationContext().setApplicationContext(context);
+
+    publicVacationVector = new Vector<Integer>();
+    for (int i = 0; i < 3; i++)
+      publicVacationVector.add(5 + 20 * i);
+  }
+
+  public static FixedTimeService getTimeService ()
+  {
+    return timeService;
+  }
+
+  public static InMemoryTariffMarket getTariffMarket ()
+  {
+    return tariffMarket;
+  }
+
+  public static InMemoryTariffSubscriptionRepo getTariffSubscriptionRepo ()
+  {
+    return tariffSubscriptionRepo;
+  }
+
+  public static InMemoryTimeslotRepo getTimeslotRepo ()
+  {
+    return timeslotRepo;
+  }
+
+  /**
+   * This function loads the default configuration file of the models from the classpath.
+   * @return
+   */
+  public static Properties loadProperties ()
+  {
+    Properties properties = new Properties();
+    InputStream cfgFile = BenchmarkSupport.class.getResourceAsStream("/Household.properties");
+    try {
+      properties.load(cfgFile);
+      cfgFile.close();
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot read the configuration file", e);
+    }
+    return properties;
+  }
+
+  /**
+   * This function loads the default configuration file of the models, with the given number of
+   * houses of each type in a village.
+   * @param houses
+   * @return
+   */
+  public static HouseholdConfiguration createConfiguration (int houses)
+  {
+    Properties properties = loadProperties();
+    properties.setProperty("NotShiftingCustomers", Integer.toString(houses));
+    properties.setProperty("RandomlyShiftingCustomers", Integer.toString(houses));
+    properties.setProperty("RegularlyShiftingCustomers", Integer.toString(houses));
+    properties.setProperty("SmartShiftingCustomers", Integer.toString(houses));
+    return new HouseholdConfiguration(properties);
+  }
+
+  /**
+   * This function creates and initializes a household outside a village.
+   * @param conf
+   * @param index
+   * @param gen
+   * @return
+   */
+  public static Household createHousehold (HouseholdConfiguration conf, int index, Random gen)
+  {
+    Household household = new Household();
+    household.initialize("Benchmark House" + index, conf, publicVacationVector, gen);
+    return household;
+  }
+
+  /**
+   * This function creates and initializes a village with the houses of the configuration.
+   * @param conf
+   * @return
+   */
+  public static Village createVillage (HouseholdConfiguration conf)
+  {
+    CustomerInfo villageInfo = new CustomerInfo("Benchmark Village", conf.getVillagePopulation()).withCustomerType(CustomerType.CustomerHousehold).addPowerType(PowerType.CONSUMPTION);
+    Village village = new Village(villageInfo);
+    village.initialize(conf, new Random(SEED));
+    return village;
+  }
+
+  /**
+   * This function creates a tariff with a single fixed rate.
+   * @return
+   */
+  public static Tariff createFlatTariff ()
+  {
+    return createFlatTariff(-0.1);
+  }
+
+  /**
+   * This function creates a tariff with a single fixed rate of the price given.
+   * @param price
+   * @return
+   */
+  public static Tariff createFlatTariff (double price)
+  {
+    double[] prices = new double[HouseholdConstants.HOURS_OF_DAY];
+    for (int i = 0; i < prices.length; i++)
+      prices[i] = price;
+    TariffSpecification spec = new TariffSpecification(new Broker("Benchmark"), PowerType.CONSUMPTION).addRate(new Rate().withValue(price));
+    return new BenchmarkTariff(spec, prices);
+  }
+
+  /**
+   * This function creates a time of use tariff, cheaper during the night.
+   * @return
+   */
+  public static Tariff createTimeOfUseTariff ()
+  {
+    return createTimeOfUseTariff(-0.05, -0.15, 7, 21);
+  }
+
+  /**
+   * This function creates a time of use tariff with the day price from the first to the last hour
+   * of the day given and the night price for the rest of the hours.
+   * @param nightPrice
+   * @param dayPrice
+   * @param dayBegin
+   * @param dayEnd
+   * @return
+   */
+  public static Tariff createTimeOfUseTariff (double nightPrice, double dayPrice, int dayBegin, int dayEnd)
+  {
+    double[] prices = new double[HouseholdConstants.HOURS_OF_DAY];
+    for (int i = 0; i < prices.length; i++)
+      prices[i] = (i < dayBegin || i > dayEnd) ? nightPrice : dayPrice;
+    TariffSpecification spec = new TariffSpecification(new Broker("Benchmark"), PowerType.CONSUMPTION)
+        .addRate(new Rate().withValue(nightPrice).withDailyBegin(dayEnd + 1).withDailyEnd(dayBegin - 1))
+        .addRate(new Rate().withValue(dayPrice).withDailyBegin(dayBegin).withDailyEnd(dayEnd));
+    return new BenchmarkTariff(spec, prices);
+  }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS,  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.powertac.householdcustomer.customers;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.powertac.householdcustomer.configurations.HouseholdConfiguration;
+
+/**
+ * This benchmark measures the initialization of a number of households from the same seed.
+ * @author Antonios Chrysopoulos
+ * @version 1, 17/10/2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HouseholdBenchmark
+{
+
+  /** The number of households initialized by each invocation. */
+  @Param({ "1", "10", "100" })
+  int households;
+
+  HouseholdConfiguration conf;
+
+  @Setup
+  public void setUp ()
+  {
+    BenchmarkSupport.setUp();
+    conf = BenchmarkSupport.createConfiguration(1);
+  }
+
+  @Benchmark
+  public void initialize (Blackhole blackhole)
+  {
+    Random gen = new Random(BenchmarkSupport.SEED);
+    for (int i = 0; i < households; i++)
+      blackhole.consume(BenchmarkSupport.createHousehold(conf, i, gen));
+  }
+
+}
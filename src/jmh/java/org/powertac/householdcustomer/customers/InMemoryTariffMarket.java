@@ -0,0 +1,129 @@
+/*
+ * Copyright 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS,  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.powertac.householdcustomer.customers;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.powertac.common.CustomerInfo;
+import org.powertac.common.Tariff;
+import org.powertac.common.interfaces.NewTariffListener;
+import org.powertac.common.interfaces.TariffMarket;
+
+/**
+ * This is an in-memory stand-in of the tariff market, keeping the listeners, the default tariff and
+ * the published tariffs, behind a proxy of the tariff market interface.
+ * @author Antonios Chrysopoulos
+ * @version 1, 17/10/2026
+ */
+public class InMemoryTariffMarket implements InvocationHandler
+{
+
+  Tariff defaultTariff;
+  InMemoryTariffSubscriptionRepo tariffSubscriptionRepo;
+  List<NewTariffListener> listeners = new ArrayList<NewTariffListener>();
+  List<Tariff> activeTariffs = new ArrayList<Tariff>();
+  TariffMarket proxy;
+
+  public InMemoryTariffMarket (Tariff defaultTariff, InMemoryTariffSubscriptionRepo tariffSubscriptionRepo)
+  {
+    this.defaultTariff = defaultTariff;
+    this.tariffSubscriptionRepo = tariffSubscriptionRepo;
+    activeTariffs.add(defaultTariff);
+    proxy = (TariffMarket) Proxy.newProxyInstance(TariffMarket.class.getClassLoader(), new Class<?>[] { TariffMarket.class }, this);
+  }
+
+  public TariffMarket getProxy ()
+  {
+    return proxy;
+  }
+
+  public Tariff getDefaultTariff ()
+  {
+    return defaultTariff;
+  }
+
+  public List<Tariff> getActiveTariffs ()
+  {
+    return activeTariffs;
+  }
+
+  /**
+   * This function publishes a list of new tariffs to the listeners, as the tariff market does at
+   * the end of each publication period.
+   * @param tariffs
+   */
+  public void publish (List<Tariff> tariffs)
+  {
+    activeTariffs.addAll(tariffs);
+    for (NewTariffListener listener : listeners)
+      listener.publishNewTariffs(tariffs);
+  }
+
+  /**
+   * This function removes the listeners and the published tariffs, before a new game.
+   */
+  public void clear ()
+  {
+    listeners.clear();
+    activeTariffs.clear();
+    activeTariffs.add(defaultTariff);
+  }
+
+  public Object invoke (Object target, Method method, Object[] args) throws Throwable
+  {
+    if (method.getDeclaringClass() == Object.class)
+      return method.invoke(this, args);
+
+    String name = method.getName();
+    if (name.equals("registerNewTariffListener")) {
+      listeners.add((NewTariffListener) args[0]);
+      return null;
+    } else if (name.equals("getDefaultTariff")) {
+      return defaultTariff;
+    } else if (name.equals("getActiveTariffList")) {
+      return new ArrayList<Tariff>(activeTariffs);
+    } else if (name.equals("subscribeToTariff")) {
+      return tariffSubscriptionRepo.subscribe((CustomerInfo) args[1], (Tariff) args[0], ((Number) args[2]).intValue());
+    }
+    return defaultValue(method.getReturnType());
+  }
+
+  static Object defaultValue (Class<?> type)
+  {
+    if (!type.isPrimitive() || type == void.class)
+      return null;
+    else if (type == boolean.class)
+      return Boolean.FALSE;
+    else if (type == char.class)
+      return Character.valueOf((char) 0);
+    else if (type == byte.class)
+      return Byte.valueOf((byte) 0);
+    else if (type == short.class)
+      return Short.valueOf((short) 0);
+    else if (type == int.class)
+      return Integer.valueOf(0);
+    else if (type == long.class)
+      return Long.valueOf(0);
+    else if (type == float.class)
+      return Float.valueOf(0);
+    return Double.valueOf(0);
+  }
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS,  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.powertac.householdcustomer.customers;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.powertac.common.CustomerInfo;
+import org.powertac.common.Tariff;
+import org.powertac.common.TariffSubscription;
+import org.powertac.common.repo.TariffSubscriptionRepo;
+
+/**
+ * This is an in-memory stand-in of the subscription repository, whose subscriptions record their
+ * usage and charges instead of posting transactions.
+ * @author Antonios Chrysopoulos
+ * @version 1, 17/10/2026
+ */
+public class InMemoryTariffSubscriptionRepo extends TariffSubscriptionRepo
+{
+
+  /**
+   * The subscriptions of each customer, kept in the order of the customers, so the totals are
+   * summed in the same order in every run.
+   */
+  Map<CustomerInfo, List<Subscription>> subscriptions = new LinkedHashMap<CustomerInfo, List<Subscription>>();
+
+  /**
+   * This is a subscription of a number of customers to a tariff, that records the power used and
+   * its charges.
+   */
+  public static class Subscription extends TariffSubscription
+  {
+    Tariff tariff;
+    int customersCommitted;
+    double totalUsage;
+    double totalCharge;
+
+    public Subscription (CustomerInfo customer, Tariff tariff)
+    {
+      super(customer, tariff);
+      this.tariff = tariff;
+    }
+
+    @Override
+    public Tariff getTariff ()
+    {
+      return tariff;
+    }
+
+    @Override
+    public int getCustomersCommitted ()
+    {
+      return customersCommitted;
+    }
+
+    @Override
+    public void unsubscribe (int customerCount)
+    {
+      customersCommitted -= Math.min(customerCount, customersCommitted);
+    }
+
+    @Override
+    public void usePower (double kwh)
+    {
+      totalCharge += tariff.getUsageCharge(BenchmarkSupport.timeService.getCurrentTime(), kwh, totalUsage);
+      totalUsage += kwh;
+    }
+
+    @Override
+    public double getTotalUsage ()
+    {
+      return totalUsage;
+    }
+
+    public double getTotalCharge ()
+    {
+      return totalCharge;
+    }
+  }
+
+  /**
+   * This function subscribes a number of customers to a tariff, adding them to the subscription of
+   * the customer to that tariff if there is one.
+   * @param customer
+   * @param tariff
+   * @param customerCount
+   * @return
+   */
+  public Subscription subscribe (CustomerInfo customer, Tariff tariff, int customerCount)
+  {
+    List<Subscription> list = subscriptions.get(customer);
+    if (list == null) {
+      list = new ArrayList<Subscription>();
+      subscriptions.put(customer, list);
+    }
+
+    Subscription result = null;
+    for (Subscription sub : list)
+      if (sub.tariff == tariff)
+        result = sub;
+    if (result == null) {
+      result = new Subscription(customer, tariff);
+      list.add(result);
+    }
+    result.customersCommitted += customerCount;
+    return result;
+  }
+
+  /**
+   * This function returns the subscriptions of the customer that have customers committed to them.
+   */
+  @Override
+  public List<TariffSubscription> findSubscriptionsForCustomer (CustomerInfo customer)
+  {
+    List<TariffSubscription> result = new ArrayList<TariffSubscription>();
+    List<Subscription> list = subscriptions.get(customer);
+    if (list != null)
+      for (Subscription sub : list)
+        if (sub.customersCommitted > 0)
+          result.add(sub);
+    return result;
+  }
+
+  /**
+   * This function returns the power used under all the subscriptions.
+   * @return
+   */
+  public double getTotalUsage ()
+  {
+    double result = 0;
+    for (List<Subscription> list : subscriptions.values())
+      for (Subscription sub : list)
+        result += sub.totalUsage;
+    return result;
+  }
+
+  /**
+   * This function returns the charges of the power used under all the subscriptions.
+   * @return
+   */
+  public double getTotalCharge ()
+  {
+    double result = 0;
+    for (List<Subscription> list : subscriptions.values())
+      for (Subscription sub : list)
+        result += sub.totalCharge;
+    return result;
+  }
+
+  /**
+   * This function removes all the subscriptions, before a new game.
+   */
+  public void clear ()
+  {
+    subscriptions.clear();
+  }
+
+}
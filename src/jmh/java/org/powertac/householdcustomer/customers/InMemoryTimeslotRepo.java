@@ -0,0 +1,56 @@
+/*
+ * Copyright 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS,  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.powertac.householdcustomer.customers;
+
+import org.joda.time.Instant;
+import org.powertac.common.Timeslot;
+import org.powertac.common.repo.TimeslotRepo;
+
+/**
+ * This is an in-memory stand-in of the timeslot repository that only keeps the current timeslot,
+ * set by the driver of the benchmark.
+ * @author Antonios Chrysopoulos
+ * @version 1, 17/10/2026
+ */
+public class InMemoryTimeslotRepo extends TimeslotRepo
+{
+
+  Timeslot current;
+
+  /**
+   * This function makes a new timeslot, starting at the given time, the current timeslot.
+   * @param serial
+   * @param start
+   * @return
+   */
+  public Timeslot setCurrentTimeslot (int serial, Instant start)
+  {
+    current = new Timeslot(serial, start, current);
+    return current;
+  }
+
+  @Override
+  public Timeslot currentTimeslot ()
+  {
+    return current;
+  }
+
+  public void clear ()
+  {
+    current = null;
+  }
+
+}
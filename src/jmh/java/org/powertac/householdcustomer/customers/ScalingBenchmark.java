@@ -0,0 +1,183 @@
+/*
+ * Copyright 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS,  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.powertac.householdcustomer.customers;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Vector;
+
+import org.joda.time.Instant;
+import org.powertac.common.TimeService;
+import org.powertac.common.configurations.HouseholdConstants;
+
+/**
+ * This benchmark sweeps the number of houses of a village and writes, for each size, the
+ * initialization time, the step time and the heap retained by persons, appliances and the rest as a
+ * comma separated table. Arguments are name=value pairs: sizes and out.
+ * @author Antonios Chrysopoulos
+ * @version 1, 17/10/2026
+ */
+public class ScalingBenchmark
+{
+
+  static final String HEADER = "houses,households,persons,appliances,status,init_ms,step_ms,retained_bytes,bytes_per_household,bytes_per_person,bytes_per_appliance";
+
+  public static void main (String[] args) throws IOException
+  {
+    String sizes = "10,100,1000,10000";
+    String out = null;
+    for (String arg : args) {
+      String[] pair = arg.split("=", 2);
+      if (pair.length != 2)
+        throw new IllegalArgumentException("Arguments are given as name=value: " + arg);
+      if (pair[0].equals("sizes"))
+        sizes = pair[1];
+      else if (pair[0].equals("out"))
+        out = pair[1];
+      else
+        throw new IllegalArgumentException("Unknown argument " + pair[0]);
+    }
+
+    BenchmarkSupport.setUp();
+    Writer writer = (out == null) ? new PrintWriter(System.out) : new FileWriter(out);
+    PrintWriter table = new PrintWriter(writer);
+    try {
+      table.println(HEADER);
+      table.flush();
+      for (String size : sizes.split(",")) {
+        String row = measure(Integer.parseInt(size.trim()));
+        table.println(row);
+        table.flush();
+        if (row.contains(",oom,"))
+          break;
+      }
+    } finally {
+      if (out != null)
+        table.close();
+    }
+  }
+
+  /**
+   * This function builds a village with the given number of houses of each type and measures it.
+   * @param houses
+   * @return the row of the table for this size
+   */
+  static String measure (int houses)
+  {
+    int households = 4 * houses;
+    long before = usedHeap();
+    Village village = null;
+    int persons = 0, appliances = 0;
+    long initialization = 0, step = 0;
+
+    try {
+      long start = System.nanoTime();
+      village = BenchmarkSupport.createVillage(BenchmarkSupport.createConfiguration(houses));
+      initialization = System.nanoTime() - start;
+
+      village.subscribeDefault();
+      TimeService timeService = BenchmarkSupport.getTimeService();
+      long base = BenchmarkSupport.CURRENT_DAY * TimeService.DAY;
+      start = System.nanoTime();
+      for (int hour = 0; hour < HouseholdConstants.HOURS_OF_DAY; hour++) {
+        timeService.setCurrentTime(new Instant(base + hour * TimeService.HOUR));
+        village.step();
+      }
+      step = (System.nanoTime() - start) / HouseholdConstants.HOURS_OF_DAY;
+      timeService.setCurrentTime(new Instant(base));
+    } catch (OutOfMemoryError e) {
+      village = null;
+      BenchmarkSupport.getTariffSubscriptionRepo().clear();
+      return format(houses, households, 0, 0, "oom", 0, 0, 0, 0, 0, 0);
+    }
+
+    Vector<Household> all = getHouseholds(village);
+    for (Household household : all) {
+      persons += household.members.size();
+      appliances += household.appliances.size();
+    }
+    long retained = usedHeap() - before;
+
+    // The persons and the appliances are reachable only from their households, so the heap freed
+    // when they are taken away is the heap they retain.
+    long withPersons = usedHeap();
+    for (Household household : all)
+      household.members.clear();
+    long withAppliances = usedHeap();
+    for (Household household : all)
+      household.appliances.clear();
+    long withHouseholds = usedHeap();
+
+    all = null;
+    village = null;
+    BenchmarkSupport.getTariffSubscriptionRepo().clear();
+    long after = usedHeap();
+
+    long personBytes = withPersons - withAppliances;
+    long applianceBytes = withAppliances - withHouseholds;
+    long householdBytes = withHouseholds - after;
+
+    return format(houses, households, persons, appliances, "ok", initialization, step, retained, ratio(householdBytes, households), ratio(personBytes, persons),
+        ratio(applianceBytes, appliances));
+  }
+
+  static Vector<Household> getHouseholds (Village village)
+  {
+    Vector<Household> result = new Vector<Household>();
+    result.addAll(village.notShiftingHouses);
+    result.addAll(village.randomlyShiftingHouses);
+    result.addAll(village.regularlyShiftingHouses);
+    result.addAll(village.smartShiftingHouses);
+    return result;
+  }
+
+  static String format (int houses, int households, int persons, int appliances, String status, long initialization, long step, long retained,
+      long perHousehold, long perPerson, long perAppliance)
+  {
+    return String.format(Locale.ROOT, "%d,%d,%d,%d,%s,%.3f,%.3f,%d,%d,%d,%d", houses, households, persons, appliances, status, initialization / 1e6, step / 1e6,
+        retained, perHousehold, perPerson, perAppliance);
+  }
+
+  static long ratio (long bytes, int count)
+  {
+    return (count == 0) ? 0 : bytes / count;
+  }
+
+  /**
+   * This function returns the least heap used over a few collections, which is close to the heap
+   * of the reachable objects.
+   * @return
+   */
+  static long usedHeap ()
+  {
+    Runtime runtime = Runtime.getRuntime();
+    long result = Long.MAX_VALUE;
+    for (int i = 0; i < 4; i++) {
+      System.gc();
+      try {
+        Thread.sleep(20);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      result = Math.min(result, runtime.totalMemory() - runtime.freeMemory());
+    }
+    return result;
+  }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS,  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.powertac.householdcustomer.customers;
+
+import java.util.Vector;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.Instant;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.powertac.common.TimeService;
+import org.powertac.householdcustomer.appliances.Appliance;
+import org.powertac.householdcustomer.tariffs.PriceCurve;
+
+/**
+ * This benchmark measures the daily shifting of each kind of appliance of a village for a flat and
+ * a time of use tariff.
+ * @author Antonios Chrysopoulos
+ * @version 1, 17/10/2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShiftingBenchmark
+{
+
+  /** The number of houses of each of the four types in the village. */
+  @Param({ "25" })
+  int houses;
+
+  /** The kind of appliance shifted. */
+  @Param({ "CirculationPump", "ConsumerElectronics", "Dishwasher", "Dryer", "Freezer", "ICT", "Lights", "Others", "Refrigerator", "SpaceHeater", "Stove",
+      "WashingMachine", "WaterHeater" })
+  String kind;
+
+  /** The tariff the appliances are shifted for. */
+  @Param({ "flat", "timeOfUse" })
+  String tariff;
+
+  Vector<Appliance> appliances = new Vector<Appliance>();
+  PriceCurve prices;
+  int day = BenchmarkSupport.CURRENT_DAY;
+
+  @Setup
+  public void setUp ()
+  {
+    BenchmarkSupport.setUp();
+    Village village = BenchmarkSupport.createVillage(BenchmarkSupport.createConfiguration(houses));
+
+    Vector<Household> households = new Vector<Household>();
+    households.addAll(village.notShiftingHouses);
+    households.addAll(village.randomlyShiftingHouses);
+    households.addAll(village.regularlyShiftingHouses);
+    households.addAll(village.smartShiftingHouses);
+    for (Household household : households)
+      for (Appliance appliance : household.getAppliances())
+        if (appliance.getClass().getSimpleName().equals(kind))
+          appliances.add(appliance);
+
+    Instant start = new Instant(day * TimeService.DAY);
+    if (tariff.equals("flat"))
+      prices = new PriceCurve(BenchmarkSupport.createFlatTariff(), start);
+    else
+      prices = new PriceCurve(BenchmarkSupport.createTimeOfUseTariff(), start);
+  }
+
+  @Benchmark
+  public void dailyShifting (Blackhole blackhole)
+  {
+    for (Appliance appliance : appliances)
+      blackhole.consume(appliance.dailyShifting(prices, day, appliance.getShiftingStream(day)));
+  }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS,  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.powertac.householdcustomer.customers;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.powertac.common.Tariff;
+import org.powertac.common.configurations.HouseholdConstants;
+
+/**
+ * This benchmark measures the aggregation of the load of a village, its consumption and the cost
+ * estimation of a flat and a time of use tariff, for a number of houses.
+ * @author Antonios Chrysopoulos
+ * @version 1, 17/10/2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VillageBenchmark
+{
+
+  /** The number of houses of each of the four types in the village. */
+  @Param({ "1", "10", "50" })
+  int houses;
+
+  /** The tariff whose cost is estimated. */
+  @Param({ "flat", "timeOfUse" })
+  String tariff;
+
+  Village village;
+  Tariff evaluatedTariff;
+
+  @Setup
+  public void setUp ()
+  {
+    BenchmarkSupport.setUp();
+    village = BenchmarkSupport.createVillage(BenchmarkSupport.createConfiguration(houses));
+    if (tariff.equals("flat"))
+      evaluatedTariff = BenchmarkSupport.createFlatTariff();
+    else
+      evaluatedTariff = BenchmarkSupport.createTimeOfUseTariff();
+  }
+
+  @Benchmark
+  public void fillAggWeeklyLoad ()
+  {
+    for (Portion portion : Portion.values())
+      village.fillAggWeeklyLoad(portion);
+  }
+
+  @Benchmark
+  public double getConsumptionByTimeslot ()
+  {
+    double summary = 0;
+    for (int serial = 0; serial < HouseholdConstants.DAYS_OF_WEEK * HouseholdConstants.HOURS_OF_DAY; serial++)
+      summary += village.getConsumptionByTimeslot(serial);
+    return summary;
+  }
+
+  @Benchmark
+  public double costEstimation ()
+  {
+    return village.costEstimation(evaluatedTariff);
+  }
+
+}
@@ -77,6 +77,9 @@ public class HouseholdCustomerInitializationService implements InitializationSer
       householdCustomerService.init(config);
     } catch (IOException e) {
       log.error("Error with configuration file");
+    } catch (IllegalArgumentException e) {
+      log.error("Error with configuration file: " + e.getMessage());
+      return "fail";
     }
     return "HouseholdCustomer";
   }
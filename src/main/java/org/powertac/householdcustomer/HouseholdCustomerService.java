@@ -21,6 +21,8 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.log4j.Logger;
 import org.joda.time.Instant;
@@ -28,6 +30,8 @@ import org.powertac.common.CustomerInfo;
 import org.powertac.common.PluginConfig;
 import org.powertac.common.RandomSeed;
 import org.powertac.common.Tariff;
+import org.powertac.common.TimeService;
+import org.powertac.common.configurations.HouseholdConstants;
 import org.powertac.common.enumerations.CustomerType;
 import org.powertac.common.enumerations.PowerType;
 import org.powertac.common.interfaces.BrokerMessageListener;
@@ -35,7 +39,11 @@ import org.powertac.common.interfaces.NewTariffListener;
 import org.powertac.common.interfaces.TariffMarket;
 import org.powertac.common.interfaces.TimeslotPhaseProcessor;
 import org.powertac.common.repo.RandomSeedRepo;
+import org.powertac.householdcustomer.configurations.HouseholdConfiguration;
+import org.powertac.householdcustomer.customers.PopulationSnapshot;
 import org.powertac.householdcustomer.customers.Village;
+import org.powertac.householdcustomer.customers.VillageInitializationTask;
+import org.powertac.householdcustomer.tariffs.TariffEvaluationCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -61,6 +69,9 @@ public class HouseholdCustomerService extends TimeslotPhaseProcessor implements
   @Autowired
   private RandomSeedRepo randomSeedRepo;
 
+  @Autowired
+  private TimeService timeService;
+
   /** Random Number Generator */
   private RandomSeed rs1;
 
@@ -68,10 +79,10 @@ public class HouseholdCustomerService extends TimeslotPhaseProcessor implements
   private String configFile = "../household-customer/src/org/powertac/common/configurations/Household.properties";
 
   /**
-   * This is the configuration file that will be utilized to pass the parameters that can be
-   * adjusted by user
+   * This is the configuration, parsed from the configuration file, that will be utilized to pass
+   * the parameters that can be adjusted by user
    */
-  Properties configuration = new Properties();
+  HouseholdConfiguration configuration;
 
   /** List of the Generic Customers in the competition */
   ArrayList<Village> villageList;
@@ -79,6 +90,12 @@ public class HouseholdCustomerService extends TimeslotPhaseProcessor implements
   /** The Tariffs that will receive the New Tariff Listener */
   List<Tariff> publishedTariffs = new ArrayList<Tariff>();
 
+  /** The cache of the tariff evaluations of the villages */
+  TariffEvaluationCache evaluationCache = new TariffEvaluationCache();
+
+  /** The fork-join pool used by the villages for the evaluation of the tariffs in parallel */
+  ForkJoinPool evaluationPool;
+
   /** This is the constructor of the Household Consumer Service. */
   public HouseholdCustomerService ()
   {
@@ -89,46 +106,133 @@ public class HouseholdCustomerService extends TimeslotPhaseProcessor implements
   /**
    * This is called once at the beginning of each game by the initialization service. Here is where
    * you do per-game setup. This will create a listener for our service, in order to get the new
-   * tariff as well as create the generic Consumers that will be running in the game.
+   * tariff as well as create the generic Consumers that will be running in the game. When the
+   * snapshots are enabled, the villages are restored from the snapshot of the same configuration
+   * and seeds, or written to it after they are initialized.
    * @throws IOException
    */
   void init (PluginConfig config) throws IOException
   {
     villageList.clear();
+    evaluationCache.clear();
     tariffMarketService.registerNewTariffListener(this);
     rs1 = randomSeedRepo.getRandomSeed("HouseholdCustomerService", 1, "Household Customer Models");
 
     configFile = config.getConfigurationValue("configFile");
     super.init();
 
+    Properties properties = new Properties();
     InputStream cfgFile = null;
     cfgFile = new FileInputStream(configFile);
-    configuration.load(cfgFile);
+    properties.load(cfgFile);
     cfgFile.close();
+    configuration = new HouseholdConfiguration(properties);
 
-    int numberOfVillages = Integer.parseInt(configuration.getProperty("NumberOfVillages"));
-
-    int nshouses = Integer.parseInt(configuration.getProperty("NotShiftingCustomers"));
-    int rashouses = Integer.parseInt(configuration.getProperty("RandomlyShiftingCustomers"));
-    int reshouses = Integer.parseInt(configuration.getProperty("RegularlyShiftingCustomers"));
-    int sshouses = Integer.parseInt(configuration.getProperty("SmartShiftingCustomers"));
+    int numberOfVillages = configuration.numberOfVillages;
+    int villagePopulation = configuration.getVillagePopulation();
 
-    int villagePopulation = nshouses + rashouses + reshouses + sshouses;
+    createEvaluationPool();
 
-    for (int i = 1; i < numberOfVillages + 1; i++) {
-      CustomerInfo villageInfo = new CustomerInfo("Household " + i, villagePopulation).withCustomerType(CustomerType.CustomerHousehold).addPowerType(PowerType.CONSUMPTION);
+    long[] seeds = new long[numberOfVillages];
+    for (int i = 0; i < numberOfVillages; i++) {
+      CustomerInfo villageInfo = new CustomerInfo("Household " + (i + 1), villagePopulation).withCustomerType(CustomerType.CustomerHousehold).addPowerType(PowerType.CONSUMPTION);
       Village village = new Village(villageInfo);
-      village.initialize(configuration, rs1);
+      village.setEvaluationCache(evaluationCache);
+      village.setEvaluationPool(evaluationPool);
       villageList.add(village);
+      seeds[i] = rs1.nextLong();
+    }
+
+    PopulationSnapshot snapshot = null;
+    if (configuration.isSnapshotEnabled())
+      snapshot = new PopulationSnapshot(configuration.snapshotDirectory, properties, configuration, seeds);
+
+    if (snapshot == null || !snapshot.restore(villageList, configuration)) {
+      if (configuration.parallelInitialization) {
+        initializeInParallel(seeds);
+      } else {
+        for (int i = 0; i < numberOfVillages; i++)
+          villageList.get(i).initialize(configuration, new Random(seeds[i]));
+      }
+      if (snapshot != null)
+        snapshot.save(villageList);
+    }
+
+    for (Village village : villageList)
       village.subscribeDefault();
+  }
+
+  /**
+   * This function initializes the villages of the competition with their households in a fork-join
+   * pool. The villages have been created and the seed of each one drawn in order before the pool
+   * starts, and the default subscriptions are made in the same order after it finishes, so the
+   * result does not depend on the number of threads.
+   * @param seeds
+   */
+  void initializeInParallel (long[] seeds)
+  {
+    int threads = configuration.initializationThreads;
+    ForkJoinPool pool = (threads > 0) ? new ForkJoinPool(threads) : new ForkJoinPool();
+    List<VillageInitializationTask> tasks = new ArrayList<VillageInitializationTask>();
+
+    for (int i = 0; i < villageList.size(); i++)
+      tasks.add(new VillageInitializationTask(villageList.get(i), configuration, seeds[i]));
+
+    for (VillageInitializationTask task : tasks)
+      pool.execute(task);
+    for (VillageInitializationTask task : tasks)
+      task.join();
+    pool.shutdown();
+  }
+
+  /**
+   * This function creates the fork-join pool used for the evaluation of the tariffs in parallel, if
+   * the parallel evaluation is enabled in the configuration file. The pool of a previous game is
+   * shut down.
+   */
+  void createEvaluationPool ()
+  {
+    shutDown();
+
+    if (configuration.parallelEvaluation) {
+      int threads = configuration.evaluationThreads;
+      evaluationPool = (threads > 0) ? new ForkJoinPool(threads) : new ForkJoinPool();
     }
+  }
 
+  /**
+   * This function shuts down the fork-join pool of the tariff evaluation at the end of the game, so
+   * its threads do not outlive the game. The villages evaluate any later tariffs one after another.
+   */
+  public void shutDown ()
+  {
+    if (evaluationPool == null)
+      return;
+    evaluationPool.shutdown();
+    evaluationPool = null;
+    for (Village village : villageList)
+      village.setEvaluationPool(null);
+  }
+
+  /**
+   * This function returns true if the given time is in the last timeslot of the game. A game with a
+   * rolling window of load has no last timeslot known in advance.
+   * @param time
+   * @return
+   */
+  boolean isLastTimeslot (Instant time)
+  {
+    if (configuration == null || configuration.isRollingWindow())
+      return false;
+    long serial = (time.getMillis() - timeService.getBase()) / TimeService.HOUR;
+    return serial >= (HouseholdConstants.DAYS_OF_COMPETITION + HouseholdConstants.DAYS_OF_BOOTSTRAP) * HouseholdConstants.HOURS_OF_DAY - 1;
   }
 
   @Override
   public void publishNewTariffs (List<Tariff> tariffs)
   {
     publishedTariffs = tariffs;
+    evaluationCache.evictInactive();
     for (Village village : villageList) {
       village.possibilityEvaluationNewTariffs(publishedTariffs);
     }
@@ -141,11 +245,21 @@ public class HouseholdCustomerService extends TimeslotPhaseProcessor implements
     return configFile;
   }
 
+  public HouseholdConfiguration getConfiguration ()
+  {
+    return configuration;
+  }
+
   public List<Village> getVillageList ()
   {
     return villageList;
   }
 
+  public TariffEvaluationCache getEvaluationCache ()
+  {
+    return evaluationCache;
+  }
+
   /**
    * This function finds all the available Generic Consumers in the competition and creates a list
    * of their customerInfo.
@@ -169,6 +283,8 @@ public class HouseholdCustomerService extends TimeslotPhaseProcessor implements
         village.step();
       }
     }
+    if (isLastTimeslot(time))
+      shutDown();
   }
 
   public void receiveMessage (Object msg)
@@ -16,21 +16,22 @@
 
 package org.powertac.householdcustomer.appliances;
 
+import java.io.Serializable;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.ListIterator;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Properties;
 import java.util.Random;
 import java.util.Set;
-import java.util.Vector;
 
 import org.apache.log4j.Logger;
-import org.joda.time.Instant;
-import org.powertac.common.Tariff;
 import org.powertac.common.configurations.HouseholdConstants;
+import org.powertac.householdcustomer.configurations.HouseholdConfiguration;
 import org.powertac.householdcustomer.customers.Household;
+import org.powertac.householdcustomer.customers.LoadStore;
+import org.powertac.householdcustomer.random.RandomStreams;
+import org.powertac.householdcustomer.tariffs.PriceCurve;
 
 /**
  * A appliance domain instance represents a single appliance inside a household. There are different
@@ -39,9 +40,11 @@ import org.powertac.householdcustomer.customers.Household;
  * @author Antonios Chrysopoulos
  * @version 1, 13/02/2011
  */
-public class Appliance
+public class Appliance implements Serializable
 {
 
+  private static final long serialVersionUID = 1L;
+
   /**
    * logger for trace logging -- use log.info(), log.warn(), and log.error() appropriately. Use
    * log.debug() for output you want to see in testing or debugging.
@@ -100,41 +103,63 @@ public class Appliance
    * This is a vector containing the quarters that the appliance should start functioning (before
    * shifting)
    */
-  Vector<Vector<Boolean>> operationVector = new Vector<Vector<Boolean>>();
+  OperationCalendar operationVector = new OperationCalendar();
 
   /**
    * This is a vector containing the quarters that the appliance could have started functioning
    * (before shifting)
    */
-  Vector<Vector<Boolean>> possibilityOperationVector = new Vector<Vector<Boolean>>();
+  OperationCalendar possibilityOperationVector = new OperationCalendar();
+
+  /** This is an array containing the load of consumption of the appliance during the day */
+  int[] loadVector = new int[HouseholdConstants.QUARTERS_OF_DAY];
 
-  /** This is a vector containing the load of consumption of the appliance during the day */
-  Vector<Integer> loadVector = new Vector<Integer>();
+  /** This variable shows the next quarter of the day that will be filled in the load array */
+  int loadQuarter;
 
   /**
-   * This is a vector that contains the operation days of each appliance for the competition's
+   * This is a bit set that contains the operation days of each appliance for the competition's
    * duration.
    */
-  Vector<Boolean> operationDaysVector = new Vector<Boolean>();
+  BitSet operationDaysVector = new BitSet();
 
   /**
-   * This is a vector containing the daily operation of the appliance (after shifting due to any
-   * cause)
+   * This is the mask of the quarters of the daily operation of the appliance (after shifting due to
+   * any cause)
    */
-  Vector<Boolean> dailyOperation = new Vector<Boolean>();
+  long[] dailyOperation = OperationCalendar.createDay();
+
+  /** This variable shows the next quarter of the day that will be filled in the operation mask */
+  int operationQuarter;
 
   /**
    * This is a vector containing the weekly operation of the appliance (after shifting due to any
    * cause)
    */
-  Vector<Vector<Boolean>> weeklyOperation = new Vector<Vector<Boolean>>();
+  OperationCalendar weeklyOperation = new OperationCalendar();
 
-  /** This is a vector containing the weekly load of the appliance (after shifting due to any cause) */
-  Vector<Vector<Integer>> weeklyLoadVector = new Vector<Vector<Integer>>();
+  /**
+   * This is the store containing the load of the appliance for all the days of the competition
+   * (after shifting due to any cause). It is created by the household installing the appliance,
+   * with the days of its window.
+   */
+  LoadStore weeklyLoad;
+
+  /** This variable shows the number of days that have been filled in the weekly load store */
+  int loadDays;
 
   /** This variable contains the amount of times the appliance may work through the week or day */
   int times;
 
+  /** This is the random number generator owned by the appliance, used for its schedule */
+  Random stream;
+
+  /**
+   * This is the random streams facility owned by the appliance, from which the daily shifting
+   * derives a stream for each day
+   */
+  RandomStreams shiftingStreams;
+
   /** This function returns the power variable of the appliance */
   public int getPower ()
   {
@@ -160,19 +185,57 @@ public class Appliance
   }
 
   /** This function returns the weekly operation vector of the appliance */
-  public Vector<Vector<Boolean>> getWeeklyOperation ()
+  public OperationCalendar getWeeklyOperation ()
   {
     return weeklyOperation;
   }
 
-  /** This function returns the weekly load vector of the appliance */
-  public Vector<Vector<Integer>> getWeeklyLoadVector ()
+  /** This function returns the weekly load store of the appliance */
+  public LoadStore getWeeklyLoad ()
   {
-    return weeklyLoadVector;
+    return weeklyLoad;
+  }
+
+  /** This function returns the random number generator used for the schedule of the appliance */
+  public Random getStream ()
+  {
+    return stream;
+  }
+
+  /**
+   * This function returns the random number generator used for the shifting of the appliance in a
+   * certain day. The stream depends only on the appliance and the day, so every tariff evaluated
+   * for the same day sees the same draws, no matter in which order or thread it is evaluated.
+   * @param day
+   * @return
+   */
+  public Random getShiftingStream (int day)
+  {
+    return shiftingStreams.createStream(day);
+  }
+
+  /**
+   * This function reseeds the given generator as the shifting stream of the appliance in a certain
+   * day, so that the appliances shifted one after another do not each create a generator of their
+   * own. The generator must come from the engine of the streams of the appliance.
+   * @param day
+   * @param gen
+   * @return
+   */
+  public Random getShiftingStream (int day, Random gen)
+  {
+    return shiftingStreams.reseed(gen, day);
+  }
+
+  /** This function sets the random number generators owned by the appliance */
+  public void setStreams (Random stream, RandomStreams shiftingStreams)
+  {
+    this.stream = stream;
+    this.shiftingStreams = shiftingStreams;
   }
 
   /** This function helps to set the operation vector vector of the appliance */
-  public void setOperationVector (Vector<Vector<Boolean>> v)
+  public void setOperationVector (OperationCalendar v)
   {
     operationVector = v;
   }
@@ -201,9 +264,9 @@ public class Appliance
    * @param day
    * @return
    */
-  Vector<Boolean> createDailyPossibilityOperationVector (int day)
+  long[] createDailyPossibilityOperationVector (int day)
   {
-    return new Vector<Boolean>();
+    return OperationCalendar.createDay();
   }
 
   /**
@@ -242,7 +305,7 @@ public class Appliance
    * @param gen
    * @return
    */
-  public void initialize (String household, Properties conf, Random gen)
+  public void initialize (String household, HouseholdConfiguration conf, Random gen)
   {
 
   }
@@ -250,17 +313,27 @@ public class Appliance
   /**
    * This is a complex function that changes the appliance's function in order to have the most cost
    * effective operation load in a day schedule.
-   * @param gen
-   * @param tariff
-   * @param now
+   * @param prices
    * @param day
+   * @param gen
    * @return
    */
-  public long[] dailyShifting (Tariff tariff, Instant now, int day, Random gen)
+  public long[] dailyShifting (PriceCurve prices, int day, Random gen)
   {
     return new long[HouseholdConstants.HOURS_OF_DAY];
   }
 
+  /**
+   * This function returns the number of hours of each shifting period of an appliance that works
+   * once in each period, at its cheapest hour, so that the appliances of its kind can be shifted
+   * in a batch. It is zero for the appliances that are shifted otherwise.
+   * @return
+   */
+  public int getShiftingInterval ()
+  {
+    return 0;
+  }
+
   /**
    * This is a simple function utilized for the creation of the function Vector that will be used in
    * the shifting procedure.
@@ -271,15 +344,80 @@ public class Appliance
   {
 
     boolean[] shiftingOperationMatrix = new boolean[HouseholdConstants.HOURS_OF_DAY];
+    int hours = getPossibleHours(day);
 
-    for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY; i++) {
-      boolean function = possibilityOperationVector.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR) || possibilityOperationVector.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR + 1)
-          || possibilityOperationVector.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR + 2) || possibilityOperationVector.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR + 3);
-      shiftingOperationMatrix[i] = function;
-    }
+    for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY; i++)
+      shiftingOperationMatrix[i] = ((hours >>> i) & 1) != 0;
     return shiftingOperationMatrix;
   }
 
+  /**
+   * This function returns the hours of a day in which the appliance could be able to function, as
+   * a mask where bit h stands for hour h, the same hours as the shifting operation matrix.
+   * @param day
+   * @return
+   */
+  int getPossibleHours (int day)
+  {
+    return possibilityOperationVector.getHours(day);
+  }
+
+  /**
+   * This function returns the possible hours of a day before the given hour.
+   * @param day
+   * @param end
+   * @return
+   */
+  int getPossibleHours (int day, int end)
+  {
+    return getPossibleHours(day) & (int) ((1L << end) - 1);
+  }
+
+  /** This function creates an empty operation mask for the day that is going to be filled. */
+  void createDailyOperation ()
+  {
+    dailyOperation = OperationCalendar.createDay();
+    operationQuarter = 0;
+  }
+
+  /**
+   * This function appends the operation of the next quarter to the operation mask of the day. Any
+   * operation beyond the last quarter of the day is dropped, as it is for the load.
+   * @param operation
+   */
+  void addOperation (boolean operation)
+  {
+    if (operation && operationQuarter < HouseholdConstants.QUARTERS_OF_DAY)
+      OperationCalendar.set(dailyOperation, operationQuarter);
+    operationQuarter++;
+  }
+
+  /** This function creates an empty load array for the day that is going to be filled. */
+  void createLoadVector ()
+  {
+    loadVector = new int[HouseholdConstants.QUARTERS_OF_DAY];
+    loadQuarter = 0;
+  }
+
+  /**
+   * This function appends the load of the next quarter to the load array of the day. Any load
+   * beyond the last quarter of the day is dropped, since it is never taken into account.
+   * @param load
+   */
+  void addLoad (int load)
+  {
+    if (loadQuarter < HouseholdConstants.QUARTERS_OF_DAY)
+      loadVector[loadQuarter] = load;
+    loadQuarter++;
+  }
+
+  /** This function stores the load array of the day as the next day of the weekly load. */
+  void addWeeklyLoad ()
+  {
+    weeklyLoad.setDay(loadDays, loadVector);
+    loadDays++;
+  }
+
   /**
    * This is the filling function of the HashMap for the Days of the Week possibilities.
    * @param sunday
@@ -339,9 +477,9 @@ public class Appliance
    * @param gen
    * @return
    */
-  Vector<Boolean> createDailyOperationVector (int times, Random gen)
+  long[] createDailyOperationVector (int times, Random gen)
   {
-    return new Vector<Boolean>();
+    return OperationCalendar.createDay();
   }
 
   /**
@@ -408,26 +546,23 @@ public class Appliance
     log.info("Weekly Operation Vector = ");
     for (int i = 0; i < HouseholdConstants.DAYS_OF_WEEK; i++) {
       log.info("Day " + (i));
-      ListIterator<Boolean> iter = operationVector.get(i).listIterator();
       for (int j = 0; j < HouseholdConstants.QUARTERS_OF_DAY; j++)
-        log.info("Quarter : " + (j + 1) + "  " + iter.next());
+        log.info("Quarter : " + (j + 1) + "  " + operationVector.get(i, j));
     }
 
     // Printing Weekly Function Vector and Load
     log.info("Weekly Operation Vector and Load = ");
     for (int i = 0; i < HouseholdConstants.DAYS_OF_WEEK; i++) {
       log.info("Day " + (i));
-      ListIterator<Boolean> iter = weeklyOperation.get(i).listIterator();
-      ListIterator<Integer> iter2 = weeklyLoadVector.get(i).listIterator();
       for (int j = 0; j < HouseholdConstants.QUARTERS_OF_DAY; j++)
-        log.info("Quarter " + (j + 1) + " = " + iter.next() + "   Load = " + iter2.next());
+        log.info("Quarter " + (j + 1) + " = " + weeklyOperation.get(i, j) + "   Load = " + weeklyLoad.getLoad(i, j));
     }
   }
 
   /** This function fills out the daily function of an appliance for the day. */
-  public Vector<Boolean> fillDailyFunction ()
+  public long[] fillDailyFunction ()
   {
-    return new Vector<Boolean>();
+    return OperationCalendar.createDay();
   }
 
   /**
@@ -450,13 +585,30 @@ public class Appliance
   {
 
     // Add the data values for each day of competition and each quarter of each day.
-    for (int i = 0; i < weeklyOperation.size(); i++) {
-      boolean function = false;
-      for (int j = 0; j < HouseholdConstants.QUARTERS_OF_DAY; j++) {
-        function = function || weeklyOperation.get(i).get(j);
-      }
-      operationDaysVector.add(function);
-    }
+    for (int i = weeklyOperation.getFirstDay(); i < weeklyOperation.size(); i++)
+      operationDaysVector.set(i, weeklyOperation.isOperating(i));
+  }
+
+  /**
+   * This function creates the store of the load of the appliance, holding the given number of days.
+   * @param days
+   */
+  public void createWeeklyLoad (int days)
+  {
+    weeklyLoad = new LoadStore(days);
+  }
+
+  /**
+   * This function releases the load and the operation of the appliance for all the days before the
+   * given day.
+   * @param day
+   */
+  public void release (int day)
+  {
+    weeklyLoad.release(day);
+    possibilityOperationVector.release(day);
+    weeklyOperation.release(day);
+    operationDaysVector.clear(0, day);
   }
 
   public String toString ()
@@ -15,11 +15,11 @@
  */
 package org.powertac.householdcustomer.appliances;
 
-import java.util.Properties;
 import java.util.Random;
 import java.util.Vector;
 
 import org.powertac.common.configurations.HouseholdConstants;
+import org.powertac.householdcustomer.configurations.HouseholdConfiguration;
 
 /**
  * Circulation Pump is the appliance that brings water to the household. It works most of the hours
@@ -31,6 +31,8 @@ import org.powertac.common.configurations.HouseholdConstants;
 public class CirculationPump extends NotShiftingAppliance
 {
 
+  private static final long serialVersionUID = 1L;
+
   /**
    * Variable that presents the mean possibility to utilize the appliance each quarter of the day
    * that someone is present in the household.
@@ -38,13 +40,13 @@ public class CirculationPump extends NotShiftingAppliance
   double percentage;
 
   @Override
-  public void initialize (String household, Properties conf, Random gen)
+  public void initialize (String household, HouseholdConfiguration conf, Random gen)
   {
 
     // Filling the base variables
     name = household + " CirculationPump";
-    saturation = Double.parseDouble(conf.getProperty("CirculationPumpSaturation"));
-    percentage = Double.parseDouble(conf.getProperty("CirculationPumpPercentage"));
+    saturation = conf.circulationPumpSaturation;
+    percentage = conf.circulationPumpPercentage;
 
     consumptionShare = (float) (HouseholdConstants.PERCENTAGE * (HouseholdConstants.CIRCULATION_PUMP_CONSUMPTION_SHARE_VARIANCE * gen.nextGaussian() + HouseholdConstants.CIRCULATION_PUMP_CONSUMPTION_SHARE_MEAN));
     baseLoadShare = HouseholdConstants.PERCENTAGE * HouseholdConstants.CIRCULATION_PUMP_BASE_LOAD_SHARE;
@@ -58,18 +60,11 @@ public class CirculationPump extends NotShiftingAppliance
   }
 
   @Override
-  Vector<Boolean> createDailyPossibilityOperationVector (int day)
+  long[] createDailyPossibilityOperationVector (int day)
   {
 
-    Vector<Boolean> possibilityDailyOperation = new Vector<Boolean>();
-
     // The pump can work each quarter someone is in the premises
-    for (int j = 0; j < HouseholdConstants.QUARTERS_OF_DAY; j++) {
-      if (applianceOf.isEmpty(day, j) == false)
-        possibilityDailyOperation.add(true);
-      else
-        possibilityDailyOperation.add(false);
-    }
+    long[] possibilityDailyOperation = applianceOf.getPresentMask(day);
 
     return possibilityDailyOperation;
   }
@@ -79,23 +74,23 @@ public class CirculationPump extends NotShiftingAppliance
   {
 
     // Initializing and Creating auxiliary variables
-    loadVector = new Vector<Integer>();
-    dailyOperation = new Vector<Boolean>();
-    Vector<Boolean> v = new Vector<Boolean>();
+    createLoadVector();
+    createDailyOperation();
+    long[] present = applianceOf.getPresentMask(weekday);
+    long[] v = OperationCalendar.createDay();
 
     // For each quarter of a day
     for (int i = 0; i < HouseholdConstants.QUARTERS_OF_DAY; i++) {
-      if (applianceOf.isEmpty(weekday, i) == false && (gen.nextFloat() > percentage)) {
-        loadVector.add(power);
-        dailyOperation.add(true);
-        v.add(true);
+      if (OperationCalendar.get(present, i) && (gen.nextFloat() > percentage)) {
+        addLoad(power);
+        addOperation(true);
+        OperationCalendar.set(v, i);
       } else {
-        loadVector.add(0);
-        dailyOperation.add(false);
-        v.add(false);
+        addLoad(0);
+        addOperation(false);
       }
     }
-    weeklyLoadVector.add(loadVector);
+    addWeeklyLoad();
     weeklyOperation.add(dailyOperation);
     operationVector.add(v);
   }
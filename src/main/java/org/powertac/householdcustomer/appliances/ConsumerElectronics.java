@@ -16,11 +16,11 @@
 
 package org.powertac.householdcustomer.appliances;
 
-import java.util.Properties;
 import java.util.Random;
 import java.util.Vector;
 
 import org.powertac.common.configurations.HouseholdConstants;
+import org.powertac.householdcustomer.configurations.HouseholdConfiguration;
 
 /**
  * Consumer Electronics are the appliances that are utilized mainly for work or enteratinment in the
@@ -32,17 +32,19 @@ import org.powertac.common.configurations.HouseholdConstants;
 public class ConsumerElectronics extends NotShiftingAppliance
 {
 
+  private static final long serialVersionUID = 1L;
+
   @Override
-  public void initialize (String household, Properties conf, Random gen)
+  public void initialize (String household, HouseholdConfiguration conf, Random gen)
   {
     // Filling the base variables
     name = household + " ConsumerElectronics";
-    saturation = Double.parseDouble(conf.getProperty("ConsumerElectronicsSaturation"));
+    saturation = conf.consumerElectronicsSaturation;
     consumptionShare = (float) (HouseholdConstants.PERCENTAGE * (HouseholdConstants.CONSUMER_ELECTRONICS_CONSUMPTION_SHARE_VARIANCE * gen.nextGaussian() + HouseholdConstants.CONSUMER_ELECTRONICS_CONSUMPTION_SHARE_MEAN));
     baseLoadShare = HouseholdConstants.PERCENTAGE * HouseholdConstants.CONSUMER_ELECTRONICS_BASE_LOAD_SHARE;
     power = (int) (HouseholdConstants.CONSUMER_ELECTRONICS_POWER_VARIANCE * gen.nextGaussian() + HouseholdConstants.CONSUMER_ELECTRONICS_POWER_MEAN);
     cycleDuration = HouseholdConstants.CONSUMER_ELECTRONICS_DURATION_CYCLE;
-    times = Integer.parseInt(conf.getProperty("ConsumerElectronicsDailyTimes")) + applianceOf.getMembers().size();
+    times = conf.consumerElectronicsDailyTimes + applianceOf.getMembers().size();
     od = false;
     inUse = false;
     probabilitySeason = fillSeason(HouseholdConstants.CONSUMER_ELECTRONICS_POSSIBILITY_SEASON_1, HouseholdConstants.CONSUMER_ELECTRONICS_POSSIBILITY_SEASON_2,
@@ -56,36 +58,36 @@ public class ConsumerElectronics extends NotShiftingAppliance
   public void fillDailyFunction (int weekday, Random gen)
   {
     // Initializing and Creating auxiliary variables
-    loadVector = new Vector<Integer>();
-    dailyOperation = new Vector<Boolean>();
-    Vector<Boolean> operation = operationVector.get(weekday);
+    createLoadVector();
+    createDailyOperation();
+    long[] present = applianceOf.getPresentMask(weekday);
 
     // For each quarter of a day
     for (int i = 0; i < HouseholdConstants.QUARTERS_OF_DAY; i++) {
-      if (operation.get(i) == true) {
+      if (operationVector.get(weekday, i)) {
         boolean flag = true;
         int counter = 0;
         while ((flag) && (i < HouseholdConstants.QUARTERS_OF_DAY) && (counter >= 0)) {
-          if (applianceOf.isEmpty(weekday, i) == false) {
-            loadVector.add(power);
-            dailyOperation.add(true);
+          if (OperationCalendar.get(present, i)) {
+            addLoad(power);
+            addOperation(true);
             counter--;
             if (counter < 0)
               flag = false;
           } else {
-            loadVector.add(0);
-            dailyOperation.add(false);
+            addLoad(0);
+            addOperation(false);
             i++;
-            if (i < HouseholdConstants.QUARTERS_OF_DAY && operation.get(i) == true)
+            if (i < HouseholdConstants.QUARTERS_OF_DAY && operationVector.get(weekday, i))
               counter++;
           }
         }
       } else {
-        loadVector.add(0);
-        dailyOperation.add(false);
+        addLoad(0);
+        addOperation(false);
       }
     }
-    weeklyLoadVector.add(loadVector);
+    addWeeklyLoad();
     weeklyOperation.add(dailyOperation);
   }
 
@@ -98,18 +100,11 @@ public class ConsumerElectronics extends NotShiftingAppliance
   }
 
   @Override
-  Vector<Boolean> createDailyPossibilityOperationVector (int day)
+  long[] createDailyPossibilityOperationVector (int day)
   {
 
-    Vector<Boolean> possibilityDailyOperation = new Vector<Boolean>();
-
     // The consumers electronics can work each quarter someone is in the premises
-    for (int j = 0; j < HouseholdConstants.QUARTERS_OF_DAY; j++) {
-      if (applianceOf.isEmpty(day, j) == false)
-        possibilityDailyOperation.add(true);
-      else
-        possibilityDailyOperation.add(false);
-    }
+    long[] possibilityDailyOperation = applianceOf.getPresentMask(day);
     return possibilityDailyOperation;
   }
 }
@@ -20,15 +20,13 @@ import java.util.Iterator;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Properties;
 import java.util.Random;
 import java.util.Set;
 import java.util.Vector;
 
-import org.joda.time.Instant;
-import org.powertac.common.Tariff;
-import org.powertac.common.TimeService;
 import org.powertac.common.configurations.HouseholdConstants;
+import org.powertac.householdcustomer.configurations.HouseholdConfiguration;
+import org.powertac.householdcustomer.tariffs.PriceCurve;
 
 /**
  * Dishwasher are used in order to wash easily the dishes after dinner. There are several programs
@@ -40,6 +38,8 @@ import org.powertac.common.configurations.HouseholdConstants;
 public class Dishwasher extends SemiShiftingAppliance
 {
 
+  private static final long serialVersionUID = 1L;
+
   /**
    * The function mode of the dishwasher. For more info, read the details in the enumerations.Mode
    * java file
@@ -47,11 +47,11 @@ public class Dishwasher extends SemiShiftingAppliance
   // Mode mode = Mode.One
 
   @Override
-  public void initialize (String household, Properties conf, Random gen)
+  public void initialize (String household, HouseholdConfiguration conf, Random gen)
   {
     // Filling the base variables
     name = household + " Dishwasher";
-    saturation = Double.parseDouble(conf.getProperty("DishwasherSaturation"));
+    saturation = conf.dishwasherSaturation;
     consumptionShare = (float) (HouseholdConstants.PERCENTAGE * (HouseholdConstants.DISHWASHER_CONSUMPTION_SHARE_VARIANCE * gen.nextGaussian() + HouseholdConstants.DISHWASHER_CONSUMPTION_SHARE_MEAN));
     baseLoadShare = HouseholdConstants.PERCENTAGE * HouseholdConstants.DISHWASHER_BASE_LOAD_SHARE;
     power = (int) (HouseholdConstants.DISHWASHER_POWER_VARIANCE * gen.nextGaussian() + HouseholdConstants.DISHWASHER_POWER_MEAN);
@@ -60,7 +60,7 @@ public class Dishwasher extends SemiShiftingAppliance
     inUse = false;
     probabilitySeason = fillSeason(HouseholdConstants.DISHWASHER_POSSIBILITY_SEASON_1, HouseholdConstants.DISHWASHER_POSSIBILITY_SEASON_2, HouseholdConstants.DISHWASHER_POSSIBILITY_SEASON_3);
     probabilityWeekday = fillDay(HouseholdConstants.DISHWASHER_POSSIBILITY_DAY_1, HouseholdConstants.DISHWASHER_POSSIBILITY_DAY_2, HouseholdConstants.DISHWASHER_POSSIBILITY_DAY_3);
-    times = Integer.parseInt(conf.getProperty("DishwasherWeeklyTimes")) + applianceOf.getMembers().size();
+    times = conf.dishwasherWeeklyTimes + applianceOf.getMembers().size();
     createWeeklyOperationVector(times, gen);
   }
 
@@ -104,9 +104,8 @@ public class Dishwasher extends SemiShiftingAppliance
     log.info("Operation Vector = ");
     for (int i = 0; i < HouseholdConstants.DAYS_OF_WEEK; i++) {
       log.info("Day " + (i + 1));
-      ListIterator<Boolean> iter3 = operationVector.get(i).listIterator();
       for (int j = 0; j < HouseholdConstants.QUARTERS_OF_DAY; j++)
-        log.info("Quarter : " + (j + 1) + "  " + iter3.next());
+        log.info("Quarter : " + (j + 1) + "  " + operationVector.get(i, j));
     }
 
     // Printing Weekly Operation Vector and Load Vector
@@ -114,26 +113,22 @@ public class Dishwasher extends SemiShiftingAppliance
 
     for (int i = 0; i < HouseholdConstants.DAYS_OF_WEEK; i++) {
       log.info("Day " + (i + 1));
-      ListIterator<Boolean> iter3 = weeklyOperation.get(i).listIterator();
-      ListIterator<Integer> iter4 = weeklyLoadVector.get(i).listIterator();
       for (int j = 0; j < HouseholdConstants.QUARTERS_OF_DAY; j++)
-        log.info("Quarter " + (j + 1) + " = " + iter3.next() + "   Load = " + iter4.next());
+        log.info("Quarter " + (j + 1) + " = " + weeklyOperation.get(i, j) + "   Load = " + weeklyLoad.getLoad(i, j));
     }
   }
 
   @Override
-  Vector<Boolean> createDailyPossibilityOperationVector (int day)
+  long[] createDailyPossibilityOperationVector (int day)
   {
 
-    Vector<Boolean> possibilityDailyOperation = new Vector<Boolean>();
+    long[] possibilityDailyOperation = OperationCalendar.createDay();
 
     // The dishwasher needs for someone to be in the house at the beginning and the end of its
     // function
     for (int j = 0; j < HouseholdConstants.QUARTERS_OF_DAY; j++) {
-      if (checkHouse(day, j) == true)
-        possibilityDailyOperation.add(false);
-      else
-        possibilityDailyOperation.add(true);
+      if (checkHouse(day, j) == false)
+        OperationCalendar.set(possibilityDailyOperation, j);
     }
     return possibilityDailyOperation;
   }
@@ -143,24 +138,19 @@ public class Dishwasher extends SemiShiftingAppliance
   {
 
     // Initializing Variables
-    loadVector = new Vector<Integer>();
-    dailyOperation = new Vector<Boolean>();
-    Vector<Boolean> operation = operationVector.get(weekday);
-    for (int l = 0; l < HouseholdConstants.QUARTERS_OF_DAY; l++) {
-      loadVector.add(0);
-      dailyOperation.add(false);
-    }
+    createLoadVector();
+    createDailyOperation();
 
     // Check all quarters of the day
     for (int i = 0; i < HouseholdConstants.QUARTERS_OF_DAY; i++) {
-      if (operation.get(i) == true) {
+      if (operationVector.get(weekday, i)) {
         boolean flag = true;
         while (flag && i < (HouseholdConstants.QUARTERS_OF_DAY - HouseholdConstants.DISHWASHER_DURATION_CYCLE + 1)) {
           boolean empty = checkHouse(weekday, i);
           if (empty == false) {
             for (int k = i; k < i + HouseholdConstants.DISHWASHER_DURATION_CYCLE; k++) {
-              loadVector.set(k, power);
-              dailyOperation.set(k, true);
+              loadVector[k] = power;
+              OperationCalendar.set(dailyOperation, k);
               if (k == HouseholdConstants.QUARTERS_OF_DAY - 1)
                 break;
             }
@@ -172,7 +162,7 @@ public class Dishwasher extends SemiShiftingAppliance
         }
       }
     }
-    weeklyLoadVector.add(loadVector);
+    addWeeklyLoad();
     weeklyOperation.add(dailyOperation);
   }
 
@@ -194,45 +184,34 @@ public class Dishwasher extends SemiShiftingAppliance
   }
 
   @Override
-  public long[] dailyShifting (Tariff tariff, Instant now, int day, Random gen)
+  public long[] dailyShifting (PriceCurve prices, int day, Random gen)
   {
 
     long[] newControllableLoad = new long[HouseholdConstants.HOURS_OF_DAY];
 
     if (operationDaysVector.get(day)) {
       int minindex = 0;
-      boolean[] functionMatrix = createShiftingOperationMatrix(day);
 
       // If we have a fixed tariff rate
-      if ((tariff.getTariffSpec().getRates().size() == 1) && (tariff.getTariffSpec().getRates().get(0).isFixed())) {
+      if (prices.isFixed()) {
+        boolean[] functionMatrix = createShiftingOperationMatrix(day);
         Vector<Integer> possibleHours = new Vector<Integer>();
 
-        // find the all the available functioning hours of the appliance
-        for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY; i++) {
+        // find the all the available functioning hours of the appliance followed by another one,
+        // starting at the first hour as the variable case does if there is none
+        for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY - 1; i++) {
           if (functionMatrix[i] && functionMatrix[i + 1]) {
             possibleHours.add(i);
           }
         }
-        minindex = possibleHours.get(gen.nextInt(possibleHours.size()));
+        if (possibleHours.size() > 0)
+          minindex = possibleHours.get(gen.nextInt(possibleHours.size()));
       }
       // case of variable tariff rate
       else {
-
-        double minvalue = Double.POSITIVE_INFINITY;
-        Instant hour1 = now;
-        Instant hour2 = new Instant(now.getMillis() + TimeService.HOUR);
-
-        // find the all the available functioning hours of the appliance
-        for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY; i++) {
-          if (functionMatrix[i] && functionMatrix[i + 1]) {
-            if (minvalue >= tariff.getUsageCharge(hour1, 1, 0) + tariff.getUsageCharge(hour2, 1, 0)) {
-              minvalue = tariff.getUsageCharge(hour1, 1, 0) + tariff.getUsageCharge(hour2, 1, 0);
-              minindex = i;
-            }
-          }
-          hour1 = new Instant(hour1.getMillis() + TimeService.HOUR);
-          hour2 = new Instant(hour2.getMillis() + TimeService.HOUR);
-        }
+        // find the cheapest of the available functioning hours followed by another one
+        int hours = getPossibleHours(day);
+        minindex = prices.getCheapestStart(hours & (hours >>> 1), 2);
       }
       newControllableLoad[minindex] = HouseholdConstants.QUARTERS_OF_HOUR * power;
       newControllableLoad[minindex + 1] = HouseholdConstants.QUARTERS_OF_HOUR * power;
@@ -20,14 +20,13 @@ import java.util.Iterator;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Properties;
 import java.util.Random;
 import java.util.Set;
 import java.util.Vector;
 
-import org.joda.time.Instant;
-import org.powertac.common.Tariff;
 import org.powertac.common.configurations.HouseholdConstants;
+import org.powertac.householdcustomer.configurations.HouseholdConfiguration;
+import org.powertac.householdcustomer.tariffs.PriceCurve;
 
 /**
  * Dryer appliances are utilized by the inhabitants to order to dry the freshly washed clothes. That
@@ -40,12 +39,21 @@ import org.powertac.common.configurations.HouseholdConstants;
 public class Dryer extends SemiShiftingAppliance
 {
 
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The quarters after the end of the washing machine's function in each day of its first week.
+   * They are kept here, since the first week of the washing machine may be released from its
+   * calendar before the dryer is refreshed again.
+   */
+  int[] washingEndQuarters;
+
   @Override
-  public void initialize (String household, Properties conf, Random gen)
+  public void initialize (String household, HouseholdConfiguration conf, Random gen)
   {
     // Filling the base variables
     name = household + " Dryer";
-    saturation = Double.parseDouble(conf.getProperty("DryerSaturation"));
+    saturation = conf.dryerSaturation;
     consumptionShare = (float) (HouseholdConstants.PERCENTAGE * (HouseholdConstants.DRYER_CONSUMPTION_SHARE_VARIANCE * gen.nextGaussian() + HouseholdConstants.DRYER_CONSUMPTION_SHARE_MEAN));
     baseLoadShare = HouseholdConstants.PERCENTAGE * HouseholdConstants.DRYER_BASE_LOAD_SHARE;
     power = (int) (HouseholdConstants.DRYER_POWER_VARIANCE * gen.nextGaussian() + HouseholdConstants.DRYER_POWER_MEAN);
@@ -54,7 +62,7 @@ public class Dryer extends SemiShiftingAppliance
     inUse = false;
     probabilitySeason = fillSeason(HouseholdConstants.DRYER_POSSIBILITY_SEASON_1, HouseholdConstants.DRYER_POSSIBILITY_SEASON_2, HouseholdConstants.DRYER_POSSIBILITY_SEASON_3);
     probabilityWeekday = fillDay(HouseholdConstants.DRYER_POSSIBILITY_DAY_1, HouseholdConstants.DRYER_POSSIBILITY_DAY_2, HouseholdConstants.DRYER_POSSIBILITY_DAY_3);
-    times = Integer.parseInt(conf.getProperty("DryerWeeklyTimes")) + (int) (applianceOf.getMembers().size() / 2);
+    times = conf.dryerWeeklyTimes + (int) (applianceOf.getMembers().size() / 2);
 
     // Inform the washing machine for the existence of the dryer
     for (Appliance appliance : applianceOf.getAppliances()) {
@@ -72,54 +80,41 @@ public class Dryer extends SemiShiftingAppliance
   public void fillDailyFunction (int weekday, Random gen)
   {
     // Initializing Variables
-    loadVector = new Vector<Integer>();
-    dailyOperation = new Vector<Boolean>();
-    Vector<Boolean> operation = operationVector.get(weekday);
-    for (int l = 0; l < HouseholdConstants.QUARTERS_OF_DAY; l++) {
-      loadVector.add(0);
-      dailyOperation.add(false);
-    }
+    createLoadVector();
+    createDailyOperation();
+    long[] present = applianceOf.getPresentMask(weekday);
     int start = washingEnds(weekday);
     if (start > 0) {
       for (int i = start; i < HouseholdConstants.QUARTERS_OF_DAY - 1; i++) {
-        if (applianceOf.isEmpty(weekday, i) == false) {
-          operation.set(i, true);
+        if (OperationCalendar.get(present, i)) {
+          operationVector.set(weekday, i);
           for (int j = i; j < i + HouseholdConstants.DRYER_SECOND_PHASE; j++) {
-            loadVector.set(j, power);
-            dailyOperation.set(j, true);
+            loadVector[j] = power;
+            OperationCalendar.set(dailyOperation, j);
           }
           for (int k = i + HouseholdConstants.DRYER_SECOND_PHASE; k < i + HouseholdConstants.DRYER_THIRD_PHASE; k++) {
-            loadVector.set(k, loadVector.get(k - 1) - HouseholdConstants.DRYER_THIRD_PHASE_LOAD);
-            dailyOperation.set(k, true);
+            loadVector[k] = loadVector[k - 1] - HouseholdConstants.DRYER_THIRD_PHASE_LOAD;
+            OperationCalendar.set(dailyOperation, k);
             if (k == HouseholdConstants.QUARTERS_OF_DAY - 1)
               break;
           }
           i = HouseholdConstants.QUARTERS_OF_DAY;
         }
       }
-      weeklyLoadVector.add(loadVector);
+      addWeeklyLoad();
       weeklyOperation.add(dailyOperation);
-      operationVector.set(weekday, operation);
     } else {
-      weeklyLoadVector.add(loadVector);
+      addWeeklyLoad();
       weeklyOperation.add(dailyOperation);
-      operationVector.set(weekday, operation);
     }
   }
 
   @Override
-  Vector<Boolean> createDailyPossibilityOperationVector (int day)
+  long[] createDailyPossibilityOperationVector (int day)
   {
 
-    Vector<Boolean> possibilityDailyOperation = new Vector<Boolean>();
-
-    for (int j = 0; j < HouseholdConstants.QUARTERS_OF_DAY; j++) {
-      // The dishwasher needs for someone to be in the house at the beginning of its function
-      if (applianceOf.isEmpty(day, j) == false)
-        possibilityDailyOperation.add(true);
-      else
-        possibilityDailyOperation.add(false);
-    }
+    // The dishwasher needs for someone to be in the house at the beginning of its function
+    long[] possibilityDailyOperation = applianceOf.getPresentMask(day);
 
     return possibilityDailyOperation;
   }
@@ -132,23 +127,27 @@ public class Dryer extends SemiShiftingAppliance
    */
   int washingEnds (int weekday)
   {
-
-    // Creating auxiliary variables
-    Vector<Boolean> v = new Vector<Boolean>();
-    int start = 0;
-
-    // Search for the washing machine to take its schedule in consideration
-    for (Appliance appliance : applianceOf.getAppliances())
-      if (appliance instanceof WashingMachine)
-        v = appliance.getWeeklyOperation().get(weekday);
-
-    for (int i = (HouseholdConstants.QUARTERS_OF_DAY - 1); i > 0; i--) {
-      if (v.get(i) == true) {
-        start = i + 1;
-        i = 0;
+    if (washingEndQuarters == null) {
+
+      // Creating auxiliary variables
+      OperationCalendar v = new OperationCalendar();
+      washingEndQuarters = new int[HouseholdConstants.DAYS_OF_WEEK];
+
+      // Search for the washing machine to take its schedule in consideration
+      for (Appliance appliance : applianceOf.getAppliances())
+        if (appliance instanceof WashingMachine)
+          v = appliance.getWeeklyOperation();
+
+      for (int day = 0; day < HouseholdConstants.DAYS_OF_WEEK && day < v.size(); day++) {
+        for (int i = (HouseholdConstants.QUARTERS_OF_DAY - 1); i > 0; i--) {
+          if (v.get(day, i) == true) {
+            washingEndQuarters[day] = i + 1;
+            i = 0;
+          }
+        }
       }
     }
-    return start;
+    return washingEndQuarters[weekday];
   }
 
   @Override
@@ -191,9 +190,8 @@ public class Dryer extends SemiShiftingAppliance
     log.info("Operation Vector = ");
     for (int i = 0; i < HouseholdConstants.DAYS_OF_WEEK; i++) {
       log.info("Day " + (i + 1));
-      ListIterator<Boolean> iter3 = operationVector.get(i).listIterator();
       for (int j = 0; j < HouseholdConstants.QUARTERS_OF_DAY; j++)
-        log.info("Quarter : " + (j + 1) + "  " + iter3.next());
+        log.info("Quarter : " + (j + 1) + "  " + operationVector.get(i, j));
     }
 
     // Printing Weekly Operation Vector and Load Vector
@@ -201,10 +199,8 @@ public class Dryer extends SemiShiftingAppliance
 
     for (int i = 0; i < HouseholdConstants.DAYS_OF_WEEK; i++) {
       log.info("Day " + (i + 1));
-      ListIterator<Boolean> iter3 = weeklyOperation.get(i).listIterator();
-      ListIterator<Integer> iter4 = weeklyLoadVector.get(i).listIterator();
       for (int j = 0; j < HouseholdConstants.QUARTERS_OF_DAY; j++)
-        log.info("Quarter " + (j + 1) + " = " + iter3.next() + "   Load = " + iter4.next());
+        log.info("Quarter " + (j + 1) + " = " + weeklyOperation.get(i, j) + "   Load = " + weeklyLoad.getLoad(i, j));
     }
   }
 
@@ -230,7 +226,7 @@ public class Dryer extends SemiShiftingAppliance
   }
 
   @Override
-  public long[] dailyShifting (Tariff tariff, Instant now, int day, Random gen)
+  public long[] dailyShifting (PriceCurve prices, int day, Random gen)
   {
     // Dryer's daily shifting is done by the washing machine for safety
     long[] newControllableLoad = new long[HouseholdConstants.HOURS_OF_DAY];
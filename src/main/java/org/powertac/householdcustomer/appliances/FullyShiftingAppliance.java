@@ -31,6 +31,8 @@ import org.powertac.common.configurations.HouseholdConstants;
 public class FullyShiftingAppliance extends Appliance
 {
 
+  private static final long serialVersionUID = 1L;
+
   @Override
   public void fillWeeklyFunction (Random gen)
   {
@@ -46,20 +48,16 @@ public class FullyShiftingAppliance extends Appliance
   }
 
   @Override
-  Vector<Boolean> createDailyOperationVector (int times, Random gen)
+  long[] createDailyOperationVector (int times, Random gen)
   {
 
     // Creating Auxiliary Variables
-    Vector<Boolean> v = new Vector<Boolean>(HouseholdConstants.QUARTERS_OF_DAY);
-
-    // First initialize all to false
-    for (int i = 0; i < HouseholdConstants.QUARTERS_OF_DAY; i++)
-      v.add(false);
+    long[] v = OperationCalendar.createDay();
 
     // Then for the times it work add function quarters
     for (int i = 0; i < times; i++) {
       int quarter = gen.nextInt(HouseholdConstants.QUARTERS_OF_DAY);
-      v.set(quarter, true);
+      OperationCalendar.set(v, quarter);
     }
     return v;
   }
@@ -30,19 +30,19 @@ import org.powertac.common.configurations.HouseholdConstants;
 public class NotShiftingAppliance extends Appliance
 {
 
+  private static final long serialVersionUID = 1L;
+
   @Override
-  Vector<Boolean> createDailyOperationVector (int times, Random gen)
+  long[] createDailyOperationVector (int times, Random gen)
   {
 
     // Creating Auxiliary Variables
-    Vector<Boolean> v = new Vector<Boolean>(HouseholdConstants.QUARTERS_OF_DAY);
-    for (int i = 0; i < HouseholdConstants.QUARTERS_OF_DAY; i++)
-      v.add(false);
+    long[] v = OperationCalendar.createDay();
 
     // Then for the times it work add function quarters
     for (int i = 0; i < times; i++) {
       int quarter = gen.nextInt(HouseholdConstants.QUARTERS_OF_DAY);
-      v.set(quarter, true);
+      OperationCalendar.set(v, quarter);
     }
     return v;
   }
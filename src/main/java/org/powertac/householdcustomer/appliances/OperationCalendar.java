@@ -0,0 +1,205 @@
+/*
+ * Copyright 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS,  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.powertac.householdcustomer.appliances;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+import org.powertac.common.configurations.HouseholdConstants;
+
+/**
+ * The operation calendar keeps the quarters of each day in which an appliance operates, or could
+ * operate, as a bitmap of two long words per day, serialized without its unused room.
+ * @author Antonios Chrysopoulos
+ * @version 1, 17/10/2026
+ */
+public class OperationCalendar implements Serializable
+{
+
+  private static final long serialVersionUID = 1L;
+
+  /** The number of long words kept for each day. */
+  public static final int WORDS = (HouseholdConstants.QUARTERS_OF_DAY + Long.SIZE - 1) / Long.SIZE;
+
+  /** The masks of the quarters of every day added to the calendar. */
+  transient long[] words = new long[WORDS * HouseholdConstants.DAYS_OF_WEEK];
+
+  /** The number of days added to the calendar. */
+  int days;
+
+  /** The number of days released from the start of the calendar. */
+  int first;
+
+  /** This function creates the mask of a day with no operation. */
+  public static long[] createDay ()
+  {
+    return new long[WORDS];
+  }
+
+  /** This function returns true if the mask of a day is set in a certain quarter. */
+  public static boolean get (long[] day, int quarter)
+  {
+    return (day[word(quarter)] & (1L << quarter)) != 0;
+  }
+
+  /** This function sets the mask of a day in a certain quarter. */
+  public static void set (long[] day, int quarter)
+  {
+    day[word(quarter)] |= 1L << quarter;
+  }
+
+  /** This function returns the word of a day mask holding a certain quarter. */
+  static int word (int quarter)
+  {
+    if (quarter < 0 || quarter >= HouseholdConstants.QUARTERS_OF_DAY)
+      throw new ArrayIndexOutOfBoundsException(quarter);
+    return quarter >>> 6;
+  }
+
+  /**
+   * This function folds the quarters held by a word into hours, setting bit h of the result if any
+   * of the quarters 4h to 4h+3 of the word is set.
+   * @param word
+   * @return
+   */
+  static long foldHours (long word)
+  {
+    long x = word | (word >>> 1) | (word >>> 2) | (word >>> 3);
+    x &= 0x1111111111111111L;
+    x = (x | (x >>> 3)) & 0x0303030303030303L;
+    x = (x | (x >>> 6)) & 0x000F000F000F000FL;
+    x = (x | (x >>> 12)) & 0x000000FF000000FFL;
+    return (x | (x >>> 24)) & 0xFFFFL;
+  }
+
+  /** This function returns the number of days added to the calendar. */
+  public int size ()
+  {
+    return days;
+  }
+
+  /** This function returns the first day of the calendar that has not been released. */
+  public int getFirstDay ()
+  {
+    return first;
+  }
+
+  /** This function removes all the days of the calendar. */
+  public void clear ()
+  {
+    Arrays.fill(words, 0, (days - first) * WORDS, 0);
+    days = 0;
+    first = 0;
+  }
+
+  /**
+   * This function adds the mask of the next day to the calendar.
+   * @param day
+   */
+  public void add (long[] day)
+  {
+    if ((days - first + 1) * WORDS > words.length)
+      words = Arrays.copyOf(words, 2 * words.length);
+    System.arraycopy(day, 0, words, (days - first) * WORDS, WORDS);
+    days++;
+  }
+
+  /**
+   * This function releases the masks of all the days before the given day, moving the days that
+   * are kept to the start of the calendar. The days keep their numbers, so the calendar of a game
+   * of any length only holds the days that have not passed.
+   * @param day
+   */
+  public void release (int day)
+  {
+    int last = Math.min(day, days);
+    if (last <= first)
+      return;
+    int kept = (days - last) * WORDS;
+    System.arraycopy(words, (last - first) * WORDS, words, 0, kept);
+    Arrays.fill(words, kept, (days - first) * WORDS, 0);
+    first = last;
+  }
+
+  /** This function returns true if the calendar is set in a certain quarter of a day. */
+  public boolean get (int day, int quarter)
+  {
+    return (words[offset(day) + word(quarter)] & (1L << quarter)) != 0;
+  }
+
+  /** This function sets the calendar in a certain quarter of a day. */
+  public void set (int day, int quarter)
+  {
+    words[offset(day) + word(quarter)] |= 1L << quarter;
+  }
+
+  /** This function returns true if the calendar is set in any quarter of a day. */
+  public boolean isOperating (int day)
+  {
+    int offset = offset(day);
+    long any = 0;
+    for (int i = 0; i < WORDS; i++)
+      any |= words[offset + i];
+    return any != 0;
+  }
+
+  /**
+   * This function returns the hours of a day in which the calendar is set in at least one quarter,
+   * as a mask where bit h stands for hour h.
+   * @param day
+   * @return
+   */
+  public int getHours (int day)
+  {
+    int offset = offset(day);
+    long hours = 0;
+    for (int i = 0; i < WORDS; i++)
+      hours |= foldHours(words[offset + i]) << (i * Long.SIZE / HouseholdConstants.QUARTERS_OF_HOUR);
+    return (int) hours;
+  }
+
+  /** This function writes the calendar with the words of the days it holds. */
+  private void writeObject (ObjectOutputStream out) throws IOException
+  {
+    out.defaultWriteObject();
+    for (int i = 0; i < (days - first) * WORDS; i++)
+      out.writeLong(words[i]);
+  }
+
+  /** This function reads the calendar written by writeObject. */
+  private void readObject (ObjectInputStream in) throws IOException, ClassNotFoundException
+  {
+    in.defaultReadObject();
+    int used = (days - first) * WORDS;
+    words = new long[Math.max(used, WORDS * HouseholdConstants.DAYS_OF_WEEK)];
+    for (int i = 0; i < used; i++)
+      words[i] = in.readLong();
+  }
+
+  /** This function returns the position of the first word of a day. */
+  int offset (int day)
+  {
+    if (day < first && day >= 0)
+      throw new IllegalStateException("Day " + day + " has been released from the calendar");
+    if (day < 0 || day >= days)
+      throw new ArrayIndexOutOfBoundsException(day);
+    return (day - first) * WORDS;
+  }
+
+}
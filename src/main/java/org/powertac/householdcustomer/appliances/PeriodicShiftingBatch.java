@@ -0,0 +1,180 @@
+/*
+ * Copyright 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS,  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.powertac.householdcustomer.appliances;
+
+import java.util.List;
+import java.util.Random;
+
+import org.powertac.common.configurations.HouseholdConstants;
+import org.powertac.householdcustomer.random.RandomStreams;
+import org.powertac.householdcustomer.tariffs.PriceCurve;
+import org.powertac.householdcustomer.tariffs.ShiftedLoad;
+
+/**
+ * The periodic shifting batch shifts the periodic appliances of one kind of a village in one loop.
+ * The ties of the prices are found once for the batch, and only when there are any does each
+ * appliance draw from its own shifting stream.
+ * @author Antonios Chrysopoulos
+ * @version 1, 17/10/2026
+ */
+public class PeriodicShiftingBatch
+{
+
+  /** The number of hours of each shifting period. */
+  int interval;
+
+  /** These are the power and the shifting streams of the appliances of the batch. */
+  int[] powers;
+  RandomStreams[] streams;
+
+  /** The total power of the appliances of the batch. */
+  long totalPower;
+
+  /** This is the load the batch last contributed to a rescheduled day. */
+  ShiftedLoad rescheduledLoad = new ShiftedLoad();
+
+  /**
+   * This is the constructor of the batch, for appliances of the same kind.
+   * @param appliances
+   */
+  public PeriodicShiftingBatch (List<Appliance> appliances)
+  {
+    interval = appliances.get(0).getShiftingInterval();
+    powers = new int[appliances.size()];
+    streams = new RandomStreams[appliances.size()];
+    for (int i = 0; i < powers.length; i++) {
+      Appliance appliance = appliances.get(i);
+      if (appliance.getShiftingInterval() != interval)
+        throw new IllegalArgumentException("Appliance " + appliance + " is shifted with a different period");
+      powers[i] = appliance.power;
+      streams[i] = appliance.shiftingStreams;
+      totalPower += appliance.power;
+    }
+  }
+
+  /** This function returns the number of appliances of the batch. */
+  public int size ()
+  {
+    return powers.length;
+  }
+
+  /**
+   * This function adds the load of the appliances of the batch, shifted for the prices of a day, to
+   * the given load in hours.
+   * @param prices
+   * @param day
+   * @param load
+   */
+  public void addDailyShifting (PriceCurve prices, int day, long[] load)
+  {
+    // The hours at which the search of each period finds a cheaper or an equal price are the same
+    // for every appliance, since the cheapest price so far does not depend on the draws
+    int periods = HouseholdConstants.HOURS_OF_DAY / interval;
+    int[] hours = new int[HouseholdConstants.HOURS_OF_DAY];
+    boolean[] draws = new boolean[HouseholdConstants.HOURS_OF_DAY];
+    int[] ends = new int[periods];
+    int[] cheapest = new int[periods];
+    boolean ties = false;
+    int count = 0;
+    int hour = 0;
+    for (int i = 0; i < periods; i++) {
+      double minvalue = Double.POSITIVE_INFINITY;
+      for (int j = 0; j < interval; j++) {
+        double price = prices.getPrice(hour++);
+        if (minvalue > price) {
+          minvalue = price;
+          cheapest[i] = j;
+          hours[count++] = j;
+        } else if (minvalue == price) {
+          ties = true;
+          draws[count] = true;
+          hours[count++] = j;
+        }
+      }
+      ends[i] = count;
+    }
+
+    if (!ties) {
+      for (int i = 0; i < periods; i++)
+        load[interval * i + cheapest[i]] += HouseholdConstants.QUARTERS_OF_HOUR * totalPower;
+      return;
+    }
+
+    // Each appliance only draws at the equal prices, as it does when it is shifted on its own
+    Random gen = null;
+    for (int a = 0; a < powers.length; a++) {
+      gen = (gen == null) ? streams[a].createStream(day) : streams[a].reseed(gen, day);
+      int event = 0;
+      for (int i = 0; i < periods; i++) {
+        int minindex = 0;
+        for (; event < ends[i]; event++) {
+          if (!draws[event] || gen.nextFloat() > HouseholdConstants.HALF)
+            minindex = hours[event];
+        }
+        load[interval * i + minindex] += HouseholdConstants.QUARTERS_OF_HOUR * powers[a];
+      }
+    }
+  }
+
+  /**
+   * This function reschedules the appliances of the batch for a day of their village, adding the
+   * difference from the load they last contributed to the given changes of the aggregated load. A
+   * batch already rescheduled for the same day and prices is skipped.
+   * @param prices
+   * @param day
+   * @param changes
+   */
+  public void reschedule (PriceCurve prices, int day, long[] changes)
+  {
+    if (rescheduledLoad.isShifted(day, prices))
+      return;
+    long[] load = new long[HouseholdConstants.HOURS_OF_DAY];
+    addDailyShifting(prices, day, load);
+    rescheduledLoad.update(day, prices, load, changes);
+  }
+
+  /**
+   * This function adds the load of an appliance working once in each period of the given number of
+   * hours, at the cheapest hour of the period, to the given load in hours. The ties of equal prices
+   * are broken by a draw of the stream.
+   * @param prices
+   * @param interval
+   * @param power
+   * @param gen
+   * @param load
+   */
+  static void shift (PriceCurve prices, int interval, int power, Random gen, long[] load)
+  {
+    int hour = 0;
+
+    // Daily operation is seperated in shifting periods
+    for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY / interval; i++) {
+      double minvalue = Double.POSITIVE_INFINITY;
+      int minindex = 0;
+
+      // For each shifting period we search the best value
+      for (int j = 0; j < interval; j++) {
+        if ((minvalue > prices.getPrice(hour)) || (minvalue == prices.getPrice(hour) && gen.nextFloat() > HouseholdConstants.HALF)) {
+          minvalue = prices.getPrice(hour);
+          minindex = j;
+        }
+        hour++;
+      }
+      load[interval * i + minindex] += HouseholdConstants.QUARTERS_OF_HOUR * power;
+    }
+  }
+
+}
@@ -16,14 +16,12 @@
 
 package org.powertac.householdcustomer.appliances;
 
-import java.util.Properties;
 import java.util.Random;
 import java.util.Vector;
 
-import org.joda.time.Instant;
-import org.powertac.common.Tariff;
-import org.powertac.common.TimeService;
 import org.powertac.common.configurations.HouseholdConstants;
+import org.powertac.householdcustomer.configurations.HouseholdConfiguration;
+import org.powertac.householdcustomer.tariffs.PriceCurve;
 
 /**
  * Refrigerator is the fridge we all use in our households. This appliance can automatically change
@@ -35,13 +33,15 @@ import org.powertac.common.configurations.HouseholdConstants;
 public class Refrigerator extends FullyShiftingAppliance
 {
 
+  private static final long serialVersionUID = 1L;
+
   @Override
-  public void initialize (String household, Properties conf, Random gen)
+  public void initialize (String household, HouseholdConfiguration conf, Random gen)
   {
 
     // Filling the base variables
     name = household + " Refrigerator";
-    saturation = Double.parseDouble(conf.getProperty("RefrigeratorSaturation"));
+    saturation = conf.refrigeratorSaturation;
     consumptionShare = (float) (HouseholdConstants.PERCENTAGE * (HouseholdConstants.REFRIGERATOR_CONSUMPTION_SHARE_VARIANCE * gen.nextGaussian() + HouseholdConstants.REFRIGERATOR_CONSUMPTION_SHARE_MEAN));
     baseLoadShare = HouseholdConstants.PERCENTAGE * HouseholdConstants.REFRIGERATOR_BASE_LOAD_SHARE;
     power = (int) (HouseholdConstants.REFRIGERATOR_POWER_VARIANCE * gen.nextGaussian() + HouseholdConstants.REFRIGERATOR_POWER_MEAN);
@@ -53,14 +53,14 @@ public class Refrigerator extends FullyShiftingAppliance
   }
 
   @Override
-  Vector<Boolean> createDailyPossibilityOperationVector (int day)
+  long[] createDailyPossibilityOperationVector (int day)
   {
 
-    Vector<Boolean> possibilityDailyOperation = new Vector<Boolean>();
+    long[] possibilityDailyOperation = OperationCalendar.createDay();
 
     // Freezer can work anytime
     for (int j = 0; j < HouseholdConstants.QUARTERS_OF_DAY; j++) {
-      possibilityDailyOperation.add(true);
+      OperationCalendar.set(possibilityDailyOperation, j);
     }
 
     return possibilityDailyOperation;
@@ -70,49 +70,37 @@ public class Refrigerator extends FullyShiftingAppliance
   public void fillDailyFunction (int weekday, Random gen)
   {
     // Initializing Variables
-    loadVector = new Vector<Integer>();
-    dailyOperation = new Vector<Boolean>();
+    createLoadVector();
+    createDailyOperation();
 
     for (int i = 0; i < HouseholdConstants.QUARTERS_OF_DAY; i++) {
       if (i % cycleDuration == 0) {
-        loadVector.add(power);
-        dailyOperation.add(true);
+        addLoad(power);
+        addOperation(true);
       } else {
-        loadVector.add(0);
-        dailyOperation.add(false);
+        addLoad(0);
+        addOperation(false);
       }
     }
-    weeklyLoadVector.add(loadVector);
+    addWeeklyLoad();
     weeklyOperation.add(dailyOperation);
     operationVector.add(dailyOperation);
   }
 
   @Override
-  public long[] dailyShifting (Tariff tariff, Instant now, int day, Random gen)
+  public long[] dailyShifting (PriceCurve prices, int day, Random gen)
   {
-
     long[] newControllableLoad = new long[HouseholdConstants.HOURS_OF_DAY];
-
-    Instant now2 = now;
-
-    // Daily operation is seperated in shifting periods
-    for (int i = 0; i < HouseholdConstants.REFRIGERATOR_SHIFTING_PERIODS; i++) {
-      double minvalue = Double.POSITIVE_INFINITY;
-      int minindex = 0;
-
-      // For each shifting period we search the best value
-      for (int j = 0; j < HouseholdConstants.REFRIGERATOR_SHIFTING_INTERVAL; j++) {
-        if ((minvalue > tariff.getUsageCharge(now2, 1, 0)) || (minvalue == tariff.getUsageCharge(now2, 1, 0) && gen.nextFloat() > HouseholdConstants.HALF)) {
-          minvalue = tariff.getUsageCharge(now2, 1, 0);
-          minindex = j;
-        }
-        now2 = new Instant(now2.getMillis() + TimeService.HOUR);
-      }
-      newControllableLoad[HouseholdConstants.REFRIGERATOR_SHIFTING_INTERVAL * i + minindex] = HouseholdConstants.QUARTERS_OF_HOUR * power;
-    }
+    PeriodicShiftingBatch.shift(prices, HouseholdConstants.REFRIGERATOR_SHIFTING_INTERVAL, power, gen, newControllableLoad);
     return newControllableLoad;
   }
 
+  @Override
+  public int getShiftingInterval ()
+  {
+    return HouseholdConstants.REFRIGERATOR_SHIFTING_INTERVAL;
+  }
+
   @Override
   public void refresh (Random gen)
   {
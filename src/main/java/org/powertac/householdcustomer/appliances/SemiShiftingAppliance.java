@@ -32,21 +32,19 @@ import org.powertac.common.configurations.HouseholdConstants;
 class SemiShiftingAppliance extends Appliance
 {
 
+  private static final long serialVersionUID = 1L;
+
   /** This vector contains the weekdays that the appliance will be functioning */
   Vector<Integer> days = new Vector<Integer>();
 
   @Override
-  Vector<Boolean> createDailyOperationVector (int weekday, Random gen)
+  long[] createDailyOperationVector (int weekday, Random gen)
   {
     // Creating Auxiliary Variables
-    Vector<Boolean> v = new Vector<Boolean>(HouseholdConstants.QUARTERS_OF_DAY);
-
-    // First initialize all to false
-    for (int i = 0; i < HouseholdConstants.QUARTERS_OF_DAY; i++)
-      v.add(false);
+    long[] v = OperationCalendar.createDay();
     if (days.contains(weekday) && ((this instanceof Dryer) == false)) {
       int quarter = gen.nextInt(HouseholdConstants.END_OF_FUNCTION);
-      v.set(quarter, true);
+      OperationCalendar.set(v, quarter);
     }
     return v;
   }
@@ -16,13 +16,12 @@
 
 package org.powertac.householdcustomer.appliances;
 
-import java.util.Properties;
 import java.util.Random;
 import java.util.Vector;
 
-import org.joda.time.Instant;
-import org.powertac.common.Tariff;
 import org.powertac.common.configurations.HouseholdConstants;
+import org.powertac.householdcustomer.configurations.HouseholdConfiguration;
+import org.powertac.householdcustomer.tariffs.PriceCurve;
 
 /**
  * Spaceheater is a electric appliance utilized to keep the rooms of a household warm when needed.
@@ -34,6 +33,8 @@ import org.powertac.common.configurations.HouseholdConstants;
 public class SpaceHeater extends FullyShiftingAppliance
 {
 
+  private static final long serialVersionUID = 1L;
+
   /**
    * Variable that presents the mean possibility to utilize the appliance each hour of the day that
    * someone is present in the housesold.
@@ -41,12 +42,12 @@ public class SpaceHeater extends FullyShiftingAppliance
   double percentage;
 
   @Override
-  public void initialize (String household, Properties conf, Random gen)
+  public void initialize (String household, HouseholdConfiguration conf, Random gen)
   {
     // Filling the base variables
     name = household + " SpaceHeater";
-    saturation = Double.parseDouble(conf.getProperty("SpaceHeaterSaturation"));
-    percentage = Double.parseDouble(conf.getProperty("SpaceHeaterPercentage"));
+    saturation = conf.spaceHeaterSaturation;
+    percentage = conf.spaceHeaterPercentage;
     consumptionShare = (float) (HouseholdConstants.PERCENTAGE * (HouseholdConstants.SPACE_HEATER_CONSUMPTION_SHARE_VARIANCE * gen.nextGaussian() + HouseholdConstants.SPACE_HEATER_CONSUMPTION_SHARE_MEAN));
     baseLoadShare = HouseholdConstants.PERCENTAGE * HouseholdConstants.SPACE_HEATER_BASE_LOAD_SHARE;
     power = (int) (HouseholdConstants.SPACE_HEATER_POWER_VARIANCE * gen.nextGaussian() + HouseholdConstants.SPACE_HEATER_POWER_MEAN);
@@ -61,65 +62,59 @@ public class SpaceHeater extends FullyShiftingAppliance
   public void fillDailyFunction (int weekday, Random gen)
   {
     // Initializing Variables
-    loadVector = new Vector<Integer>();
-    dailyOperation = new Vector<Boolean>();
+    createLoadVector();
+    createDailyOperation();
     if (applianceOf.isOnVacation(weekday, 0) || gen.nextFloat() > percentage) {
       for (int i = 0; i < HouseholdConstants.QUARTERS_OF_DAY; i++) {
-        loadVector.add(0);
-        dailyOperation.add(false);
+        addOperation(false);
       }
-      weeklyLoadVector.add(loadVector);
+      addWeeklyLoad();
       weeklyOperation.add(dailyOperation);
       operationVector.add(dailyOperation);
     } else {
       for (int i = 0; i < HouseholdConstants.QUARTERS_OF_DAY; i++) {
-        loadVector.add(0);
-        dailyOperation.add(true);
+        addOperation(true);
       }
       for (int i = 0; i < HouseholdConstants.SPACE_HEATER_PHASE_1; i++)
-        loadVector.set(i, power);
+        loadVector[i] = power;
       for (int i = HouseholdConstants.SPACE_HEATER_PHASE_1; i < HouseholdConstants.SPACE_HEATER_PHASE_2; i++)
-        loadVector.set(i, loadVector.get(i - 1) - HouseholdConstants.SPACE_HEATER_PHASE_LOAD);
+        loadVector[i] = loadVector[i - 1] - HouseholdConstants.SPACE_HEATER_PHASE_LOAD;
       for (int i = HouseholdConstants.SPACE_HEATER_PHASE_2; i < HouseholdConstants.SPACE_HEATER_PHASE_3; i++)
-        loadVector.set(i, loadVector.get(i - 1));
+        loadVector[i] = loadVector[i - 1];
       for (int i = HouseholdConstants.SPACE_HEATER_PHASE_3; i < HouseholdConstants.SPACE_HEATER_PHASE_4; i++)
-        loadVector.set(i, loadVector.get(i - 1) + 2 * HouseholdConstants.SPACE_HEATER_PHASE_LOAD);
+        loadVector[i] = loadVector[i - 1] + 2 * HouseholdConstants.SPACE_HEATER_PHASE_LOAD;
       for (int i = HouseholdConstants.SPACE_HEATER_PHASE_4; i < HouseholdConstants.QUARTERS_OF_DAY; i++)
-        loadVector.set(i, power);
-      weeklyLoadVector.add(loadVector);
+        loadVector[i] = power;
+      addWeeklyLoad();
       weeklyOperation.add(dailyOperation);
       operationVector.add(dailyOperation);
     }
   }
 
   @Override
-  Vector<Boolean> createDailyPossibilityOperationVector (int day)
+  long[] createDailyPossibilityOperationVector (int day)
   {
 
-    Vector<Boolean> possibilityDailyOperation = new Vector<Boolean>();
+    long[] possibilityDailyOperation = OperationCalendar.createDay();
 
     // In case the attenants are not in vacation, the spaceheater works all day
-    if (applianceOf.isOnVacation(day, 0)) {
-      for (int j = 0; j < HouseholdConstants.QUARTERS_OF_DAY; j++) {
-        possibilityDailyOperation.add(false);
-      }
-    } else {
+    if (applianceOf.isOnVacation(day, 0) == false) {
       for (int j = 0; j < HouseholdConstants.QUARTERS_OF_DAY; j++) {
-        possibilityDailyOperation.add(true);
+        OperationCalendar.set(possibilityDailyOperation, j);
       }
     }
     return possibilityDailyOperation;
   }
 
   @Override
-  public long[] dailyShifting (Tariff tariff, Instant now, int day, Random gen)
+  public long[] dailyShifting (PriceCurve prices, int day, Random gen)
   {
     long[] newControllableLoad = new long[HouseholdConstants.HOURS_OF_DAY];
 
     // In this case the daily shifting is useless because it works all day
     for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY; i++) {
       for (int j = 0; j < HouseholdConstants.QUARTERS_OF_HOUR; j++)
-        newControllableLoad[i] += weeklyLoadVector.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR + j);
+        newControllableLoad[i] += weeklyLoad.getLoad(day, i * HouseholdConstants.QUARTERS_OF_HOUR + j);
     }
     return newControllableLoad;
   }
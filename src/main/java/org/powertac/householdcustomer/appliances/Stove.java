@@ -16,14 +16,12 @@
 
 package org.powertac.householdcustomer.appliances;
 
-import java.util.Properties;
 import java.util.Random;
 import java.util.Vector;
 
-import org.joda.time.Instant;
-import org.powertac.common.Tariff;
-import org.powertac.common.TimeService;
 import org.powertac.common.configurations.HouseholdConstants;
+import org.powertac.householdcustomer.configurations.HouseholdConfiguration;
+import org.powertac.householdcustomer.tariffs.PriceCurve;
 
 /**
  * Stove is the kitchen utility we use for cooking. It is use at least twice a day depending on the number of tenants. The tenants should be present when functioning so this is a not shifting
@@ -35,12 +33,14 @@ import org.powertac.common.configurations.HouseholdConstants;
 public class Stove extends SemiShiftingAppliance
 {
 
+  private static final long serialVersionUID = 1L;
+
   @Override
-  public void initialize (String household, Properties conf, Random gen)
+  public void initialize (String household, HouseholdConfiguration conf, Random gen)
   {
     // Filling the base variables
     name = household + " Stove";
-    saturation = Double.parseDouble(conf.getProperty("StoveSaturation"));
+    saturation = conf.stoveSaturation;
     consumptionShare = (float) (HouseholdConstants.PERCENTAGE * (HouseholdConstants.STOVE_CONSUMPTION_SHARE_VARIANCE * gen.nextGaussian() + HouseholdConstants.STOVE_CONSUMPTION_SHARE_MEAN));
     baseLoadShare = HouseholdConstants.PERCENTAGE * HouseholdConstants.STOVE_BASE_LOAD_SHARE;
     power = (int) (HouseholdConstants.STOVE_POWER_VARIANCE * gen.nextGaussian() + HouseholdConstants.STOVE_POWER_MEAN);
@@ -49,26 +49,22 @@ public class Stove extends SemiShiftingAppliance
     inUse = false;
     probabilitySeason = fillSeason(HouseholdConstants.STOVE_POSSIBILITY_SEASON_1, HouseholdConstants.STOVE_POSSIBILITY_SEASON_2, HouseholdConstants.STOVE_POSSIBILITY_SEASON_3);
     probabilityWeekday = fillDay(HouseholdConstants.STOVE_POSSIBILITY_DAY_1, HouseholdConstants.STOVE_POSSIBILITY_DAY_2, HouseholdConstants.STOVE_POSSIBILITY_DAY_3);
-    times = Integer.parseInt(conf.getProperty("StoveDailyTimes"));
+    times = conf.stoveDailyTimes;
     createWeeklyOperationVector(times, gen);
 
   }
 
   @Override
-  Vector<Boolean> createDailyOperationVector (int times, Random gen)
+  long[] createDailyOperationVector (int times, Random gen)
   {
     // Creating Auxiliary Variables
-    Vector<Boolean> v = new Vector<Boolean>(HouseholdConstants.QUARTERS_OF_DAY);
-
-    // First initialize all to false
-    for (int i = 0; i < HouseholdConstants.QUARTERS_OF_DAY; i++)
-      v.add(false);
+    long[] v = OperationCalendar.createDay();
     for (int i = 0; i < times; i++) {
       int quarter = gen.nextInt(HouseholdConstants.QUARTERS_OF_DAY - cycleDuration);
-      if (v.get(quarter) == false)
-        v.set(quarter, true);
+      if (OperationCalendar.get(v, quarter) == false)
+        OperationCalendar.set(v, quarter);
       else
-        v.set(quarter + 2, true);
+        OperationCalendar.set(v, quarter + 2);
     }
     return v;
   }
@@ -85,82 +81,76 @@ public class Stove extends SemiShiftingAppliance
   {
 
     // Initializing Variables
-    loadVector = new Vector<Integer>();
-    dailyOperation = new Vector<Boolean>();
-    Vector<Boolean> operation = operationVector.get(weekday);
+    createLoadVector();
+    createDailyOperation();
+    long[] present = applianceOf.getPresentMask(weekday);
 
     // Check all quarters of the day
     for (int i = 0; i < HouseholdConstants.QUARTERS_OF_DAY; i++) {
-      if (operation.get(i) == true) {
+      if (operationVector.get(weekday, i)) {
         boolean flag = true;
         int counter = 0;
         while ((flag) && (i < HouseholdConstants.QUARTERS_OF_DAY - 1) && (counter >= 0)) {
-          if (applianceOf.isEmpty(weekday, i) == false && applianceOf.isEmpty(weekday, i + 1) == false) {
-            loadVector.add(power);
-            dailyOperation.add(true);
-            loadVector.add(power);
-            dailyOperation.add(true);
+          if (OperationCalendar.get(present, i) && OperationCalendar.get(present, i + 1)) {
+            addLoad(power);
+            addOperation(true);
+            addLoad(power);
+            addOperation(true);
             counter--;
             // i = dailyOperation.size() - 1;
             if (counter < 0)
               flag = false;
           } else {
-            loadVector.add(0);
-            dailyOperation.add(false);
+            addLoad(0);
+            addOperation(false);
             i++;
-            if (i < HouseholdConstants.QUARTERS_OF_DAY && operation.get(i) == true)
+            if (i < HouseholdConstants.QUARTERS_OF_DAY && operationVector.get(weekday, i))
               counter++;
           }
         }
       } else {
-        loadVector.add(0);
-        dailyOperation.add(false);
+        addLoad(0);
+        addOperation(false);
       }
     }
 
-    if (loadVector.size() == 95) {
-      loadVector.add(0);
-      dailyOperation.add(false);
+    if (loadQuarter == 95) {
+      addLoad(0);
+      addOperation(false);
     }
-    weeklyLoadVector.add(loadVector);
+    addWeeklyLoad();
     weeklyOperation.add(dailyOperation);
   }
 
   @Override
-  Vector<Boolean> createDailyPossibilityOperationVector (int day)
+  long[] createDailyPossibilityOperationVector (int day)
   {
-    Vector<Boolean> possibilityDailyOperation = new Vector<Boolean>();
+    long[] possibilityDailyOperation = OperationCalendar.createDay();
+    long[] present = applianceOf.getPresentMask(day);
 
     // In order for stove to work someone must be in the house for half hour
     for (int j = 0; j < HouseholdConstants.QUARTERS_OF_DAY - 1; j++) {
-      if (applianceOf.isEmpty(day, j) == false && applianceOf.isEmpty(day, j + 1) == false)
-        possibilityDailyOperation.add(true);
-      else
-        possibilityDailyOperation.add(false);
+      if (OperationCalendar.get(present, j) && OperationCalendar.get(present, j + 1))
+        OperationCalendar.set(possibilityDailyOperation, j);
     }
 
-    // For the last time, without check because it is the next day
-    possibilityDailyOperation.add(false);
+    // The last quarter is left out, without check because it is the next day
     return possibilityDailyOperation;
   }
 
   @Override
-  public long[] dailyShifting (Tariff tariff, Instant now, int day, Random gen)
+  public long[] dailyShifting (PriceCurve prices, int day, Random gen)
   {
     long[] newControllableLoad = new long[HouseholdConstants.HOURS_OF_DAY];
 
     int minindex = 0;
-    double minvalue = Double.POSITIVE_INFINITY;
-    boolean[] functionMatrix = createShiftingOperationMatrix(day);
-    Instant hour1 = now;
-    long sumPower = 0;
 
     // Gather the Load Summary of the day
-    for (int i = 0; i < HouseholdConstants.QUARTERS_OF_DAY; i++)
-      sumPower += weeklyLoadVector.get(day).get(i);
+    long sumPower = weeklyLoad.getDailyLoad(day);
 
     // If we have a fixed tariff rate
-    if ((tariff.getTariffSpec().getRates().size() == 1) && (tariff.getTariffSpec().getRates().get(0).isFixed())) {
+    if (prices.isFixed()) {
+      boolean[] functionMatrix = createShiftingOperationMatrix(day);
       Vector<Integer> possibleHours = new Vector<Integer>();
 
       // find the all the available functioning hours of the appliance
@@ -174,16 +164,8 @@ public class Stove extends SemiShiftingAppliance
     }
     // case of variable tariff rate
     else {
-      // find the all the available functioning hours of the appliance
-      for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY; i++) {
-        if (functionMatrix[i]) {
-          if (minvalue >= tariff.getUsageCharge(hour1, 1, 0)) {
-            minvalue = tariff.getUsageCharge(hour1, 1, 0);
-            minindex = i;
-          }
-        }
-        hour1 = new Instant(hour1.getMillis() + TimeService.HOUR);
-      }
+      // find the cheapest of the available functioning hours of the appliance
+      minindex = prices.getCheapestStart(getPossibleHours(day), 1);
     }
     newControllableLoad[minindex] = sumPower;
     return newControllableLoad;
@@ -20,15 +20,13 @@ import java.util.Iterator;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Properties;
 import java.util.Random;
 import java.util.Set;
 import java.util.Vector;
 
-import org.joda.time.Instant;
-import org.powertac.common.Tariff;
-import org.powertac.common.TimeService;
 import org.powertac.common.configurations.HouseholdConstants;
+import org.powertac.householdcustomer.configurations.HouseholdConfiguration;
+import org.powertac.householdcustomer.tariffs.PriceCurve;
 
 /**
  * Washing Machine is used to wash clothes easily. There are several programs that help you automate
@@ -41,6 +39,8 @@ import org.powertac.common.configurations.HouseholdConstants;
 public class WashingMachine extends SemiShiftingAppliance
 {
 
+  private static final long serialVersionUID = 1L;
+
   /** This variable is utilized to show if there's a dryer in the household or not. */
   public boolean dryerFlag = false;
 
@@ -60,11 +60,11 @@ public class WashingMachine extends SemiShiftingAppliance
   // Reaction reaction = Reaction.Strong
 
   @Override
-  public void initialize (String household, Properties conf, Random gen)
+  public void initialize (String household, HouseholdConfiguration conf, Random gen)
   {
     // Filling the base variables
     name = household + " Washing Machine";
-    saturation = Double.parseDouble(conf.getProperty("WashingMachineSaturation"));
+    saturation = conf.washingMachineSaturation;
     consumptionShare = (float) (HouseholdConstants.PERCENTAGE * (HouseholdConstants.DISHWASHER_CONSUMPTION_SHARE_VARIANCE * gen.nextGaussian() + HouseholdConstants.DISHWASHER_CONSUMPTION_SHARE_MEAN));
     baseLoadShare = HouseholdConstants.PERCENTAGE * HouseholdConstants.DISHWASHER_BASE_LOAD_SHARE;
     power = (int) (HouseholdConstants.DISHWASHER_POWER_VARIANCE * gen.nextGaussian() + HouseholdConstants.DISHWASHER_POWER_MEAN);
@@ -73,7 +73,7 @@ public class WashingMachine extends SemiShiftingAppliance
     inUse = false;
     probabilitySeason = fillSeason(HouseholdConstants.DISHWASHER_POSSIBILITY_SEASON_1, HouseholdConstants.DISHWASHER_POSSIBILITY_SEASON_2, HouseholdConstants.DISHWASHER_POSSIBILITY_SEASON_3);
     probabilityWeekday = fillDay(HouseholdConstants.DISHWASHER_POSSIBILITY_DAY_1, HouseholdConstants.DISHWASHER_POSSIBILITY_DAY_2, HouseholdConstants.DISHWASHER_POSSIBILITY_DAY_3);
-    times = Integer.parseInt(conf.getProperty("WashingMachineWeeklyTimes")) + (int) (applianceOf.getMembers().size() / 2);
+    times = conf.washingMachineWeeklyTimes + (int) (applianceOf.getMembers().size() / 2);
     createWeeklyOperationVector(times, gen);
   }
 
@@ -81,22 +81,17 @@ public class WashingMachine extends SemiShiftingAppliance
   public void fillDailyFunction (int weekday, Random gen)
   {
     // Initializing Variables
-    loadVector = new Vector<Integer>();
-    dailyOperation = new Vector<Boolean>();
-    Vector<Boolean> operation = operationVector.get(weekday);
-    for (int l = 0; l < HouseholdConstants.QUARTERS_OF_DAY; l++) {
-      loadVector.add(0);
-      dailyOperation.add(false);
-    }
+    createLoadVector();
+    createDailyOperation();
     for (int i = 0; i < HouseholdConstants.QUARTERS_OF_DAY; i++) {
-      if (operation.get(i) == true) {
+      if (operationVector.get(weekday, i)) {
         boolean flag = true;
         while (flag && i < HouseholdConstants.QUARTERS_OF_DAY) {
           boolean empty = checkHouse(weekday, i);
           if (empty == false) {
             for (int k = i; k < i + HouseholdConstants.WASHING_MACHINE_DURATION_CYCLE; k++) {
-              loadVector.set(k, power);
-              dailyOperation.set(k, true);
+              loadVector[k] = power;
+              OperationCalendar.set(dailyOperation, k);
               if (k == HouseholdConstants.QUARTERS_OF_DAY - 1)
                 break;
             }
@@ -108,23 +103,21 @@ public class WashingMachine extends SemiShiftingAppliance
         }
       }
     }
-    weeklyLoadVector.add(loadVector);
+    addWeeklyLoad();
     weeklyOperation.add(dailyOperation);
   }
 
   @Override
-  Vector<Boolean> createDailyPossibilityOperationVector (int day)
+  long[] createDailyPossibilityOperationVector (int day)
   {
 
-    Vector<Boolean> possibilityDailyOperation = new Vector<Boolean>();
+    long[] possibilityDailyOperation = OperationCalendar.createDay();
 
     // In order to function the washing machine needs someone to be there in the end of its
     // operation
     for (int j = 0; j < HouseholdConstants.QUARTERS_OF_DAY; j++) {
-      if (checkHouse(day, j) == true)
-        possibilityDailyOperation.add(false);
-      else
-        possibilityDailyOperation.add(true);
+      if (checkHouse(day, j) == false)
+        OperationCalendar.set(possibilityDailyOperation, j);
     }
     return possibilityDailyOperation;
   }
@@ -144,7 +137,7 @@ public class WashingMachine extends SemiShiftingAppliance
   }
 
   @Override
-  public long[] dailyShifting (Tariff tariff, Instant now, int day, Random gen)
+  public long[] dailyShifting (PriceCurve prices, int day, Random gen)
   {
 
     long[] newControllableLoad = new long[HouseholdConstants.HOURS_OF_DAY];
@@ -153,10 +146,10 @@ public class WashingMachine extends SemiShiftingAppliance
     if (operationDaysVector.get(day)) {
 
       int minindex = 0;
-      boolean[] functionMatrix = createShiftingOperationMatrix(day);
 
       // case of fixed tariff rate
-      if ((tariff.getTariffSpec().getRates().size() == 1) && (tariff.getTariffSpec().getRates().get(0).isFixed())) {
+      if (prices.isFixed()) {
+        boolean[] functionMatrix = createShiftingOperationMatrix(day);
         Vector<Integer> possibleHours = new Vector<Integer>();
 
         // find the all the available functioning hours of the appliance
@@ -164,7 +157,8 @@ public class WashingMachine extends SemiShiftingAppliance
           if (functionMatrix[i])
             possibleHours.add(i);
         }
-        minindex = possibleHours.get(gen.nextInt(possibleHours.size()));
+        if (possibleHours.size() > 0)
+          minindex = possibleHours.get(gen.nextInt(possibleHours.size()));
 
         newControllableLoad[minindex] = HouseholdConstants.QUARTERS_OF_HOUR * power;
         newControllableLoad[minindex + 1] = HouseholdConstants.QUARTERS_OF_HOUR * power;
@@ -178,24 +172,11 @@ public class WashingMachine extends SemiShiftingAppliance
       // case of variable tariff rate
       else {
 
-        double minvalue = Double.POSITIVE_INFINITY;
-        Instant hour1 = now;
-
         // if we have dryer in the household
         if (dryerFlag) {
 
-          // find the all the available functioning hours of the appliance
-          for (int i = 0; i < HouseholdConstants.END_OF_FUNCTION_HOUR; i++) {
-            if (functionMatrix[i]) {
-              if (minvalue >= tariff.getUsageCharge(hour1, 1, 0) + tariff.getUsageCharge(new Instant(hour1.getMillis() + TimeService.HOUR), 1, 0)
-                  + tariff.getUsageCharge(new Instant(hour1.getMillis() + 2 * TimeService.HOUR), 1, 0) + tariff.getUsageCharge(new Instant(hour1.getMillis() + 3 * TimeService.HOUR), 1, 0)) {
-                minvalue = tariff.getUsageCharge(hour1, 1, 0) + tariff.getUsageCharge(new Instant(hour1.getMillis() + TimeService.HOUR), 1, 0)
-                    + tariff.getUsageCharge(new Instant(hour1.getMillis() + 2 * TimeService.HOUR), 1, 0) + tariff.getUsageCharge(new Instant(hour1.getMillis() + 3 * TimeService.HOUR), 1, 0);
-                minindex = i;
-              }
-            }
-            hour1 = new Instant(hour1.getMillis() + TimeService.HOUR);
-          }
+          // find the cheapest of the available functioning hours of the appliance
+          minindex = prices.getCheapestStart(getPossibleHours(day, HouseholdConstants.END_OF_FUNCTION_HOUR), 4);
           newControllableLoad[minindex] = HouseholdConstants.QUARTERS_OF_HOUR * power;
           newControllableLoad[minindex + 1] = HouseholdConstants.QUARTERS_OF_HOUR * power;
           newControllableLoad[minindex + 2] = HouseholdConstants.QUARTERS_OF_HOUR * dryerPower - HouseholdConstants.DRYER_THIRD_PHASE_LOAD;
@@ -205,15 +186,7 @@ public class WashingMachine extends SemiShiftingAppliance
         else {
           // find the all the available functioning hours of the appliance
           if (operationDaysVector.get(day)) {
-            for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY; i++) {
-              if (functionMatrix[i]) {
-                if (minvalue >= tariff.getUsageCharge(hour1, 1, 0) + tariff.getUsageCharge(new Instant(hour1.getMillis() + TimeService.HOUR), 1, 0)) {
-                  minvalue = tariff.getUsageCharge(hour1, 1, 0) + tariff.getUsageCharge(new Instant(hour1.getMillis() + TimeService.HOUR), 1, 0);
-                  minindex = i;
-                }
-              }
-              hour1 = new Instant(hour1.getMillis() + TimeService.HOUR);
-            }
+            minindex = prices.getCheapestStart(getPossibleHours(day), 2);
             newControllableLoad[minindex] = HouseholdConstants.QUARTERS_OF_HOUR * power;
             newControllableLoad[minindex + 1] = HouseholdConstants.QUARTERS_OF_HOUR * power;
           }
@@ -263,9 +236,8 @@ public class WashingMachine extends SemiShiftingAppliance
     log.info("Operation Vector = ");
     for (int i = 0; i < HouseholdConstants.DAYS_OF_WEEK; i++) {
       log.info("Day " + (i + 1));
-      ListIterator<Boolean> iter3 = operationVector.get(i).listIterator();
       for (int j = 0; j < HouseholdConstants.QUARTERS_OF_DAY; j++)
-        log.info("Quarter : " + (j + 1) + "  " + iter3.next());
+        log.info("Quarter : " + (j + 1) + "  " + operationVector.get(i, j));
     }
 
     // Printing Weekly Operation Vector and Load Vector
@@ -273,10 +245,8 @@ public class WashingMachine extends SemiShiftingAppliance
 
     for (int i = 0; i < HouseholdConstants.DAYS_OF_WEEK; i++) {
       log.info("Day " + (i + 1));
-      ListIterator<Boolean> iter3 = weeklyOperation.get(i).listIterator();
-      ListIterator<Integer> iter4 = weeklyLoadVector.get(i).listIterator();
       for (int j = 0; j < HouseholdConstants.QUARTERS_OF_DAY; j++)
-        log.info("Quarter " + (j + 1) + " = " + iter3.next() + "   Load = " + iter4.next());
+        log.info("Quarter " + (j + 1) + " = " + weeklyOperation.get(i, j) + "   Load = " + weeklyLoad.getLoad(i, j));
     }
   }
 
@@ -292,8 +262,8 @@ public class WashingMachine extends SemiShiftingAppliance
       Vector<Appliance> applianceList = applianceOf.getAppliances();
       for (Appliance appliance : applianceList) {
         if (appliance instanceof Dryer) {
-          operationVector = new Vector<Vector<Boolean>>();
-          appliance.refresh(gen);
+          operationVector = new OperationCalendar();
+          appliance.refresh(appliance.getStream());
         }
       }
     }
@@ -17,19 +17,16 @@
 package org.powertac.householdcustomer.appliances;
 
 import java.util.Iterator;
-import java.util.ListIterator;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Properties;
 import java.util.Random;
 import java.util.Set;
 import java.util.Vector;
 
-import org.joda.time.Instant;
-import org.powertac.common.Tariff;
-import org.powertac.common.TimeService;
 import org.powertac.common.configurations.HouseholdConstants;
 import org.powertac.common.enumerations.HeaterType;
+import org.powertac.householdcustomer.configurations.HouseholdConfiguration;
+import org.powertac.householdcustomer.tariffs.PriceCurve;
 
 /**
  * Circulation pump is the appliance that brings water to the household. It works most of the hours
@@ -41,6 +38,8 @@ import org.powertac.common.enumerations.HeaterType;
 public class WaterHeater extends FullyShiftingAppliance
 {
 
+  private static final long serialVersionUID = 1L;
+
   /**
    * The type of the water heater. For more info, read the details in the enumerations.HeaterType
    * java file
@@ -51,49 +50,43 @@ public class WaterHeater extends FullyShiftingAppliance
   public void fillDailyFunction (int weekday, Random gen)
   {
     // Initializing And Creating Auxiliary Variables
-    loadVector = new Vector<Integer>();
-    dailyOperation = new Vector<Boolean>();
-    Vector<Boolean> operation = new Vector<Boolean>();
+    createLoadVector();
+    createDailyOperation();
+    long[] present = applianceOf.getPresentMask(weekday);
 
     if (type == HeaterType.InstantHeater) {
-      operation = operationVector.get(weekday);
       for (int i = 0; i < HouseholdConstants.QUARTERS_OF_DAY; i++) {
-        if (operation.get(i) == true) {
+        if (operationVector.get(weekday, i)) {
           boolean flag = true;
           int counter = 0;
           while ((flag) && (i < HouseholdConstants.QUARTERS_OF_DAY) && (counter >= 0)) {
-            if (applianceOf.isEmpty(weekday, i) == false) {
-              loadVector.add(power);
-              dailyOperation.add(true);
+            if (OperationCalendar.get(present, i)) {
+              addLoad(power);
+              addOperation(true);
               counter--;
               if (counter < 0)
                 flag = false;
             } else {
-              loadVector.add(0);
-              dailyOperation.add(false);
+              addLoad(0);
+              addOperation(false);
               i++;
-              if (i < HouseholdConstants.QUARTERS_OF_DAY && operation.get(i) == true)
+              if (i < HouseholdConstants.QUARTERS_OF_DAY && operationVector.get(weekday, i))
                 counter++;
             }
           }
         } else {
-          loadVector.add(0);
-          dailyOperation.add(false);
+          addLoad(0);
+          addOperation(false);
         }
       }
-      weeklyLoadVector.add(loadVector);
+      addWeeklyLoad();
       weeklyOperation.add(dailyOperation);
 
     } else {
 
       int start = 0;
       int temp = 0;
-
-      for (int i = 0; i < HouseholdConstants.QUARTERS_OF_DAY; i++) {
-        operation.add(false);
-        dailyOperation.add(false);
-        loadVector.add(0);
-      }
+      long[] operation = OperationCalendar.createDay();
 
       if (gen.nextFloat() > HouseholdConstants.STORAGE_HEATER_POSSIBILITY)
         start = (HouseholdConstants.STORAGE_HEATER_START + 1) + gen.nextInt(HouseholdConstants.STORAGE_HEATER_START - 1);
@@ -101,45 +94,40 @@ public class WaterHeater extends FullyShiftingAppliance
         start = 1 + gen.nextInt(HouseholdConstants.STORAGE_HEATER_START);
 
       for (int i = start; i < start + HouseholdConstants.STORAGE_HEATER_PHASE_LOAD; i++) {
-        operation.set(i, true);
-        dailyOperation.set(i, true);
-        loadVector.set(i, power);
+        OperationCalendar.set(operation, i);
+        OperationCalendar.set(dailyOperation, i);
+        loadVector[i] = power;
       }
 
       temp = start + HouseholdConstants.STORAGE_HEATER_PHASE_LOAD;
 
       for (int j = 0; j < HouseholdConstants.STORAGE_HEATER_PHASES - 1; j++) {
-        operation.set((temp + HouseholdConstants.STORAGE_HEATER_PHASES * j), true);
-        dailyOperation.set((temp + HouseholdConstants.STORAGE_HEATER_PHASES * j), true);
-        loadVector.set((temp + HouseholdConstants.STORAGE_HEATER_PHASES * j), power);
+        OperationCalendar.set(operation, (temp + HouseholdConstants.STORAGE_HEATER_PHASES * j));
+        OperationCalendar.set(dailyOperation, (temp + HouseholdConstants.STORAGE_HEATER_PHASES * j));
+        loadVector[temp + HouseholdConstants.STORAGE_HEATER_PHASES * j] = power;
       }
-      weeklyLoadVector.add(loadVector);
+      addWeeklyLoad();
       weeklyOperation.add(dailyOperation);
       operationVector.add(operation);
     }
   }
 
   @Override
-  Vector<Boolean> createDailyPossibilityOperationVector (int day)
+  long[] createDailyPossibilityOperationVector (int day)
   {
 
-    Vector<Boolean> possibilityDailyOperation = new Vector<Boolean>();
+    long[] possibilityDailyOperation = OperationCalendar.createDay();
 
     // If the heater is instant Heater
     if (type == HeaterType.InstantHeater) {
       // It can operate each quarter someone is at home to turn it on
-      for (int j = 0; j < HouseholdConstants.QUARTERS_OF_DAY; j++) {
-        if (applianceOf.isEmpty(day, j) == false)
-          possibilityDailyOperation.add(true);
-        else
-          possibilityDailyOperation.add(false);
-      }
+      possibilityDailyOperation = applianceOf.getPresentMask(day);
     }
     // If heater is storage
     else {
       // It can operate all quarters of day
       for (int j = 0; j < HouseholdConstants.QUARTERS_OF_DAY; j++) {
-        possibilityDailyOperation.add(true);
+        OperationCalendar.set(possibilityDailyOperation, j);
       }
     }
     return possibilityDailyOperation;
@@ -180,9 +168,8 @@ public class WaterHeater extends FullyShiftingAppliance
     log.info("Operation Vector = ");
     for (int i = 0; i < HouseholdConstants.DAYS_OF_WEEK; i++) {
       log.info("Day " + (i + 1));
-      ListIterator<Boolean> iter3 = operationVector.get(i).listIterator();
       for (int j = 0; j < HouseholdConstants.QUARTERS_OF_DAY; j++)
-        log.info("Quarter : " + (j + 1) + "  " + iter3.next());
+        log.info("Quarter : " + (j + 1) + "  " + operationVector.get(i, j));
     }
 
     // Printing Weekly Operation Vector and Load Vector
@@ -190,22 +177,20 @@ public class WaterHeater extends FullyShiftingAppliance
 
     for (int i = 0; i < HouseholdConstants.DAYS_OF_WEEK; i++) {
       log.info("Day " + (i + 1));
-      ListIterator<Boolean> iter3 = weeklyOperation.get(i).listIterator();
-      ListIterator<Integer> iter4 = weeklyLoadVector.get(i).listIterator();
       for (int j = 0; j < HouseholdConstants.QUARTERS_OF_DAY; j++)
-        log.info("Quarter " + (j + 1) + " = " + iter3.next() + "   Load = " + iter4.next());
+        log.info("Quarter " + (j + 1) + " = " + weeklyOperation.get(i, j) + "   Load = " + weeklyLoad.getLoad(i, j));
     }
   }
 
   @Override
-  public void initialize (String household, Properties conf, Random gen)
+  public void initialize (String household, HouseholdConfiguration conf, Random gen)
   {
     // Creating Auxiliary Variables
     int x = 1 + gen.nextInt(HouseholdConstants.PERCENTAGE);
-    int limit = Integer.parseInt(conf.getProperty("InstantHeater"));
+    int limit = conf.instantHeater;
     // Filling the base variables
     name = household + " WaterHeater";
-    saturation = Double.parseDouble(conf.getProperty("WaterHeaterSaturation"));
+    saturation = conf.waterHeaterSaturation;
     // If the heater is instant Heater
     if (x < limit) {
       consumptionShare = (float) (HouseholdConstants.PERCENTAGE * (HouseholdConstants.INSTANT_HEATER_CONSUMPTION_SHARE_VARIANCE * gen.nextGaussian() + HouseholdConstants.INSTANT_HEATER_CONSUMPTION_SHARE_MEAN));
@@ -218,7 +203,7 @@ public class WaterHeater extends FullyShiftingAppliance
           HouseholdConstants.INSTANT_HEATER_POSSIBILITY_SEASON_3);
       probabilityWeekday = fillDay(HouseholdConstants.INSTANT_HEATER_POSSIBILITY_DAY_1, HouseholdConstants.INSTANT_HEATER_POSSIBILITY_DAY_2, HouseholdConstants.INSTANT_HEATER_POSSIBILITY_DAY_3);
       type = HeaterType.InstantHeater;
-      times = Integer.parseInt(conf.getProperty("InstantHeaterDailyTimes")) + (int) (applianceOf.getMembers().size() / 2);
+      times = conf.instantHeaterDailyTimes + (int) (applianceOf.getMembers().size() / 2);
       createWeeklyOperationVector(times, gen);
     }
     // If heater is storage
@@ -237,7 +222,7 @@ public class WaterHeater extends FullyShiftingAppliance
   }
 
   @Override
-  public long[] dailyShifting (Tariff tariff, Instant now, int day, Random gen)
+  public long[] dailyShifting (PriceCurve prices, int day, Random gen)
   {
 
     long[] newControllableLoad = new long[HouseholdConstants.HOURS_OF_DAY];
@@ -249,10 +234,10 @@ public class WaterHeater extends FullyShiftingAppliance
       if (operationDaysVector.get(day)) {
 
         int minindex = 0;
-        boolean[] functionMatrix = createShiftingOperationMatrix(day);
 
         // case of fixed tariff rate
-        if ((tariff.getTariffSpec().getRates().size() == 1) && (tariff.getTariffSpec().getRates().get(0).isFixed())) {
+        if (prices.isFixed()) {
+          boolean[] functionMatrix = createShiftingOperationMatrix(day);
           Vector<Integer> possibleHours = new Vector<Integer>();
 
           // find the all the available functioning hours of the appliance
@@ -261,24 +246,13 @@ public class WaterHeater extends FullyShiftingAppliance
               possibleHours.add(i);
             }
           }
-          minindex = possibleHours.get(gen.nextInt(possibleHours.size()));
+          if (possibleHours.size() > 0)
+            minindex = possibleHours.get(gen.nextInt(possibleHours.size()));
         }
         // case of variable tariff rate
         else {
-
-          double minvalue = Double.POSITIVE_INFINITY;
-          Instant hour1 = now;
-
-          // find the all the available functioning hours of the appliance
-          for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY; i++) {
-            if (functionMatrix[i]) {
-              if (minvalue >= tariff.getUsageCharge(hour1, 1, 0)) {
-                minvalue = tariff.getUsageCharge(hour1, 1, 0);
-                minindex = i;
-              }
-            }
-            hour1 = new Instant(hour1.getMillis() + TimeService.HOUR);
-          }
+          // find the cheapest of the available functioning hours of the appliance
+          minindex = prices.getCheapestStart(getPossibleHours(day), 1);
         }
         newControllableLoad[minindex] = times * power;
       }
@@ -289,10 +263,10 @@ public class WaterHeater extends FullyShiftingAppliance
       // If the heater is working the day of the shifting
       if (operationDaysVector.get(day)) {
         int minindex = 0;
-        boolean[] functionMatrix = createShiftingOperationMatrix(day);
 
         // case of fixed tariff rate
-        if ((tariff.getTariffSpec().getRates().size() == 1) && (tariff.getTariffSpec().getRates().get(0).isFixed())) {
+        if (prices.isFixed()) {
+          boolean[] functionMatrix = createShiftingOperationMatrix(day);
           Vector<Integer> possibleHours = new Vector<Integer>();
           // find the all the available functioning hours of the appliance
           for (int i = 0; i < HouseholdConstants.STORAGE_HEATER_SHIFTING_END; i++) {
@@ -300,27 +274,13 @@ public class WaterHeater extends FullyShiftingAppliance
               possibleHours.add(i);
             }
           }
-          minindex = possibleHours.get(gen.nextInt(possibleHours.size()));
+          if (possibleHours.size() > 0)
+            minindex = possibleHours.get(gen.nextInt(possibleHours.size()));
         }
         // case of variable tariff rate
         else {
-          double minvalue = Double.POSITIVE_INFINITY;
-          Instant hour1 = now;
-
-          // find the all the available functioning hours of the appliance
-          for (int i = 0; i < HouseholdConstants.STORAGE_HEATER_SHIFTING_END; i++) {
-            if (functionMatrix[i]) {
-              if (minvalue >= tariff.getUsageCharge(hour1, 1, 0) + tariff.getUsageCharge(new Instant(hour1.getMillis() + TimeService.HOUR), 1, 0)
-                  + tariff.getUsageCharge(new Instant(hour1.getMillis() + 2 * TimeService.HOUR), 1, 0) + tariff.getUsageCharge(new Instant(hour1.getMillis() + 3 * TimeService.HOUR), 1, 0)
-                  + tariff.getUsageCharge(new Instant(hour1.getMillis() + 4 * TimeService.HOUR), 1, 0)) {
-                minvalue = tariff.getUsageCharge(hour1, 1, 0) + tariff.getUsageCharge(new Instant(hour1.getMillis() + TimeService.HOUR), 1, 0)
-                    + tariff.getUsageCharge(new Instant(hour1.getMillis() + 2 * TimeService.HOUR), 1, 0) + tariff.getUsageCharge(new Instant(hour1.getMillis() + 3 * TimeService.HOUR), 1, 0)
-                    + tariff.getUsageCharge(new Instant(hour1.getMillis() + 4 * TimeService.HOUR), 1, 0);
-                minindex = i;
-              }
-            }
-            hour1 = new Instant(hour1.getMillis() + TimeService.HOUR);
-          }
+          // find the cheapest of the available functioning hours of the appliance
+          minindex = prices.getCheapestStart(getPossibleHours(day, HouseholdConstants.STORAGE_HEATER_SHIFTING_END), 5);
         }
         for (int i = 0; i <= HouseholdConstants.STORAGE_HEATER_PHASES; i++) {
           newControllableLoad[minindex + i] = HouseholdConstants.QUARTERS_OF_HOUR * power;
@@ -0,0 +1,462 @@
+/*
+ * Copyright 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS,  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.powertac.householdcustomer.configurations;
+
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+
+import org.powertac.common.configurations.HouseholdConstants;
+import org.powertac.householdcustomer.customers.ProfileStorage;
+import org.powertac.householdcustomer.random.CategoricalDistribution;
+import org.powertac.householdcustomer.random.RandomEngine;
+
+/**
+ * The household configuration parses and validates the parameters of the configuration file once,
+ * so the household models read typed values. A missing or malformed value is reported with its key.
+ * @author Antonios Chrysopoulos
+ * @version 1, 17/10/2026
+ */
+public class HouseholdConfiguration
+{
+
+  // General Variables
+  public final int publicVacationDuration;
+  public final int numberOfVillages;
+
+  // Parallel Initialization And Evaluation Variables
+  public final boolean parallelInitialization;
+  public final int initializationThreads;
+  public final boolean parallelEvaluation;
+  public final int evaluationThreads;
+
+  // Random Number Generator Variables
+  public final RandomEngine randomEngine;
+
+  // Load Generation Variables
+  public final boolean lazyGeneration;
+  public final int loadWindowDays;
+
+  /** The least number of days of a rolling window: the current and next week and one more day. */
+  public static final int MIN_WINDOW_DAYS = 2 * HouseholdConstants.DAYS_OF_WEEK + 1;
+
+  // Population Snapshot Variables
+  public final String snapshotDirectory;
+
+  // Profile Storage Variables
+  public final ProfileStorage profileStorage;
+  public final String profileDirectory;
+
+  // Rescheduling Variables
+  public final int reschedulingHours;
+
+  // Person Consumption Variables
+  public final int onePersonConsumption;
+  public final int twoPersonsConsumption;
+  public final int threePersonsConsumption;
+  public final int fourPersonsConsumption;
+  public final int fivePersonsConsumption;
+
+  // Persons In Household Variables
+  public final int onePerson;
+  public final int twoPersons;
+  public final int threePersons;
+  public final int fourPersons;
+
+  // Person Type Variables
+  public final int periodicPresent;
+  public final int mostlyPresent;
+
+  // Sickness Related Variables
+  public final double sicknessMean;
+  public final double sicknessDev;
+
+  // Number And Duration Of Leisure Activities
+  public final double ppLeisure;
+  public final double mpLeisure;
+  public final double raLeisure;
+  public final double leisureDurationMean;
+  public final double leisureDurationDev;
+
+  // Working Days Per Week
+  public final int twoDays;
+  public final int threeDays;
+  public final int fourDays;
+  public final int fiveDays;
+  public final int sixDays;
+  public final int sevenDays;
+
+  // Working Duration
+  public final double workingDurationMean;
+  public final double workingDurationDev;
+
+  // Working Vacation Related Variables
+  public final double vacationDurationMean;
+  public final double vacationDurationDev;
+  public final double vacationAbsence;
+
+  // Variables of Household Appliances
+  public final double refrigeratorSaturation;
+  public final double freezerSaturation;
+  public final double dishwasherSaturation;
+  public final int dishwasherWeeklyTimes;
+  public final double stoveSaturation;
+  public final int stoveDailyTimes;
+  public final double washingMachineSaturation;
+  public final int washingMachineWeeklyTimes;
+  public final double dryerSaturation;
+  public final int dryerWeeklyTimes;
+  public final double consumerElectronicsSaturation;
+  public final int consumerElectronicsDailyTimes;
+  public final double ictSaturation;
+  public final int ictDailyTimes;
+  public final double waterHeaterSaturation;
+  public final int instantHeater;
+  public final int instantHeaterDailyTimes;
+  public final double circulationPumpSaturation;
+  public final double circulationPumpPercentage;
+  public final double spaceHeaterSaturation;
+  public final double spaceHeaterPercentage;
+  public final int lightsDailyTimes;
+  public final int othersDailyTimes;
+
+  // Number Of Houses
+  public final int notShiftingCustomers;
+  public final int randomlyShiftingCustomers;
+  public final int regularlyShiftingCustomers;
+  public final int smartShiftingCustomers;
+
+  /** The distribution of the number of persons in a household, from one to five persons. */
+  public final CategoricalDistribution personsDistribution;
+
+  /**
+   * The distribution of the person types, in the order periodic present, mostly present and
+   * randomly absent.
+   */
+  public final CategoricalDistribution personTypeDistribution;
+
+  /**
+   * The distribution of the working days per week, in the order five, six, four, three, two, seven
+   * and one days.
+   */
+  public final CategoricalDistribution workingDaysDistribution;
+
+  /** The yearly consumption of a household by its number of persons, from one to five persons. */
+  final int[] yearConsumptions;
+
+  /**
+   * The keys of the values that change how a game is executed but not the population it generates,
+   * such as the number of threads or the storage of the profiles.
+   */
+  final Set<String> executionKeys = new HashSet<String>();
+
+  /**
+   * This is the constructor of the household configuration, parsing and validating the values of
+   * the configuration file.
+   * @param conf
+   */
+  public HouseholdConfiguration (Properties conf)
+  {
+    publicVacationDuration = getCount(conf, "PublicVacationDuration");
+    numberOfVillages = getCount(conf, "NumberOfVillages");
+
+    parallelInitialization = getBoolean(conf, executionKey("ParallelInitialization"), false);
+    initializationThreads = getCount(conf, executionKey("InitializationThreads"), 0);
+    parallelEvaluation = getBoolean(conf, executionKey("ParallelEvaluation"), false);
+    evaluationThreads = getCount(conf, executionKey("EvaluationThreads"), 0);
+
+    randomEngine = getEngine(conf, "RandomEngine", RandomEngine.LEGACY);
+
+    loadWindowDays = getCount(conf, "LoadWindowDays", 0);
+    if (loadWindowDays > 0 && loadWindowDays < MIN_WINDOW_DAYS)
+      throw new IllegalArgumentException("Configuration value LoadWindowDays is less than " + MIN_WINDOW_DAYS);
+    lazyGeneration = getBoolean(conf, "LazyGeneration", false) || loadWindowDays > 0;
+
+    snapshotDirectory = getString(conf, executionKey("SnapshotDirectory"), "");
+
+    profileStorage = getStorage(conf, executionKey("ProfileStorage"), ProfileStorage.HEAP);
+    profileDirectory = getString(conf, executionKey("ProfileDirectory"), "");
+
+    reschedulingHours = getCount(conf, executionKey("ReschedulingHours"), 1);
+    if (reschedulingHours < 1 || reschedulingHours > HouseholdConstants.HOURS_OF_DAY)
+      throw new IllegalArgumentException("Configuration value ReschedulingHours is not between 1 and " + HouseholdConstants.HOURS_OF_DAY);
+
+    onePersonConsumption = getCount(conf, "OnePersonConsumption");
+    twoPersonsConsumption = getCount(conf, "TwoPersonsConsumption");
+    threePersonsConsumption = getCount(conf, "ThreePersonsConsumption");
+    fourPersonsConsumption = getCount(conf, "FourPersonsConsumption");
+    fivePersonsConsumption = getCount(conf, "FivePersonsConsumption");
+
+    onePerson = getCount(conf, "OnePerson");
+    twoPersons = getCount(conf, "TwoPersons");
+    threePersons = getCount(conf, "ThreePersons");
+    fourPersons = getCount(conf, "FourPersons");
+    checkPercentages("OnePerson to FourPersons", onePerson + twoPersons + threePersons + fourPersons);
+    personsDistribution = new CategoricalDistribution(onePerson, twoPersons, threePersons, fourPersons, HouseholdConstants.PERCENTAGE - onePerson - twoPersons - threePersons - fourPersons);
+    yearConsumptions = new int[] { onePersonConsumption, twoPersonsConsumption, threePersonsConsumption, fourPersonsConsumption, fivePersonsConsumption };
+
+    periodicPresent = getCount(conf, "PeriodicPresent");
+    mostlyPresent = getCount(conf, "MostlyPresent");
+    checkPercentages("PeriodicPresent and MostlyPresent", periodicPresent + mostlyPresent);
+    personTypeDistribution = new CategoricalDistribution(periodicPresent, mostlyPresent, HouseholdConstants.PERCENTAGE - periodicPresent - mostlyPresent);
+
+    sicknessMean = getValue(conf, "SicknessMean");
+    sicknessDev = getValue(conf, "SicknessDev");
+
+    ppLeisure = getValue(conf, "PPLeisure");
+    mpLeisure = getValue(conf, "MPLeisure");
+    raLeisure = getValue(conf, "RALeisure");
+    leisureDurationMean = getValue(conf, "LeisureDurationMean");
+    leisureDurationDev = getValue(conf, "LeisureDurationDev");
+
+    twoDays = getCount(conf, "TwoDays");
+    threeDays = getCount(conf, "ThreeDays");
+    fourDays = getCount(conf, "FourDays");
+    fiveDays = getCount(conf, "FiveDays");
+    sixDays = getCount(conf, "SixDays");
+    sevenDays = getCount(conf, "SevenDays");
+    checkPercentages("TwoDays to SevenDays", twoDays + threeDays + fourDays + fiveDays + sixDays + sevenDays);
+    workingDaysDistribution = new CategoricalDistribution(fiveDays, sixDays, fourDays, threeDays, twoDays, sevenDays, HouseholdConstants.PERCENTAGE - fiveDays - sixDays - fourDays - threeDays - twoDays - sevenDays);
+
+    workingDurationMean = getValue(conf, "WorkingDurationMean");
+    workingDurationDev = getValue(conf, "WorkingDurationDev");
+
+    vacationDurationMean = getValue(conf, "VacationDurationMean");
+    vacationDurationDev = getValue(conf, "VacationDurationDev");
+    vacationAbsence = getShare(conf, "VacationAbsence");
+
+    refrigeratorSaturation = getShare(conf, "RefrigeratorSaturation");
+    freezerSaturation = getShare(conf, "FreezerSaturation");
+    dishwasherSaturation = getShare(conf, "DishwasherSaturation");
+    dishwasherWeeklyTimes = getCount(conf, "DishwasherWeeklyTimes");
+    stoveSaturation = getShare(conf, "StoveSaturation");
+    stoveDailyTimes = getCount(conf, "StoveDailyTimes");
+    washingMachineSaturation = getShare(conf, "WashingMachineSaturation");
+    washingMachineWeeklyTimes = getCount(conf, "WashingMachineWeeklyTimes");
+    dryerSaturation = getShare(conf, "DryerSaturation");
+    dryerWeeklyTimes = getCount(conf, "DryerWeeklyTimes");
+    consumerElectronicsSaturation = getShare(conf, "ConsumerElectronicsSaturation");
+    consumerElectronicsDailyTimes = getCount(conf, "ConsumerElectronicsDailyTimes");
+    ictSaturation = getShare(conf, "ICTSaturation");
+    ictDailyTimes = getCount(conf, "ICTDailyTimes");
+    waterHeaterSaturation = getShare(conf, "WaterHeaterSaturation");
+    instantHeater = getCount(conf, "InstantHeater");
+    checkPercentages("InstantHeater", instantHeater);
+    instantHeaterDailyTimes = getCount(conf, "InstantHeaterDailyTimes");
+    circulationPumpSaturation = getShare(conf, "CirculationPumpSaturation");
+    circulationPumpPercentage = getShare(conf, "CirculationPumpPercentage");
+    spaceHeaterSaturation = getShare(conf, "SpaceHeaterSaturation");
+    spaceHeaterPercentage = getShare(conf, "SpaceHeaterPercentage");
+    lightsDailyTimes = getCount(conf, "LightsDailyTimes");
+    othersDailyTimes = getCount(conf, "OthersDailyTimes");
+
+    notShiftingCustomers = getCount(conf, "NotShiftingCustomers");
+    randomlyShiftingCustomers = getCount(conf, "RandomlyShiftingCustomers");
+    regularlyShiftingCustomers = getCount(conf, "RegularlyShiftingCustomers");
+    smartShiftingCustomers = getCount(conf, "SmartShiftingCustomers");
+  }
+
+  /**
+   * This function returns true if the load is kept in a rolling window of days, so the game can go
+   * on for any number of days, instead of for every day of the competition.
+   */
+  public boolean isRollingWindow ()
+  {
+    return loadWindowDays > 0;
+  }
+
+  /**
+   * This function returns true if the populations of the villages are restored from and written to
+   * snapshots in a directory.
+   */
+  public boolean isSnapshotEnabled ()
+  {
+    return snapshotDirectory.length() > 0;
+  }
+
+  /** This function shows whether the load of the households is kept outside the heap. */
+  public boolean isOffHeapStorage ()
+  {
+    return profileStorage != ProfileStorage.HEAP;
+  }
+
+  /** This function returns the number of days the load stores hold. */
+  public int getStoreDays ()
+  {
+    return isRollingWindow() ? loadWindowDays : HouseholdConstants.DAYS_OF_COMPETITION + HouseholdConstants.DAYS_OF_BOOTSTRAP;
+  }
+
+  /**
+   * This function returns the number of weeks whose load is generated: every week of the
+   * competition, or no limit with a rolling window.
+   */
+  public int getGeneratedWeeks ()
+  {
+    return isRollingWindow() ? Integer.MAX_VALUE : HouseholdConstants.WEEKS_OF_COMPETITION + HouseholdConstants.WEEKS_OF_BOOTSTRAP;
+  }
+
+  /**
+   * This function returns the number of days after the current day among which the tariffs are
+   * evaluated with a rolling window. The week of the last of them has to fit in the window along
+   * with the current day.
+   */
+  public int getEvaluationLookahead ()
+  {
+    return loadWindowDays - 2 * HouseholdConstants.DAYS_OF_WEEK;
+  }
+
+  /** This function returns the number of households of each village. */
+  public int getVillagePopulation ()
+  {
+    return notShiftingCustomers + randomlyShiftingCustomers + regularlyShiftingCustomers + smartShiftingCustomers;
+  }
+
+  /**
+   * This function returns the yearly consumption of a household with the given outcome of the
+   * distribution of the number of persons.
+   * @param persons
+   * @return
+   */
+  public int getYearConsumption (int persons)
+  {
+    return yearConsumptions[persons];
+  }
+
+  /**
+   * This function returns true if the given key of the configuration file only changes how the game
+   * is executed, so that a population generated with any value of it is the same.
+   * @param key
+   * @return
+   */
+  public boolean isExecutionKey (String key)
+  {
+    return executionKeys.contains(key);
+  }
+
+  /** This function marks a key of the configuration file as an execution key and returns it. */
+  String executionKey (String key)
+  {
+    executionKeys.add(key);
+    return key;
+  }
+
+  /**
+   * This function returns the value of a key of the configuration file, failing if it is missing.
+   * @param conf
+   * @param key
+   * @return
+   */
+  static String getString (Properties conf, String key)
+  {
+    String value = conf.getProperty(key);
+    if (value == null)
+      throw new IllegalArgumentException("Missing configuration value " + key);
+    return value.trim();
+  }
+
+  /** This function returns the value of a key of the configuration file, if present. */
+  static String getString (Properties conf, String key, String defaultValue)
+  {
+    String value = conf.getProperty(key);
+    return (value == null) ? defaultValue : value.trim();
+  }
+
+  /** This function parses a non-negative integer value of the configuration file. */
+  static int getCount (Properties conf, String key)
+  {
+    String value = getString(conf, key);
+    int count;
+    try {
+      count = Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid configuration value " + key + "=" + value, e);
+    }
+    if (count < 0)
+      throw new IllegalArgumentException("Negative configuration value " + key + "=" + value);
+    return count;
+  }
+
+  /** This function parses a non-negative integer value of the configuration file, if present. */
+  static int getCount (Properties conf, String key, int defaultValue)
+  {
+    return (conf.getProperty(key) == null) ? defaultValue : getCount(conf, key);
+  }
+
+  /** This function parses a non-negative real value of the configuration file. */
+  static double getValue (Properties conf, String key)
+  {
+    String value = getString(conf, key);
+    double result;
+    try {
+      result = Double.parseDouble(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid configuration value " + key + "=" + value, e);
+    }
+    if (!(result >= 0) || Double.isInfinite(result))
+      throw new IllegalArgumentException("Invalid configuration value " + key + "=" + value);
+    return result;
+  }
+
+  /** This function parses a real value of the configuration file between zero and one. */
+  static double getShare (Properties conf, String key)
+  {
+    double result = getValue(conf, key);
+    if (result > 1)
+      throw new IllegalArgumentException("Configuration value " + key + " is greater than one");
+    return result;
+  }
+
+  /** This function parses a boolean value of the configuration file, if present. */
+  static boolean getBoolean (Properties conf, String key, boolean defaultValue)
+  {
+    String value = conf.getProperty(key);
+    return (value == null) ? defaultValue : Boolean.parseBoolean(value.trim());
+  }
+
+  /** This function parses the random engine of the configuration file, if present. */
+  static RandomEngine getEngine (Properties conf, String key, RandomEngine defaultValue)
+  {
+    String value = conf.getProperty(key);
+    if (value == null)
+      return defaultValue;
+    try {
+      return RandomEngine.valueOf(value.trim().toUpperCase());
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Invalid configuration value " + key + "=" + value, e);
+    }
+  }
+
+  /** This function parses the profile storage of the configuration file, if present. */
+  static ProfileStorage getStorage (Properties conf, String key, ProfileStorage defaultValue)
+  {
+    String value = conf.getProperty(key);
+    if (value == null)
+      return defaultValue;
+    try {
+      return ProfileStorage.valueOf(value.trim().toUpperCase());
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Invalid configuration value " + key + "=" + value, e);
+    }
+  }
+
+  /** This function checks that a sum of percentages of the configuration file is not over 100. */
+  static void checkPercentages (String keys, int sum)
+  {
+    if (sum > HouseholdConstants.PERCENTAGE)
+      throw new IllegalArgumentException("Configuration values " + keys + " add up to more than " + HouseholdConstants.PERCENTAGE);
+  }
+
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS,  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.powertac.householdcustomer.customers;
+
+import java.io.Serializable;
+
+import org.powertac.common.configurations.HouseholdConstants;
+
+/**
+ * The aggregate load store keeps the aggregated load of a village for every portion and type of
+ * load in primitive arrays, one row for each day. Like the load store, the rows are kept in a ring
+ * that moves on as the days are released.
+ * @author Antonios Chrysopoulos
+ * @version 1, 17/10/2026
+ */
+public class AggregateLoadStore implements Serializable
+{
+
+  private static final long serialVersionUID = 1L;
+
+  /** The number of portions of households kept in the store. */
+  static final int PORTIONS = Portion.values().length;
+
+  /** The number of types of load kept in the store. */
+  static final int TYPES = LoadType.values().length;
+
+  /** The number of days of the window of the store. */
+  int days;
+
+  /** The first day that has not been released. */
+  int first;
+
+  /** These are the rows containing the aggregated load of each quarter of each day. */
+  long[][] quarters;
+
+  /** These are the rows containing the aggregated load of each hour of each day. */
+  long[][] hours;
+
+  /**
+   * These are the blocks of each day whose load in hours has been replaced or changed by the
+   * shifting of the appliances, one bit for each block. The shifting only finds the load in hours,
+   * so the quarters of these blocks no longer agree with the hours and are not read again.
+   */
+  int[] shifted;
+
+  /**
+   * This is the constructor of the aggregate load store.
+   * @param days
+   */
+  public AggregateLoadStore (int days)
+  {
+    this.days = days;
+    quarters = new long[days][];
+    hours = new long[days][];
+    shifted = new int[days];
+  }
+
+  /** This function returns the number of days of the window of the store. */
+  public int getDays ()
+  {
+    return days;
+  }
+
+  /** This function returns the first day of the store that has not been released. */
+  public int getFirstDay ()
+  {
+    return first;
+  }
+
+  /** This function returns the block of a portion and type of load in the row of a day. */
+  static int block (Portion portion, LoadType type)
+  {
+    return portion.ordinal() * TYPES + type.ordinal();
+  }
+
+  /**
+   * This function returns the aggregated load of a certain quarter of a day. The quarters of a load
+   * shifted in hours cannot be read.
+   */
+  public long getLoad (Portion portion, LoadType type, int day, int quarter)
+  {
+    checkQuarters(portion, type, day);
+    long[] row = quarters[slot(day)];
+    return (row == null) ? 0 : row[block(portion, type) * HouseholdConstants.QUARTERS_OF_DAY + quarter];
+  }
+
+  /** This function returns the aggregated load of a certain hour of a day. */
+  public long getLoadInHours (Portion portion, LoadType type, int day, int hour)
+  {
+    long[] row = hours[slot(day)];
+    return (row == null) ? 0 : row[block(portion, type) * HouseholdConstants.HOURS_OF_DAY + hour];
+  }
+
+  /**
+   * This function adds the load of a day of a household load store to the aggregated load of the
+   * same day. The load in hours has to be derived afterwards by calling fillHours.
+   * @param portion
+   * @param type
+   * @param day
+   * @param load
+   */
+  public void addDay (Portion portion, LoadType type, int day, LoadStore load)
+  {
+    checkQuarters(portion, type, day);
+    load.addTo(day, quarterRow(day), block(portion, type) * HouseholdConstants.QUARTERS_OF_DAY);
+  }
+
+  /**
+   * This function replaces the aggregated load in hours of a day, as it is after the shifting of
+   * the appliances. From then on the quarters of the day cannot be read or aggregated.
+   * @param portion
+   * @param type
+   * @param day
+   * @param load
+   */
+  public void setDayInHours (Portion portion, LoadType type, int day, long[] load)
+  {
+    quarterRow(day);
+    shifted[day % days] |= 1 << block(portion, type);
+    System.arraycopy(load, 0, hours[day % days], block(portion, type) * HouseholdConstants.HOURS_OF_DAY, HouseholdConstants.HOURS_OF_DAY);
+  }
+
+  /**
+   * This function adds the given changes to the aggregated load in hours of a day, as the shifting
+   * of the appliances changes it. From then on the quarters of the day cannot be read or
+   * aggregated.
+   * @param portion
+   * @param type
+   * @param day
+   * @param changes
+   */
+  public void addDayInHours (Portion portion, LoadType type, int day, long[] changes)
+  {
+    quarterRow(day);
+    shifted[day % days] |= 1 << block(portion, type);
+    long[] hourRow = hours[day % days];
+    int hour = block(portion, type) * HouseholdConstants.HOURS_OF_DAY;
+    for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY; i++)
+      hourRow[hour + i] += changes[i];
+  }
+
+  /**
+   * This function returns the aggregated load in hours of a day.
+   * @param portion
+   * @param type
+   * @param day
+   * @return
+   */
+  public long[] getDayInHours (Portion portion, LoadType type, int day)
+  {
+    long[] load = new long[HouseholdConstants.HOURS_OF_DAY];
+    for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY; i++)
+      load[i] = getLoadInHours(portion, type, day, i);
+    return load;
+  }
+
+  /**
+   * This function fills out the aggregated load in hours of a day taking in consideration the load
+   * per quarter of an hour.
+   * @param portion
+   * @param type
+   * @param day
+   */
+  public void fillHours (Portion portion, LoadType type, int day)
+  {
+    checkQuarters(portion, type, day);
+    long[] row = quarterRow(day);
+    long[] hourRow = hours[day % days];
+    int quarter = block(portion, type) * HouseholdConstants.QUARTERS_OF_DAY;
+    int hour = block(portion, type) * HouseholdConstants.HOURS_OF_DAY;
+    for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY; i++) {
+      hourRow[hour + i] = row[quarter] + row[quarter + 1] + row[quarter + 2] + row[quarter + 3];
+      quarter += HouseholdConstants.QUARTERS_OF_HOUR;
+    }
+  }
+
+  /** This function returns the aggregated load of a type for an hour of a day over all portions. */
+  public long getTotalLoadInHours (LoadType type, int day, int hour)
+  {
+    long[] row = hours[slot(day)];
+    if (row == null)
+      return 0;
+    long sum = 0;
+    int index = type.ordinal() * HouseholdConstants.HOURS_OF_DAY + hour;
+    int stride = TYPES * HouseholdConstants.HOURS_OF_DAY;
+    for (int i = 0; i < PORTIONS; i++) {
+      sum += row[index];
+      index += stride;
+    }
+    return sum;
+  }
+
+  /**
+   * This function releases the rows of all the days before the given day, moving the window of the
+   * store on. The released days cannot be read or stored again.
+   * @param day
+   */
+  public void release (int day)
+  {
+    int last = Math.min(day, first + days);
+    for (int i = first; i < last; i++) {
+      quarters[i % days] = null;
+      hours[i % days] = null;
+      shifted[i % days] = 0;
+    }
+    first = Math.max(first, day);
+  }
+
+  /** This function returns the quarter row of a day, creating the rows of the day if needed. */
+  long[] quarterRow (int day)
+  {
+    int slot = slot(day);
+    long[] row = quarters[slot];
+    if (row == null) {
+      row = new long[PORTIONS * TYPES * HouseholdConstants.QUARTERS_OF_DAY];
+      quarters[slot] = row;
+      hours[slot] = new long[PORTIONS * TYPES * HouseholdConstants.HOURS_OF_DAY];
+    }
+    return row;
+  }
+
+  /**
+   * This function checks that the quarters of a block of a day still agree with its load in hours,
+   * that is the block has not been shifted.
+   */
+  void checkQuarters (Portion portion, LoadType type, int day)
+  {
+    if ((shifted[slot(day)] & (1 << block(portion, type))) != 0)
+      throw new IllegalStateException("The " + type + " load of day " + day + " has been shifted in hours, its quarters are out of date");
+  }
+
+  /**
+   * This function returns the position of the rows of a day in the ring, checking that the day has
+   * not been released and that it fits in the window.
+   */
+  int slot (int day)
+  {
+    if (day < first)
+      throw new IllegalStateException("Day " + day + " has been released from the aggregate load store");
+    if (day >= first + days)
+      throw new IndexOutOfBoundsException("Day " + day + " is after the window of the aggregate load store");
+    return day % days;
+  }
+
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS,  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.powertac.householdcustomer.customers;
+
+import java.io.ObjectStreamException;
+import java.nio.IntBuffer;
+
+import org.powertac.common.configurations.HouseholdConstants;
+
+/**
+ * The buffer load store keeps the load of a household in a region of the profile store of its
+ * village instead of on the heap, behind the same functions as the load store.
+ * @author Antonios Chrysopoulos
+ * @version 1, 17/10/2026
+ */
+public class BufferLoadStore extends LoadStore
+{
+
+  private static final long serialVersionUID = 1L;
+
+  /** The number of values of the row of a day: the quarters followed by the hours. */
+  static final int ROW = HouseholdConstants.QUARTERS_OF_DAY + HouseholdConstants.HOURS_OF_DAY;
+
+  /** This is the region of the buffer containing the rows of the days of the window. */
+  transient IntBuffer buffer;
+
+  /**
+   * This is the constructor of the buffer load store, over a region of days times ROW values.
+   * @param days
+   * @param buffer
+   */
+  public BufferLoadStore (int days, IntBuffer buffer)
+  {
+    super(days, false);
+    if (buffer.capacity() < days * ROW)
+      throw new IllegalArgumentException("The buffer of the load store is too small for " + days + " days");
+    this.buffer = buffer;
+  }
+
+  @Override
+  public int getLoad (int day, int quarter)
+  {
+    return buffer.get(slot(day) * ROW + quarter);
+  }
+
+  @Override
+  public int getLoadInHours (int day, int hour)
+  {
+    return buffer.get(slot(day) * ROW + HouseholdConstants.QUARTERS_OF_DAY + hour);
+  }
+
+  @Override
+  public long getDailyLoad (int day)
+  {
+    int position = slot(day) * ROW + HouseholdConstants.QUARTERS_OF_DAY;
+    long sum = 0;
+    for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY; i++)
+      sum += buffer.get(position + i);
+    return sum;
+  }
+
+  @Override
+  public void setDay (int day, int[] load)
+  {
+    int position = slot(day) * ROW;
+    for (int i = 0; i < HouseholdConstants.QUARTERS_OF_DAY; i++)
+      buffer.put(position + i, load[i]);
+    fillHours(day);
+  }
+
+  @Override
+  public void addDay (int day, LoadStore other)
+  {
+    int[] source = other.row(day);
+    if (source == null)
+      return;
+    int position = slot(day) * ROW;
+    for (int i = 0; i < HouseholdConstants.QUARTERS_OF_DAY; i++)
+      buffer.put(position + i, buffer.get(position + i) + source[i]);
+  }
+
+  @Override
+  public void addTo (int day, long[] target, int offset)
+  {
+    int position = slot(day) * ROW;
+    for (int i = 0; i < HouseholdConstants.QUARTERS_OF_DAY; i++)
+      target[offset + i] += buffer.get(position + i);
+  }
+
+  @Override
+  public void fillHours (int day)
+  {
+    int quarter = slot(day) * ROW;
+    int hour = quarter + HouseholdConstants.QUARTERS_OF_DAY;
+    for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY; i++) {
+      buffer.put(hour + i, buffer.get(quarter) + buffer.get(quarter + 1) + buffer.get(quarter + 2) + buffer.get(quarter + 3));
+      quarter += HouseholdConstants.QUARTERS_OF_HOUR;
+    }
+  }
+
+  @Override
+  public void release (int day)
+  {
+    int last = Math.min(day, first + days);
+    for (int i = first; i < last; i++) {
+      int position = (i % days) * ROW;
+      for (int j = 0; j < ROW; j++)
+        buffer.put(position + j, 0);
+    }
+    first = Math.max(first, day);
+  }
+
+  @Override
+  int[] row (int day)
+  {
+    int position = slot(day) * ROW;
+    int[] row = new int[HouseholdConstants.QUARTERS_OF_DAY];
+    for (int i = 0; i < HouseholdConstants.QUARTERS_OF_DAY; i++)
+      row[i] = buffer.get(position + i);
+    return row;
+  }
+
+  /** This function replaces the store with an ordinary load store when it is serialized. */
+  private Object writeReplace () throws ObjectStreamException
+  {
+    LoadStore store = new LoadStore(days);
+    store.copy(this);
+    return store;
+  }
+
+}
@@ -15,17 +15,13 @@
  */
 package org.powertac.householdcustomer.customers;
 
+import java.io.Serializable;
 import java.util.Iterator;
-import java.util.ListIterator;
-import java.util.Properties;
 import java.util.Random;
 import java.util.Vector;
 
 import org.apache.log4j.Logger;
-import org.joda.time.Instant;
-import org.powertac.common.Tariff;
 import org.powertac.common.configurations.HouseholdConstants;
-import org.powertac.common.enumerations.Status;
 import org.powertac.householdcustomer.appliances.Appliance;
 import org.powertac.householdcustomer.appliances.CirculationPump;
 import org.powertac.householdcustomer.appliances.ConsumerElectronics;
@@ -35,16 +31,21 @@ import org.powertac.householdcustomer.appliances.Freezer;
 import org.powertac.householdcustomer.appliances.ICT;
 import org.powertac.householdcustomer.appliances.Lights;
 import org.powertac.householdcustomer.appliances.NotShiftingAppliance;
+import org.powertac.householdcustomer.appliances.OperationCalendar;
 import org.powertac.householdcustomer.appliances.Others;
 import org.powertac.householdcustomer.appliances.Refrigerator;
 import org.powertac.householdcustomer.appliances.SpaceHeater;
 import org.powertac.householdcustomer.appliances.Stove;
 import org.powertac.householdcustomer.appliances.WashingMachine;
 import org.powertac.householdcustomer.appliances.WaterHeater;
+import org.powertac.householdcustomer.configurations.HouseholdConfiguration;
 import org.powertac.householdcustomer.persons.MostlyPresentPerson;
 import org.powertac.householdcustomer.persons.PeriodicPresentPerson;
 import org.powertac.householdcustomer.persons.Person;
 import org.powertac.householdcustomer.persons.RandomlyAbsentPerson;
+import org.powertac.householdcustomer.random.RandomStreams;
+import org.powertac.householdcustomer.tariffs.PriceCurve;
+import org.powertac.householdcustomer.tariffs.ShiftedLoad;
 
 /**
  * The household is the domain instance represents a single house with the tenants living inside it
@@ -54,39 +55,45 @@ import org.powertac.householdcustomer.persons.RandomlyAbsentPerson;
  * @author Antonios Chrysopoulos
  * @version 1, 13/02/2011
  */
-public class Household
+public class Household implements Serializable
 {
 
+  private static final long serialVersionUID = 1L;
+
   /**
    * logger for trace logging -- use log.info(), log.warn(), and log.error() appropriately. Use
    * log.debug() for output you want to see in testing or debugging.
    */
   static protected Logger log = Logger.getLogger(Household.class.getName());
 
+  /** The number of persons, in the order of the outcomes of the persons distribution. */
+  static final int[] PERSONS = { HouseholdConstants.ONE_PERSON, HouseholdConstants.TWO_PERSONS, HouseholdConstants.THREE_PERSONS, HouseholdConstants.FOUR_PERSONS,
+      HouseholdConstants.FIVE_PERSONS };
+
+  /** The outcomes of the person type distribution. */
+  static final int PERIODIC_PRESENT = 0, MOSTLY_PRESENT = 1;
+
   /** the household name. It is different for each one to be able to tell them apart. */
   String name;
 
   /**
-   * This is a vector containing each day's load from the appliances installed inside the household.
-   **/
-  Vector<Integer> dailyBaseLoad = new Vector<Integer>();
-
-  /**
-   * This is a vector containing each day's load from the appliances installed inside the household.
+   * This is the store containing the base load from the appliances installed inside the household
+   * for all the days of the competition, or of the rolling window, by quarter and by hour.
    **/
-  Vector<Integer> dailyControllableLoad = new Vector<Integer>();
+  LoadStore baseLoad;
 
   /**
-   * This is a vector containing the load from the appliances installed inside the household for all
-   * the week days.
+   * This is the store containing the controllable load from the appliances installed inside the
+   * household for all the days of the competition, or of the rolling window, by quarter and by
+   * hour.
    **/
-  Vector<Vector<Integer>> weeklyBaseLoad = new Vector<Vector<Integer>>();
+  LoadStore controllableLoad;
 
   /**
-   * This is a vector containing the load from the appliances installed inside the household for all
-   * the week days.
+   * This is the index of the quarters in which the members of the household are present or on
+   * vacation, for all the days of the competition, or of the rolling window.
    **/
-  Vector<Vector<Integer>> weeklyControllableLoad = new Vector<Vector<Integer>>();
+  OccupancyIndex occupancy;
 
   /**
    * This is a statistical measure of the household, giving a general idea of the consumption level
@@ -94,17 +101,11 @@ public class Household
    */
   int yearConsumption;
 
-  /** This is an agreggated vector containing each day's load in hours. **/
-  Vector<Integer> dailyBaseLoadInHours = new Vector<Integer>();
+  /** This is the random streams facility keyed for this household. **/
+  RandomStreams streams;
 
-  /** This is an agreggated vector containing each day's load in hours. **/
-  Vector<Integer> dailyControllableLoadInHours = new Vector<Integer>();
-
-  /** This is an agreggated vector containing the weekly base load in hours. **/
-  Vector<Vector<Integer>> weeklyBaseLoadInHours = new Vector<Vector<Integer>>();
-
-  /** This is an agreggated vector containing the weekly controllable load in hours. **/
-  Vector<Vector<Integer>> weeklyControllableLoadInHours = new Vector<Vector<Integer>>();
+  /** This is the random number generator owned by the household itself. **/
+  Random gen;
 
   /** This variable shows the current load of the house, for the current quarter or hour. **/
   int currentLoad;
@@ -112,6 +113,12 @@ public class Household
   /** Helping variable for the correct refreshing of the schedules. */
   int week = 0;
 
+  /** This variable shows the number of weeks of the competition whose load has been generated. */
+  int weeks = 0;
+
+  /** This is the configuration the weeks of the household are generated with. */
+  transient HouseholdConfiguration conf;
+
   /**
    * This is a vector containing the members of the household, the people that belong to each
    * household
@@ -124,10 +131,50 @@ public class Household
    */
   Vector<Appliance> appliances = new Vector<Appliance>();
 
+  /**
+   * These are the appliances of the household sorted by the load they add to: the not shifting
+   * appliances of the base load and the shifting appliances of the controllable load, which are
+   * further split in the ones shifted periodically, that a village can shift in batches by kind,
+   * and the rest.
+   */
+  Appliance[] baseAppliances;
+  Appliance[] controllableAppliances;
+  Appliance[] periodicAppliances;
+  Appliance[] shiftingAppliances;
+
+  /** This is the controllable load the household last contributed to a rescheduled day. */
+  transient ShiftedLoad rescheduledLoad;
+
   /**
    * This variable is pointing to the village that this household is part of.
    */
-  public Village householdOf;
+  public transient Village householdOf;
+
+  /**
+   * This function sets the stores of the base and controllable load of the household, when the
+   * village keeps them outside the heap. It is called before the initialization, which otherwise
+   * creates the stores on the heap.
+   * @param base
+   * @param controllable
+   */
+  public void setLoadStores (LoadStore base, LoadStore controllable)
+  {
+    baseLoad = base;
+    controllableLoad = controllable;
+  }
+
+  /**
+   * This function moves the base and controllable load of the household to the given stores, as
+   * when a household restored from a snapshot is given the stores of its village.
+   * @param base
+   * @param controllable
+   */
+  public void moveLoadStores (LoadStore base, LoadStore controllable)
+  {
+    base.copy(baseLoad);
+    controllable.copy(controllableLoad);
+    setLoadStores(base, controllable);
+  }
 
   /**
    * This is the initialization function. It uses the variable values for the configuration file to
@@ -138,24 +185,49 @@ public class Household
    * @param gen
    * @return
    */
-  public void initialize (String HouseName, Properties conf, Vector<Integer> publicVacationVector, Random gen)
+  public void initialize (String HouseName, HouseholdConfiguration conf, Vector<Integer> publicVacationVector, Random gen)
   {
-    double va = Double.parseDouble(conf.getProperty("VacationAbsence"));
+    initialize(HouseName, conf, publicVacationVector, new RandomStreams(gen.nextLong(), conf.randomEngine));
+  }
+
+  /**
+   * This is the initialization function using a random streams facility keyed for this household.
+   * The household, each of its members and each of its appliances draw from their own streams, so
+   * the household does not depend on the order in which it is built.
+   * @param HouseName
+   * @param conf
+   * @param publicVacationVector
+   * @param houseStreams
+   * @return
+   */
+  public void initialize (String HouseName, HouseholdConfiguration conf, Vector<Integer> publicVacationVector, RandomStreams houseStreams)
+  {
+    double va = conf.vacationAbsence;
     name = HouseName;
+    streams = houseStreams;
+    this.conf = conf;
+    if (baseLoad == null) {
+      baseLoad = new LoadStore(conf.getStoreDays());
+      controllableLoad = new LoadStore(conf.getStoreDays());
+    }
+    occupancy = new OccupancyIndex(conf.getStoreDays());
+    gen = streams.createStream(RandomStreams.HOUSEHOLD);
     int persons = memberRandomizer(conf, gen);
     for (int i = 0; i < persons; i++)
       addPerson(i + 1, conf, publicVacationVector, gen);
 
     for (Person member : members) {
       for (int i = 0; i < HouseholdConstants.DAYS_OF_WEEK; i++) {
-        member.fillDailyRoutine(i, va, gen);
+        member.fillDailyRoutine(i, va, member.getStream());
         member.getWeeklyRoutine().add(member.getDailyRoutine());
         member.setMemberOf(this);
       }
       // member.showInfo();
     }
+    fillWeeklyOccupancy();
 
-    fillAppliances(conf, gen);
+    fillAppliances(conf);
+    sortAppliances();
 
     /*
         for (Appliance appliance : appliances) {
@@ -164,30 +236,65 @@ public class Household
     */
 
     for (int i = 0; i < HouseholdConstants.DAYS_OF_WEEK; i++) {
-      dailyBaseLoad = fillDailyBaseLoad(week * HouseholdConstants.DAYS_OF_WEEK + i);
-      dailyControllableLoad = fillDailyControllableLoad(week * HouseholdConstants.DAYS_OF_WEEK + i);
-      weeklyBaseLoad.add(dailyBaseLoad);
-      weeklyControllableLoad.add(dailyControllableLoad);
-
-      dailyBaseLoadInHours = fillDailyBaseLoadInHours();
-      dailyControllableLoadInHours = fillDailyControllableLoadInHours();
-      weeklyBaseLoadInHours.add(dailyBaseLoadInHours);
-      weeklyControllableLoadInHours.add(dailyControllableLoadInHours);
+      fillDailyBaseLoad(week * HouseholdConstants.DAYS_OF_WEEK + i);
+      fillDailyControllableLoad(week * HouseholdConstants.DAYS_OF_WEEK + i);
     }
+    weeks = 1;
+
+    if (conf.lazyGeneration) {
+      for (Appliance appliance : appliances) {
+        appliance.setOperationDays();
+      }
+    } else {
+      generateUntil(conf.getStoreDays() - 1);
+    }
+  }
+
+  /**
+   * This function generates the weeks of the household up to the week of the given day, refreshing
+   * the schedule once for every week, in order. Since the members and the appliances draw from
+   * their own streams, the weeks are the same whether they are generated at the initialization or
+   * as the game approaches them.
+   * @param day
+   */
+  public void generateUntil (int day)
+  {
+    int last = Math.min(day / HouseholdConstants.DAYS_OF_WEEK + 1, conf.getGeneratedWeeks());
+    if (weeks >= last)
+      return;
 
-    for (week = 1; week < HouseholdConstants.WEEKS_OF_COMPETITION + HouseholdConstants.WEEKS_OF_BOOTSTRAP; week++) {
-      refresh(conf, gen);
+    for (week = weeks; week < last; week++) {
+      refresh(conf);
     }
+    weeks = last;
 
     for (Appliance appliance : appliances) {
       appliance.setOperationDays();
     }
-    /*
-        System.out.println(this.toString() + "  " + weeklyBaseLoad.size());
-        System.out.println(this.toString() + "  " + weeklyControllableLoad.size());
-        System.out.println(this.toString() + "  " + weeklyBaseLoadInHours.size());
-        System.out.println(this.toString() + "  " + weeklyControllableLoadInHours.size());
-    */
+  }
+
+  /** This function returns the number of days of the competition whose load has been generated. */
+  public int getGeneratedDays ()
+  {
+    return weeks * HouseholdConstants.DAYS_OF_WEEK;
+  }
+
+  /**
+   * This function releases the load of the household, its appliances, the routines of its members
+   * and its occupancy index for all the days before the given day.
+   * @param day
+   */
+  public void release (int day)
+  {
+    baseLoad.release(day);
+    controllableLoad.release(day);
+    for (Appliance appliance : appliances) {
+      appliance.release(day);
+    }
+    for (Person member : members) {
+      member.releaseRoutines(day);
+    }
+    occupancy.release(day);
   }
 
   /**
@@ -199,26 +306,26 @@ public class Household
    * @param gen
    * @return
    */
-  void addPerson (int counter, Properties conf, Vector<Integer> publicVacationVector, Random gen)
+  void addPerson (int counter, HouseholdConfiguration conf, Vector<Integer> publicVacationVector, Random gen)
   {
-    // Taking parameters from configuration file
-    int pp = Integer.parseInt(conf.getProperty("PeriodicPresent"));
-    int mp = Integer.parseInt(conf.getProperty("MostlyPresent"));
-
-    int x = gen.nextInt(HouseholdConstants.PERCENTAGE);
-    if (x < pp) {
+    // Taking the person type from the distribution of the configuration file
+    int type = conf.personTypeDistribution.sample(gen);
+    if (type == PERIODIC_PRESENT) {
       PeriodicPresentPerson ppp = new PeriodicPresentPerson();
-      ppp.initialize("PPP" + counter, conf, publicVacationVector, gen);
+      ppp.setStream(streams.createStream(RandomStreams.PERSONS, counter));
+      ppp.initialize("PPP" + counter, conf, publicVacationVector, ppp.getStream());
       members.add(ppp);
 
     } else {
-      if (x >= pp & x < (pp + mp)) {
+      if (type == MOSTLY_PRESENT) {
         MostlyPresentPerson mpp = new MostlyPresentPerson();
-        mpp.initialize("MPP" + counter, conf, publicVacationVector, gen);
+        mpp.setStream(streams.createStream(RandomStreams.PERSONS, counter));
+        mpp.initialize("MPP" + counter, conf, publicVacationVector, mpp.getStream());
         members.add(mpp);
       } else {
         RandomlyAbsentPerson rap = new RandomlyAbsentPerson();
-        rap.initialize("RAP" + counter, conf, publicVacationVector, gen);
+        rap.setStream(streams.createStream(RandomStreams.PERSONS, counter));
+        rap.initialize("RAP" + counter, conf, publicVacationVector, rap.getStream());
         members.add(rap);
       }
     }
@@ -240,6 +347,46 @@ public class Household
     return members;
   }
 
+  /**
+   * This is a function that returns the week of the competition the household schedule is at.
+   */
+  public int getWeek ()
+  {
+    return week;
+  }
+
+  /**
+   * This is a function that returns the base load of the household for a quarter of a day.
+   */
+  public int getBaseLoad (int day, int quarter)
+  {
+    return baseLoad.getLoad(day, quarter);
+  }
+
+  /**
+   * This is a function that returns the controllable load of the household for a quarter of a day.
+   */
+  public int getControllableLoad (int day, int quarter)
+  {
+    return controllableLoad.getLoad(day, quarter);
+  }
+
+  /**
+   * This is a function that returns the base load of the household for an hour of a day.
+   */
+  public int getBaseLoadInHours (int day, int hour)
+  {
+    return baseLoad.getLoadInHours(day, hour);
+  }
+
+  /**
+   * This is a function that returns the controllable load of the household for an hour of a day.
+   */
+  public int getControllableLoadInHours (int day, int hour)
+  {
+    return controllableLoad.getLoadInHours(day, hour);
+  }
+
   /**
    * This is the function that utilizes the possibilities of the number of persons in a household
    * and gives back a number randomly.
@@ -247,38 +394,11 @@ public class Household
    * @param gen
    * @return
    */
-  int memberRandomizer (Properties conf, Random gen)
+  int memberRandomizer (HouseholdConfiguration conf, Random gen)
   {
-    int one = Integer.parseInt(conf.getProperty("OnePerson"));
-    int two = Integer.parseInt(conf.getProperty("TwoPersons"));
-    int three = Integer.parseInt(conf.getProperty("ThreePersons"));
-    int four = Integer.parseInt(conf.getProperty("FourPersons"));
-    int returnValue;
-
-    int x = gen.nextInt(HouseholdConstants.PERCENTAGE);
-    if (x < one) {
-      yearConsumption = Integer.parseInt(conf.getProperty("OnePersonConsumption"));
-      returnValue = HouseholdConstants.ONE_PERSON;
-    } else {
-      if (x >= one & x < (one + two)) {
-        yearConsumption = Integer.parseInt(conf.getProperty("TwoPersonsConsumption"));
-        returnValue = HouseholdConstants.TWO_PERSONS;
-      } else {
-        if (x >= (one + two) & x < (one + two + three)) {
-          yearConsumption = Integer.parseInt(conf.getProperty("ThreePersonsConsumption"));
-          returnValue = HouseholdConstants.THREE_PERSONS;
-        } else {
-          if (x >= (one + two + three) & x < (one + two + three + four)) {
-            yearConsumption = Integer.parseInt(conf.getProperty("FourPersonsConsumption"));
-            returnValue = HouseholdConstants.FOUR_PERSONS;
-          } else {
-            yearConsumption = Integer.parseInt(conf.getProperty("FivePersonsConsumption"));
-            returnValue = HouseholdConstants.FIVE_PERSONS;
-          }
-        }
-      }
-    }
-    return returnValue;
+    int outcome = conf.personsDistribution.sample(gen);
+    yearConsumption = conf.getYearConsumption(outcome);
+    return PERSONS[outcome];
   }
 
   /**
@@ -301,6 +421,31 @@ public class Household
       this.appliances.remove(app);
   }
 
+  /**
+   * This function installs an appliance in the household, giving it its own random streams keyed by
+   * the slot of the appliance, and fills its schedule for the first week. If the appliance is not
+   * present in every household, its saturation is checked first.
+   * @param app
+   * @param slot
+   * @param conf
+   * @param check
+   * @return
+   */
+  void addAppliance (Appliance app, int slot, HouseholdConfiguration conf, boolean check)
+  {
+    appliances.add(app);
+    app.setApplianceOf(this);
+    app.createWeeklyLoad(conf.getStoreDays());
+    app.setStreams(streams.createStream(RandomStreams.APPLIANCES, slot), streams.derive(RandomStreams.SHIFTING, slot));
+    app.initialize(this.name, conf, app.getStream());
+    if (check) {
+      checkProbability(app, app.getStream());
+    } else {
+      app.fillWeeklyFunction(app.getStream());
+      app.createWeeklyPossibilityOperationVector();
+    }
+  }
+
   /**
    * This function is responsible for the filling of the household with the appliances and their
    * schedule for the first week using a statistic formula and the members of the household.
@@ -308,111 +453,53 @@ public class Household
    * @param gen
    * @return
    */
-  void fillAppliances (Properties conf, Random gen)
+  void fillAppliances (HouseholdConfiguration conf)
   {
 
     // NOT SHIFTING ================================
 
     // Consumer Electronics
-    ConsumerElectronics ce = new ConsumerElectronics();
-    appliances.add(ce);
-    ce.setApplianceOf(this);
-    ce.initialize(this.name, conf, gen);
-    ce.fillWeeklyFunction(gen);
-    ce.createWeeklyPossibilityOperationVector();
+    addAppliance(new ConsumerElectronics(), 0, conf, false);
 
     // ICT
-    ICT ict = new ICT();
-    appliances.add(ict);
-    ict.setApplianceOf(this);
-    ict.initialize(this.name, conf, gen);
-    ict.fillWeeklyFunction(gen);
-    ict.createWeeklyPossibilityOperationVector();
+    addAppliance(new ICT(), 1, conf, false);
 
     // Lights
-    Lights lights = new Lights();
-    appliances.add(lights);
-    lights.setApplianceOf(this);
-    lights.initialize(this.name, conf, gen);
-    lights.fillWeeklyFunction(gen);
-    lights.createWeeklyPossibilityOperationVector();
+    addAppliance(new Lights(), 2, conf, false);
 
     // Others
-    Others others = new Others();
-    appliances.add(others);
-    others.setApplianceOf(this);
-    others.initialize(this.name, conf, gen);
-    others.fillWeeklyFunction(gen);
-    others.createWeeklyPossibilityOperationVector();
+    addAppliance(new Others(), 3, conf, false);
 
     // Circulation Pump
-    CirculationPump cp = new CirculationPump();
-    cp.setApplianceOf(this);
-    appliances.add(cp);
-    cp.initialize(this.name, conf, gen);
-    checkProbability(cp, gen);
+    addAppliance(new CirculationPump(), 4, conf, true);
 
     // FULLY SHIFTING ================================
 
     // Refrigerator
-    Refrigerator ref = new Refrigerator();
-    appliances.add(ref);
-    ref.setApplianceOf(this);
-    ref.initialize(this.name, conf, gen);
-    ref.fillWeeklyFunction(gen);
-    ref.createWeeklyPossibilityOperationVector();
+    addAppliance(new Refrigerator(), 5, conf, false);
 
     // Freezer
-    Freezer fr = new Freezer();
-    appliances.add(fr);
-    fr.setApplianceOf(this);
-    fr.initialize(this.name, conf, gen);
-    checkProbability(fr, gen);
+    addAppliance(new Freezer(), 6, conf, true);
 
     // Water Heater
-    WaterHeater wh = new WaterHeater();
-    appliances.add(wh);
-    wh.setApplianceOf(this);
-    wh.initialize(this.name, conf, gen);
-    checkProbability(wh, gen);
+    addAppliance(new WaterHeater(), 7, conf, true);
 
     // Space Heater
-    SpaceHeater sh = new SpaceHeater();
-    appliances.add(sh);
-    sh.setApplianceOf(this);
-    sh.initialize(this.name, conf, gen);
-    checkProbability(sh, gen);
+    addAppliance(new SpaceHeater(), 8, conf, true);
 
     // SEMI SHIFTING ================================
 
     // Dishwasher
-    Dishwasher dw = new Dishwasher();
-    appliances.add(dw);
-    dw.setApplianceOf(this);
-    dw.initialize(this.name, conf, gen);
-    checkProbability(dw, gen);
+    addAppliance(new Dishwasher(), 9, conf, true);
 
     // Stove
-    Stove st = new Stove();
-    appliances.add(st);
-    st.setApplianceOf(this);
-    st.initialize(this.name, conf, gen);
-    checkProbability(st, gen);
+    addAppliance(new Stove(), 10, conf, true);
 
     // Washing Machine
-    WashingMachine wm = new WashingMachine();
-    appliances.add(wm);
-    wm.setApplianceOf(this);
-    wm.initialize(this.name, conf, gen);
-    wm.fillWeeklyFunction(gen);
-    wm.createWeeklyPossibilityOperationVector();
+    addAppliance(new WashingMachine(), 11, conf, false);
 
     // Dryer
-    Dryer dr = new Dryer();
-    appliances.add(dr);
-    dr.setApplianceOf(this);
-    dr.initialize(this.name, conf, gen);
-    checkProbability(dr, gen);
+    addAppliance(new Dryer(), 12, conf, true);
 
   }
 
@@ -424,14 +511,28 @@ public class Household
    */
   public boolean isEmpty (int weekday, int quarter)
   {
-    boolean x = true;
-    for (Person member : members) {
-      if (member.getWeeklyRoutine().get(week * HouseholdConstants.DAYS_OF_WEEK + weekday).get(quarter) == Status.Normal
-          || member.getWeeklyRoutine().get(week * HouseholdConstants.DAYS_OF_WEEK + weekday).get(quarter) == Status.Sick) {
-        x = false;
-      }
-    }
-    return x;
+    return !occupancy.isPresent(week * HouseholdConstants.DAYS_OF_WEEK + weekday, quarter);
+  }
+
+  /**
+   * This function returns the mask of the quarters of a day of the current week in which at least
+   * one inhabitant is in the household, in the layout of the operation calendar.
+   * @param weekday
+   * @return
+   */
+  public long[] getPresentMask (int weekday)
+  {
+    return occupancy.presentMask(week * HouseholdConstants.DAYS_OF_WEEK + weekday);
+  }
+
+  /**
+   * This function builds the occupancy index of the days of the current week from the routines of
+   * the members of the household.
+   */
+  void fillWeeklyOccupancy ()
+  {
+    for (int i = 0; i < HouseholdConstants.DAYS_OF_WEEK; i++)
+      occupancy.fillDay(week * HouseholdConstants.DAYS_OF_WEEK + i, members);
   }
 
   /**
@@ -462,65 +563,43 @@ public class Household
     log.info(" Daily Load = ");
     for (int i = 0; i < HouseholdConstants.DAYS_OF_WEEK; i++) {
       log.info("Day " + (i));
-      ListIterator<Integer> iter2 = weeklyBaseLoad.get(i).listIterator();
-      ListIterator<Integer> iter3 = weeklyControllableLoad.get(i).listIterator();
       for (int j = 0; j < HouseholdConstants.QUARTERS_OF_DAY; j++)
-        log.info("Quarter : " + (j + 1) + " Base Load : " + iter2.next() + " Controllable Load: " + iter3.next());
+        log.info("Quarter : " + (j + 1) + " Base Load : " + baseLoad.getLoad(i, j) + " Controllable Load: " + controllableLoad.getLoad(i, j));
     }
 
     // Printing daily load in hours
     log.info(" Load In Hours = ");
     for (int i = 0; i < HouseholdConstants.DAYS_OF_WEEK; i++) {
       log.info("Day " + (i));
-      ListIterator<Integer> iter2 = weeklyBaseLoadInHours.get(i).listIterator();
-      ListIterator<Integer> iter3 = weeklyControllableLoadInHours.get(i).listIterator();
       for (int j = 0; j < HouseholdConstants.HOURS_OF_DAY; j++)
-        log.info("Hours : " + (j + 1) + " Base Load : " + iter2.next() + " Controllable Load: " + iter3.next());
+        log.info("Hours : " + (j + 1) + " Base Load : " + baseLoad.getLoadInHours(i, j) + " Controllable Load: " + controllableLoad.getLoadInHours(i, j));
     }
   }
 
   /**
    * This function is used in order to fill the daily Base Load of the household for each quarter of
-   * the hour
-   * @param weekday
+   * the hour and each hour of the day.
+   * @param day
    * @return
    */
-  Vector<Integer> fillDailyBaseLoad (int day)
+  void fillDailyBaseLoad (int day)
   {
-    // Creating auxiliary variables
-    Vector<Integer> v = new Vector<Integer>(HouseholdConstants.QUARTERS_OF_DAY);
-    int sum = 0;
-    for (int i = 0; i < HouseholdConstants.QUARTERS_OF_DAY; i++) {
-      sum = 0;
-      for (Appliance appliance : appliances) {
-        if (appliance instanceof NotShiftingAppliance)
-          sum = sum + appliance.getWeeklyLoadVector().get(day).get(i);
-      }
-      v.add(sum);
-    }
-    return v;
+    for (Appliance appliance : baseAppliances)
+      baseLoad.addDay(day, appliance.getWeeklyLoad());
+    baseLoad.fillHours(day);
   }
 
   /**
    * This function is used in order to fill the daily Controllable Load of the household for each
-   * quarter of the hour.
-   * @param weekday
+   * quarter of the hour and each hour of the day.
+   * @param day
    * @return
    */
-  Vector<Integer> fillDailyControllableLoad (int day)
+  void fillDailyControllableLoad (int day)
   {
-    // Creating auxiliary variables
-    Vector<Integer> v = new Vector<Integer>(HouseholdConstants.QUARTERS_OF_DAY);
-    int sum = 0;
-    for (int i = 0; i < HouseholdConstants.QUARTERS_OF_DAY; i++) {
-      sum = 0;
-      for (Appliance appliance : appliances) {
-        if (!(appliance instanceof NotShiftingAppliance))
-          sum = sum + appliance.getWeeklyLoadVector().get(day).get(i);
-      }
-      v.add(sum);
-    }
-    return v;
+    for (Appliance appliance : controllableAppliances)
+      controllableLoad.addDay(day, appliance.getWeeklyLoad());
+    controllableLoad.fillHours(day);
   }
 
   /**
@@ -531,13 +610,7 @@ public class Household
    */
   public boolean isOnVacation (int weekday, int quarter)
   {
-    boolean x = false;
-    for (Person member : members) {
-      if (member.getWeeklyRoutine().get(week * HouseholdConstants.DAYS_OF_WEEK + weekday).get(quarter) == Status.Vacation) {
-        x = true;
-      }
-    }
-    return x;
+    return occupancy.isOnVacation(week * HouseholdConstants.DAYS_OF_WEEK + weekday, quarter);
   }
 
   /**
@@ -556,58 +629,18 @@ public class Household
 
     // For each person in the house
     for (Person member : members) {
-      log.info("Name: " + member.toString() + " Status: " + member.getWeeklyRoutine().get(day).get(quarter));
+      log.info("Name: " + member.toString() + " Status: " + member.getStatus(day, quarter));
     }
     // Printing Inhabitants Status
     log.info("Appliances Quarter Status");
     for (Appliance appliance : appliances) {
-      log.info("Name: " + appliance.toString() + " Status: " + appliance.getWeeklyOperation().get(day).get(quarter) + " + Load: " + appliance.getWeeklyLoadVector().get(day).get(quarter));
+      log.info("Name: " + appliance.toString() + " Status: " + appliance.getWeeklyOperation().get(day, quarter) + " + Load: " + appliance.getWeeklyLoad().getLoad(day, quarter));
     }
     // Printing Household Status
     setCurrentLoad(day, quarter);
     log.info("Current Load: " + currentLoad);
   }
 
-  /**
-   * This function fills out the daily Base Load in hours vector taking in consideration the load
-   * per quarter of an hour.
-   * @return
-   */
-  Vector<Integer> fillDailyBaseLoadInHours ()
-  {
-
-    // Creating Auxiliary Variables
-    Vector<Integer> v = new Vector<Integer>(HouseholdConstants.HOURS_OF_DAY);
-    int sum = 0;
-    for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY; i++) {
-      sum = 0;
-      sum = dailyBaseLoad.get(i * HouseholdConstants.QUARTERS_OF_HOUR) + dailyBaseLoad.get(i * HouseholdConstants.QUARTERS_OF_HOUR + 1)
-          + dailyBaseLoad.get(i * HouseholdConstants.QUARTERS_OF_HOUR + 2) + dailyBaseLoad.get(i * HouseholdConstants.QUARTERS_OF_HOUR + 3);
-      v.add(sum);
-    }
-    return v;
-  }
-
-  /**
-   * This function fills out the daily Controllable Load in hours vector taking in consideration the
-   * load per quarter of an hour.
-   * @return
-   */
-  Vector<Integer> fillDailyControllableLoadInHours ()
-  {
-
-    // Creating Auxiliary Variables
-    Vector<Integer> v = new Vector<Integer>(HouseholdConstants.HOURS_OF_DAY);
-    int sum = 0;
-    for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY; i++) {
-      sum = 0;
-      sum = dailyControllableLoad.get(i * HouseholdConstants.QUARTERS_OF_HOUR) + dailyControllableLoad.get(i * HouseholdConstants.QUARTERS_OF_HOUR + 1)
-          + dailyControllableLoad.get(i * HouseholdConstants.QUARTERS_OF_HOUR + 2) + dailyControllableLoad.get(i * HouseholdConstants.QUARTERS_OF_HOUR + 3);
-      v.add(sum);
-    }
-    return v;
-  }
-
   /**
    * This function set the current load in accordance with the time of the competition
    * @param day
@@ -616,41 +649,35 @@ public class Household
    */
   void setCurrentLoad (int day, int quarter)
   {
-    currentLoad = weeklyBaseLoad.get(day).get(quarter) + weeklyControllableLoad.get(day).get(quarter);
+    currentLoad = baseLoad.getLoad(day, quarter) + controllableLoad.getLoad(day, quarter);
   }
 
   /**
    * At the end of each week the household models refresh their schedule. This way we have a
    * realistic and dynamic model, changing function hours, consuming power and so on.
    * @param conf
-   * @param gen
    * @return
    */
-  void refresh (Properties conf, Random gen)
+  void refresh (HouseholdConfiguration conf)
   {
 
     // For each member of the household
     for (Person member : members) {
-      member.refresh(conf, gen);
+      member.refresh(conf, member.getStream());
     }
+    fillWeeklyOccupancy();
 
     // For each appliance of the household
     for (Appliance appliance : appliances) {
-      appliance.setOperationVector(new Vector<Vector<Boolean>>());
+      appliance.setOperationVector(new OperationCalendar());
       if (!(appliance instanceof Dryer))
-        appliance.refresh(gen);
+        appliance.refresh(appliance.getStream());
 
     }
 
     for (int i = 0; i < HouseholdConstants.DAYS_OF_WEEK; i++) {
-      dailyBaseLoad = fillDailyBaseLoad(week * HouseholdConstants.DAYS_OF_WEEK + i);
-      dailyControllableLoad = fillDailyControllableLoad(week * HouseholdConstants.DAYS_OF_WEEK + i);
-      weeklyBaseLoad.add(dailyBaseLoad);
-      weeklyControllableLoad.add(dailyControllableLoad);
-      dailyBaseLoadInHours = fillDailyBaseLoadInHours();
-      dailyControllableLoadInHours = fillDailyControllableLoadInHours();
-      weeklyBaseLoadInHours.add(dailyBaseLoadInHours);
-      weeklyControllableLoadInHours.add(dailyControllableLoadInHours);
+      fillDailyBaseLoad(week * HouseholdConstants.DAYS_OF_WEEK + i);
+      fillDailyControllableLoad(week * HouseholdConstants.DAYS_OF_WEEK + i);
     }
 
   }
@@ -658,38 +685,92 @@ public class Household
   /**
    * This is the function that takes every appliance in the household and readies the shifted
    * Controllable Consumption for the needs of the tariff evaluation.
-   * @param tariff
-   * @param now
+   * @param prices
    * @param day
    * @return
    */
-  long[] dailyShifting (Tariff tariff, Instant now, int day, Random gen)
+  long[] dailyShifting (PriceCurve prices, int day)
   {
-
     long[] newControllableLoad = new long[HouseholdConstants.HOURS_OF_DAY];
+    addDailyShifting(prices, day, newControllableLoad, true);
+    return newControllableLoad;
+  }
+
+  /**
+   * This function adds the shifted controllable consumption of the appliances of the household to
+   * the given load in hours, leaving out the periodically shifted appliances when their village
+   * shifts them in batches.
+   * @param prices
+   * @param day
+   * @param load
+   * @param periodic
+   */
+  void addDailyShifting (PriceCurve prices, int day, long[] load, boolean periodic)
+  {
+    // One generator is reseeded for each appliance in turn, since each one only draws while shifted
+    Random gen = null;
+    for (Appliance appliance : (periodic) ? controllableAppliances : shiftingAppliances) {
+      gen = (gen == null) ? appliance.getShiftingStream(day) : appliance.getShiftingStream(day, gen);
+      long[] temp = appliance.dailyShifting(prices, day, gen);
+      for (int j = 0; j < HouseholdConstants.HOURS_OF_DAY; j++)
+        load[j] += temp[j];
+    }
+  }
+
+  /**
+   * This function reschedules the controllable consumption of the household for a day of its
+   * village, adding the difference from the load it last contributed to the given changes of the
+   * aggregated load. A household already rescheduled for the same day and prices is skipped.
+   * @param prices
+   * @param day
+   * @param changes
+   * @param periodic
+   */
+  void reschedule (PriceCurve prices, int day, long[] changes, boolean periodic)
+  {
+    if (rescheduledLoad == null)
+      rescheduledLoad = new ShiftedLoad();
+    else if (rescheduledLoad.isShifted(day, prices))
+      return;
+    long[] load = new long[HouseholdConstants.HOURS_OF_DAY];
+    addDailyShifting(prices, day, load, periodic);
+    rescheduledLoad.update(day, prices, load, changes);
+  }
 
+  /**
+   * This function sorts the appliances of the household by the load they add to, once they are all
+   * installed.
+   */
+  void sortAppliances ()
+  {
+    Vector<Appliance> base = new Vector<Appliance>();
+    Vector<Appliance> controllable = new Vector<Appliance>();
+    Vector<Appliance> periodic = new Vector<Appliance>();
+    Vector<Appliance> shifting = new Vector<Appliance>();
     for (Appliance appliance : appliances) {
-      if (!(appliance instanceof NotShiftingAppliance)) {
-        long[] temp = appliance.dailyShifting(tariff, now, day, gen);
-        Vector<Long> tempVector = new Vector<Long>();
-        Vector<Long> controllableVector = new Vector<Long>();
-        // log.info("Appliance " + appliance.toString());
-        // log.info("Load: " + appliance.getWeeklyLoadVector().get(day).toString());
-
-        for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY; i++)
-          tempVector.add(temp[i]);
-        // log.info("Temp: " + tempVector.toString());
-
-        for (int j = 0; j < HouseholdConstants.HOURS_OF_DAY; j++) {
-          newControllableLoad[j] += temp[j];
-          controllableVector.add(newControllableLoad[j]);
-        }
-        // log.info("New Load: " + controllableVector.toString());
+      if (appliance instanceof NotShiftingAppliance) {
+        base.add(appliance);
+        continue;
       }
+      controllable.add(appliance);
+      if (appliance.getShiftingInterval() > 0)
+        periodic.add(appliance);
+      else
+        shifting.add(appliance);
     }
-    return newControllableLoad;
+    baseAppliances = base.toArray(new Appliance[base.size()]);
+    controllableAppliances = controllable.toArray(new Appliance[controllable.size()]);
+    periodicAppliances = periodic.toArray(new Appliance[periodic.size()]);
+    shiftingAppliances = shifting.toArray(new Appliance[shifting.size()]);
   }
 
+  /** This function returns the appliances of the household that are shifted periodically. */
+  public Appliance[] getPeriodicAppliances ()
+  {
+    return periodicAppliances;
+  }
+
+
   /**
    * This function prints to the screen the daily load of the household for the weekday at hand
    * @param weekday
@@ -697,11 +778,9 @@ public class Household
    */
   public void printDailyLoad (int day)
   {
-    ListIterator<Integer> iter = weeklyBaseLoadInHours.get(day).listIterator();
-    ListIterator<Integer> iter2 = weeklyControllableLoadInHours.get(day).listIterator();
     log.info("Summary of Daily Load of House " + name);
     for (int j = 0; j < HouseholdConstants.HOURS_OF_DAY; j++)
-      log.info("Hour : " + j + 1 + " Base Load : " + iter.next() + " Controllable Load : " + iter2.next());
+      log.info("Hour : " + j + 1 + " Base Load : " + baseLoad.getLoadInHours(day, j) + " Controllable Load : " + controllableLoad.getLoadInHours(day, j));
   }
 
   public String toString ()
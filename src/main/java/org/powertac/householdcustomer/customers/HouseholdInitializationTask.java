@@ -0,0 +1,74 @@
+/*
+ * Copyright 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS,  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.powertac.householdcustomer.customers;
+
+import java.util.Vector;
+import java.util.concurrent.RecursiveAction;
+
+import org.apache.log4j.Logger;
+import org.powertac.householdcustomer.configurations.HouseholdConfiguration;
+import org.powertac.householdcustomer.random.RandomStreams;
+
+/**
+ * The household initialization task builds a single household of a village in a fork-join pool,
+ * from the random streams keyed by its index, so any thread builds the same household.
+ * @author Antonios Chrysopoulos
+ * @version 1, 17/10/2026
+ */
+public class HouseholdInitializationTask extends RecursiveAction
+{
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * logger for trace logging -- use log.info(), log.warn(), and log.error() appropriately. Use
+   * log.debug() for output you want to see in testing or debugging.
+   */
+  static protected Logger log = Logger.getLogger(HouseholdInitializationTask.class.getName());
+
+  /** The household that will be initialized. */
+  Household household;
+
+  /** The name of the household. */
+  String name;
+
+  /** The configuration of the household models. */
+  HouseholdConfiguration conf;
+
+  /** The public vacation days of the village. */
+  Vector<Integer> publicVacationVector;
+
+  /** The random streams facility keyed for the household. */
+  RandomStreams streams;
+
+  /** This is the constructor of the household initialization task. */
+  public HouseholdInitializationTask (Household household, String name, HouseholdConfiguration conf, Vector<Integer> publicVacationVector, RandomStreams streams)
+  {
+    this.household = household;
+    this.name = name;
+    this.conf = conf;
+    this.publicVacationVector = publicVacationVector;
+    this.streams = streams;
+  }
+
+  @Override
+  protected void compute ()
+  {
+    log.info("Initializing " + name);
+    household.initialize(name, conf, publicVacationVector, streams);
+  }
+
+}
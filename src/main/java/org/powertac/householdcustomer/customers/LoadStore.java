@@ -0,0 +1,319 @@
+/*
+ * Copyright 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS,  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.powertac.householdcustomer.customers;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+import org.powertac.common.configurations.HouseholdConstants;
+
+/**
+ * The load store keeps the load of a household or an appliance in primitive arrays, one row of
+ * quarters and one of hours for each day, in a ring of the size of the window. Sparse rows are
+ * serialized with their non-zero quarters only. The buffer load store keeps the same rows off the
+ * heap.
+ * @author Antonios Chrysopoulos
+ * @version 1, 17/10/2026
+ */
+public class LoadStore implements Serializable
+{
+
+  private static final long serialVersionUID = 1L;
+
+  /** The number of days of the window of the store. */
+  int days;
+
+  /** The first day that has not been released. */
+  int first;
+
+  /** These are the rows containing the load of each quarter of each day. */
+  transient int[][] quarters;
+
+  /** These are the rows containing the load of each hour of each day. */
+  transient int[][] hours;
+
+  /** The most quarters of non-zero load of a row that is serialized with its quarters. */
+  static final int SPARSE_QUARTERS = HouseholdConstants.QUARTERS_OF_DAY / 2;
+
+  /**
+   * This is the constructor of the load store.
+   * @param days
+   */
+  public LoadStore (int days)
+  {
+    this.days = days;
+    quarters = new int[days][];
+    hours = new int[days][];
+  }
+
+  /**
+   * This is the constructor of a load store whose load is kept by a subclass rather than in rows.
+   * @param days
+   * @param rows
+   */
+  LoadStore (int days, boolean rows)
+  {
+    this.days = days;
+    if (rows) {
+      quarters = new int[days][];
+      hours = new int[days][];
+    }
+  }
+
+  /** This function returns the number of days of the window of the store. */
+  public int getDays ()
+  {
+    return days;
+  }
+
+  /** This function returns the first day of the store that has not been released. */
+  public int getFirstDay ()
+  {
+    return first;
+  }
+
+  /** This function returns the load of a certain quarter of a day. */
+  public int getLoad (int day, int quarter)
+  {
+    int[] row = quarters[slot(day)];
+    return (row == null) ? 0 : row[quarter];
+  }
+
+  /** This function returns the load of a certain hour of a day. */
+  public int getLoadInHours (int day, int hour)
+  {
+    int[] row = hours[slot(day)];
+    return (row == null) ? 0 : row[hour];
+  }
+
+  /**
+   * This function returns the summary of the load of a day.
+   * @param day
+   * @return
+   */
+  public long getDailyLoad (int day)
+  {
+    int[] row = hours[slot(day)];
+    long sum = 0;
+    if (row != null)
+      for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY; i++)
+        sum += row[i];
+    return sum;
+  }
+
+  /**
+   * This function stores the load of a whole day, given by quarter, and derives the load in hours
+   * for this day.
+   * @param day
+   * @param load
+   */
+  public void setDay (int day, int[] load)
+  {
+    System.arraycopy(load, 0, quarterRow(day), 0, HouseholdConstants.QUARTERS_OF_DAY);
+    fillHours(day);
+  }
+
+  /**
+   * This function adds the load of a certain day of another store to the same day of this store.
+   * The load in hours has to be derived afterwards by calling fillHours.
+   * @param day
+   * @param other
+   */
+  public void addDay (int day, LoadStore other)
+  {
+    int[] source = other.row(day);
+    if (source == null)
+      return;
+    int[] row = quarterRow(day);
+    for (int i = 0; i < HouseholdConstants.QUARTERS_OF_DAY; i++)
+      row[i] += source[i];
+  }
+
+  /**
+   * This function adds the load of each quarter of a day to the given positions of an array of
+   * aggregated load.
+   * @param day
+   * @param target
+   * @param offset
+   */
+  public void addTo (int day, long[] target, int offset)
+  {
+    int[] row = quarters[slot(day)];
+    if (row == null)
+      return;
+    for (int i = 0; i < HouseholdConstants.QUARTERS_OF_DAY; i++)
+      target[offset + i] += row[i];
+  }
+
+  /**
+   * This function replaces the load of this store with the load of another store with a window of
+   * the same number of days, from its first day that has not been released on.
+   * @param source
+   */
+  public void copy (LoadStore source)
+  {
+    release(source.first);
+    for (int day = source.first; day < source.first + source.days; day++) {
+      int[] row = source.row(day);
+      if (row != null)
+        setDay(day, row);
+    }
+  }
+
+  /**
+   * This function fills out the load in hours of a day taking in consideration the load per quarter
+   * of an hour.
+   * @param day
+   */
+  public void fillHours (int day)
+  {
+    int[] row = quarterRow(day);
+    fillHours(row, hours[day % days]);
+  }
+
+  /** This function sums the load of a quarter row into an hour row. */
+  static void fillHours (int[] row, int[] hourRow)
+  {
+    int quarter = 0;
+    for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY; i++) {
+      hourRow[i] = row[quarter] + row[quarter + 1] + row[quarter + 2] + row[quarter + 3];
+      quarter += HouseholdConstants.QUARTERS_OF_HOUR;
+    }
+  }
+
+  /**
+   * This function releases the rows of all the days before the given day, moving the window of the
+   * store on. The released days cannot be read or stored again.
+   * @param day
+   */
+  public void release (int day)
+  {
+    int last = Math.min(day, first + days);
+    for (int i = first; i < last; i++) {
+      quarters[i % days] = null;
+      hours[i % days] = null;
+    }
+    first = Math.max(first, day);
+  }
+
+  /**
+   * This function returns the load of each quarter of a day, or null if the day has not been
+   * stored. The row returned is not to be modified.
+   */
+  int[] row (int day)
+  {
+    return quarters[slot(day)];
+  }
+
+  /** This function returns the quarter row of a day, creating the rows of the day if needed. */
+  int[] quarterRow (int day)
+  {
+    int slot = slot(day);
+    int[] row = quarters[slot];
+    if (row == null) {
+      row = new int[HouseholdConstants.QUARTERS_OF_DAY];
+      quarters[slot] = row;
+      hours[slot] = new int[HouseholdConstants.HOURS_OF_DAY];
+    }
+    return row;
+  }
+
+  /**
+   * This function writes the store, with its rows packed in a single array that is read back in
+   * bulk: for each row, the number of the quarters of non-zero load, or -1 for a day that is not
+   * stored, followed by the quarters and their load, or by the load of every quarter when most of
+   * them are non-zero.
+   */
+  private void writeObject (ObjectOutputStream out) throws IOException
+  {
+    out.defaultWriteObject();
+
+    int[] packed = new int[days * (HouseholdConstants.QUARTERS_OF_DAY + 1)];
+    int length = 0;
+    for (int[] row : quarters) {
+      if (row == null) {
+        packed[length++] = -1;
+        continue;
+      }
+      int count = 0;
+      for (int load : row)
+        if (load != 0)
+          count++;
+      packed[length++] = count;
+      if (count > SPARSE_QUARTERS) {
+        System.arraycopy(row, 0, packed, length, row.length);
+        length += row.length;
+        continue;
+      }
+      for (int i = 0; i < row.length; i++) {
+        if (row[i] != 0) {
+          packed[length++] = i;
+          packed[length++] = row[i];
+        }
+      }
+    }
+    out.writeObject(Arrays.copyOf(packed, length));
+  }
+
+  /**
+   * This function reads the store written by writeObject, deriving the load in hours. The days
+   * without any load are left without rows, since they read as zero all the same.
+   */
+  private void readObject (ObjectInputStream in) throws IOException, ClassNotFoundException
+  {
+    in.defaultReadObject();
+
+    int[] packed = (int[]) in.readObject();
+    int position = 0;
+    quarters = new int[days][];
+    hours = new int[days][];
+    for (int slot = 0; slot < days; slot++) {
+      int count = packed[position++];
+      if (count <= 0)
+        continue;
+      int[] row = new int[HouseholdConstants.QUARTERS_OF_DAY];
+      if (count > SPARSE_QUARTERS) {
+        System.arraycopy(packed, position, row, 0, row.length);
+        position += row.length;
+      } else {
+        for (int i = 0; i < count; i++) {
+          row[packed[position]] = packed[position + 1];
+          position += 2;
+        }
+      }
+      quarters[slot] = row;
+      hours[slot] = new int[HouseholdConstants.HOURS_OF_DAY];
+      fillHours(row, hours[slot]);
+    }
+  }
+
+  /**
+   * This function returns the position of the rows of a day in the ring, checking that the day has
+   * not been released and that it fits in the window.
+   */
+  int slot (int day)
+  {
+    if (day < first)
+      throw new IllegalStateException("Day " + day + " has been released from the load store");
+    if (day >= first + days)
+      throw new IndexOutOfBoundsException("Day " + day + " is after the window of the load store");
+    return day % days;
+  }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS,  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.powertac.householdcustomer.customers;
+
+import java.io.Serializable;
+import java.util.List;
+
+import org.powertac.common.configurations.HouseholdConstants;
+import org.powertac.common.enumerations.Status;
+import org.powertac.householdcustomer.persons.Person;
+
+/**
+ * The occupancy index keeps, for every day, a mask of the quarters in which someone is present in
+ * the household and a mask of those in which someone is on vacation, two long words each, in a ring
+ * of days. Days outside the window are never read or filled.
+ * @author Antonios Chrysopoulos
+ * @version 1, 17/10/2026
+ */
+public class OccupancyIndex implements Serializable
+{
+
+  private static final long serialVersionUID = 1L;
+
+  /** The number of long words kept for each day. */
+  static final int WORDS = (HouseholdConstants.QUARTERS_OF_DAY + Long.SIZE - 1) / Long.SIZE;
+
+  /** The codes of the statuses kept in the routines of the members. */
+  static final int NORMAL = Status.Normal.ordinal(), SICK = Status.Sick.ordinal(), VACATION = Status.Vacation.ordinal();
+
+  /** The number of days of the ring of the index. */
+  int days;
+
+  /** The first day that has not been released. */
+  int first;
+
+  /** The masks of the quarters in which at least one member is present. */
+  long[] present;
+
+  /** The masks of the quarters in which at least one member is on vacation. */
+  long[] vacation;
+
+  /**
+   * This is the constructor of the occupancy index.
+   * @param days
+   */
+  public OccupancyIndex (int days)
+  {
+    this.days = days;
+    present = new long[days * WORDS];
+    vacation = new long[days * WORDS];
+  }
+
+  /**
+   * This function builds the masks of a day from the routines of the members of the household. A
+   * member is present when their status is normal or sick.
+   * @param day
+   * @param members
+   */
+  public void fillDay (int day, List<Person> members)
+  {
+    int offset = slot(day) * WORDS;
+    for (int i = 0; i < WORDS; i++) {
+      present[offset + i] = 0;
+      vacation[offset + i] = 0;
+    }
+
+    for (Person member : members) {
+      byte[] routine = member.getRoutine(day);
+      for (int quarter = 0; quarter < HouseholdConstants.QUARTERS_OF_DAY; quarter++) {
+        int st = routine[quarter];
+        long bit = 1L << quarter;
+        if (st == NORMAL || st == SICK)
+          present[offset + (quarter >>> 6)] |= bit;
+        else if (st == VACATION)
+          vacation[offset + (quarter >>> 6)] |= bit;
+      }
+    }
+  }
+
+  /** This function returns true if at least one member is present in a certain quarter of a day. */
+  public boolean isPresent (int day, int quarter)
+  {
+    return (present[index(day, quarter)] & (1L << quarter)) != 0;
+  }
+
+  /** This function returns true if at least one member is on vacation in a certain quarter of a day. */
+  public boolean isOnVacation (int day, int quarter)
+  {
+    return (vacation[index(day, quarter)] & (1L << quarter)) != 0;
+  }
+
+  /**
+   * This function returns the mask of the quarters of a day in which at least one member is
+   * present, in the two long words of an operation calendar day. The mask returned is a copy.
+   */
+  public long[] presentMask (int day)
+  {
+    return mask(present, day);
+  }
+
+  /**
+   * This function returns the mask of the quarters of a day in which at least one member is on
+   * vacation, in the two long words of an operation calendar day. The mask returned is a copy.
+   */
+  public long[] vacationMask (int day)
+  {
+    return mask(vacation, day);
+  }
+
+  /**
+   * This function releases the masks of all the days before the given day, moving the window of
+   * the index on. The released days cannot be read or filled again.
+   * @param day
+   */
+  public void release (int day)
+  {
+    first = Math.max(first, day);
+  }
+
+  /** This function returns a copy of the words of a day of the masks given. */
+  long[] mask (long[] masks, int day)
+  {
+    long[] result = new long[WORDS];
+    System.arraycopy(masks, slot(day) * WORDS, result, 0, WORDS);
+    return result;
+  }
+
+  /** This function returns the position of the word holding a certain quarter of a day. */
+  int index (int day, int quarter)
+  {
+    if (quarter < 0 || quarter >= HouseholdConstants.QUARTERS_OF_DAY)
+      throw new ArrayIndexOutOfBoundsException(quarter);
+    return slot(day) * WORDS + (quarter >>> 6);
+  }
+
+  /**
+   * This function returns the position of the masks of a day in the ring, checking that the day has
+   * not been released and that it fits in the window.
+   */
+  int slot (int day)
+  {
+    if (day < first)
+      throw new IllegalStateException("Day " + day + " has been released from the occupancy index");
+    if (day >= first + days)
+      throw new IndexOutOfBoundsException("Day " + day + " is after the window of the occupancy index");
+    return day % days;
+  }
+
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS,  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.powertac.householdcustomer.customers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.Vector;
+
+import org.apache.log4j.Logger;
+import org.powertac.householdcustomer.configurations.HouseholdConfiguration;
+
+/**
+ * The population snapshot keeps the initialized villages of a game in a binary file named after a
+ * hash of the configuration without its execution keys, the seeds and the versions of the format
+ * and the code, so a game with the same ones restores them instead of simulating every household
+ * again.
+ * @author Antonios Chrysopoulos
+ * @version 1, 17/10/2026
+ */
+public class PopulationSnapshot
+{
+
+  /**
+   * logger for trace logging -- use log.info(), log.warn(), and log.error() appropriately. Use
+   * log.debug() for output you want to see in testing or debugging.
+   */
+  static protected Logger log = Logger.getLogger(PopulationSnapshot.class.getName());
+
+  /** The header and the version of the format of the snapshots. */
+  static final String MAGIC = "HouseholdPopulation";
+  static final int VERSION = 2;
+
+  /** The size of the buffers of the snapshot files. */
+  static final int BUFFER_SIZE = 1 << 16;
+
+  /** The key of the snapshot, a hash of the configuration values and the seeds. */
+  String key;
+
+  /** The file of the snapshot. */
+  File file;
+
+  /**
+   * This is the constructor of the population snapshot, for the given configuration values and
+   * seeds of the villages, in the given directory.
+   * @param directory
+   * @param properties
+   * @param conf
+   * @param seeds
+   */
+  public PopulationSnapshot (String directory, Properties properties, HouseholdConfiguration conf, long[] seeds)
+  {
+    key = createKey(properties, conf, seeds);
+    file = new File(directory, "population-" + key + ".bin");
+  }
+
+  public String getKey ()
+  {
+    return key;
+  }
+
+  public File getFile ()
+  {
+    return file;
+  }
+
+  /**
+   * This function creates the key of a snapshot, hashing the version of the format and of the code,
+   * the configuration values in the order of their keys, without the execution keys, and the seeds
+   * of the villages.
+   * @param properties
+   * @param conf
+   * @param seeds
+   * @return
+   */
+  static String createKey (Properties properties, HouseholdConfiguration conf, long[] seeds)
+  {
+    StringBuilder text = new StringBuilder();
+    text.append(MAGIC).append(' ').append(VERSION).append(' ').append(getCodeVersion()).append('\n');
+    for (String name : new TreeSet<String>(properties.stringPropertyNames())) {
+      if (!conf.isExecutionKey(name))
+        text.append(name).append('=').append(properties.getProperty(name).trim()).append('\n');
+    }
+    for (long seed : seeds)
+      text.append(seed).append('\n');
+
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-1").digest(text.toString().getBytes("UTF-8"));
+      StringBuilder hex = new StringBuilder();
+      for (byte b : digest)
+        hex.append(String.format("%02x", b & 0xff));
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("Cannot hash the snapshot key", e);
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException("Cannot hash the snapshot key", e);
+    }
+  }
+
+  /**
+   * This function returns the implementation version of the package of the snapshot, as declared in
+   * the manifest of its jar, or an empty string when the classes are not loaded from such a jar.
+   * @return
+   */
+  static String getCodeVersion ()
+  {
+    Package pack = PopulationSnapshot.class.getPackage();
+    String version = (pack == null) ? null : pack.getImplementationVersion();
+    return (version == null) ? "" : version;
+  }
+
+  /**
+   * This function restores the population of the villages from the snapshot. Every village is read
+   * before any is restored, so when the snapshot is missing or cannot be read the villages are left
+   * as they were and false is returned.
+   * @param villages
+   * @param conf
+   * @return
+   */
+  public boolean restore (List<Village> villages, HouseholdConfiguration conf)
+  {
+    if (!file.isFile())
+      return false;
+
+    Vector<Village.Population> populations = new Vector<Village.Population>();
+    ObjectInputStream in = null;
+    try {
+      in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+      if (!MAGIC.equals(in.readUTF()) || in.readInt() != VERSION || !key.equals(in.readUTF()) || in.readInt() != villages.size()) {
+        log.warn("Population snapshot " + file + " does not match the game");
+        return false;
+      }
+      for (Village village : villages) {
+        Village.Population population = (Village.Population) in.readObject();
+        if (!population.name.equals(village.getCustomerInfo().getName())) {
+          log.warn("Population snapshot " + file + " does not match village " + village.getCustomerInfo().getName());
+          return false;
+        }
+        populations.add(population);
+      }
+    } catch (IOException e) {
+      log.warn("Cannot read population snapshot " + file + ": " + e);
+      return false;
+    } catch (ClassNotFoundException e) {
+      log.warn("Cannot read population snapshot " + file + ": " + e);
+      return false;
+    } catch (ClassCastException e) {
+      log.warn("Cannot read population snapshot " + file + ": " + e);
+      return false;
+    } finally {
+      close(in);
+    }
+
+    for (int i = 0; i < villages.size(); i++)
+      villages.get(i).setPopulation(populations.get(i), conf);
+    log.info("Restored population snapshot " + file);
+    return true;
+  }
+
+  /**
+   * This function writes the population of the villages to the snapshot. The snapshot is written
+   * to a temporary file that is then renamed, so a game reading the directory at the same time
+   * never sees half a snapshot. A snapshot that cannot be written only costs the next game the
+   * initialization, so the failure is logged and false is returned.
+   * @param villages
+   * @return
+   */
+  public boolean save (List<Village> villages)
+  {
+    File directory = file.getAbsoluteFile().getParentFile();
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      log.warn("Cannot create population snapshot directory " + directory);
+      return false;
+    }
+
+    File temp = null;
+    ObjectOutputStream out = null;
+    try {
+      temp = File.createTempFile("population-", ".tmp", directory);
+      out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(temp), BUFFER_SIZE));
+      out.writeUTF(MAGIC);
+      out.writeInt(VERSION);
+      out.writeUTF(key);
+      out.writeInt(villages.size());
+      for (Village village : villages) {
+        out.writeObject(village.getPopulation());
+        out.reset();
+      }
+      out.close();
+      out = null;
+      if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file)))
+        throw new IOException("Cannot rename " + temp + " to " + file);
+      temp = null;
+    } catch (IOException e) {
+      log.warn("Cannot write population snapshot " + file + ": " + e);
+      return false;
+    } finally {
+      close(out);
+      if (temp != null)
+        temp.delete();
+    }
+    log.info("Wrote population snapshot " + file);
+    return true;
+  }
+
+  /** This function closes a stream of the snapshot, ignoring the failures. */
+  static void close (Closeable stream)
+  {
+    if (stream == null)
+      return;
+    try {
+      stream.close();
+    } catch (IOException e) {
+      log.debug("Cannot close population snapshot stream: " + e);
+    }
+  }
+
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS,  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.powertac.householdcustomer.customers;
+
+/**
+ * The profile storage selects where the load of the households is kept: on the heap, in direct
+ * buffers, or in a file mapped in memory.
+ * @author Antonios Chrysopoulos
+ * @version 1, 17/10/2026
+ */
+public enum ProfileStorage
+{
+  HEAP, DIRECT, MAPPED
+}
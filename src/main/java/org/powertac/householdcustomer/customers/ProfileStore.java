@@ -0,0 +1,158 @@
+/*
+ * Copyright 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS,  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.powertac.householdcustomer.customers;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.log4j.Logger;
+
+/**
+ * The profile store keeps the load of the households of a village off the heap, in direct buffers
+ * or a mapped file, by household, profile and day, split in segments of whole profiles below 2 GB.
+ * @author Antonios Chrysopoulos
+ * @version 1, 17/10/2026
+ */
+public class ProfileStore
+{
+
+  /**
+   * logger for trace logging -- use log.info(), log.warn(), and log.error() appropriately. Use
+   * log.debug() for output you want to see in testing or debugging.
+   */
+  static protected Logger log = Logger.getLogger(ProfileStore.class.getName());
+
+  /** The profiles of a household, in the order they are laid out. */
+  public static final int BASE = 0, CONTROLLABLE = 1;
+  static final int PROFILES = 2;
+
+  /** The number of bytes of a value of the store. */
+  static final int VALUE_BYTES = 4;
+
+  /** The number of days of the window of each profile. */
+  int days;
+
+  /** The number of households of the store. */
+  int households;
+
+  /** The number of profiles of each segment. */
+  int profilesPerSegment;
+
+  /** These are the segments of the store. */
+  IntBuffer[] segments;
+
+  /**
+   * This is the constructor of the profile store, for the given number of households and days of
+   * the window of the load stores. The mapped storage creates its file in the given directory, or
+   * in the temporary directory when none is given.
+   * @param storage
+   * @param directory
+   * @param households
+   * @param days
+   */
+  public ProfileStore (ProfileStorage storage, String directory, int households, int days)
+  {
+    if (storage == ProfileStorage.HEAP)
+      throw new IllegalArgumentException("The profile store keeps the load outside the heap");
+
+    this.days = days;
+    this.households = households;
+    long profileBytes = (long) days * BufferLoadStore.ROW * VALUE_BYTES;
+    profilesPerSegment = (int) (Integer.MAX_VALUE / profileBytes);
+    long profiles = (long) households * PROFILES;
+    segments = new IntBuffer[(int) ((profiles + profilesPerSegment - 1) / profilesPerSegment)];
+
+    if (storage == ProfileStorage.DIRECT) {
+      for (int i = 0; i < segments.length; i++)
+        segments[i] = ByteBuffer.allocateDirect((int) (segmentProfiles(i, profiles) * profileBytes)).order(ByteOrder.nativeOrder()).asIntBuffer();
+    } else {
+      map(directory, profiles, profileBytes);
+    }
+  }
+
+  /** This function returns the number of profiles of a segment. */
+  long segmentProfiles (int segment, long profiles)
+  {
+    return Math.min(profilesPerSegment, profiles - (long) segment * profilesPerSegment);
+  }
+
+  /**
+   * This function maps the segments of the store in a new file, which is extended to the size of
+   * the store without writing it, so the pages are only taken when they are first stored.
+   * @param directory
+   * @param profiles
+   * @param profileBytes
+   */
+  void map (String directory, long profiles, long profileBytes)
+  {
+    File file = null;
+    RandomAccessFile raf = null;
+    try {
+      File dir = new File((directory.length() > 0) ? directory : System.getProperty("java.io.tmpdir"));
+      if (!dir.isDirectory() && !dir.mkdirs())
+        throw new IOException("Cannot create directory " + dir);
+      file = File.createTempFile("profiles-", ".bin", dir);
+      raf = new RandomAccessFile(file, "rw");
+      raf.setLength(profiles * profileBytes);
+      FileChannel channel = raf.getChannel();
+      long position = 0;
+      for (int i = 0; i < segments.length; i++) {
+        long size = segmentProfiles(i, profiles) * profileBytes;
+        segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, position, size).order(ByteOrder.nativeOrder()).asIntBuffer();
+        position += size;
+      }
+      log.info("Mapped " + households + " household profiles in " + file);
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot map the household profiles in " + file, e);
+    } finally {
+      PopulationSnapshot.close(raf);
+      if (file != null && !file.delete())
+        file.deleteOnExit();
+    }
+  }
+
+  /** This function returns the number of households of the store. */
+  public int getHouseholds ()
+  {
+    return households;
+  }
+
+  /**
+   * This function returns the load store of a profile of a household, over its region of the
+   * store.
+   * @param household
+   * @param profile
+   * @return
+   */
+  public LoadStore createLoadStore (int household, int profile)
+  {
+    if (household < 0 || household >= households)
+      throw new IndexOutOfBoundsException("Household " + household + " is not in the profile store");
+    long index = (long) household * PROFILES + profile;
+    IntBuffer region = segments[(int) (index / profilesPerSegment)].duplicate();
+    int length = days * BufferLoadStore.ROW;
+    int position = (int) (index % profilesPerSegment) * length;
+    region.position(position);
+    region.limit(position + length);
+    return new BufferLoadStore(days, region.slice());
+  }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS,  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.powertac.householdcustomer.customers;
+
+import java.util.concurrent.RecursiveAction;
+
+import org.powertac.common.Tariff;
+
+/**
+ * The tariff evaluation task estimates the cost of a candidate tariff for a village in a fork-join
+ * pool, writing the result at the position of the tariff in the estimation array.
+ * @author Antonios Chrysopoulos
+ * @version 1, 17/10/2026
+ */
+public class TariffEvaluationTask extends RecursiveAction
+{
+
+  private static final long serialVersionUID = 1L;
+
+  /** The village that evaluates the tariff. */
+  Village village;
+
+  /** The tariff that will be evaluated. */
+  Tariff tariff;
+
+  /** The array of the estimations of the candidate tariffs. */
+  double[] estimation;
+
+  /** The position of the tariff in the array of the estimations. */
+  int index;
+
+  /** This is the constructor of the tariff evaluation task. */
+  public TariffEvaluationTask (Village village, Tariff tariff, double[] estimation, int index)
+  {
+    this.village = village;
+    this.tariff = tariff;
+    this.estimation = estimation;
+    this.index = index;
+  }
+
+  @Override
+  protected void compute ()
+  {
+    estimation[index] = -(village.cachedCostEstimation(tariff));
+  }
+
+}
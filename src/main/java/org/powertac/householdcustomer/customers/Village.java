@@ -15,13 +15,19 @@
  */
 package org.powertac.householdcustomer.customers;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
-import java.util.Properties;
 import java.util.Random;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import org.apache.log4j.Logger;
 import org.joda.time.Instant;
@@ -35,6 +41,14 @@ import org.powertac.common.configurations.HouseholdConstants;
 import org.powertac.common.enumerations.PowerType;
 import org.powertac.common.repo.TimeslotRepo;
 import org.powertac.common.spring.SpringApplicationContext;
+import org.powertac.householdcustomer.appliances.Appliance;
+import org.powertac.householdcustomer.appliances.PeriodicShiftingBatch;
+import org.powertac.householdcustomer.configurations.HouseholdConfiguration;
+import org.powertac.householdcustomer.random.CategoricalDistribution;
+import org.powertac.householdcustomer.random.RandomStreams;
+import org.powertac.householdcustomer.tariffs.PriceCurve;
+import org.powertac.householdcustomer.tariffs.TariffEvaluationCache;
+import org.powertac.householdcustomer.tariffs.TariffStructure;
 import org.springframework.beans.factory.annotation.Autowired;
 
 /**
@@ -60,40 +74,11 @@ public class Village extends AbstractCustomer
   TimeslotRepo timeslotRepo;
 
   /**
-   * These are the vectors containing aggregated each day's base load from the appliances installed
-   * inside the households of each type.
+   * This is the store containing the aggregated base and controllable load from the appliances
+   * installed inside the households of each type, for each day of the competition, or of the
+   * rolling window, in quarters and in hours.
    **/
-  Vector<Vector<Long>> aggDailyBaseLoadNS = new Vector<Vector<Long>>();
-  Vector<Vector<Long>> aggDailyBaseLoadRaS = new Vector<Vector<Long>>();
-  Vector<Vector<Long>> aggDailyBaseLoadReS = new Vector<Vector<Long>>();
-  Vector<Vector<Long>> aggDailyBaseLoadSS = new Vector<Vector<Long>>();
-
-  /**
-   * These are the vectors containing aggregated each day's controllable load from the appliances
-   * installed inside the households.
-   **/
-  Vector<Vector<Long>> aggDailyControllableLoadNS = new Vector<Vector<Long>>();
-  Vector<Vector<Long>> aggDailyControllableLoadRaS = new Vector<Vector<Long>>();
-  Vector<Vector<Long>> aggDailyControllableLoadReS = new Vector<Vector<Long>>();
-  Vector<Vector<Long>> aggDailyControllableLoadSS = new Vector<Vector<Long>>();
-
-  /**
-   * These are the agreggated vectors containing each day's base load of all the households in
-   * hours.
-   **/
-  Vector<Vector<Long>> aggDailyBaseLoadInHoursNS = new Vector<Vector<Long>>();
-  Vector<Vector<Long>> aggDailyBaseLoadInHoursRaS = new Vector<Vector<Long>>();
-  Vector<Vector<Long>> aggDailyBaseLoadInHoursReS = new Vector<Vector<Long>>();
-  Vector<Vector<Long>> aggDailyBaseLoadInHoursSS = new Vector<Vector<Long>>();
-
-  /**
-   * These are the agreggated vectors containing each day's controllable load of all the households
-   * in hours.
-   **/
-  Vector<Vector<Long>> aggDailyControllableLoadInHoursNS = new Vector<Vector<Long>>();
-  Vector<Vector<Long>> aggDailyControllableLoadInHoursRaS = new Vector<Vector<Long>>();
-  Vector<Vector<Long>> aggDailyControllableLoadInHoursReS = new Vector<Vector<Long>>();
-  Vector<Vector<Long>> aggDailyControllableLoadInHoursSS = new Vector<Vector<Long>>();
+  AggregateLoadStore aggLoad;
 
   /**
    * This is an vector containing the days of the competition that the household model will use in
@@ -107,6 +92,92 @@ public class Village extends AbstractCustomer
    */
   Random gen;
 
+  /**
+   * This variable shows if the load of the households is generated week by week as the game
+   * approaches each week, instead of for the whole competition at the initialization.
+   */
+  boolean lazyGeneration;
+
+  /** This variable shows the number of days whose load has been generated and aggregated. */
+  int generatedDays;
+
+  /**
+   * This variable shows the number of days whose load can be generated: the days of the
+   * competition, or no limit with a rolling window.
+   */
+  int generationDays;
+
+  /**
+   * This variable shows the number of days after the current day among which the tariffs are
+   * evaluated when the load is kept in a rolling window, or zero if every day is kept.
+   */
+  int evaluationLookahead;
+
+  /** This variable shows the number of days at the start of the game that have been released. */
+  int releasedDays;
+
+  /**
+   * This is the random streams facility of the village, from which each household derives its own
+   * streams keyed by its index in the village.
+   */
+  RandomStreams streams;
+
+  /**
+   * This is the store keeping the load of the households outside the heap, or null if it is kept
+   * in the load stores of the households themselves.
+   */
+  ProfileStore profiles;
+
+  /**
+   * These are the batches of the periodically shifted appliances of the households of each portion
+   * of the village, one for each kind of appliance, or null until the households are initialized.
+   */
+  HashMap<Portion, Vector<PeriodicShiftingBatch>> shiftingBatches;
+
+  /** These are the last days whose controllable load has been rescheduled, for each portion. */
+  int[] rescheduledDays = createRescheduledDays();
+
+  /** The portions of the village whose controllable load is rescheduled for the next day. */
+  static final Portion[] RESCHEDULED_PORTIONS = { Portion.RandomlyShifting, Portion.RegularlyShifting, Portion.SmartShifting };
+
+  /**
+   * This variable shows the number of timeslots before the end of the day over which the next day
+   * is rescheduled: the households are shifted a slice at a time in the earlier timeslots, and the
+   * last timeslot only shifts again the ones whose prices have changed since.
+   */
+  int reschedulingHours = 1;
+
+  /**
+   * These are the changes of the controllable load of each portion from the households and batches
+   * shifted ahead of the rescheduling of the prepared day, which is -1 until a day is prepared.
+   */
+  long[][] preparedChanges;
+  int preparedDay = -1;
+
+  /**
+   * This is the shifted controllable load of each evaluated day, in total over the day. A flat
+   * tariff charges the energy of the day whatever the hours it is consumed in, so the load is
+   * shifted once for all the flat tariffs and kept until the day is released. The tariffs are
+   * evaluated in parallel, so the loads are kept in a concurrent map.
+   */
+  ConcurrentHashMap<Integer, Long> shiftedDailyLoads = new ConcurrentHashMap<Integer, Long>();
+
+  /** This is the tariff evaluation cache shared by the villages of the service. */
+  TariffEvaluationCache evaluationCache;
+
+  /**
+   * This is the fork-join pool of the service, used for the evaluation of the candidate tariffs in
+   * parallel. When it is not set, the tariffs are evaluated one after another.
+   */
+  ForkJoinPool evaluationPool;
+
+  /**
+   * These are the possibilities of the candidate tariffs and their distribution, kept from one
+   * choice of tariff to the next.
+   */
+  int[] possibilities = new int[0];
+  CategoricalDistribution tariffChoice = new CategoricalDistribution();
+
   /** This is the constructor function of the Village customer */
   public Village (CustomerInfo customerInfo)
   {
@@ -116,6 +187,18 @@ public class Village extends AbstractCustomer
     timeService = (TimeService) SpringApplicationContext.getBean("timeService");
   }
 
+  /** This function sets the tariff evaluation cache shared by the villages of the service */
+  public void setEvaluationCache (TariffEvaluationCache cache)
+  {
+    evaluationCache = cache;
+  }
+
+  /** This function sets the fork-join pool used for the evaluation of the tariffs in parallel */
+  public void setEvaluationPool (ForkJoinPool pool)
+  {
+    evaluationPool = pool;
+  }
+
   /**
    * These vectors contain the houses of type in the village. There are 4 types available: 1) Not
    * Shifting Houses: They do not change the tariff subscriptions during the game. 2) Randomly
@@ -135,64 +218,333 @@ public class Village extends AbstractCustomer
    * @param conf
    * @param gen
    */
-  public void initialize (Properties conf, Random generator)
+  public void initialize (HouseholdConfiguration conf, Random generator)
+  {
+    initialize(conf, generator, false);
+  }
+
+  /**
+   * This is the parallel version of the initialization function, that must be called from a task
+   * of a fork-join pool. The random streams of each household are keyed by its index in the
+   * village, so the village is the same as the one built sequentially, no matter how many threads
+   * the pool has.
+   * @param conf
+   * @param gen
+   */
+  public void initializeInParallel (HouseholdConfiguration conf, Random generator)
+  {
+    initialize(conf, generator, true);
+  }
+
+  /**
+   * This function creates the households of the village and the tasks that fill them, and runs the
+   * tasks one after another or, in parallel, in the fork-join pool of the caller. The tasks are the
+   * same either way, so the village does not depend on how they are run.
+   * @param conf
+   * @param generator
+   * @param parallel
+   */
+  void initialize (HouseholdConfiguration conf, Random generator, boolean parallel)
   {
     // Initializing variables
 
-    int nshouses = Integer.parseInt(conf.getProperty("NotShiftingCustomers"));
-    int rashouses = Integer.parseInt(conf.getProperty("RegularlyShiftingCustomers"));
-    int reshouses = Integer.parseInt(conf.getProperty("RandomlyShiftingCustomers"));
-    int sshouses = Integer.parseInt(conf.getProperty("SmartShiftingCustomers"));
-    int days = Integer.parseInt(conf.getProperty("PublicVacationDuration"));
+    int nshouses = conf.notShiftingCustomers;
+    int rashouses = conf.regularlyShiftingCustomers;
+    int reshouses = conf.randomlyShiftingCustomers;
+    int sshouses = conf.smartShiftingCustomers;
+    int days = conf.publicVacationDuration;
 
     gen = generator;
+    aggLoad = new AggregateLoadStore(conf.getStoreDays());
+    createProfileStore(conf, nshouses + rashouses + reshouses + sshouses);
 
     createCostEstimationDaysList(HouseholdConstants.RANDOM_DAYS_NUMBER);
 
     Vector<Integer> publicVacationVector = createPublicVacationVector(days);
+    Vector<HouseholdInitializationTask> tasks = new Vector<HouseholdInitializationTask>();
+
+    streams = new RandomStreams(gen.nextLong(), conf.randomEngine);
+
+    addHouses(notShiftingHouses, " NSHouse", nshouses, conf, publicVacationVector, tasks);
+    addHouses(randomlyShiftingHouses, " RaSHouse", rashouses, conf, publicVacationVector, tasks);
+    addHouses(regularlyShiftingHouses, " ReSHouse", reshouses, conf, publicVacationVector, tasks);
+    addHouses(smartShiftingHouses, " SSHouse", sshouses, conf, publicVacationVector, tasks);
+
+    if (parallel) {
+      ForkJoinTask.invokeAll(tasks);
+    } else {
+      for (HouseholdInitializationTask task : tasks)
+        task.invoke();
+    }
+
+    aggregateInitialLoad(conf);
+    /*
+        for (Portion portion : Portion.values())
+          showAggLoad(portion);
+    */
+  }
 
-    for (int i = 0; i < nshouses; i++) {
-      log.info("Initializing " + customerInfo.toString() + " NSHouse " + i);
-      Household hh = new Household();
-      hh.initialize(customerInfo.toString() + " NSHouse" + i, conf, publicVacationVector, gen);
-      notShiftingHouses.add(hh);
-      hh.householdOf = this;
+  /**
+   * This is the population of a village as the initialization leaves it: the households with their
+   * persons and appliances, the aggregated load, the days of the cost estimation and the state of
+   * the random number generators. It is what a population snapshot keeps for each village.
+   */
+  static class Population implements Serializable
+  {
+    private static final long serialVersionUID = 1L;
+
+    String name;
+    Vector<Household> notShiftingHouses;
+    Vector<Household> randomlyShiftingHouses;
+    Vector<Household> regularlyShiftingHouses;
+    Vector<Household> smartShiftingHouses;
+    AggregateLoadStore aggLoad;
+    Vector<Integer> daysList;
+    Random gen;
+    RandomStreams streams;
+    boolean lazyGeneration;
+    int generatedDays;
+    int generationDays;
+    int evaluationLookahead;
+    int releasedDays;
+  }
+
+  /** This function returns the population of the village, in order to keep it in a snapshot. */
+  Population getPopulation ()
+  {
+    Population population = new Population();
+    population.name = customerInfo.getName();
+    population.notShiftingHouses = notShiftingHouses;
+    population.randomlyShiftingHouses = randomlyShiftingHouses;
+    population.regularlyShiftingHouses = regularlyShiftingHouses;
+    population.smartShiftingHouses = smartShiftingHouses;
+    population.aggLoad = aggLoad;
+    population.daysList = daysList;
+    population.gen = gen;
+    population.streams = streams;
+    population.lazyGeneration = lazyGeneration;
+    population.generatedDays = generatedDays;
+    population.generationDays = generationDays;
+    population.evaluationLookahead = evaluationLookahead;
+    population.releasedDays = releasedDays;
+    return population;
+  }
+
+  /**
+   * This function replaces the initialization of the village with a population restored from a
+   * snapshot, reattaching its households to the village and the configuration of the game and
+   * moving their load to the profile store of the village, if it has one.
+   * @param population
+   * @param conf
+   */
+  void setPopulation (Population population, HouseholdConfiguration conf)
+  {
+    notShiftingHouses = population.notShiftingHouses;
+    randomlyShiftingHouses = population.randomlyShiftingHouses;
+    regularlyShiftingHouses = population.regularlyShiftingHouses;
+    smartShiftingHouses = population.smartShiftingHouses;
+    aggLoad = population.aggLoad;
+    daysList = population.daysList;
+    gen = population.gen;
+    streams = population.streams;
+    lazyGeneration = population.lazyGeneration;
+    generatedDays = population.generatedDays;
+    generationDays = population.generationDays;
+    evaluationLookahead = population.evaluationLookahead;
+    releasedDays = population.releasedDays;
+
+    Vector<Household> houses = getHouses();
+    createProfileStore(conf, houses.size());
+    for (int i = 0; i < houses.size(); i++) {
+      Household house = houses.get(i);
+      house.householdOf = this;
+      house.conf = conf;
+      if (profiles != null)
+        house.moveLoadStores(profiles.createLoadStore(i, ProfileStore.BASE), profiles.createLoadStore(i, ProfileStore.CONTROLLABLE));
+    }
+    createShiftingBatches();
+    reschedulingHours = conf.reschedulingHours;
+  }
+
+  /**
+   * This function aggregates the load the households have generated at their initialization: the
+   * whole competition, or only the first week if the load is generated week by week.
+   * @param conf
+   */
+  void aggregateInitialLoad (HouseholdConfiguration conf)
+  {
+    createShiftingBatches();
+    reschedulingHours = conf.reschedulingHours;
+    lazyGeneration = conf.lazyGeneration;
+    generationDays = (conf.isRollingWindow()) ? Integer.MAX_VALUE : HouseholdConstants.DAYS_OF_COMPETITION + HouseholdConstants.DAYS_OF_BOOTSTRAP;
+    evaluationLookahead = (conf.isRollingWindow()) ? conf.getEvaluationLookahead() : 0;
+    if (lazyGeneration) {
+      generateUntil(0);
+    } else {
+      for (Portion portion : Portion.values())
+        fillAggWeeklyLoad(portion);
+      generatedDays = HouseholdConstants.DAYS_OF_COMPETITION + HouseholdConstants.DAYS_OF_BOOTSTRAP;
     }
+  }
+
+  /**
+   * This function generates the load of the households up to the week of the given day and
+   * aggregates the days generated since the last call.
+   * @param day
+   */
+  void generateUntil (int day)
+  {
+    if (day < generatedDays)
+      return;
 
-    for (int i = 0; i < rashouses; i++) {
-      log.info("Initializing " + customerInfo.toString() + " RaSHouse " + i);
-      Household hh = new Household();
-      hh.initialize(customerInfo.toString() + " RaSHouse" + i, conf, publicVacationVector, gen);
-      randomlyShiftingHouses.add(hh);
-      hh.householdOf = this;
+    for (Portion portion : Portion.values())
+      for (Household house : getHouses(portion))
+        house.generateUntil(day);
+
+    int days = (int) Math.min((long) (day / HouseholdConstants.DAYS_OF_WEEK + 1) * HouseholdConstants.DAYS_OF_WEEK, generationDays);
+    for (int i = generatedDays; i < days; i++) {
+      for (Portion portion : Portion.values()) {
+        fillAggDailyBaseLoad(i, portion);
+        fillAggDailyControllableLoad(i, portion);
+      }
     }
+    generatedDays = Math.max(generatedDays, days);
+  }
+
+  /**
+   * This function releases the load of the households and the aggregated load of the village for
+   * all the days before the given day.
+   * @param day
+   */
+  void releaseUntil (int day)
+  {
+    if (day <= releasedDays)
+      return;
+
+    for (Portion portion : Portion.values())
+      for (Household house : getHouses(portion))
+        house.release(day);
+    aggLoad.release(day);
+    releasedDays = day;
+    shiftedDailyLoads.keySet().removeAll(createDaysBefore(day));
+  }
+
+  /**
+   * This function keeps the load generated ahead of the game when it is generated week by week: the
+   * load of the next day is generated for its rescheduling, and the days before both the current
+   * day and the earliest day used for the evaluation of the tariffs are released. The evaluation
+   * days only move forward as the game goes on, so a released day is never needed again.
+   */
+  void advanceGeneration ()
+  {
+    int serial = (int) ((timeService.getCurrentTime().getMillis() - timeService.getBase()) / TimeService.HOUR);
+    int day = serial / HouseholdConstants.HOURS_OF_DAY;
+    generateUntil(day + 1);
+
+    int first = day;
+    for (int evaluationDay : createEvaluationDays())
+      first = Math.min(first, evaluationDay);
+    releaseUntil(first);
+  }
+
+  /** This function creates the last rescheduled days of the portions, before any rescheduling. */
+  static int[] createRescheduledDays ()
+  {
+    int[] days = new int[Portion.values().length];
+    Arrays.fill(days, -1);
+    return days;
+  }
 
-    for (int i = 0; i < reshouses; i++) {
-      log.info("Initializing " + customerInfo.toString() + " ReSHouse " + i);
-      Household hh = new Household();
-      hh.initialize(customerInfo.toString() + " ReSHouse" + i, conf, publicVacationVector, gen);
-      regularlyShiftingHouses.add(hh);
-      hh.householdOf = this;
+  /**
+   * This function gathers the periodically shifted appliances of the households of each portion of
+   * the village in a batch for each kind of appliance, in the order of the households.
+   */
+  void createShiftingBatches ()
+  {
+    HashMap<Portion, Vector<PeriodicShiftingBatch>> batches = new HashMap<Portion, Vector<PeriodicShiftingBatch>>();
+    for (Portion portion : Portion.values()) {
+      LinkedHashMap<Class<?>, Vector<Appliance>> kinds = new LinkedHashMap<Class<?>, Vector<Appliance>>();
+      for (Household house : getHouses(portion)) {
+        for (Appliance appliance : house.getPeriodicAppliances()) {
+          Vector<Appliance> kind = kinds.get(appliance.getClass());
+          if (kind == null) {
+            kind = new Vector<Appliance>();
+            kinds.put(appliance.getClass(), kind);
+          }
+          kind.add(appliance);
+        }
+      }
+      Vector<PeriodicShiftingBatch> portionBatches = new Vector<PeriodicShiftingBatch>();
+      for (Vector<Appliance> kind : kinds.values())
+        portionBatches.add(new PeriodicShiftingBatch(kind));
+      batches.put(portion, portionBatches);
     }
+    shiftingBatches = batches;
+  }
 
-    for (int i = 0; i < sshouses; i++) {
-      log.info("Initializing " + customerInfo.toString() + " SSHouse " + i);
-      Household hh = new Household();
-      hh.initialize(customerInfo.toString() + " SSHouse" + i, conf, publicVacationVector, gen);
-      smartShiftingHouses.add(hh);
-      hh.householdOf = this;
+  /**
+   * This function adds the shifted controllable consumption of the households of a portion of the
+   * village to the given load in hours. The periodically shifted appliances are shifted in their
+   * batches, and the rest of the appliances by their households.
+   * @param prices
+   * @param day
+   * @param portion
+   * @param load
+   */
+  void addDailyShifting (PriceCurve prices, int day, Portion portion, long[] load)
+  {
+    boolean batched = shiftingBatches != null;
+    for (Household house : getHouses(portion))
+      house.addDailyShifting(prices, day, load, !batched);
+    if (batched) {
+      for (PeriodicShiftingBatch batch : shiftingBatches.get(portion))
+        batch.addDailyShifting(prices, day, load);
     }
+  }
 
-    fillAggWeeklyLoad("NotShifting");
-    fillAggWeeklyLoad("RandomlyShifting");
-    fillAggWeeklyLoad("RegularlyShifting");
-    fillAggWeeklyLoad("SmartShifting");
-    /*
-        showAggLoad("NotShifting");
-        showAggLoad("RandomlyShifting");
-        showAggLoad("RegularlyShifting");
-        showAggLoad("SmartShifting");
-    */
+  /**
+   * This function creates the profile store of the village for the given number of households, if
+   * the configuration keeps their load outside the heap.
+   * @param conf
+   * @param households
+   */
+  void createProfileStore (HouseholdConfiguration conf, int households)
+  {
+    profiles = (conf.isOffHeapStorage()) ? new ProfileStore(conf.profileStorage, conf.profileDirectory, households, conf.getStoreDays()) : null;
+  }
+
+  /**
+   * This function creates a household of the village with the given index, giving it the load
+   * stores of its profiles when the village has a profile store.
+   * @param index
+   * @return
+   */
+  Household createHousehold (int index)
+  {
+    Household hh = new Household();
+    hh.householdOf = this;
+    if (profiles != null)
+      hh.setLoadStores(profiles.createLoadStore(index, ProfileStore.BASE), profiles.createLoadStore(index, ProfileStore.CONTROLLABLE));
+    return hh;
+  }
+
+  /**
+   * This function adds a number of houses of a type to the village and creates the tasks that will
+   * initialize them, keying the random streams of each house by its index in the village.
+   * @param houses
+   * @param type
+   * @param number
+   * @param conf
+   * @param publicVacationVector
+   * @param tasks
+   */
+  void addHouses (Vector<Household> houses, String type, int number, HouseholdConfiguration conf, Vector<Integer> publicVacationVector, Vector<HouseholdInitializationTask> tasks)
+  {
+    for (int i = 0; i < number; i++) {
+      Household hh = createHousehold(tasks.size());
+      houses.add(hh);
+      tasks.add(new HouseholdInitializationTask(hh, customerInfo.toString() + type + i, conf, publicVacationVector, streams.derive(tasks.size())));
+    }
   }
 
   /**
@@ -201,37 +553,11 @@ public class Village extends AbstractCustomer
    * @param portion
    * @return
    */
-  void fillAggWeeklyLoad (String portion)
+  void fillAggWeeklyLoad (Portion portion)
   {
-
-    if (portion.equals("NotShifting")) {
-      for (int i = 0; i < HouseholdConstants.DAYS_OF_WEEK * (HouseholdConstants.WEEKS_OF_COMPETITION + HouseholdConstants.WEEKS_OF_BOOTSTRAP); i++) {
-        aggDailyBaseLoadNS.add(fillAggDailyBaseLoad(i, portion));
-        aggDailyControllableLoadNS.add(fillAggDailyControllableLoad(i, portion));
-        aggDailyBaseLoadInHoursNS.add(fillAggDailyBaseLoadInHours(i, portion));
-        aggDailyControllableLoadInHoursNS.add(fillAggDailyControllableLoadInHours(i, portion));
-      }
-    } else if (portion.equals("RandomlyShifting")) {
-      for (int i = 0; i < HouseholdConstants.DAYS_OF_WEEK * (HouseholdConstants.WEEKS_OF_COMPETITION + HouseholdConstants.WEEKS_OF_BOOTSTRAP); i++) {
-        aggDailyBaseLoadRaS.add(fillAggDailyBaseLoad(i, portion));
-        aggDailyControllableLoadRaS.add(fillAggDailyControllableLoad(i, portion));
-        aggDailyBaseLoadInHoursRaS.add(fillAggDailyBaseLoadInHours(i, portion));
-        aggDailyControllableLoadInHoursRaS.add(fillAggDailyControllableLoadInHours(i, portion));
-      }
-    } else if (portion.equals("RegularlyShifting")) {
-      for (int i = 0; i < HouseholdConstants.DAYS_OF_WEEK * (HouseholdConstants.WEEKS_OF_COMPETITION + HouseholdConstants.WEEKS_OF_BOOTSTRAP); i++) {
-        aggDailyBaseLoadReS.add(fillAggDailyBaseLoad(i, portion));
-        aggDailyControllableLoadReS.add(fillAggDailyControllableLoad(i, portion));
-        aggDailyBaseLoadInHoursReS.add(fillAggDailyBaseLoadInHours(i, portion));
-        aggDailyControllableLoadInHoursReS.add(fillAggDailyControllableLoadInHours(i, portion));
-      }
-    } else {
-      for (int i = 0; i < HouseholdConstants.DAYS_OF_WEEK * (HouseholdConstants.WEEKS_OF_COMPETITION + HouseholdConstants.WEEKS_OF_BOOTSTRAP); i++) {
-        aggDailyBaseLoadSS.add(fillAggDailyBaseLoad(i, portion));
-        aggDailyControllableLoadSS.add(fillAggDailyControllableLoad(i, portion));
-        aggDailyBaseLoadInHoursSS.add(fillAggDailyBaseLoadInHours(i, portion));
-        aggDailyControllableLoadInHoursSS.add(fillAggDailyControllableLoadInHours(i, portion));
-      }
+    for (int i = 0; i < HouseholdConstants.DAYS_OF_WEEK * (HouseholdConstants.WEEKS_OF_COMPETITION + HouseholdConstants.WEEKS_OF_BOOTSTRAP); i++) {
+      fillAggDailyBaseLoad(i, portion);
+      fillAggDailyControllableLoad(i, portion);
     }
   }
 
@@ -240,38 +566,16 @@ public class Village extends AbstractCustomer
    * @param portion
    * @return
    */
-  void showAggLoad (String portion)
+  void showAggLoad (Portion portion)
   {
 
     log.info("Portion " + portion + " Weekly Aggregated Load");
 
-    if (portion.equals("NotShifting")) {
-      for (int i = 0; i < HouseholdConstants.DAYS_OF_COMPETITION + HouseholdConstants.DAYS_OF_BOOTSTRAP; i++) {
-        log.info("Day " + i);
-        for (int j = 0; j < HouseholdConstants.HOURS_OF_DAY; j++) {
-          log.info("Hour : " + j + " Base Load : " + aggDailyBaseLoadInHoursNS.get(i).get(j) + " Controllable Load: " + aggDailyControllableLoadInHoursNS.get(i).get(j));
-        }
-      }
-    } else if (portion.equals("RandomlyShifting")) {
-      for (int i = 0; i < HouseholdConstants.DAYS_OF_COMPETITION + HouseholdConstants.DAYS_OF_BOOTSTRAP; i++) {
-        log.info("Day " + i);
-        for (int j = 0; j < HouseholdConstants.HOURS_OF_DAY; j++) {
-          log.info("Hour : " + j + " Base Load : " + aggDailyBaseLoadInHoursRaS.get(i).get(j) + " Controllable Load: " + aggDailyControllableLoadInHoursRaS.get(i).get(j));
-        }
-      }
-    } else if (portion.equals("RegularlyShifting")) {
-      for (int i = 0; i < HouseholdConstants.DAYS_OF_COMPETITION + HouseholdConstants.DAYS_OF_BOOTSTRAP; i++) {
-        log.info("Day " + i);
-        for (int j = 0; j < HouseholdConstants.HOURS_OF_DAY; j++) {
-          log.info("Hour : " + j + " Base Load : " + aggDailyBaseLoadInHoursReS.get(i).get(j) + " Controllable Load: " + aggDailyControllableLoadInHoursReS.get(i).get(j));
-        }
-      }
-    } else {
-      for (int i = 0; i < HouseholdConstants.DAYS_OF_COMPETITION + HouseholdConstants.DAYS_OF_BOOTSTRAP; i++) {
-        log.info("Day " + i);
-        for (int j = 0; j < HouseholdConstants.HOURS_OF_DAY; j++) {
-          log.info("Hour : " + j + " Base Load : " + aggDailyBaseLoadInHoursSS.get(i).get(j) + " Controllable Load: " + aggDailyControllableLoadInHoursSS.get(i).get(j));
-        }
+    for (int i = aggLoad.getFirstDay(); i < generatedDays; i++) {
+      log.info("Day " + i);
+      for (int j = 0; j < HouseholdConstants.HOURS_OF_DAY; j++) {
+        log.info("Hour : " + j + " Base Load : " + aggLoad.getLoadInHours(portion, LoadType.Base, i, j) + " Controllable Load: "
+            + aggLoad.getLoadInHours(portion, LoadType.Controllable, i, j));
       }
     }
   }
@@ -307,8 +611,6 @@ public class Village extends AbstractCustomer
     int hour = (int) (serial % HouseholdConstants.HOURS_OF_DAY);
     long summary = 0;
 
-    log.info("Serial : " + serial + " Day: " + day + " Hour: " + hour);
-
     summary = (getBaseConsumptions(day, hour) + getControllableConsumptions(day, hour));
 
     return (double) summary / HouseholdConstants.THOUSAND;
@@ -317,31 +619,7 @@ public class Village extends AbstractCustomer
   /** This function returns the quantity of base load for a specific day and hour of that day */
   long getBaseConsumptions (int day, int hour)
   {
-
-    long summaryBase = aggDailyBaseLoadInHoursNS.get(day).get(hour) + aggDailyBaseLoadInHoursRaS.get(day).get(hour) + aggDailyBaseLoadInHoursReS.get(day).get(hour)
-        + aggDailyBaseLoadInHoursSS.get(day).get(hour);
-
-    log.info("Base Load " + summaryBase);
-    return summaryBase;
-  }
-
-  /**
-   * This function returns the quantity of controllable load for a specific day in form of a vector
-   */
-  Vector<Long> getControllableConsumptions (int day)
-  {
-    Vector<Household> houses = getHouses();
-    Vector<Long> controllableVector = new Vector<Long>();
-
-    for (int j = 0; j < HouseholdConstants.HOURS_OF_DAY; j++) {
-      long summaryControllable = 0;
-      for (Household house : houses) {
-        summaryControllable += house.weeklyControllableLoadInHours.get(day).get(j);
-      }
-      controllableVector.add(summaryControllable);
-    }
-
-    return controllableVector;
+    return aggLoad.getTotalLoadInHours(LoadType.Base, day, hour);
   }
 
   /**
@@ -349,45 +627,29 @@ public class Village extends AbstractCustomer
    */
   long getControllableConsumptions (int day, int hour)
   {
-    long summaryControllable = aggDailyControllableLoadInHoursNS.get(day).get(hour) + aggDailyControllableLoadInHoursRaS.get(day).get(hour) + aggDailyControllableLoadInHoursReS.get(day).get(hour)
-        + aggDailyControllableLoadInHoursSS.get(day).get(hour);
-    log.info("Controllable Load " + summaryControllable);
-    return summaryControllable;
+    return aggLoad.getTotalLoadInHours(LoadType.Controllable, day, hour);
   }
 
   /**
    * This function returns a vector with all the houses of a certain type that are present in this
    * village
    */
-  Vector<Household> getHouses (String portion)
+  Vector<Household> getHouses (Portion portion)
   {
-
-    Vector<Household> houses = new Vector<Household>();
-
-    if (portion.equals("NotShifting")) {
-      for (Household house : notShiftingHouses) {
-        houses.add(house);
-      }
-    } else if (portion.equals("RandomlyShifting")) {
-      for (Household house : regularlyShiftingHouses) {
-        houses.add(house);
-      }
-    } else if (portion.equals("RegularlyShifting")) {
-      for (Household house : randomlyShiftingHouses) {
-        houses.add(house);
-      }
-    } else {
-      for (Household house : smartShiftingHouses) {
-        houses.add(house);
-      }
+    switch (portion) {
+    case NotShifting:
+      return notShiftingHouses;
+    case RandomlyShifting:
+      return randomlyShiftingHouses;
+    case RegularlyShifting:
+      return regularlyShiftingHouses;
+    default:
+      return smartShiftingHouses;
     }
-
-    return houses;
-
   }
 
   /** This function returns a vector with all the houses that are present in this village */
-  Vector<Household> getHouses ()
+  public Vector<Household> getHouses ()
   {
 
     Vector<Household> houses = new Vector<Household>();
@@ -414,160 +676,32 @@ public class Village extends AbstractCustomer
 
   /**
    * This function is used in order to fill the aggregated daily Base Load of the village households
-   * for each quarter of the hour.
+   * for each quarter of the hour and each hour of the day.
    * @param day
    * @param portion
    * @return
    */
-  Vector<Long> fillAggDailyBaseLoad (int day, String portion)
+  void fillAggDailyBaseLoad (int day, Portion portion)
   {
-
-    Vector<Household> houses = new Vector<Household>();
-
-    if (portion.equals("NotShifting")) {
-      houses = notShiftingHouses;
-    } else if (portion.equals("RandomlyShifting")) {
-      houses = randomlyShiftingHouses;
-    } else if (portion.equals("RegularlyShifting")) {
-      houses = regularlyShiftingHouses;
-    } else {
-      houses = smartShiftingHouses;
+    for (Household house : getHouses(portion)) {
+      aggLoad.addDay(portion, LoadType.Base, day, house.baseLoad);
     }
-
-    Vector<Long> v = new Vector<Long>(HouseholdConstants.QUARTERS_OF_DAY);
-    long sum = 0;
-    for (int i = 0; i < HouseholdConstants.QUARTERS_OF_DAY; i++) {
-      sum = 0;
-      for (Household house : houses) {
-        sum = sum + house.weeklyBaseLoad.get(day).get(i);
-      }
-      v.add(sum);
-    }
-    return v;
+    aggLoad.fillHours(portion, LoadType.Base, day);
   }
 
   /**
    * This function is used in order to fill the aggregated daily Controllable Load of the village
-   * households for each quarter of the hour.
-   * @param day
-   * @param portion
-   * @return
-   */
-  Vector<Long> fillAggDailyControllableLoad (int day, String portion)
-  {
-
-    Vector<Household> houses = new Vector<Household>();
-
-    if (portion.equals("NotShifting")) {
-      houses = notShiftingHouses;
-    } else if (portion.equals("RandomlyShifting")) {
-      houses = randomlyShiftingHouses;
-    } else if (portion.equals("RegularlyShifting")) {
-      houses = regularlyShiftingHouses;
-    } else {
-      houses = smartShiftingHouses;
-    }
-
-    Vector<Long> v = new Vector<Long>(HouseholdConstants.QUARTERS_OF_DAY);
-    long sum = 0;
-    for (int i = 0; i < HouseholdConstants.QUARTERS_OF_DAY; i++) {
-      sum = 0;
-      for (Household house : houses) {
-        sum = sum + house.weeklyControllableLoad.get(day).get(i);
-      }
-      v.add(sum);
-    }
-    return v;
-  }
-
-  /**
-   * This function is used in order to fill the daily Base Load of the household for each hour.
-   * @param day
-   * @param portion
-   * @return
-   */
-  Vector<Long> fillAggDailyBaseLoadInHours (int day, String portion)
-  {
-
-    Vector<Long> daily = new Vector<Long>();
-    long sum = 0;
-
-    if (portion.equals("NotShifting")) {
-      for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY; i++) {
-        sum = 0;
-        sum = aggDailyBaseLoadNS.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR) + aggDailyBaseLoadNS.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR + 1)
-            + aggDailyBaseLoadNS.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR + 2) + aggDailyBaseLoadNS.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR + 3);
-        daily.add(sum);
-      }
-    } else if (portion.equals("RandomlyShifting")) {
-      for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY; i++) {
-        sum = 0;
-        sum = aggDailyBaseLoadRaS.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR) + aggDailyBaseLoadRaS.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR + 1)
-            + aggDailyBaseLoadRaS.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR + 2) + aggDailyBaseLoadRaS.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR + 3);
-        daily.add(sum);
-      }
-    } else if (portion.equals("RegularlyShifting")) {
-      for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY; i++) {
-        sum = 0;
-        sum = aggDailyBaseLoadReS.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR) + aggDailyBaseLoadReS.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR + 1)
-            + aggDailyBaseLoadReS.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR + 2) + aggDailyBaseLoadReS.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR + 3);
-        daily.add(sum);
-      }
-    } else {
-      for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY; i++) {
-        sum = 0;
-        sum = aggDailyBaseLoadSS.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR) + aggDailyBaseLoadSS.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR + 1)
-            + aggDailyBaseLoadSS.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR + 2) + aggDailyBaseLoadSS.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR + 3);
-        daily.add(sum);
-      }
-    }
-
-    return daily;
-  }
-
-  /**
-   * This function is used in order to fill the daily Base Load of the household for each hour.
+   * households for each quarter of the hour and each hour of the day.
    * @param day
    * @param portion
    * @return
    */
-  Vector<Long> fillAggDailyControllableLoadInHours (int day, String portion)
+  void fillAggDailyControllableLoad (int day, Portion portion)
   {
-
-    Vector<Long> daily = new Vector<Long>();
-    long sum = 0;
-
-    if (portion.equals("NotShifting")) {
-      for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY; i++) {
-        sum = 0;
-        sum = aggDailyControllableLoadNS.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR) + aggDailyControllableLoadNS.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR + 1)
-            + aggDailyControllableLoadNS.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR + 2) + aggDailyControllableLoadNS.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR + 3);
-        daily.add(sum);
-      }
-    } else if (portion.equals("RandomlyShifting")) {
-      for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY; i++) {
-        sum = 0;
-        sum = aggDailyControllableLoadRaS.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR) + aggDailyControllableLoadRaS.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR + 1)
-            + aggDailyControllableLoadRaS.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR + 2) + aggDailyControllableLoadRaS.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR + 3);
-        daily.add(sum);
-      }
-    } else if (portion.equals("RegularlyShifting")) {
-      for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY; i++) {
-        sum = 0;
-        sum = aggDailyControllableLoadReS.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR) + aggDailyControllableLoadReS.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR + 1)
-            + aggDailyControllableLoadReS.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR + 2) + aggDailyControllableLoadReS.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR + 3);
-        daily.add(sum);
-      }
-    } else {
-      for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY; i++) {
-        sum = 0;
-        sum = aggDailyControllableLoadSS.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR) + aggDailyControllableLoadSS.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR + 1)
-            + aggDailyControllableLoadSS.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR + 2) + aggDailyControllableLoadSS.get(day).get(i * HouseholdConstants.QUARTERS_OF_HOUR + 3);
-        daily.add(sum);
-      }
+    for (Household house : getHouses(portion)) {
+      aggLoad.addDay(portion, LoadType.Controllable, day, house.controllableLoad);
     }
-
-    return daily;
+    aggLoad.fillHours(portion, LoadType.Controllable, day);
   }
 
   /**
@@ -585,8 +719,6 @@ public class Village extends AbstractCustomer
       return;
     }
 
-    Vector<Double> estimation = new Vector<Double>();
-
     // adds current subscribed tariffs for reevaluation
     ArrayList<Tariff> evaluationTariffs = new ArrayList<Tariff>(newTariffs);
     Collections.copy(evaluationTariffs, newTariffs);
@@ -594,13 +726,7 @@ public class Village extends AbstractCustomer
     log.debug("Estimation size for " + this.toString() + " = " + evaluationTariffs.size());
 
     if (evaluationTariffs.size() > 1) {
-      for (Tariff tariff : evaluationTariffs) {
-        log.info("Tariff : " + tariff.toString() + " Tariff Type : " + tariff.getTariffSpecification().getPowerType());
-        if (tariff.isExpired() == false && tariff.getTariffSpecification().getPowerType() == PowerType.CONSUMPTION) {
-          estimation.add(-(costEstimation(tariff)));
-        } else
-          estimation.add(Double.NEGATIVE_INFINITY);
-      }
+      Vector<Double> estimation = estimateTariffs(evaluationTariffs);
 
       int minIndex = logitPossibilityEstimation(estimation);
 
@@ -616,6 +742,67 @@ public class Village extends AbstractCustomer
     }
   }
 
+  /**
+   * This function estimates the candidate tariffs, either one after another or in the fork-join
+   * pool of the service. Only the costs are estimated in parallel; the estimations are returned in
+   * the order of the tariffs, so the choice that follows is the same in both cases.
+   * @param evaluationTariffs
+   * @return
+   */
+  Vector<Double> estimateTariffs (List<Tariff> evaluationTariffs)
+  {
+    double[] estimation = new double[evaluationTariffs.size()];
+    List<TariffEvaluationTask> tasks = new ArrayList<TariffEvaluationTask>();
+
+    // The evaluation days ahead of the game are generated before the tariffs are estimated, since
+    // the estimations may run in parallel.
+    if (lazyGeneration) {
+      for (int day : createEvaluationDays())
+        generateUntil(day);
+    }
+
+    for (int i = 0; i < evaluationTariffs.size(); i++) {
+      Tariff tariff = evaluationTariffs.get(i);
+      log.info("Tariff : " + tariff.toString() + " Tariff Type : " + tariff.getTariffSpecification().getPowerType());
+      if (tariff.isExpired() == false && tariff.getTariffSpecification().getPowerType() == PowerType.CONSUMPTION) {
+        if (evaluationPool == null)
+          estimation[i] = -(cachedCostEstimation(tariff));
+        else
+          tasks.add(new TariffEvaluationTask(this, tariff, estimation, i));
+      } else
+        estimation[i] = Double.NEGATIVE_INFINITY;
+    }
+
+    for (TariffEvaluationTask task : tasks)
+      evaluationPool.execute(task);
+    for (TariffEvaluationTask task : tasks)
+      task.join();
+
+    Vector<Double> result = new Vector<Double>();
+    for (int i = 0; i < estimation.length; i++)
+      result.add(estimation[i]);
+    return result;
+  }
+
+  /**
+   * This function returns the overall cost of a tariff from the evaluation cache of the service, if
+   * the tariff or another with the same structure has already been evaluated for the same days.
+   * Otherwise it estimates the cost and stores it in the cache.
+   */
+  double cachedCostEstimation (Tariff tariff)
+  {
+    if (evaluationCache == null)
+      return costEstimation(tariff);
+
+    int[] days = createEvaluationDays();
+    Double cost = evaluationCache.get(tariff, toString(), days);
+    if (cost == null) {
+      cost = costEstimation(tariff);
+      evaluationCache.put(tariff, toString(), days, cost);
+    }
+    return cost;
+  }
+
   /**
    * This function estimates the overall cost, taking into consideration the fixed payments as well
    * as the variable that are depending on the tariff rates
@@ -657,12 +844,8 @@ public class Village extends AbstractCustomer
 
     int serial = (int) ((timeService.getCurrentTime().getMillis() - timeService.getBase()) / TimeService.HOUR);
     Instant base = new Instant(timeService.getCurrentTime().getMillis() - serial * TimeService.HOUR);
-    int daylimit = (int) (serial / HouseholdConstants.HOURS_OF_DAY) + 1; // this will be changed to
-                                                                         // one
 
-    for (int day : daysList) {
-      if (day < daylimit)
-        day = (int) (day + (daylimit / HouseholdConstants.RANDOM_DAYS_NUMBER));
+    for (int day : createEvaluationDays()) {
       Instant now = base.plus(day * TimeService.DAY);
       double costSummary = 0;
       double summary = 0, cumulativeSummary = 0;
@@ -685,7 +868,9 @@ public class Village extends AbstractCustomer
   /**
    * This is the new function, used in order to find the most cost efficient tariff over the
    * available ones. It is using Daily shifting in order to put the appliances operation in most
-   * suitable hours of the day.
+   * suitable hours of the day. The cost of each day is found with the kernel of the structure of
+   * the tariff: a flat tariff charges the energy of the day, a time of use tariff charges each hour
+   * at its own price and a tiered tariff is walked hour by hour with the energy consumed so far.
    * @param tariff
    * @return
    */
@@ -693,25 +878,24 @@ public class Village extends AbstractCustomer
   {
 
     double finalCostSummary = 0;
+    TariffStructure structure = TariffStructure.classify(tariff);
 
     int serial = (int) ((timeService.getCurrentTime().getMillis() - timeService.getBase()) / TimeService.HOUR);
     Instant base = timeService.getCurrentTime().minus(serial * TimeService.HOUR);
-    int daylimit = (int) (serial / HouseholdConstants.HOURS_OF_DAY) + 1; // this will be changed to
 
-    for (int day : daysList) {
-      if (day < daylimit)
-        day = (int) (day + (daylimit / HouseholdConstants.RANDOM_DAYS_NUMBER));
+    for (int day : createEvaluationDays()) {
       Instant now = base.plus(day * TimeService.DAY);
       double costSummary = 0;
-      double summary = 0, cumulativeSummary = 0;
 
-      long[] newControllableLoad = dailyShifting(tariff, now, day);
-
-      for (int hour = 0; hour < HouseholdConstants.HOURS_OF_DAY; hour++) {
-        summary = getBaseConsumptions(day, hour) + newControllableLoad[hour];
-        cumulativeSummary += summary;
-        costSummary -= tariff.getUsageCharge(now, summary, cumulativeSummary);
-        now = now.plus(TimeService.HOUR);
+      switch (structure) {
+      case FLAT:
+        costSummary = estimateFlatDailyPayment(tariff, now, day);
+        break;
+      case TIME_OF_USE:
+        costSummary = estimateTimeOfUseDailyPayment(tariff, now, day);
+        break;
+      default:
+        costSummary = estimateTieredDailyPayment(tariff, now, day);
       }
       log.debug("Variable Cost Summary: " + finalCostSummary);
       finalCostSummary += costSummary;
@@ -719,17 +903,164 @@ public class Village extends AbstractCustomer
     return finalCostSummary / HouseholdConstants.RANDOM_DAYS_NUMBER;
   }
 
+  /**
+   * This function estimates the variable cost of a day for a flat tariff, which charges the
+   * energy of the day at the same price whatever the hours it is consumed in, so the energy of the
+   * day is charged at once. The appliances are shifted for a flat price curve once for each day,
+   * and the shifted load is shared by all the flat tariffs.
+   * @param tariff
+   * @param now
+   * @param day
+   * @return
+   */
+  double estimateFlatDailyPayment (Tariff tariff, Instant now, int day)
+  {
+    double summary = getShiftedDailyLoad(day);
+    for (int hour = 0; hour < HouseholdConstants.HOURS_OF_DAY; hour++)
+      summary += getBaseConsumptions(day, hour);
+    return -tariff.getUsageCharge(now, summary, summary);
+  }
+
+  /**
+   * This function estimates the variable cost of a day for a time of use tariff, which charges each
+   * hour at a price of its own whatever the energy consumed before it. The prices of the day are
+   * found once, for the shifting and for the cost of the shifted load.
+   * @param tariff
+   * @param now
+   * @param day
+   * @return
+   */
+  double estimateTimeOfUseDailyPayment (Tariff tariff, Instant now, int day)
+  {
+    double costSummary = 0;
+    PriceCurve prices = new PriceCurve(tariff, now);
+    long[] newControllableLoad = dailyShifting(prices, day);
+
+    for (int hour = 0; hour < HouseholdConstants.HOURS_OF_DAY; hour++) {
+      double summary = getBaseConsumptions(day, hour) + newControllableLoad[hour];
+      costSummary -= prices.getPrice(hour) * summary;
+    }
+    return costSummary;
+  }
+
+  /**
+   * This function estimates the variable cost of a day for a tiered tariff, which charges each hour
+   * by the energy consumed so far in the day.
+   * @param tariff
+   * @param now
+   * @param day
+   * @return
+   */
+  double estimateTieredDailyPayment (Tariff tariff, Instant now, int day)
+  {
+    double costSummary = 0;
+    double summary = 0, cumulativeSummary = 0;
+
+    long[] newControllableLoad = dailyShifting(tariff, now, day);
+
+    for (int hour = 0; hour < HouseholdConstants.HOURS_OF_DAY; hour++) {
+      summary = getBaseConsumptions(day, hour) + newControllableLoad[hour];
+      cumulativeSummary += summary;
+      costSummary -= tariff.getUsageCharge(now, summary, cumulativeSummary);
+      now = now.plus(TimeService.HOUR);
+    }
+    return costSummary;
+  }
+
+  /**
+   * This function returns the shifted controllable load of a day in total over the day. The load is
+   * not the sum of the stored controllable load of the day: the shifting builds the load of each
+   * appliance again from its model, with whole hours of power for each operation, the instant water
+   * heaters in a single hour and the dryer shifted along with the washing machine, so its energy
+   * differs from the generated one. The time of use and tiered tariffs are charged for the shifted
+   * load, so a flat tariff is charged for it as well. The appliances only place the same operations
+   * differently for other prices, so the total is the same for every flat tariff and the day is
+   * shifted once, for a flat price curve.
+   * @param day
+   * @return
+   */
+  long getShiftedDailyLoad (int day)
+  {
+    Long load = shiftedDailyLoads.get(day);
+    if (load != null)
+      return load;
+
+    // two evaluations may shift the same day at once, but the shifting streams of the appliances
+    // are keyed by the day, so both find the same load and the first one kept is returned
+    double[] flat = new double[PriceCurve.HOURS];
+    long sum = 0;
+    for (long hourly : dailyShifting(new PriceCurve(flat, true), day))
+      sum += hourly;
+    Long kept = shiftedDailyLoads.putIfAbsent(day, sum);
+    return (kept != null) ? kept : sum;
+  }
+
+  /** This function returns the shifted days kept before the given day. */
+  List<Integer> createDaysBefore (int day)
+  {
+    List<Integer> days = new ArrayList<Integer>();
+    for (int shifted : shiftedDailyLoads.keySet())
+      if (shifted < day)
+        days.add(shifted);
+    return days;
+  }
+
+  /**
+   * This function returns the days of the competition that are used for the tariff evaluation at
+   * the current time. The days of the list that have already passed are moved forward, and the ones
+   * moved after the end of the game are left out. Late in the game, when every day would be left
+   * out, the last day of the game is evaluated alone.
+   * @return
+   */
+  int[] createEvaluationDays ()
+  {
+    int serial = (int) ((timeService.getCurrentTime().getMillis() - timeService.getBase()) / TimeService.HOUR);
+    int daylimit = (int) (serial / HouseholdConstants.HOURS_OF_DAY) + 1; // this will be changed to
+                                                                         // one
+    int[] days = new int[daysList.size()];
+
+    // With a rolling window only the days ahead of the game are kept, so the days of the list are
+    // mapped among the days following the current one.
+    if (evaluationLookahead > 0) {
+      for (int i = 0; i < days.length; i++)
+        days[i] = daylimit + daysList.get(i) % evaluationLookahead;
+      return days;
+    }
+
+    int count = 0;
+    for (int i = 0; i < days.length; i++) {
+      int day = daysList.get(i);
+      if (day < daylimit)
+        day = (int) (day + (daylimit / HouseholdConstants.RANDOM_DAYS_NUMBER));
+      if (day < generationDays)
+        days[count++] = day;
+    }
+    if (count == 0 && days.length > 0)
+      days[count++] = generationDays - 1;
+    return (count == days.length) ? days : Arrays.copyOf(days, count);
+  }
+
   /**
    * This is the function that realizes the mathematical possibility formula for the choice of
    * tariff.
    */
   int logitPossibilityEstimation (Vector<Double> estimation)
+  {
+    return logitPossibilityEstimation(estimation, rs1.nextDouble());
+  }
+
+  /**
+   * This function realizes the mathematical possibility formula for the choice of tariff with the
+   * given draw, so the choice depends only on the estimations and the draw.
+   * @param estimation
+   * @param draw
+   * @return
+   */
+  int logitPossibilityEstimation (Vector<Double> estimation, double draw)
   {
 
     double lamda = 10; // 0 the random - 10 the logic
     double summedEstimations = 0;
-    Vector<Integer> randomizer = new Vector<Integer>();
-    Vector<Integer> possibilities = new Vector<Integer>();
 
     for (int i = 0; i < estimation.size(); i++) {
       summedEstimations += Math.pow(HouseholdConstants.EPSILON, lamda * estimation.get(i));
@@ -737,16 +1068,15 @@ public class Village extends AbstractCustomer
       log.info("Summary of Estimation: " + summedEstimations);
     }
 
+    if (possibilities.length < estimation.size())
+      possibilities = new int[estimation.size()];
     for (int i = 0; i < estimation.size(); i++) {
-      possibilities.add((int) (HouseholdConstants.PERCENTAGE * (Math.pow(HouseholdConstants.EPSILON, lamda * estimation.get(i)) / summedEstimations)));
-      for (int j = 0; j < possibilities.get(i); j++) {
-        randomizer.add(i);
-      }
+      possibilities[i] = (int) (HouseholdConstants.PERCENTAGE * (Math.pow(HouseholdConstants.EPSILON, lamda * estimation.get(i)) / summedEstimations));
     }
+    tariffChoice.compile(possibilities, estimation.size());
 
-    log.info("Randomizer Vector: " + randomizer);
-    log.info("Possibility Vector: " + possibilities.toString());
-    int index = randomizer.get((int) (randomizer.size() * rs1.nextDouble()));
+    log.info("Possibility Vector: " + Arrays.toString(Arrays.copyOf(possibilities, estimation.size())));
+    int index = tariffChoice.sample(draw);
     log.info("Resulting Index = " + index);
     return index;
   }
@@ -762,27 +1092,35 @@ public class Village extends AbstractCustomer
   long[] dailyShifting (Tariff tariff, Instant now, int day)
   {
 
-    long[] newControllableLoad = new long[HouseholdConstants.HOURS_OF_DAY];
-
-    Vector<Household> houses = getHouses();
+    PriceCurve prices = new PriceCurve(tariff, now);
 
-    for (Household house : houses) {
-      long[] temp = house.dailyShifting(tariff, now, day, gen);
-      for (int j = 0; j < HouseholdConstants.HOURS_OF_DAY; j++)
-        newControllableLoad[j] += temp[j];
-    }
+    long[] newControllableLoad = dailyShifting(prices, day);
 
     log.debug("New Controllable Load of Village " + toString() + " for Tariff " + tariff.toString());
 
-    for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY; i++) {
-      log.debug("Hour: " + i + " Cost: " + tariff.getUsageCharge(now, 1, 0) + " Load: " + newControllableLoad[i]);
-      now = new Instant(now.getMillis() + TimeService.HOUR);
-    }
+    for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY; i++)
+      log.debug("Hour: " + i + " Cost: " + prices.getPrice(i) + " Load: " + newControllableLoad[i]);
 
     return newControllableLoad;
 
   }
 
+  /**
+   * This function shifts the controllable consumption of every household in the village for the
+   * given prices of a day.
+   * @param prices
+   * @param day
+   * @return
+   */
+  long[] dailyShifting (PriceCurve prices, int day)
+  {
+    long[] newControllableLoad = new long[HouseholdConstants.HOURS_OF_DAY];
+
+    for (Portion portion : Portion.values())
+      addDailyShifting(prices, day, portion, newControllableLoad);
+    return newControllableLoad;
+  }
+
   /**
    * This is the function that takes every household in the village and readies the shifted
    * Controllable Consumption for the needs of the tariff evaluation.
@@ -792,35 +1130,18 @@ public class Village extends AbstractCustomer
    * @param portion
    * @return
    */
-  long[] dailyShifting (Tariff tariff, Instant now, int day, String portion)
+  long[] dailyShifting (Tariff tariff, Instant now, int day, Portion portion)
   {
 
     long[] newControllableLoad = new long[HouseholdConstants.HOURS_OF_DAY];
 
-    Vector<Household> houses = new Vector<Household>();
-
-    if (portion.equals("NotShifting")) {
-      houses = notShiftingHouses;
-    } else if (portion.equals("RandomlyShifting")) {
-      houses = randomlyShiftingHouses;
-    } else if (portion.equals("RegularlyShifting")) {
-      houses = regularlyShiftingHouses;
-    } else {
-      houses = smartShiftingHouses;
-    }
-
-    for (Household house : houses) {
-      long[] temp = house.dailyShifting(tariff, now, day, gen);
-      for (int j = 0; j < HouseholdConstants.HOURS_OF_DAY; j++)
-        newControllableLoad[j] += temp[j];
-    }
+    PriceCurve prices = new PriceCurve(tariff, now);
+    addDailyShifting(prices, day, portion, newControllableLoad);
 
     log.debug("New Controllable Load of Village " + toString() + " for Tariff " + tariff.toString());
 
-    for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY; i++) {
-      log.debug("Hour: " + i + " Cost: " + tariff.getUsageCharge(now, 1, 0) + " Load: " + newControllableLoad[i]);
-      now = new Instant(now.getMillis() + TimeService.HOUR);
-    }
+    for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY; i++)
+      log.debug("Hour: " + i + " Cost: " + prices.getPrice(i) + " Load: " + newControllableLoad[i]);
     return newControllableLoad;
   }
 
@@ -831,20 +1152,10 @@ public class Village extends AbstractCustomer
    * @param portion
    * @return
    */
-  void printDailyLoad (int day, String portion)
+  void printDailyLoad (int day, Portion portion)
   {
 
-    Vector<Household> houses = new Vector<Household>();
-
-    if (portion.equals("NotShifting")) {
-      houses = notShiftingHouses;
-    } else if (portion.equals("RandomlyShifting")) {
-      houses = randomlyShiftingHouses;
-    } else if (portion.equals("RegularlyShifting")) {
-      houses = regularlyShiftingHouses;
-    } else {
-      houses = smartShiftingHouses;
-    }
+    Vector<Household> houses = getHouses(portion);
 
     log.info("Day " + day);
 
@@ -927,48 +1238,114 @@ public class Village extends AbstractCustomer
   @Override
   public void step ()
   {
+    if (lazyGeneration)
+      advanceGeneration();
     checkRevokedSubscriptions();
     consumePower();
-    if (timeService.getHourOfDay() == 23) {
-      rescheduleNextDay("RandomlyShifting");
-      rescheduleNextDay("RegularlyShifting");
-      rescheduleNextDay("SmartShifting");
+    int hour = timeService.getHourOfDay();
+    int firstHour = HouseholdConstants.HOURS_OF_DAY - reschedulingHours;
+    if (hour >= firstHour && hour < HouseholdConstants.HOURS_OF_DAY - 1)
+      prepareNextDay(hour - firstHour);
+    if (hour == 23) {
+      for (Portion portion : RESCHEDULED_PORTIONS)
+        rescheduleNextDay(portion);
     }
 
   }
 
+  /** This function returns the day after the current one, the day that is rescheduled. */
+  int getNextDay ()
+  {
+    int serial = (int) ((timeService.getCurrentTime().getMillis() - timeService.getBase()) / TimeService.HOUR);
+    return (int) (serial / HouseholdConstants.HOURS_OF_DAY) + 1;
+  }
+
+  /**
+   * This function shifts a slice of the households and batches of each rescheduled portion for the
+   * next day ahead of its rescheduling, for the prices of the first subscription of the village, the
+   * one whose prices the load of the day is shifted for. The slices are fixed by the timeslot, and
+   * a household is shifted the same whenever it is shifted, since it draws from the streams of the
+   * day. The ones whose prices change before the end of the day are shifted again at the
+   * rescheduling, so the load of the day does not depend on the number of slices. Nothing is
+   * prepared for a day whose load has not been generated, after the end of the game.
+   * @param slice
+   */
+  void prepareNextDay (int slice)
+  {
+    int day = getNextDay();
+    List<TariffSubscription> subscriptions = tariffSubscriptionRepo.findSubscriptionsForCustomer(this.getCustomerInfo());
+    if (subscriptions.isEmpty() || day >= generatedDays)
+      return;
+
+    int slices = reschedulingHours - 1;
+    Instant start = new Instant(timeService.getCurrentTime().getMillis() + (HouseholdConstants.HOURS_OF_DAY - timeService.getHourOfDay()) * TimeService.HOUR);
+    PriceCurve prices = new PriceCurve(subscriptions.get(0).getTariff(), start);
+    if (preparedDay != day) {
+      preparedChanges = new long[Portion.values().length][HouseholdConstants.HOURS_OF_DAY];
+      preparedDay = day;
+    }
+
+    boolean batched = shiftingBatches != null;
+    for (Portion portion : RESCHEDULED_PORTIONS) {
+      long[] changes = preparedChanges[portion.ordinal()];
+      Vector<Household> houses = getHouses(portion);
+      int last = (int) ((long) houses.size() * (slice + 1) / slices);
+      for (int i = (int) ((long) houses.size() * slice / slices); i < last; i++)
+        houses.get(i).reschedule(prices, day, changes, !batched);
+      if (batched) {
+        Vector<PeriodicShiftingBatch> batches = shiftingBatches.get(portion);
+        for (int i = slice; i < batches.size(); i += slices)
+          batches.get(i).reschedule(prices, day, changes);
+      }
+    }
+  }
+
   /**
    * This function is utilized in order to reschedule the consumption load for the next day of the
-   * competition according to the tariff rates of the subscriptions under contract.
+   * competition according to the tariff rates of the subscriptions under contract. The aggregated
+   * load of the portion is not summed again: each household and batch of appliances adds the
+   * difference from the load it last contributed to the day, and the ones already rescheduled for
+   * the same day and prices, here or ahead in the earlier timeslots, are skipped. The first
+   * rescheduling of a day replaces the load the portion had before the shifting. The first
+   * subscription of the village decides the load of the day, and the others are not shifted.
+   * Nothing is rescheduled at the end of the last day of the game, since the day after it has no
+   * load.
    */
-  void rescheduleNextDay (String portion)
+  void rescheduleNextDay (Portion portion)
   {
-    int serial = (int) ((timeService.getCurrentTime().getMillis() - timeService.getBase()) / TimeService.HOUR);
-    int day = (int) (serial / HouseholdConstants.HOURS_OF_DAY) + 1; // this will be changed to one
+    int day = getNextDay(); // this will be changed to one
+    if (day >= generatedDays)
+      return;
     Instant now = new Instant(timeService.getCurrentTime().getMillis() + TimeService.HOUR);
-    Vector<Long> controllableVector = new Vector<Long>();
 
     List<TariffSubscription> subscriptions = tariffSubscriptionRepo.findSubscriptionsForCustomer(this.getCustomerInfo());
-    for (TariffSubscription sub : subscriptions) {
-      log.info("Old Consumption for day " + day + ": " + getControllableConsumptions(day).toString());
-      long[] newControllableLoad = dailyShifting(sub.getTariff(), now, day, portion);
-      for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY; i++)
-        controllableVector.add(newControllableLoad[i]);
-      log.info("New Consumption for day " + day + ": " + controllableVector.toString());
-
-      if (portion.equals("RandomlyShifting")) {
-        aggDailyBaseLoadInHoursRaS.set(day, controllableVector);
-      } else if (portion.equals("RegularlyShifting")) {
-        aggDailyBaseLoadInHoursReS.set(day, controllableVector);
-      } else if (portion.equals("SmartShifting")) {
-        aggDailyBaseLoadInHoursSS.set(day, controllableVector);
-      } else {
-
-      }
+    if (subscriptions.isEmpty())
+      return;
+    if (log.isInfoEnabled())
+      log.info("Old Consumption for day " + day + ": " + Arrays.toString(aggLoad.getDayInHours(portion, LoadType.Controllable, day)));
+
+    PriceCurve prices = new PriceCurve(subscriptions.get(0).getTariff(), now);
+    boolean first = rescheduledDays[portion.ordinal()] != day;
+    long[] changes = (first && preparedDay == day) ? preparedChanges[portion.ordinal()] : new long[HouseholdConstants.HOURS_OF_DAY];
+    boolean batched = shiftingBatches != null;
+    for (Household house : getHouses(portion))
+      house.reschedule(prices, day, changes, !batched);
+    if (batched) {
+      for (PeriodicShiftingBatch batch : shiftingBatches.get(portion))
+        batch.reschedule(prices, day, changes);
+    }
 
+    if (first) {
+      aggLoad.setDayInHours(portion, LoadType.Controllable, day, changes);
+      rescheduledDays[portion.ordinal()] = day;
+    } else {
+      aggLoad.addDayInHours(portion, LoadType.Controllable, day, changes);
     }
+    if (log.isInfoEnabled())
+      log.info("New Consumption for day " + day + ": " + Arrays.toString(aggLoad.getDayInHours(portion, LoadType.Controllable, day)));
   }
 
+
   public String toString ()
   {
     return customerInfo.toString();
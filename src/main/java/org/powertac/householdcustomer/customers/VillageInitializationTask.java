@@ -0,0 +1,57 @@
+/*
+ * Copyright 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS,  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.powertac.householdcustomer.customers;
+
+import java.util.Random;
+import java.util.concurrent.RecursiveAction;
+
+import org.powertac.householdcustomer.configurations.HouseholdConfiguration;
+
+/**
+ * The village initialization task builds a village in a fork-join pool, forking a task for each of
+ * its households. The seed of the village is drawn before the task is forked.
+ * @author Antonios Chrysopoulos
+ * @version 1, 17/10/2026
+ */
+public class VillageInitializationTask extends RecursiveAction
+{
+
+  private static final long serialVersionUID = 1L;
+
+  /** The village that will be initialized. */
+  Village village;
+
+  /** The configuration of the household models. */
+  HouseholdConfiguration conf;
+
+  /** The seed of the random number generator of the village. */
+  long seed;
+
+  /** This is the constructor of the village initialization task. */
+  public VillageInitializationTask (Village village, HouseholdConfiguration conf, long seed)
+  {
+    this.village = village;
+    this.conf = conf;
+    this.seed = seed;
+  }
+
+  @Override
+  protected void compute ()
+  {
+    village.initializeInParallel(conf, new Random(seed));
+  }
+
+}
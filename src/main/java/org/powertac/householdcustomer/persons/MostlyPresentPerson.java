@@ -17,12 +17,12 @@
 package org.powertac.householdcustomer.persons;
 
 import java.util.ListIterator;
-import java.util.Properties;
 import java.util.Random;
 import java.util.Vector;
 
 import org.powertac.common.configurations.HouseholdConstants;
 import org.powertac.common.enumerations.Status;
+import org.powertac.householdcustomer.configurations.HouseholdConfiguration;
 
 /**
  * This is the instance of the person type that spents most of its time inside the house. Such types
@@ -34,6 +34,8 @@ import org.powertac.common.enumerations.Status;
 public class MostlyPresentPerson extends Person
 {
 
+  private static final long serialVersionUID = 1L;
+
   /**
    * This is the initialization function. It uses the variable values for the configuration file to
    * create the person as it should for this type.
@@ -43,14 +45,14 @@ public class MostlyPresentPerson extends Person
    * @param gen
    * @return
    */
-  public void initialize (String AgentName, Properties conf, Vector<Integer> publicVacationVector, Random gen)
+  public void initialize (String AgentName, HouseholdConfiguration conf, Vector<Integer> publicVacationVector, Random gen)
   {
     // Variables Taken from the configuration file
-    double sicknessMean = Double.parseDouble(conf.getProperty("SicknessMean"));
-    double sicknessDev = Double.parseDouble(conf.getProperty("SicknessDev"));
-    double leisureDurationMean = Double.parseDouble(conf.getProperty("LeisureDurationMean"));
-    double leisureDurationDev = Double.parseDouble(conf.getProperty("LeisureDurationDev"));
-    double MPLeisure = Double.parseDouble(conf.getProperty("MPLeisure"));
+    double sicknessMean = conf.sicknessMean;
+    double sicknessDev = conf.sicknessDev;
+    double leisureDurationMean = conf.leisureDurationMean;
+    double leisureDurationDev = conf.leisureDurationDev;
+    double MPLeisure = conf.mpLeisure;
 
     // Filling the main variables
     name = AgentName;
@@ -94,21 +96,20 @@ public class MostlyPresentPerson extends Person
 
     for (int i = 0; i < HouseholdConstants.DAYS_OF_WEEK; i++) {
       log.info("Day " + (i));
-      ListIterator<Status> iter2 = weeklyRoutine.get(i).listIterator();
       for (int j = 0; j < HouseholdConstants.QUARTERS_OF_DAY; j++)
-        log.info("Quarter : " + (j + 1) + " Status : " + iter2.next());
+        log.info("Quarter : " + (j + 1) + " Status : " + getStatus(i, j));
     }
   }
 
   @Override
-  public void refresh (Properties conf, Random gen)
+  public void refresh (HouseholdConfiguration conf, Random gen)
   {
 
     // Renew Variables
-    double leisureDurationMean = Double.parseDouble(conf.getProperty("LeisureDurationMean"));
-    double leisureDurationDev = Double.parseDouble(conf.getProperty("LeisureDurationDev"));
-    double MPLeisure = Double.parseDouble(conf.getProperty("MPLeisure"));
-    double vacationAbsence = Double.parseDouble(conf.getProperty("VacationAbsence"));
+    double leisureDurationMean = conf.leisureDurationMean;
+    double leisureDurationDev = conf.leisureDurationDev;
+    double MPLeisure = conf.mpLeisure;
+    double vacationAbsence = conf.vacationAbsence;
 
     int x = (int) (gen.nextGaussian() + MPLeisure);
     leisureDuration = (int) (leisureDurationDev * gen.nextGaussian() + leisureDurationMean);
@@ -17,12 +17,12 @@
 package org.powertac.householdcustomer.persons;
 
 import java.util.ListIterator;
-import java.util.Properties;
 import java.util.Random;
 import java.util.Vector;
 
 import org.powertac.common.configurations.HouseholdConstants;
 import org.powertac.common.enumerations.Status;
+import org.powertac.householdcustomer.configurations.HouseholdConfiguration;
 
 /**
  * This is the instance of the person type that works in a regular basis for a number of days in the
@@ -33,6 +33,8 @@ import org.powertac.common.enumerations.Status;
 public class PeriodicPresentPerson extends WorkingPerson
 {
 
+  private static final long serialVersionUID = 1L;
+
   /**
    * This is the initialization function. It uses the variable values for the configuration file to
    * create the person as it should for this type.
@@ -42,18 +44,18 @@ public class PeriodicPresentPerson extends WorkingPerson
    * @param gen
    * @return
    */
-  public void initialize (String AgentName, Properties conf, Vector<Integer> publicVacationVector, Random gen)
+  public void initialize (String AgentName, HouseholdConfiguration conf, Vector<Integer> publicVacationVector, Random gen)
   {
     // Variables Taken from the configuration file
-    double sicknessMean = Double.parseDouble(conf.getProperty("SicknessMean"));
-    double sicknessDev = Double.parseDouble(conf.getProperty("SicknessDev"));
-    double leisureDurationMean = Double.parseDouble(conf.getProperty("LeisureDurationMean"));
-    double leisureDurationDev = Double.parseDouble(conf.getProperty("LeisureDurationDev"));
-    double PPLeisure = Double.parseDouble(conf.getProperty("PPLeisure"));
-    double workingDurationMean = Double.parseDouble(conf.getProperty("WorkingDurationMean"));
-    double workingDurationDev = Double.parseDouble(conf.getProperty("WorkingDurationDev"));
-    double vacationDurationMean = Double.parseDouble(conf.getProperty("VacationDurationMean"));
-    double vacationDurationDev = Double.parseDouble(conf.getProperty("VacationDurationDev"));
+    double sicknessMean = conf.sicknessMean;
+    double sicknessDev = conf.sicknessDev;
+    double leisureDurationMean = conf.leisureDurationMean;
+    double leisureDurationDev = conf.leisureDurationDev;
+    double PPLeisure = conf.ppLeisure;
+    double workingDurationMean = conf.workingDurationMean;
+    double workingDurationDev = conf.workingDurationDev;
+    double vacationDurationMean = conf.vacationDurationMean;
+    double vacationDurationDev = conf.vacationDurationDev;
 
     // Filling the main variables
     name = AgentName;
@@ -90,7 +92,7 @@ public class PeriodicPresentPerson extends WorkingPerson
         int startq = gen.nextInt(Math.max(1, HouseholdConstants.LEISURE_END_WINDOW - start)) + start;
         for (int i = startq; i < startq + leisureDuration; i++) {
           st = Status.Leisure;
-          dailyRoutine.set(i, st);
+          setStatus(i, st);
           if (i == HouseholdConstants.QUARTERS_OF_DAY - 1)
             break;
         }
@@ -105,18 +107,18 @@ public class PeriodicPresentPerson extends WorkingPerson
     Status st;
     for (int i = workingStartHour; i < workingStartHour + workingDuration; i++) {
       st = Status.Working;
-      dailyRoutine.set(i, st);
+      setStatus(i, st);
     }
   }
 
   @Override
-  public void refresh (Properties conf, Random gen)
+  public void refresh (HouseholdConfiguration conf, Random gen)
   {
     // Renew Variables
-    double leisureDurationMean = Double.parseDouble(conf.getProperty("LeisureDurationMean"));
-    double leisureDurationDev = Double.parseDouble(conf.getProperty("LeisureDurationDev"));
-    double PPLeisure = Double.parseDouble(conf.getProperty("PPLeisure"));
-    double vacationAbsence = Double.parseDouble(conf.getProperty("VacationAbsence"));
+    double leisureDurationMean = conf.leisureDurationMean;
+    double leisureDurationDev = conf.leisureDurationDev;
+    double PPLeisure = conf.ppLeisure;
+    double vacationAbsence = conf.vacationAbsence;
 
     int x = (int) (gen.nextGaussian() + PPLeisure);
     leisureDuration = (int) (leisureDurationDev * gen.nextGaussian() + leisureDurationMean);
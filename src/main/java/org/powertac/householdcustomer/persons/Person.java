@@ -16,14 +16,15 @@
 
 package org.powertac.householdcustomer.persons;
 
+import java.io.Serializable;
 import java.util.ListIterator;
-import java.util.Properties;
 import java.util.Random;
 import java.util.Vector;
 
 import org.apache.log4j.Logger;
 import org.powertac.common.configurations.HouseholdConstants;
 import org.powertac.common.enumerations.Status;
+import org.powertac.householdcustomer.configurations.HouseholdConfiguration;
 import org.powertac.householdcustomer.customers.Household;
 
 /**
@@ -35,9 +36,11 @@ import org.powertac.householdcustomer.customers.Household;
  * @version 1, 13/02/2011
  */
 
-public class Person
+public class Person implements Serializable
 {
 
+  private static final long serialVersionUID = 1L;
+
   /**
    * logger for trace logging -- use log.info(), log.warn(), and log.error() appropriately. Use
    * log.debug() for output you want to see in testing or debugging.
@@ -74,14 +77,38 @@ public class Person
   /** The duration each of the person's leisure activity takes **/
   int leisureDuration = 0;
 
-  /** This is a vector of the day's quarter's and the status of the person in each one of them **/
-  Vector<Status> dailyRoutine = new Vector<Status>();
+  /** The statuses of a person, indexed by the codes kept in the routines **/
+  static final Status[] STATUSES = Status.values();
+
+  /** The template of a day spent in the house, sleeping at night **/
+  static final byte[] NORMAL_DAY = createTemplate(Status.Normal);
+
+  /** The template of a day spent sick in the house, sleeping at night **/
+  static final byte[] SICK_DAY = createTemplate(Status.Sick);
+
+  /** The template of a day spent on vacation **/
+  static final byte[] VACATION_DAY = createTemplate(Status.Vacation);
+
+  /**
+   * This is an array of the day's quarters and the code of the status of the person in each one of
+   * them. It may be shared with a template or with another day, until it is changed.
+   **/
+  byte[] dailyRoutine;
+
+  /** This variable shows if the daily routine is shared and has to be copied before a change **/
+  boolean sharedRoutine;
 
   /** This is a vector containing the days of the week that the person has leisure time **/
   Vector<Integer> leisureVector = new Vector<Integer>();
 
   /** The weekly schedule and status of the person **/
-  Vector<Vector<Status>> weeklyRoutine = new Vector<Vector<Status>>();
+  Vector<byte[]> weeklyRoutine = new Vector<byte[]>();
+
+  /** This variable shows the number of days whose routines have been released. */
+  int releasedRoutines;
+
+  /** The random number generator owned by the person, used for all its schedule changes **/
+  Random stream;
 
   /**
    * This function checks if the person is sleeping.
@@ -144,17 +171,104 @@ public class Person
   }
 
   /** This function returns the weekly routine of a person */
-  public Vector<Vector<Status>> getWeeklyRoutine ()
+  public Vector<byte[]> getWeeklyRoutine ()
   {
     return weeklyRoutine;
   }
 
+  /**
+   * This function returns the routine of a certain day, counting the days from the start of the
+   * game.
+   * @param day
+   * @return
+   */
+  public byte[] getRoutine (int day)
+  {
+    if (day < releasedRoutines)
+      throw new IllegalStateException("The routine of day " + day + " has been released");
+    return weeklyRoutine.get(day - releasedRoutines);
+  }
+
+  /**
+   * This function releases the routines of all the days before the given day, removing them from
+   * the start of the weekly routine.
+   * @param day
+   */
+  public void releaseRoutines (int day)
+  {
+    int count = Math.min(day - releasedRoutines, weeklyRoutine.size());
+    if (count > 0) {
+      weeklyRoutine.subList(0, count).clear();
+      releasedRoutines += count;
+    }
+  }
+
   /** This function returns the daily routine of a person */
-  public Vector<Status> getDailyRoutine ()
+  public byte[] getDailyRoutine ()
   {
     return dailyRoutine;
   }
 
+  /** This function returns the status of a person in a certain quarter of a day */
+  public Status getStatus (int day, int quarter)
+  {
+    return STATUSES[getRoutine(day)[quarter]];
+  }
+
+  /**
+   * This function creates the template of a day that the person spends in a certain status, apart
+   * from the hours of sleeping.
+   * @param st
+   * @return
+   */
+  static byte[] createTemplate (Status st)
+  {
+    byte[] template = new byte[HouseholdConstants.QUARTERS_OF_DAY];
+    byte day = (byte) st.ordinal();
+    byte sleeping = (byte) ((st == Status.Vacation) ? day : Status.Sleeping.ordinal());
+    for (int i = HouseholdConstants.START_OF_SLEEPING_1; i < HouseholdConstants.END_OF_SLEEPING_1; i++)
+      template[i] = sleeping;
+    for (int i = HouseholdConstants.END_OF_SLEEPING_1; i < HouseholdConstants.START_OF_SLEEPING_2; i++)
+      template[i] = day;
+    for (int i = HouseholdConstants.START_OF_SLEEPING_2; i < HouseholdConstants.END_OF_SLEEPING_2; i++)
+      template[i] = sleeping;
+    return template;
+  }
+
+  /** This function starts the daily routine from a template, which is copied when it is changed */
+  void useTemplate (byte[] template)
+  {
+    dailyRoutine = template;
+    sharedRoutine = true;
+  }
+
+  /**
+   * This function sets the status of the person in a quarter of the daily routine, copying the
+   * routine first if it is shared.
+   * @param quarter
+   * @param st
+   */
+  void setStatus (int quarter, Status st)
+  {
+    if (sharedRoutine) {
+      dailyRoutine = dailyRoutine.clone();
+      sharedRoutine = false;
+    }
+    dailyRoutine[quarter] = (byte) st.ordinal();
+  }
+
+  /** This function returns the random number generator owned by the person */
+  public Random getStream ()
+  {
+    return stream;
+  }
+
+  /** This function sets the random number generator owned by the person */
+  public void setStream (Random stream)
+  {
+    this.stream = stream;
+  }
+
   /**
    * This function fills out the leisure days' vector of the person by choosing randomly days of the
    * week, while the amount of days is different for each person type.
@@ -223,30 +337,23 @@ public class Person
    */
   public void fillDailyRoutine (int day, double vacationAbsence, Random gen)
   {
-    // Create auxiliary variable
-    Status st;
-
     int weekday = day % HouseholdConstants.DAYS_OF_WEEK;
-    dailyRoutine = new Vector<Status>();
     if (sicknessVector.contains(day)) {
-      fillSick();
+      useTemplate(SICK_DAY);
     } else {
       if (publicVacationVector.contains(day) || (this instanceof WorkingPerson && vacationVector.contains(day))) {
         if (gen.nextDouble() < vacationAbsence) {
-          for (int i = 0; i < HouseholdConstants.QUARTERS_OF_DAY; i++) {
-            st = Status.Vacation;
-            dailyRoutine.add(st);
-          }
+          useTemplate(VACATION_DAY);
         } else {
-          normalFill();
+          useTemplate(NORMAL_DAY);
           addLeisure(weekday, gen);
         }
       } else {
-        normalFill();
+        useTemplate(NORMAL_DAY);
         if (this instanceof WorkingPerson) {
           int index = workingDays.indexOf(weekday);
           if (index > -1) {
-            fillWork();
+            useTemplate(((WorkingPerson) this).getWorkingDay());
             addLeisureWorking(weekday, gen);
           } else {
             addLeisure(weekday, gen);
@@ -276,7 +383,7 @@ public class Person
         int start = HouseholdConstants.START_OF_LEISURE + gen.nextInt(HouseholdConstants.LEISURE_WINDOW);
         for (int i = start; i < start + leisureDuration; i++) {
           st = Status.Leisure;
-          dailyRoutine.set(i, st);
+          setStatus(i, st);
           if (i == HouseholdConstants.QUARTERS_OF_DAY - 1)
             break;
         }
@@ -295,49 +402,6 @@ public class Person
 
   }
 
-  /**
-   * This function fills out the daily routine of the person as if he stays in the house all day
-   * long.
-   * @return
-   */
-  void normalFill ()
-  {
-    Status st;
-    for (int i = HouseholdConstants.START_OF_SLEEPING_1; i < HouseholdConstants.END_OF_SLEEPING_1; i++) {
-      st = Status.Sleeping;
-      dailyRoutine.add(st);
-    }
-    for (int i = HouseholdConstants.END_OF_SLEEPING_1; i < HouseholdConstants.START_OF_SLEEPING_2; i++) {
-      st = Status.Normal;
-      dailyRoutine.add(st);
-    }
-    for (int i = HouseholdConstants.START_OF_SLEEPING_2; i < HouseholdConstants.END_OF_SLEEPING_2; i++) {
-      st = Status.Sleeping;
-      dailyRoutine.add(st);
-    }
-  }
-
-  /**
-   * This function fills out the daily routine of the person that is sick for the day.
-   * @return
-   */
-  void fillSick ()
-  {
-    Status st;
-    for (int i = HouseholdConstants.START_OF_SLEEPING_1; i < HouseholdConstants.END_OF_SLEEPING_1; i++) {
-      st = Status.Sleeping;
-      dailyRoutine.add(st);
-    }
-    for (int i = HouseholdConstants.END_OF_SLEEPING_1; i < HouseholdConstants.START_OF_SLEEPING_2; i++) {
-      st = Status.Sick;
-      dailyRoutine.add(st);
-    }
-    for (int i = HouseholdConstants.START_OF_SLEEPING_2; i < HouseholdConstants.END_OF_SLEEPING_2; i++) {
-      st = Status.Sleeping;
-      dailyRoutine.add(st);
-    }
-  }
-
   /**
    * This function fill the daily program of the person with the suitable working activities taking
    * in consideration the working habits, duration and shifts.
@@ -365,7 +429,7 @@ public class Person
    * @param gen
    * @return
    */
-  public void refresh (Properties config, Random gen)
+  public void refresh (HouseholdConfiguration config, Random gen)
   {
 
   }
@@ -17,12 +17,12 @@
 package org.powertac.householdcustomer.persons;
 
 import java.util.ListIterator;
-import java.util.Properties;
 import java.util.Random;
 import java.util.Vector;
 
 import org.powertac.common.configurations.HouseholdConstants;
 import org.powertac.common.enumerations.Status;
+import org.powertac.householdcustomer.configurations.HouseholdConfiguration;
 
 /**
  * This is the instance of the person type that works in shifts that may vary form week to week or
@@ -33,6 +33,8 @@ import org.powertac.common.enumerations.Status;
 public class RandomlyAbsentPerson extends WorkingPerson
 {
 
+  private static final long serialVersionUID = 1L;
+
   /**
    * This is the initialization function. It uses the variable values for the configuration file to
    * create the person as it should for this type.
@@ -42,18 +44,18 @@ public class RandomlyAbsentPerson extends WorkingPerson
    * @param gen
    * @return
    */
-  public void initialize (String AgentName, Properties conf, Vector<Integer> publicVacationVector, Random gen)
+  public void initialize (String AgentName, HouseholdConfiguration conf, Vector<Integer> publicVacationVector, Random gen)
   {
     // Variables Taken from the configuration file
-    double sicknessMean = Double.parseDouble(conf.getProperty("SicknessMean"));
-    double sicknessDev = Double.parseDouble(conf.getProperty("SicknessDev"));
-    double leisureDurationMean = Double.parseDouble(conf.getProperty("LeisureDurationMean"));
-    double leisureDurationDev = Double.parseDouble(conf.getProperty("LeisureDurationDev"));
-    double RALeisure = Double.parseDouble(conf.getProperty("RALeisure"));
-    double workingDurationMean = Double.parseDouble(conf.getProperty("WorkingDurationMean"));
-    double workingDurationDev = Double.parseDouble(conf.getProperty("WorkingDurationDev"));
-    double vacationDurationMean = Double.parseDouble(conf.getProperty("VacationDurationMean"));
-    double vacationDurationDev = Double.parseDouble(conf.getProperty("VacationDurationDev"));
+    double sicknessMean = conf.sicknessMean;
+    double sicknessDev = conf.sicknessDev;
+    double leisureDurationMean = conf.leisureDurationMean;
+    double leisureDurationDev = conf.leisureDurationDev;
+    double RALeisure = conf.raLeisure;
+    double workingDurationMean = conf.workingDurationMean;
+    double workingDurationDev = conf.workingDurationDev;
+    double vacationDurationMean = conf.vacationDurationMean;
+    double vacationDurationDev = conf.vacationDurationDev;
 
     // Filling the main variables
     name = AgentName;
@@ -106,7 +108,7 @@ public class RandomlyAbsentPerson extends WorkingPerson
           int startq = gen.nextInt((HouseholdConstants.LEISURE_WINDOW + 1) - start) + (start + HouseholdConstants.SHIFT_START_2);
           for (int i = startq; i < startq + leisureDuration; i++) {
             st = Status.Leisure;
-            dailyRoutine.set(i, st);
+            setStatus(i, st);
             if (i == HouseholdConstants.QUARTERS_OF_DAY - 1)
               break;
           }
@@ -115,7 +117,7 @@ public class RandomlyAbsentPerson extends WorkingPerson
             int startq = start + gen.nextInt(HouseholdConstants.LEISURE_WINDOW_SHIFT - start);
             for (int i = startq; i < startq + leisureDuration; i++) {
               st = Status.Leisure;
-              dailyRoutine.set(i, st);
+              setStatus(i, st);
               if (i == HouseholdConstants.QUARTERS_OF_DAY - 1)
                 break;
             }
@@ -123,7 +125,7 @@ public class RandomlyAbsentPerson extends WorkingPerson
             int startq = HouseholdConstants.SHIFT_START_2 + gen.nextInt(HouseholdConstants.SHIFT_START_3 - (HouseholdConstants.LEISURE_WINDOW - 1));
             for (int i = startq; i < startq + leisureDuration; i++) {
               st = Status.Leisure;
-              dailyRoutine.set(i, st);
+              setStatus(i, st);
               if (i == HouseholdConstants.QUARTERS_OF_DAY - 1)
                 break;
             }
@@ -141,62 +143,62 @@ public class RandomlyAbsentPerson extends WorkingPerson
     if (workingStartHour == HouseholdConstants.SHIFT_START_1) {
       for (int i = HouseholdConstants.SHIFT_START_1; i < workingDuration; i++) {
         st = Status.Working;
-        dailyRoutine.set(i, st);
+        setStatus(i, st);
       }
       for (int i = workingDuration; i < workingDuration + HouseholdConstants.SHIFT_START_2; i++) {
         st = Status.Sleeping;
-        dailyRoutine.set(i, st);
+        setStatus(i, st);
       }
       for (int i = workingDuration + HouseholdConstants.SHIFT_START_2; i < HouseholdConstants.QUARTERS_OF_DAY; i++) {
         st = Status.Normal;
-        dailyRoutine.set(i, st);
+        setStatus(i, st);
       }
     } else {
       if (workingStartHour == HouseholdConstants.SHIFT_START_2) {
         for (int i = HouseholdConstants.START_OF_SLEEPING_1; i < HouseholdConstants.END_OF_SLEEPING_1; i++) {
           st = Status.Sleeping;
-          dailyRoutine.set(i, st);
+          setStatus(i, st);
         }
         for (int i = HouseholdConstants.END_OF_SLEEPING_1; i < HouseholdConstants.SHIFT_START_2; i++) {
           st = Status.Normal;
-          dailyRoutine.set(i, st);
+          setStatus(i, st);
         }
         for (int i = HouseholdConstants.SHIFT_START_2; i < workingDuration + HouseholdConstants.SHIFT_START_2; i++) {
           st = Status.Working;
-          dailyRoutine.set(i, st);
+          setStatus(i, st);
         }
         for (int i = workingDuration + HouseholdConstants.SHIFT_START_2; i < HouseholdConstants.START_OF_SLEEPING_1; i++) {
           st = Status.Normal;
-          dailyRoutine.set(i, st);
+          setStatus(i, st);
         }
         for (int i = HouseholdConstants.START_OF_SLEEPING_1; i < HouseholdConstants.QUARTERS_OF_DAY; i++) {
           st = Status.Sleeping;
-          dailyRoutine.set(i, st);
+          setStatus(i, st);
         }
       } else {
         for (int i = HouseholdConstants.START_OF_SLEEPING_1; i < HouseholdConstants.END_OF_SLEEPING_1; i++) {
           st = Status.Sleeping;
-          dailyRoutine.set(i, st);
+          setStatus(i, st);
         }
         for (int i = HouseholdConstants.END_OF_SLEEPING_1; i < HouseholdConstants.SHIFT_START_3; i++) {
           st = Status.Normal;
-          dailyRoutine.set(i, st);
+          setStatus(i, st);
         }
         if (workingDuration > HouseholdConstants.HOURS_OF_SHIFT_WORK * HouseholdConstants.QUARTERS_OF_HOUR) {
           for (int i = HouseholdConstants.SHIFT_START_3; i < HouseholdConstants.QUARTERS_OF_DAY; i++) {
             st = Status.Working;
-            dailyRoutine.set(i, st);
+            setStatus(i, st);
           }
         } else {
           for (int i = HouseholdConstants.SHIFT_START_3; i < HouseholdConstants.SHIFT_START_3 + workingDuration; i++) {
             if (i >= HouseholdConstants.QUARTERS_OF_DAY)
               break;
             st = Status.Working;
-            dailyRoutine.set(i, st);
+            setStatus(i, st);
           }
           for (int i = HouseholdConstants.SHIFT_START_3 + workingDuration; i < HouseholdConstants.QUARTERS_OF_DAY; i++) {
             st = Status.Sleeping;
-            dailyRoutine.set(i, st);
+            setStatus(i, st);
           }
         }
       }
@@ -204,13 +206,13 @@ public class RandomlyAbsentPerson extends WorkingPerson
   }
 
   @Override
-  public void refresh (Properties conf, Random gen)
+  public void refresh (HouseholdConfiguration conf, Random gen)
   {
     // Renew Variables
-    double leisureDurationMean = Double.parseDouble(conf.getProperty("LeisureDurationMean"));
-    double leisureDurationDev = Double.parseDouble(conf.getProperty("LeisureDurationDev"));
-    double RALeisure = Double.parseDouble(conf.getProperty("RALeisure"));
-    double vacationAbsence = Double.parseDouble(conf.getProperty("VacationAbsence"));
+    double leisureDurationMean = conf.leisureDurationMean;
+    double leisureDurationDev = conf.leisureDurationDev;
+    double RALeisure = conf.raLeisure;
+    double vacationAbsence = conf.vacationAbsence;
 
     int work = workingDaysRandomizer(conf, gen);
     workingDays = createWorkingDaysVector(work, gen);
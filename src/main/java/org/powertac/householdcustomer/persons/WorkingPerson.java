@@ -17,12 +17,11 @@
 package org.powertac.householdcustomer.persons;
 
 import java.util.ListIterator;
-import java.util.Properties;
 import java.util.Random;
 import java.util.Vector;
 
 import org.powertac.common.configurations.HouseholdConstants;
-import org.powertac.common.enumerations.Status;
+import org.powertac.householdcustomer.configurations.HouseholdConfiguration;
 
 /**
  * This is the instance of the person type that works. In addition to the simple persons they are
@@ -33,6 +32,12 @@ import org.powertac.common.enumerations.Status;
 public class WorkingPerson extends Person
 {
 
+  private static final long serialVersionUID = 1L;
+
+  /** The working days per week, in the order of the outcomes of the working days distribution **/
+  static final int[] WORKING_DAYS = { HouseholdConstants.FIVE_WORKING_DAYS, HouseholdConstants.SIX_WORKING_DAYS, HouseholdConstants.FOUR_WORKING_DAYS,
+      HouseholdConstants.THREE_WORKING_DAYS, HouseholdConstants.TWO_WORKING_DAYS, HouseholdConstants.SEVEN_WORKING_DAYS, HouseholdConstants.ONE_WORKING_DAY };
+
   /** This variable describes the duration of the work procedure **/
   int workingDuration = 0;
 
@@ -42,6 +47,29 @@ public class WorkingPerson extends Person
   /** The time of the day that the person begins to work **/
   int workingStartHour = 0;
 
+  /** The template of a working day, made for the current working hours of the person **/
+  byte[] workingDay;
+
+  /** The working start hour and duration for which the template of the working day was made **/
+  int workingDayStart, workingDayDuration;
+
+  /**
+   * This function returns the template of a working day for the current working hours of the
+   * person, making it again only when the working hours have changed.
+   * @return
+   */
+  byte[] getWorkingDay ()
+  {
+    if (workingDay == null || workingDayStart != workingStartHour || workingDayDuration != workingDuration) {
+      useTemplate(NORMAL_DAY);
+      fillWork();
+      workingDay = dailyRoutine;
+      workingDayStart = workingStartHour;
+      workingDayDuration = workingDuration;
+    }
+    return workingDay;
+  }
+
   /**
    * This function fills out the working days' vector of the person by choosing randomly days of the
    * week, while the amount of days is different for each person type.
@@ -129,44 +157,9 @@ public class WorkingPerson extends Person
    * @param gen
    * @return
    */
-  int workingDaysRandomizer (Properties conf, Random gen)
+  int workingDaysRandomizer (HouseholdConfiguration conf, Random gen)
   {
-    int returnValue;
-    int twoDays = Integer.parseInt(conf.getProperty("TwoDays"));
-    int threeDays = Integer.parseInt(conf.getProperty("ThreeDays"));
-    int fourDays = Integer.parseInt(conf.getProperty("FourDays"));
-    int fiveDays = Integer.parseInt(conf.getProperty("FiveDays"));
-    int sixDays = Integer.parseInt(conf.getProperty("SixDays"));
-    int sevenDays = Integer.parseInt(conf.getProperty("SevenDays"));
-
-    int x = (int) gen.nextInt(HouseholdConstants.PERCENTAGE);
-    if (x < fiveDays) {
-      returnValue = HouseholdConstants.FIVE_WORKING_DAYS;
-    } else {
-      if (x >= fiveDays & x < (fiveDays + sixDays)) {
-        returnValue = HouseholdConstants.SIX_WORKING_DAYS;
-      } else {
-        if (x >= (fiveDays + sixDays) & x < (fiveDays + sixDays + fourDays)) {
-          returnValue = HouseholdConstants.FOUR_WORKING_DAYS;
-        } else {
-          if (x >= (fiveDays + sixDays + fourDays) & x < (fiveDays + sixDays + fourDays + threeDays)) {
-            returnValue = HouseholdConstants.THREE_WORKING_DAYS;
-          } else {
-            if (x >= (fiveDays + sixDays + fourDays + threeDays) & x < (fiveDays + sixDays + fourDays + threeDays + twoDays)) {
-              returnValue = HouseholdConstants.TWO_WORKING_DAYS;
-            } else {
-              if (x >= (fiveDays + sixDays + fourDays + threeDays + twoDays) & x < (fiveDays + sixDays + fourDays + threeDays + twoDays + sevenDays)) {
-                returnValue = HouseholdConstants.SEVEN_WORKING_DAYS;
-              } else {
-                returnValue = HouseholdConstants.ONE_WORKING_DAY;
-              }
-            }
-          }
-        }
-      }
-    }
-    return returnValue;
-
+    return WORKING_DAYS[conf.workingDaysDistribution.sample(gen)];
   }
 
   @Override
@@ -211,13 +204,10 @@ public class WorkingPerson extends Person
 
     // Printing Weekly Schedule
     log.info("Weekly Routine : ");
-    ListIterator<Status> iter2 = weeklyRoutine.get(0).listIterator();
-
     for (int i = 0; i < HouseholdConstants.DAYS_OF_WEEK; i++) {
       log.info("Day " + i);
-      iter2 = weeklyRoutine.get(i).listIterator();
       for (int j = 0; j < HouseholdConstants.QUARTERS_OF_DAY; j++)
-        log.info("Quarter : " + (j + 1) + " Status : " + iter2.next());
+        log.info("Quarter : " + (j + 1) + " Status : " + getStatus(i, j));
     }
   }
 
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS,  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.powertac.householdcustomer.random;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The categorical distribution samples one of a few outcomes with integer weights from a lookup
+ * table, giving for the same draw the outcome the cumulative sums would give.
+ * @author Antonios Chrysopoulos
+ * @version 1, 17/10/2026
+ */
+public class CategoricalDistribution implements Serializable
+{
+
+  private static final long serialVersionUID = 1L;
+
+  /** The outcome of each unit of weight, in the order of the outcomes. */
+  int[] table = new int[0];
+
+  /** The sum of the weights of the outcomes. */
+  int total;
+
+  /** This is the constructor of an empty distribution, to be compiled later. */
+  public CategoricalDistribution ()
+  {
+  }
+
+  /**
+   * This is the constructor of the distribution of the given weights.
+   * @param weights
+   */
+  public CategoricalDistribution (int... weights)
+  {
+    compile(weights, weights.length);
+  }
+
+  /**
+   * This function compiles the lookup table of the first outcomes of the given weights, reusing
+   * the table of the distribution when it is large enough.
+   * @param weights
+   * @param outcomes
+   */
+  public void compile (int[] weights, int outcomes)
+  {
+    int sum = 0;
+    for (int i = 0; i < outcomes; i++) {
+      if (weights[i] < 0)
+        throw new IllegalArgumentException("Negative weight " + weights[i] + " of outcome " + i);
+      sum += weights[i];
+    }
+    if (sum > table.length)
+      table = new int[sum];
+
+    int position = 0;
+    for (int i = 0; i < outcomes; i++) {
+      Arrays.fill(table, position, position + weights[i], i);
+      position += weights[i];
+    }
+    total = sum;
+  }
+
+  /** This function returns the sum of the weights of the distribution. */
+  public int getTotal ()
+  {
+    return total;
+  }
+
+  /**
+   * This function samples an outcome, drawing an integer below the total weight.
+   * @param gen
+   * @return
+   */
+  public int sample (Random gen)
+  {
+    return table[gen.nextInt(total)];
+  }
+
+  /**
+   * This function returns the outcome of a uniform number in [0, 1).
+   * @param uniform
+   * @return
+   */
+  public int sample (double uniform)
+  {
+    int position = (int) (total * uniform);
+    if (position >= total)
+      throw new ArrayIndexOutOfBoundsException(position);
+    return table[position];
+  }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS,  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.powertac.householdcustomer.random;
+
+import java.util.Random;
+
+/**
+ * The random engine selects the generator behind the random streams: java.util.Random for the
+ * legacy streams, or the faster xoroshiro128++ generator, which gives different streams for the
+ * same seeds.
+ * @author Antonios Chrysopoulos
+ * @version 1, 17/10/2026
+ */
+public enum RandomEngine
+{
+  LEGACY
+  {
+    @Override
+    public Random create (long seed)
+    {
+      return new Random(seed);
+    }
+  },
+  XOROSHIRO
+  {
+    @Override
+    public Random create (long seed)
+    {
+      return new XoroshiroRandom(seed);
+    }
+  };
+
+  /**
+   * This function creates a random number generator of the engine with the given seed.
+   * @param seed
+   * @return
+   */
+  public abstract Random create (long seed);
+
+}
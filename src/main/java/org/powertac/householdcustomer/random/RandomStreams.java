@@ -0,0 +1,146 @@
+/*
+ * Copyright 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS,  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.powertac.householdcustomer.random;
+
+import java.io.Serializable;
+import java.util.Random;
+
+/**
+ * The random streams derive independent, reproducible generators for the entities of the household
+ * models, keyed by a sequence of numbers such as village, house and appliance, so the stream of an
+ * entity does not depend on the order in which the entities are built.
+ * @author Antonios Chrysopoulos
+ * @version 1, 17/10/2026
+ */
+public class RandomStreams implements Serializable
+{
+
+  private static final long serialVersionUID = 1L;
+
+  /** The key of the household stream itself. */
+  public static final long HOUSEHOLD = 0;
+
+  /** The key of the streams of the persons of a household. */
+  public static final long PERSONS = 1;
+
+  /** The key of the streams of the appliances of a household. */
+  public static final long APPLIANCES = 2;
+
+  /** The key of the streams used by the appliances for the daily shifting. */
+  public static final long SHIFTING = 3;
+
+  /** The golden ratio increment of the SplitMix64 sequence. */
+  static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+  /** The seed of the facility. */
+  long seed;
+
+  /** The engine of the random number generators of the streams. */
+  RandomEngine engine;
+
+  /**
+   * This is the constructor of the random streams facility, using the legacy engine.
+   * @param seed
+   */
+  public RandomStreams (long seed)
+  {
+    this(seed, RandomEngine.LEGACY);
+  }
+
+  /**
+   * This is the constructor of the random streams facility using the given engine.
+   * @param seed
+   * @param engine
+   */
+  public RandomStreams (long seed, RandomEngine engine)
+  {
+    this.seed = seed;
+    this.engine = engine;
+  }
+
+  /** This function returns the seed of the facility. */
+  public long getSeed ()
+  {
+    return seed;
+  }
+
+  /** This function returns the engine of the streams of the facility. */
+  public RandomEngine getEngine ()
+  {
+    return engine;
+  }
+
+  /**
+   * This function returns a sub-facility, keyed by the given sequence of keys.
+   * @param keys
+   * @return
+   */
+  public RandomStreams derive (long... keys)
+  {
+    return new RandomStreams(seedOf(keys), engine);
+  }
+
+  /**
+   * This function creates the random number generator keyed by the given sequence of keys.
+   * @param keys
+   * @return
+   */
+  public Random createStream (long... keys)
+  {
+    return engine.create(seedOf(keys));
+  }
+
+  /**
+   * This function reseeds a generator of the engine of the facility as the stream keyed by the given
+   * sequence of keys. The generator then gives the same draws as a stream created with the same
+   * keys, without allocating a new one.
+   * @param gen
+   * @param keys
+   * @return
+   */
+  public Random reseed (Random gen, long... keys)
+  {
+    gen.setSeed(seedOf(keys));
+    return gen;
+  }
+
+  /**
+   * This function mixes the sequence of keys into the seed of the facility.
+   * @param keys
+   * @return
+   */
+  public long seedOf (long... keys)
+  {
+    long result = seed;
+    for (long key : keys)
+      result = mix(result + GOLDEN_GAMMA * (key + 1));
+    return result;
+  }
+
+  /**
+   * This is the finalizer of the SplitMix64 generator, which spreads every bit of the input to the
+   * whole output.
+   * @param z
+   * @return
+   */
+  static long mix (long z)
+  {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+}
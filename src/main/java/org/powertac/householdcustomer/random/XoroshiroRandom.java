@@ -0,0 +1,194 @@
+/*
+ * Copyright 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS,  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.powertac.householdcustomer.random;
+
+import java.util.Random;
+
+/**
+ * This is an unsynchronized xoroshiro128++ generator with ziggurat Gaussians, seeded through
+ * SplitMix64. An instance must not be shared between threads.
+ * @author Antonios Chrysopoulos
+ * @version 1, 17/10/2026
+ */
+public class XoroshiroRandom extends Random
+{
+
+  private static final long serialVersionUID = 1L;
+
+  /** The number of layers of the ziggurat. */
+  static final int LAYERS = 128;
+
+  /** The start of the tail of the ziggurat. */
+  static final double TAIL = 3.442619855899;
+
+  /** The area of each layer of the ziggurat. */
+  static final double AREA = 9.91256303526217e-3;
+
+  /** The scale of the 32-bit draws of the ziggurat. */
+  static final double SCALE = 2147483648.0;
+
+  /** The limits of the draws that fall inside each layer, the widths and the densities. */
+  static final long[] KN = new long[LAYERS];
+  static final double[] WN = new double[LAYERS];
+  static final double[] FN = new double[LAYERS];
+
+  static {
+    double dn = TAIL;
+    double tn = dn;
+    double q = AREA / Math.exp(-0.5 * dn * dn);
+
+    KN[0] = (long) ((dn / q) * SCALE);
+    KN[1] = 0;
+    WN[0] = q / SCALE;
+    WN[LAYERS - 1] = dn / SCALE;
+    FN[0] = 1.0;
+    FN[LAYERS - 1] = Math.exp(-0.5 * dn * dn);
+
+    for (int i = LAYERS - 2; i >= 1; i--) {
+      dn = Math.sqrt(-2 * Math.log(AREA / dn + Math.exp(-0.5 * dn * dn)));
+      KN[i + 1] = (long) ((dn / tn) * SCALE);
+      tn = dn;
+      FN[i] = Math.exp(-0.5 * dn * dn);
+      WN[i] = dn / SCALE;
+    }
+  }
+
+  /** The state of the generator. */
+  long s0, s1;
+
+  /**
+   * This is the constructor of the generator.
+   * @param seed
+   */
+  public XoroshiroRandom (long seed)
+  {
+    super(seed);
+    setSeed(seed);
+  }
+
+  @Override
+  public void setSeed (long seed)
+  {
+    s0 = RandomStreams.mix(seed + RandomStreams.GOLDEN_GAMMA);
+    s1 = RandomStreams.mix(seed + 2 * RandomStreams.GOLDEN_GAMMA);
+    if ((s0 | s1) == 0)
+      s1 = RandomStreams.GOLDEN_GAMMA;
+  }
+
+  @Override
+  public long nextLong ()
+  {
+    long a = s0;
+    long b = s1;
+    long result = Long.rotateLeft(a + b, 17) + a;
+    b ^= a;
+    s0 = Long.rotateLeft(a, 49) ^ b ^ (b << 21);
+    s1 = Long.rotateLeft(b, 28);
+    return result;
+  }
+
+  @Override
+  protected int next (int bits)
+  {
+    return (int) (nextLong() >>> (64 - bits));
+  }
+
+  @Override
+  public int nextInt ()
+  {
+    return (int) (nextLong() >>> 32);
+  }
+
+  /**
+   * This function returns an integer below the bound, by the multiply and shift method of Lemire
+   * with the rejection of the few biased draws.
+   */
+  @Override
+  public int nextInt (int bound)
+  {
+    if (bound <= 0)
+      throw new IllegalArgumentException("bound must be positive");
+    long product = (nextLong() >>> 32) * bound;
+    if ((product & 0xFFFFFFFFL) < bound) {
+      long threshold = (0x100000000L - bound) % bound;
+      while ((product & 0xFFFFFFFFL) < threshold)
+        product = (nextLong() >>> 32) * bound;
+    }
+    return (int) (product >>> 32);
+  }
+
+  @Override
+  public boolean nextBoolean ()
+  {
+    return nextLong() < 0;
+  }
+
+  @Override
+  public float nextFloat ()
+  {
+    return (nextLong() >>> 40) * 0x1.0p-24f;
+  }
+
+  @Override
+  public double nextDouble ()
+  {
+    return (nextLong() >>> 11) * 0x1.0p-53;
+  }
+
+  /**
+   * This function returns a standard Gaussian by the ziggurat method. The layer is taken from the
+   * low bits of a draw and the position in the layer from its high bits, so that they are
+   * independent.
+   */
+  @Override
+  public double nextGaussian ()
+  {
+    long r = nextLong();
+    int layer = (int) (r & (LAYERS - 1));
+    int hz = (int) (r >> 32);
+    if (Math.abs((long) hz) < KN[layer])
+      return hz * WN[layer];
+    return gaussianFix(hz, layer);
+  }
+
+  /**
+   * This function handles the draws of the ziggurat that fall outside the rectangle of their layer,
+   * either in the tail or in the wedge between the layer and the density.
+   */
+  double gaussianFix (int hz, int layer)
+  {
+    while (true) {
+      double x = hz * WN[layer];
+      if (layer == 0) {
+        double y;
+        do {
+          x = -Math.log(1.0 - nextDouble()) / TAIL;
+          y = -Math.log(1.0 - nextDouble());
+        } while (y + y < x * x);
+        return (hz > 0) ? TAIL + x : -TAIL - x;
+      }
+      if (FN[layer] + nextDouble() * (FN[layer - 1] - FN[layer]) < Math.exp(-0.5 * x * x))
+        return x;
+
+      long r = nextLong();
+      layer = (int) (r & (LAYERS - 1));
+      hz = (int) (r >> 32);
+      if (Math.abs((long) hz) < KN[layer])
+        return hz * WN[layer];
+    }
+  }
+
+}
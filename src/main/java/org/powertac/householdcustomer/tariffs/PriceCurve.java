@@ -0,0 +1,184 @@
+/*
+ * Copyright 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS,  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.powertac.householdcustomer.tariffs;
+
+import java.util.Arrays;
+
+import org.joda.time.Instant;
+import org.powertac.common.Tariff;
+import org.powertac.common.TimeService;
+import org.powertac.common.configurations.HouseholdConstants;
+
+/**
+ * The price curve keeps the unit price of a tariff for every hour of a day and the first hour of
+ * the next, so the appliances search their cheapest hours without asking the tariff again. A curve
+ * is used by a single thread, so its searches are kept without synchronization.
+ * @author Antonios Chrysopoulos
+ * @version 1, 17/10/2026
+ */
+public class PriceCurve
+{
+
+  /** The number of hours kept in the curve. */
+  public static final int HOURS = HouseholdConstants.HOURS_OF_DAY + 1;
+
+  /** This is the array containing the unit price of each hour. */
+  double[] prices = new double[HOURS];
+
+  /** This variable shows if the tariff has a single fixed rate. */
+  boolean fixed;
+
+  /**
+   * These are the start hours of the operations of each length in the curve, ranked from the
+   * cheapest operation and from the latest hour among the equally cheap ones. The hours are ranked
+   * the first time an operation of the length is searched, and the ranking is shared by every
+   * appliance searching the curve. The tariffs evaluated in parallel each create their own curves,
+   * so the rankings are never filled by two threads.
+   */
+  int[][] rankings = new int[HOURS][];
+
+  /**
+   * This is the constructor of the price curve, resolving the unit prices of the tariff for the
+   * hours starting from the given instant.
+   * @param tariff
+   * @param start
+   */
+  public PriceCurve (Tariff tariff, Instant start)
+  {
+    fixed = TariffStructure.hasSingleFixedRate(tariff);
+    long millis = start.getMillis();
+    for (int i = 0; i < HOURS; i++) {
+      prices[i] = tariff.getUsageCharge(new Instant(millis), 1, 0);
+      millis += TimeService.HOUR;
+    }
+  }
+
+  /**
+   * This is the constructor of a price curve with the given unit prices, one for each hour of the
+   * curve.
+   * @param prices
+   * @param fixed
+   */
+  public PriceCurve (double[] prices, boolean fixed)
+  {
+    if (prices.length != HOURS)
+      throw new IllegalArgumentException("A price curve has " + HOURS + " hours");
+    this.prices = prices.clone();
+    this.fixed = fixed;
+  }
+
+  /** This function returns the unit price of a certain hour. */
+  public double getPrice (int hour)
+  {
+    return prices[hour];
+  }
+
+  /**
+   * This function returns the summary of the unit prices of a number of consecutive hours, starting
+   * from the given one.
+   * @param hour
+   * @param length
+   * @return
+   */
+  public double getSum (int hour, int length)
+  {
+    double sum = prices[hour];
+    for (int i = 1; i < length; i++)
+      sum += prices[hour + i];
+    return sum;
+  }
+
+  /**
+   * This function returns the hour at which an operation of a number of consecutive hours is the
+   * cheapest, among the possible start hours given as a mask where bit h stands for hour h. The
+   * last of the cheapest hours is returned, or zero if no hour is possible. This is the first
+   * possible hour of the ranking of the operations of the length.
+   * @param starts
+   * @param length
+   * @return
+   */
+  public int getCheapestStart (int starts, int length)
+  {
+    int[] ranking = rankings[length];
+    if (ranking == null) {
+      ranking = rank(length);
+      rankings[length] = ranking;
+    }
+    for (int hour : ranking) {
+      if (((starts >>> hour) & 1) != 0)
+        return hour;
+    }
+    return 0;
+  }
+
+  /**
+   * This function ranks the start hours of the operations of a number of consecutive hours that
+   * end within the curve, from the cheapest operation and from the latest hour among the equally
+   * cheap ones.
+   * @param length
+   * @return
+   */
+  int[] rank (int length)
+  {
+    int[] ranking = new int[HOURS - length + 1];
+    double[] sums = new double[ranking.length];
+    int count = 0;
+    for (int hour = 0; hour < ranking.length; hour++) {
+      double sum = getSum(hour, length);
+      if (Double.isNaN(sum))
+        continue;
+      int position = count;
+      while (position > 0 && !(sums[position - 1] < sum)) {
+        ranking[position] = ranking[position - 1];
+        sums[position] = sums[position - 1];
+        position--;
+      }
+      ranking[position] = hour;
+      sums[position] = sum;
+      count++;
+    }
+    return Arrays.copyOf(ranking, count);
+  }
+
+  /** This function returns true if the tariff has a single fixed rate. */
+  public boolean isFixed ()
+  {
+    return fixed;
+  }
+
+  /**
+   * Two price curves are equal when they have the same unit price for every hour and the same kind
+   * of rates, since the appliances are then shifted the same for both. The searches kept in the
+   * curves do not count.
+   */
+  @Override
+  public boolean equals (Object other)
+  {
+    if (this == other)
+      return true;
+    if (!(other instanceof PriceCurve))
+      return false;
+    PriceCurve curve = (PriceCurve) other;
+    return fixed == curve.fixed && Arrays.equals(prices, curve.prices);
+  }
+
+  @Override
+  public int hashCode ()
+  {
+    return 31 * Arrays.hashCode(prices) + (fixed ? 1 : 0);
+  }
+
+}
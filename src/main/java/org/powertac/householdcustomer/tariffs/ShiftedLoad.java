@@ -0,0 +1,69 @@
+/*
+ * Copyright 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS,  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.powertac.householdcustomer.tariffs;
+
+import org.powertac.common.configurations.HouseholdConstants;
+
+/**
+ * The shifted load keeps the load a household or a batch last added to the rescheduled day of its
+ * village, with the day and the prices, so shifting it again only adds the difference.
+ * @author Antonios Chrysopoulos
+ * @version 1, 17/10/2026
+ */
+public class ShiftedLoad
+{
+
+  /** The day the load was shifted for, or -1 if it has not been shifted yet. */
+  int day = -1;
+
+  /** The prices the load was shifted for. */
+  PriceCurve prices;
+
+  /** This is the array containing the shifted load of each hour of the day. */
+  long[] load = new long[HouseholdConstants.HOURS_OF_DAY];
+
+  /**
+   * This function returns true if the load has already been shifted for the given day and prices.
+   * @param day
+   * @param prices
+   * @return
+   */
+  public boolean isShifted (int day, PriceCurve prices)
+  {
+    return this.day == day && prices.equals(this.prices);
+  }
+
+  /**
+   * This function replaces the load with the load shifted for the given day and prices, adding the
+   * difference from the load kept to the given changes of the aggregated load. The load kept for
+   * an earlier day is not part of the aggregated load of this day, so all the new load is added.
+   * @param day
+   * @param prices
+   * @param shifted
+   * @param changes
+   */
+  public void update (int day, PriceCurve prices, long[] shifted, long[] changes)
+  {
+    boolean sameDay = this.day == day;
+    for (int i = 0; i < HouseholdConstants.HOURS_OF_DAY; i++) {
+      changes[i] += (sameDay) ? shifted[i] - load[i] : shifted[i];
+      load[i] = shifted[i];
+    }
+    this.day = day;
+    this.prices = prices;
+  }
+
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS,  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.powertac.householdcustomer.tariffs;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.powertac.common.Rate;
+import org.powertac.common.Tariff;
+import org.powertac.common.TariffSpecification;
+
+/**
+ * The tariff evaluation cache keeps the estimated cost of a tariff with fixed rates only for a
+ * village, keyed by a fingerprint of its rates and payments, the village and the evaluation days,
+ * until the tariffs that used it are gone or the evaluation days of the village move on.
+ * @author Antonios Chrysopoulos
+ * @version 1, 17/10/2026
+ */
+public class TariffEvaluationCache
+{
+  /**
+   * logger for trace logging -- use log.info(), log.warn(), and log.error() appropriately. Use
+   * log.debug() for output you want to see in testing or debugging.
+   */
+  static private Logger log = Logger.getLogger(TariffEvaluationCache.class.getName());
+
+  /** The cached costs by evaluation key. */
+  HashMap<String, Double> costs = new HashMap<String, Double>();
+
+  /** The tariffs that use each evaluation key. */
+  HashMap<String, Set<Tariff>> users = new HashMap<String, Set<Tariff>>();
+
+  /** The evaluation keys used by each tariff. */
+  HashMap<Tariff, Set<String>> keys = new HashMap<Tariff, Set<String>>();
+
+  /** The current evaluation days and the evaluation keys of each village. */
+  HashMap<String, String> villageDays = new HashMap<String, String>();
+  HashMap<String, Set<String>> villageKeys = new HashMap<String, Set<String>>();
+
+  /** The number of costs found in the cache. */
+  int hits;
+
+  /**
+   * This function returns the cached cost of a tariff for a village and a set of evaluation days,
+   * or null if it has not been estimated yet.
+   * @param tariff
+   * @param village
+   * @param days
+   * @return
+   */
+  public synchronized Double get (Tariff tariff, String village, int[] days)
+  {
+    if (!isCacheable(tariff))
+      return null;
+    moveDays(village, days);
+    String key = createKey(tariff, village, days);
+    Double cost = costs.get(key);
+    if (cost != null) {
+      use(tariff, key);
+      hits++;
+    }
+    return cost;
+  }
+
+  /**
+   * This function stores the estimated cost of a tariff for a village and a set of evaluation days.
+   * @param tariff
+   * @param village
+   * @param days
+   * @param cost
+   */
+  public synchronized void put (Tariff tariff, String village, int[] days, double cost)
+  {
+    if (!isCacheable(tariff))
+      return;
+    moveDays(village, days);
+    String key = createKey(tariff, village, days);
+    costs.put(key, cost);
+    use(tariff, key);
+    villageKeys.get(village).add(key);
+  }
+
+  /** This function returns the number of cached costs. */
+  public synchronized int size ()
+  {
+    return costs.size();
+  }
+
+  /** This function returns the number of costs found in the cache since it was cleared. */
+  public synchronized int getHits ()
+  {
+    return hits;
+  }
+
+  /** This function removes all the cached costs. */
+  public synchronized void clear ()
+  {
+    costs.clear();
+    users.clear();
+    keys.clear();
+    villageDays.clear();
+    villageKeys.clear();
+    hits = 0;
+  }
+
+  /**
+   * This function returns true if the cost of a tariff can be cached, that is all its rates are
+   * fixed.
+   * @param tariff
+   * @return
+   */
+  public static boolean isCacheable (Tariff tariff)
+  {
+    for (Rate rate : tariff.getTariffSpec().getRates()) {
+      if (!rate.isFixed())
+        return false;
+    }
+    return true;
+  }
+
+  /**
+   * This function records the current evaluation days of a village. When the days have moved on
+   * since the last lookup, the costs of the village for the earlier days are evicted, since they
+   * will not be asked for again.
+   * @param village
+   * @param days
+   */
+  void moveDays (String village, int[] days)
+  {
+    String current = createDays(days);
+    if (current.equals(villageDays.get(village)))
+      return;
+    villageDays.put(village, current);
+
+    Set<String> stale = villageKeys.put(village, new HashSet<String>());
+    if (stale == null)
+      return;
+    for (String key : stale) {
+      costs.remove(key);
+      Set<Tariff> keyUsers = users.remove(key);
+      for (Tariff tariff : keyUsers) {
+        Set<String> tariffKeys = keys.get(tariff);
+        tariffKeys.remove(key);
+        if (tariffKeys.isEmpty())
+          keys.remove(tariff);
+      }
+    }
+    log.debug("Evicted " + stale.size() + " evaluations of " + village + " for earlier days");
+  }
+
+  /**
+   * This function evicts the tariffs that have expired or have been revoked, together with the
+   * costs that no other tariff uses.
+   */
+  public synchronized void evictInactive ()
+  {
+    List<Tariff> inactive = new ArrayList<Tariff>();
+    for (Tariff tariff : keys.keySet()) {
+      if (tariff.isExpired() || tariff.isRevoked())
+        inactive.add(tariff);
+    }
+    for (Tariff tariff : inactive)
+      evict(tariff);
+  }
+
+  /**
+   * This function evicts a tariff from the cache, together with the costs that no other tariff
+   * uses.
+   * @param tariff
+   */
+  public synchronized void evict (Tariff tariff)
+  {
+    Set<String> tariffKeys = keys.remove(tariff);
+    if (tariffKeys == null)
+      return;
+    for (String key : tariffKeys) {
+      Set<Tariff> keyUsers = users.get(key);
+      keyUsers.remove(tariff);
+      if (keyUsers.isEmpty()) {
+        users.remove(key);
+        costs.remove(key);
+        for (Set<String> villageKeySet : villageKeys.values())
+          villageKeySet.remove(key);
+      }
+    }
+    log.debug("Evicted tariff " + tariff.toString() + " from the evaluation cache");
+  }
+
+  /** This function records that a tariff uses an evaluation key. */
+  void use (Tariff tariff, String key)
+  {
+    Set<Tariff> keyUsers = users.get(key);
+    if (keyUsers == null) {
+      keyUsers = new HashSet<Tariff>();
+      users.put(key, keyUsers);
+    }
+    keyUsers.add(tariff);
+
+    Set<String> tariffKeys = keys.get(tariff);
+    if (tariffKeys == null) {
+      tariffKeys = new HashSet<String>();
+      keys.put(tariff, tariffKeys);
+    }
+    tariffKeys.add(key);
+  }
+
+  /** This function creates the evaluation key of a tariff for a village and a set of days. */
+  String createKey (Tariff tariff, String village, int[] days)
+  {
+    return fingerprint(tariff) + '#' + village + '#' + createDays(days);
+  }
+
+  /** This function creates the part of the evaluation key for a set of days. */
+  static String createDays (int[] days)
+  {
+    StringBuilder result = new StringBuilder();
+    for (int day : days)
+      result.append(day).append(',');
+    return result.toString();
+  }
+
+  /**
+   * This function creates a canonical fingerprint of the structure of a tariff, containing its
+   * power type, its payments and the description of each one of its rates in order.
+   * @param tariff
+   * @return
+   */
+  public static String fingerprint (Tariff tariff)
+  {
+    TariffSpecification spec = tariff.getTariffSpec();
+    StringBuilder result = new StringBuilder();
+    result.append(spec.getPowerType()).append(';');
+    result.append(tariff.getPeriodicPayment()).append(';');
+    result.append(tariff.getSignupPayment()).append(';');
+    result.append(tariff.getEarlyWithdrawPayment()).append(';');
+    result.append(tariff.getMinDuration()).append(';');
+    for (Rate rate : spec.getRates()) {
+      result.append('[');
+      result.append(rate.getWeeklyBegin()).append(',').append(rate.getWeeklyEnd()).append(',');
+      result.append(rate.getDailyBegin()).append(',').append(rate.getDailyEnd()).append(',');
+      result.append(rate.getTierThreshold()).append(',').append(rate.isFixed()).append(',');
+      result.append(rate.getMinValue()).append(',').append(rate.getMaxValue()).append(',');
+      result.append(rate.getExpectedMean()).append(',').append(rate.getNoticeInterval());
+      result.append(']');
+    }
+    return result.toString();
+  }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS,  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.powertac.householdcustomer.tariffs;
+
+import java.util.List;
+
+import org.powertac.common.Rate;
+import org.powertac.common.Tariff;
+
+/**
+ * The tariff structure classifies the rates of a tariff as flat, time of use or tiered, so that its
+ * cost is estimated with the least work its rates allow.
+ * @author Antonios Chrysopoulos
+ * @version 1, 17/10/2026
+ */
+public enum TariffStructure
+{
+  FLAT, TIME_OF_USE, TIERED;
+
+  /**
+   * This function returns the structure of the rates of a tariff.
+   * @param tariff
+   * @return
+   */
+  public static TariffStructure classify (Tariff tariff)
+  {
+    List<Rate> rates = tariff.getTariffSpec().getRates();
+    for (Rate rate : rates) {
+      if (rate.getTierThreshold() > 0)
+        return TIERED;
+    }
+    return (hasSingleFixedRate(tariff)) ? FLAT : TIME_OF_USE;
+  }
+
+  /**
+   * This function returns true if the tariff has a single fixed rate, in which case the appliances
+   * gain nothing by shifting their operation.
+   * @param tariff
+   * @return
+   */
+  public static boolean hasSingleFixedRate (Tariff tariff)
+  {
+    List<Rate> rates = tariff.getTariffSpec().getRates();
+    return (rates.size() == 1) && (rates.get(0).isFixed());
+  }
+
+}
@@ -15,14 +15,30 @@
  */
 package org.powertac.householdcustomer;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.log4j.PropertyConfigurator;
 import org.joda.time.DateTime;
@@ -37,6 +53,7 @@ import org.powertac.accounting.AccountingInitializationService;
 import org.powertac.accounting.AccountingService;
 import org.powertac.common.Broker;
 import org.powertac.common.Competition;
+import org.powertac.common.CustomerInfo;
 import org.powertac.common.PluginConfig;
 import org.powertac.common.Rate;
 import org.powertac.common.Tariff;
@@ -44,6 +61,8 @@ import org.powertac.common.TariffSpecification;
 import org.powertac.common.TariffSubscription;
 import org.powertac.common.TariffTransaction;
 import org.powertac.common.TimeService;
+import org.powertac.common.configurations.HouseholdConstants;
+import org.powertac.common.enumerations.HeaterType;
 import org.powertac.common.enumerations.PowerType;
 import org.powertac.common.interfaces.CompetitionControl;
 import org.powertac.common.interfaces.NewTariffListener;
@@ -59,7 +78,31 @@ import org.powertac.common.repo.RandomSeedRepo;
 import org.powertac.common.repo.TariffRepo;
 import org.powertac.common.repo.TariffSubscriptionRepo;
 import org.powertac.common.repo.TimeslotRepo;
+import org.powertac.householdcustomer.appliances.Appliance;
+import org.powertac.householdcustomer.appliances.Dishwasher;
+import org.powertac.householdcustomer.appliances.OperationCalendar;
+import org.powertac.householdcustomer.appliances.PeriodicShiftingBatch;
+import org.powertac.householdcustomer.appliances.Refrigerator;
+import org.powertac.householdcustomer.appliances.Stove;
+import org.powertac.householdcustomer.appliances.WashingMachine;
+import org.powertac.householdcustomer.appliances.WaterHeater;
+import org.powertac.householdcustomer.configurations.HouseholdConfiguration;
+import org.powertac.householdcustomer.customers.AggregateLoadStore;
+import org.powertac.householdcustomer.customers.Household;
+import org.powertac.householdcustomer.customers.LoadStore;
+import org.powertac.householdcustomer.customers.LoadType;
+import org.powertac.householdcustomer.customers.PopulationSnapshot;
+import org.powertac.householdcustomer.customers.Portion;
+import org.powertac.householdcustomer.customers.ProfileStore;
 import org.powertac.householdcustomer.customers.Village;
+import org.powertac.householdcustomer.customers.VillageInitializationTask;
+import org.powertac.householdcustomer.random.CategoricalDistribution;
+import org.powertac.householdcustomer.random.RandomEngine;
+import org.powertac.householdcustomer.random.RandomStreams;
+import org.powertac.householdcustomer.tariffs.PriceCurve;
+import org.powertac.householdcustomer.tariffs.ShiftedLoad;
+import org.powertac.householdcustomer.tariffs.TariffEvaluationCache;
+import org.powertac.householdcustomer.tariffs.TariffStructure;
 import org.powertac.tariffmarket.TariffMarketInitializationService;
 import org.powertac.tariffmarket.TariffMarketService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -186,6 +229,17 @@ public class HouseholdCustomerServiceTests
     householdCustomerInitializationService.initialize(comp, inits);
   }
 
+  private Object invoke (Object target, String name, Class<?>[] types, Object... args)
+  {
+    try {
+      Method method = target.getClass().getDeclaredMethod(name, types);
+      method.setAccessible(true);
+      return method.invoke(target, args);
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   @Test
   public void testNormalInitialization ()
   {
@@ -199,6 +253,39 @@ public class HouseholdCustomerServiceTests
     assertEquals("correct configuration file", "../household-customer/src/main/resources/Household.properties", householdCustomerService.getConfigFile());
   }
 
+  @Test
+  public void testConfiguration () throws IOException
+  {
+    Properties properties = new Properties();
+    FileInputStream cfgFile = new FileInputStream("src/main/resources/Household.properties");
+    properties.load(cfgFile);
+    cfgFile.close();
+
+    HouseholdConfiguration conf = new HouseholdConfiguration(properties);
+    assertEquals("correct number of villages", 2, conf.numberOfVillages);
+    assertEquals("correct village population", 40, conf.getVillagePopulation());
+    assertEquals("correct saturation", 0.42, conf.dryerSaturation, 1e-9);
+    assertFalse("sequential initialization by default", conf.parallelInitialization);
+    assertEquals("legacy random engine", RandomEngine.LEGACY, conf.randomEngine);
+
+    properties.setProperty("DryerWeeklyTimes", "once");
+    try {
+      new HouseholdConfiguration(properties);
+      fail("malformed value rejected");
+    } catch (IllegalArgumentException e) {
+      assertTrue("key reported", e.getMessage().contains("DryerWeeklyTimes"));
+    }
+
+    properties.setProperty("DryerWeeklyTimes", "1");
+    properties.setProperty("DryerSaturation", "1.5");
+    try {
+      new HouseholdConfiguration(properties);
+      fail("saturation over one rejected");
+    } catch (IllegalArgumentException e) {
+      assertTrue("key reported", e.getMessage().contains("DryerSaturation"));
+    }
+  }
+
   @Test
   public void testBogusInitialization ()
   {
@@ -525,6 +612,121 @@ public class HouseholdCustomerServiceTests
     }
   }
 
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testEvaluationCache ()
+  {
+    initializeService();
+
+    Rate r2 = new Rate().withValue(-0.222);
+
+    TariffSpecification tsc1 = new TariffSpecification(broker1,
+                                                       PowerType.CONSUMPTION)
+        .withExpiration(now.plus(TimeService.DAY))
+        .withMinDuration(TimeService.WEEK * 8)
+        .addRate(r2);
+    TariffSpecification tsc2 = new TariffSpecification(broker1,
+                                                       PowerType.CONSUMPTION)
+        .withExpiration(now.plus(2 * TimeService.DAY))
+        .withMinDuration(TimeService.WEEK * 8)
+        .addRate(r2);
+
+    Tariff tariff1 = new Tariff(tsc1);
+    tariff1.init();
+    Tariff tariff2 = new Tariff(tsc2);
+    tariff2.init();
+
+    Rate r3 = new Rate().withValue(-0.111);
+    TariffSpecification tsc3 = new TariffSpecification(broker1, PowerType.CONSUMPTION).withExpiration(now.plus(3 * TimeService.DAY))
+        .withMinDuration(TimeService.WEEK * 8).addRate(r3);
+    Tariff tariff3 = new Tariff(tsc3);
+    tariff3.init();
+
+    List<Tariff> tclist = new ArrayList<Tariff>();
+    tclist.add(tariffMarketService.getDefaultTariff(PowerType.CONSUMPTION));
+    tclist.add(tariff1);
+    tclist.add(tariff2);
+    tclist.add(tariff3);
+
+    TariffEvaluationCache cache = householdCustomerService.getEvaluationCache();
+    for (Village customer : householdCustomerService.getVillageList()) {
+      customer.possibilityEvaluationNewTariffs(tclist);
+    }
+
+    // tariffs with the same rates share their evaluation
+    int villages = householdCustomerService.getVillageList().size();
+    assertEquals("Cached evaluations", 3 * villages, cache.size());
+    assertEquals("Shared evaluations", villages, cache.getHits());
+    HashMap<String, Double> costs = new HashMap<String, Double>((HashMap<String, Double>) ReflectionTestUtils.getField(cache, "costs"));
+
+    for (Village customer : householdCustomerService.getVillageList()) {
+      customer.possibilityEvaluationNewTariffs(tclist);
+    }
+    assertEquals("No new evaluations", 3 * villages, cache.size());
+    assertEquals("Every tariff found", 5 * villages, cache.getHits());
+    assertEquals("Same costs", costs, ReflectionTestUtils.getField(cache, "costs"));
+
+    TariffStatus status = tariffMarketService.processTariff(new TariffRevoke(tariff3.getBroker(), tariff3.getTariffSpec()));
+    assertEquals("success", TariffStatus.Status.success, status.getStatus());
+    cache.evictInactive();
+    assertEquals("Revoked tariff evicted", 2 * villages, cache.size());
+    assertFalse("No keys of the revoked tariff", ((Map<Tariff, Set<String>>) ReflectionTestUtils.getField(cache, "keys")).containsKey(tariff3));
+
+    // the evaluations of a village for earlier days are evicted when the days move on
+    int[] days = { 1, 2, 3 };
+    cache.put(tariff1, "Moving", days, 1.5);
+    assertEquals("Cached for the days", Double.valueOf(1.5), cache.get(tariff2, "Moving", days));
+    int[] later = { 2, 3, 4 };
+    assertNull("Not cached for other days", cache.get(tariff1, "Moving", later));
+    assertNull("Earlier days evicted", cache.get(tariff1, "Moving", days));
+
+    // variable rates are charged by their published hourly charges, so they are not cached
+    Rate variable = new Rate().withFixed(false).withMinValue(-0.05).withMaxValue(-0.5).withExpectedMean(-0.1);
+    Tariff tariff4 = new Tariff(new TariffSpecification(broker1, PowerType.CONSUMPTION).addRate(variable));
+    tariff4.init();
+    cache.put(tariff4, "Moving", later, 2.5);
+    assertNull("Variable tariff not cached", cache.get(tariff4, "Moving", later));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testParallelEvaluation ()
+  {
+    initializeService();
+
+    List<Tariff> tclist = new ArrayList<Tariff>();
+    tclist.add(tariffMarketService.getDefaultTariff(PowerType.CONSUMPTION));
+    for (int i = 0; i < 4; i++) {
+      TariffSpecification tsc = new TariffSpecification(broker1, PowerType.CONSUMPTION).withExpiration(now.plus((i + 1) * TimeService.DAY))
+          .withMinDuration(TimeService.WEEK * 8).addRate(new Rate().withValue(-0.05 * (i + 1)).withDailyBegin(0).withDailyEnd(6 + 4 * i))
+          .addRate(new Rate().withValue(-0.1).withDailyBegin(7 + 4 * i).withDailyEnd(23));
+      Tariff tariff = new Tariff(tsc);
+      tariff.init();
+      tclist.add(tariff);
+    }
+
+    Class<?>[] estimate = { List.class };
+    Class<?>[] choose = { Vector.class, double.class };
+    double[] draws = { 0.0, 0.1, 0.35, 0.5, 0.65, 0.9, 0.999 };
+    ForkJoinPool pool = new ForkJoinPool(4);
+
+    for (Village customer : householdCustomerService.getVillageList()) {
+      customer.setEvaluationCache(null);
+      customer.setEvaluationPool(null);
+      Vector<Double> sequential = (Vector<Double>) invoke(customer, "estimateTariffs", estimate, tclist);
+
+      customer.setEvaluationPool(pool);
+      Vector<Double> parallel = (Vector<Double>) invoke(customer, "estimateTariffs", estimate, tclist);
+      customer.setEvaluationPool(null);
+
+      assertEquals("Same estimations for " + customer, sequential, parallel);
+      for (double draw : draws)
+        assertEquals("Same choice for " + customer, invoke(customer, "logitPossibilityEstimation", choose, sequential, draw),
+                     invoke(customer, "logitPossibilityEstimation", choose, parallel, draw));
+    }
+    pool.shutdown();
+  }
+
   @Test
   public void testDailyShifting ()
   {
@@ -624,6 +826,658 @@ public class HouseholdCustomerServiceTests
     householdCustomerService.activate(timeService.getCurrentTime(), 1);
   }
 
+  @Test
+  public void testRescheduleNextDay () throws Exception
+  {
+    initializeService();
+    Properties properties = new Properties();
+    FileInputStream cfgFile = new FileInputStream("src/main/resources/Household.properties");
+    properties.load(cfgFile);
+    cfgFile.close();
+    HouseholdConfiguration conf = new HouseholdConfiguration(properties);
+
+    // a village rescheduled at the end of the first day and its twin from the same seed
+    Village[] villages = new Village[2];
+    for (int i = 0; i < villages.length; i++) {
+      villages[i] = new Village(new CustomerInfo("Rescheduled " + i, 40));
+      villages[i].initialize(conf, new Random(1234));
+      villages[i].subscribeDefault();
+    }
+    for (int hour = 0; hour < HouseholdConstants.HOURS_OF_DAY; hour++) {
+      timeService.setCurrentTime(now.plus(hour * TimeService.HOUR));
+      villages[0].step();
+    }
+
+    // the next day keeps its base load and takes the controllable load shifted for the tariff
+    Tariff tariff = tariffSubscriptionRepo.findSubscriptionsForCustomer(villages[1].getCustomerInfo()).get(0).getTariff();
+    Method dailyShifting = Village.class.getDeclaredMethod("dailyShifting", Tariff.class, Instant.class, int.class, Portion.class);
+    dailyShifting.setAccessible(true);
+    AggregateLoadStore rescheduled = (AggregateLoadStore) ReflectionTestUtils.getField(villages[0], "aggLoad");
+    AggregateLoadStore generated = (AggregateLoadStore) ReflectionTestUtils.getField(villages[1], "aggLoad");
+    for (Portion portion : Portion.values()) {
+      long[] shifted = null;
+      if (portion != Portion.NotShifting)
+        shifted = (long[]) dailyShifting.invoke(villages[1], tariff, now.plus(TimeService.DAY), 1, portion);
+      for (int hour = 0; hour < HouseholdConstants.HOURS_OF_DAY; hour++) {
+        assertEquals("base load kept", generated.getLoadInHours(portion, LoadType.Base, 1, hour), rescheduled.getLoadInHours(portion, LoadType.Base, 1, hour));
+        long controllable = (shifted == null) ? generated.getLoadInHours(portion, LoadType.Controllable, 1, hour) : shifted[hour];
+        assertEquals("controllable load rescheduled", controllable, rescheduled.getLoadInHours(portion, LoadType.Controllable, 1, hour));
+      }
+    }
+  }
+
+  @Test
+  public void testPeriodicShiftingBatch ()
+  {
+    initializeService();
+
+    TariffSpecification flatSpec = new TariffSpecification(broker1, PowerType.CONSUMPTION).addRate(new Rate().withValue(-0.1));
+    TariffSpecification hourlySpec = new TariffSpecification(broker1, PowerType.CONSUMPTION);
+    for (int hour = 0; hour < HouseholdConstants.HOURS_OF_DAY; hour++)
+      hourlySpec.addRate(new Rate().withValue(-0.05 - 0.01 * ((hour * 7) % HouseholdConstants.HOURS_OF_DAY)).withDailyBegin(hour).withDailyEnd(hour));
+    Tariff[] tariffs = { new Tariff(flatSpec), new Tariff(hourlySpec) };
+
+    int day = 3;
+    for (Tariff tariff : tariffs) {
+      tariff.init();
+      PriceCurve prices = new PriceCurve(tariff, now.plus(day * TimeService.DAY));
+      for (Village customer : householdCustomerService.getVillageList()) {
+        List<Appliance> refrigerators = new ArrayList<Appliance>();
+        long[] expected = new long[HouseholdConstants.HOURS_OF_DAY];
+        for (Household house : customer.getHouses()) {
+          for (Appliance appliance : house.getPeriodicAppliances()) {
+            if (appliance instanceof Refrigerator) {
+              refrigerators.add(appliance);
+              long[] load = appliance.dailyShifting(prices, day, appliance.getShiftingStream(day));
+              for (int hour = 0; hour < HouseholdConstants.HOURS_OF_DAY; hour++)
+                expected[hour] += load[hour];
+            }
+          }
+        }
+        assertFalse("refrigerators found", refrigerators.isEmpty());
+
+        long[] batched = new long[HouseholdConstants.HOURS_OF_DAY];
+        new PeriodicShiftingBatch(refrigerators).addDailyShifting(prices, day, batched);
+        assertTrue("same shifted load", Arrays.equals(expected, batched));
+      }
+    }
+  }
+
+  @Test
+  public void testFixedShiftingWithoutPossibleHours ()
+  {
+    int day = 2;
+    BitSet operationDays = new BitSet();
+    operationDays.set(day);
+    OperationCalendar possibleOperation = new OperationCalendar();
+    for (int i = 0; i <= day; i++)
+      possibleOperation.add(OperationCalendar.createDay());
+    LoadStore weeklyLoad = new LoadStore(day + 1);
+    int[] load = new int[HouseholdConstants.QUARTERS_OF_DAY];
+    Arrays.fill(load, 100);
+    weeklyLoad.setDay(day, load);
+
+    WaterHeater instantHeater = new WaterHeater();
+    ReflectionTestUtils.setField(instantHeater, "type", HeaterType.InstantHeater);
+    WaterHeater storageHeater = new WaterHeater();
+    ReflectionTestUtils.setField(storageHeater, "type", HeaterType.StorageHeater);
+    Appliance[] appliances = { new Dishwasher(), new WashingMachine(), new Stove(), instantHeater, storageHeater };
+
+    // with no possible hours on the day every appliance keeps the first hour for any prices
+    double[] rising = new double[PriceCurve.HOURS];
+    for (int i = 0; i < rising.length; i++)
+      rising[i] = i;
+    PriceCurve flat = new PriceCurve(new double[PriceCurve.HOURS], true);
+    PriceCurve variable = new PriceCurve(rising, false);
+    for (Appliance appliance : appliances) {
+      ReflectionTestUtils.setField(appliance, "power", 100);
+      ReflectionTestUtils.setField(appliance, "times", 1);
+      ReflectionTestUtils.setField(appliance, "operationDaysVector", operationDays);
+      ReflectionTestUtils.setField(appliance, "possibilityOperationVector", possibleOperation);
+      ReflectionTestUtils.setField(appliance, "weeklyLoad", weeklyLoad);
+
+      long[] fixedLoad = appliance.dailyShifting(flat, day, new Random(42));
+      long[] variableLoad = appliance.dailyShifting(variable, day, new Random(42));
+      for (int hour = 0; hour < HouseholdConstants.HOURS_OF_DAY; hour++)
+        assertEquals(appliance.getClass().getSimpleName() + " shifted", variableLoad[hour], fixedLoad[hour]);
+      assertTrue(appliance.getClass().getSimpleName() + " operates", fixedLoad[0] > 0);
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testShiftedAggregateQuarters ()
+  {
+    AggregateLoadStore aggLoad = new AggregateLoadStore(2);
+    long[] load = new long[HouseholdConstants.HOURS_OF_DAY];
+    load[4] = 7;
+    aggLoad.setDayInHours(Portion.SmartShifting, LoadType.Controllable, 1, load);
+    assertEquals("shifted hour", 7, aggLoad.getLoadInHours(Portion.SmartShifting, LoadType.Controllable, 1, 4));
+    assertEquals("base quarters kept", 0, aggLoad.getLoad(Portion.SmartShifting, LoadType.Base, 1, 16));
+    aggLoad.getLoad(Portion.SmartShifting, LoadType.Controllable, 1, 16);
+  }
+
+  @Test
+  public void testShiftedLoad ()
+  {
+    initializeService();
+
+    TariffSpecification flatSpec = new TariffSpecification(broker1, PowerType.CONSUMPTION).addRate(new Rate().withValue(-0.1));
+    TariffSpecification dailySpec = new TariffSpecification(broker1, PowerType.CONSUMPTION).addRate(new Rate().withValue(-0.12).withDailyBegin(0).withDailyEnd(7))
+        .addRate(new Rate().withValue(-0.08).withDailyBegin(8).withDailyEnd(23));
+    Tariff flat = new Tariff(flatSpec);
+    flat.init();
+    Tariff daily = new Tariff(dailySpec);
+    daily.init();
+    PriceCurve flatPrices = new PriceCurve(flat, now.plus(TimeService.DAY));
+    PriceCurve dailyPrices = new PriceCurve(daily, now.plus(TimeService.DAY));
+    assertEquals("same prices", flatPrices, new PriceCurve(flat, now.plus(TimeService.DAY)));
+    assertFalse("different prices", flatPrices.equals(dailyPrices));
+
+    ShiftedLoad shifted = new ShiftedLoad();
+    long[] first = new long[HouseholdConstants.HOURS_OF_DAY];
+    long[] second = new long[HouseholdConstants.HOURS_OF_DAY];
+    first[3] = 10;
+    second[5] = 4;
+    long[] changes = new long[HouseholdConstants.HOURS_OF_DAY];
+    shifted.update(1, flatPrices, first, changes);
+    assertTrue("shifted for the day", shifted.isShifted(1, flatPrices));
+    assertFalse("not shifted for other prices", shifted.isShifted(1, dailyPrices));
+    shifted.update(1, dailyPrices, second, changes);
+    assertTrue("changes summed to the last load", Arrays.equals(second, changes));
+
+    changes = new long[HouseholdConstants.HOURS_OF_DAY];
+    shifted.update(2, dailyPrices, second, changes);
+    assertTrue("new day added whole", Arrays.equals(second, changes));
+  }
+
+  @Test
+  public void testPriceCurve ()
+  {
+    initializeService();
+
+    Tariff flat = new Tariff(new TariffSpecification(broker1, PowerType.CONSUMPTION).addRate(new Rate().withValue(-0.222)));
+    flat.init();
+    TariffSpecification hourlySpec = new TariffSpecification(broker1, PowerType.CONSUMPTION);
+    for (int hour = 0; hour < HouseholdConstants.HOURS_OF_DAY; hour++)
+      hourlySpec.addRate(new Rate().withValue(-0.05 - 0.01 * (hour % 5)).withDailyBegin(hour).withDailyEnd(hour));
+    Tariff hourly = new Tariff(hourlySpec);
+    hourly.init();
+    Tariff tiered = new Tariff(new TariffSpecification(broker1, PowerType.CONSUMPTION).addRate(new Rate().withValue(-0.1))
+        .addRate(new Rate().withValue(-0.2).withTierThreshold(20)));
+    tiered.init();
+
+    Instant start = now.plus(TimeService.DAY);
+    Tariff[] tariffs = { flat, hourly, tiered };
+    for (Tariff tariff : tariffs) {
+      PriceCurve prices = new PriceCurve(tariff, start);
+      for (int hour = 0; hour < PriceCurve.HOURS; hour++)
+        assertEquals("unit price of the hour", tariff.getUsageCharge(start.plus(hour * TimeService.HOUR), 1, 0), prices.getPrice(hour), 0);
+      assertEquals("fixed prices", tariff == flat, prices.isFixed());
+    }
+  }
+
+  @Test
+  public void testCheapestStart ()
+  {
+    initializeService();
+
+    TariffSpecification hourlySpec = new TariffSpecification(broker1, PowerType.CONSUMPTION);
+    for (int hour = 0; hour < HouseholdConstants.HOURS_OF_DAY; hour++)
+      hourlySpec.addRate(new Rate().withValue(-0.05 - 0.01 * ((hour * 5) % 4)).withDailyBegin(hour).withDailyEnd(hour));
+    Tariff tariff = new Tariff(hourlySpec);
+    tariff.init();
+    PriceCurve prices = new PriceCurve(tariff, now.plus(TimeService.DAY));
+
+    Random gen = new Random(1);
+    for (int i = 0; i < 1000; i++) {
+      int starts = gen.nextInt(1 << HouseholdConstants.HOURS_OF_DAY) & gen.nextInt(1 << HouseholdConstants.HOURS_OF_DAY);
+      for (int length = 1; length <= 5; length++) {
+        int possible = starts & ((1 << (PriceCurve.HOURS - length)) - 1);
+        int minindex = 0;
+        double minvalue = Double.POSITIVE_INFINITY;
+        for (int hour = 0; hour < HouseholdConstants.HOURS_OF_DAY; hour++) {
+          if (((possible >>> hour) & 1) != 0 && minvalue >= prices.getSum(hour, length)) {
+            minvalue = prices.getSum(hour, length);
+            minindex = hour;
+          }
+        }
+        assertEquals("cheapest start", minindex, prices.getCheapestStart(possible, length));
+      }
+    }
+    assertEquals("no possible hour", 0, prices.getCheapestStart(0, 1));
+  }
+
+  @Test
+  public void testTariffStructure ()
+  {
+    initializeService();
+
+    Tariff flat = new Tariff(new TariffSpecification(broker1, PowerType.CONSUMPTION).addRate(new Rate().withValue(-0.222)));
+    flat.init();
+    assertEquals("flat tariff", TariffStructure.FLAT, TariffStructure.classify(flat));
+    assertTrue("flat prices", new PriceCurve(flat, now).isFixed());
+
+    TariffSpecification hourlySpec = new TariffSpecification(broker1, PowerType.CONSUMPTION);
+    for (int hour = 0; hour < HouseholdConstants.HOURS_OF_DAY; hour++)
+      hourlySpec.addRate(new Rate().withValue(-0.05 - 0.01 * (hour % 3)).withDailyBegin(hour).withDailyEnd(hour));
+    Tariff hourly = new Tariff(hourlySpec);
+    hourly.init();
+    assertEquals("time of use tariff", TariffStructure.TIME_OF_USE, TariffStructure.classify(hourly));
+    assertFalse("time of use prices", new PriceCurve(hourly, now).isFixed());
+
+    TariffSpecification tieredSpec = new TariffSpecification(broker1, PowerType.CONSUMPTION).addRate(new Rate().withValue(-0.1))
+        .addRate(new Rate().withValue(-0.2).withTierThreshold(20));
+    Tariff tiered = new Tariff(tieredSpec);
+    tiered.init();
+    assertEquals("tiered tariff", TariffStructure.TIERED, TariffStructure.classify(tiered));
+  }
+
+  @Test
+  public void testHouseholdLoadStore ()
+  {
+    initializeService();
+    for (Village customer : householdCustomerService.getVillageList()) {
+      for (Household house : customer.getHouses()) {
+        for (int day = 0; day < HouseholdConstants.DAYS_OF_COMPETITION + HouseholdConstants.DAYS_OF_BOOTSTRAP; day++) {
+          for (int hour = 0; hour < HouseholdConstants.HOURS_OF_DAY; hour++) {
+            int base = 0;
+            int controllable = 0;
+            for (int quarter = 0; quarter < HouseholdConstants.QUARTERS_OF_HOUR; quarter++) {
+              base += house.getBaseLoad(day, hour * HouseholdConstants.QUARTERS_OF_HOUR + quarter);
+              controllable += house.getControllableLoad(day, hour * HouseholdConstants.QUARTERS_OF_HOUR + quarter);
+            }
+            assertEquals("Base load in hours", base, house.getBaseLoadInHours(day, hour));
+            assertEquals("Controllable load in hours", controllable, house.getControllableLoadInHours(day, hour));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testParallelInitialization () throws IOException
+  {
+    initializeService();
+    HouseholdConfiguration conf = householdCustomerService.getConfiguration();
+    long seed = 1234;
+
+    Village sequential = new Village(new CustomerInfo("Sequential", 40));
+    sequential.initialize(conf, new Random(seed));
+    int[] threads = { 1, 4 };
+    for (int t : threads) {
+      Village parallel = new Village(new CustomerInfo("Parallel " + t, 40));
+      ForkJoinPool pool = new ForkJoinPool(t);
+      pool.invoke(new VillageInitializationTask(parallel, conf, seed));
+      pool.shutdown();
+
+      Vector<Household> expected = sequential.getHouses();
+      Vector<Household> houses = parallel.getHouses();
+      assertEquals("same number of houses", expected.size(), houses.size());
+      int days = expected.get(0).getGeneratedDays();
+      for (int i = 0; i < houses.size(); i++) {
+        for (int day = 0; day < days; day++) {
+          for (int quarter = 0; quarter < HouseholdConstants.QUARTERS_OF_DAY; quarter++) {
+            assertEquals("same base load", expected.get(i).getBaseLoad(day, quarter), houses.get(i).getBaseLoad(day, quarter));
+            assertEquals("same controllable load", expected.get(i).getControllableLoad(day, quarter), houses.get(i).getControllableLoad(day, quarter));
+          }
+        }
+      }
+
+      AggregateLoadStore expectedLoad = (AggregateLoadStore) ReflectionTestUtils.getField(sequential, "aggLoad");
+      AggregateLoadStore aggLoad = (AggregateLoadStore) ReflectionTestUtils.getField(parallel, "aggLoad");
+      for (Portion portion : Portion.values()) {
+        for (LoadType type : LoadType.values()) {
+          for (int day = 0; day < days; day++) {
+            for (int hour = 0; hour < HouseholdConstants.HOURS_OF_DAY; hour++)
+              assertEquals("same aggregated load", expectedLoad.getLoadInHours(portion, type, day, hour), aggLoad.getLoadInHours(portion, type, day, hour));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testReschedulingHours ()
+  {
+    initializeService();
+    HouseholdConfiguration conf = householdCustomerService.getConfiguration();
+    long seed = 4321;
+
+    // the same village is rescheduled in the last timeslot and over the last eight ones
+    int[] hours = { 1, 8 };
+    Village[] villages = new Village[hours.length];
+    for (int i = 0; i < hours.length; i++) {
+      villages[i] = new Village(new CustomerInfo("Rescheduling " + hours[i], 40));
+      villages[i].initialize(conf, new Random(seed));
+      villages[i].subscribeDefault();
+      ReflectionTestUtils.setField(villages[i], "reschedulingHours", hours[i]);
+    }
+
+    for (int hour = 0; hour < HouseholdConstants.HOURS_OF_DAY; hour++) {
+      timeService.setCurrentTime(now.plus(hour * TimeService.HOUR));
+      for (Village village : villages)
+        village.step();
+    }
+
+    AggregateLoadStore expected = (AggregateLoadStore) ReflectionTestUtils.getField(villages[0], "aggLoad");
+    AggregateLoadStore aggLoad = (AggregateLoadStore) ReflectionTestUtils.getField(villages[1], "aggLoad");
+    for (Portion portion : Portion.values())
+      assertArrayEquals("same rescheduled day", expected.getDayInHours(portion, LoadType.Controllable, 1), aggLoad.getDayInHours(portion, LoadType.Controllable, 1));
+  }
+
+  @Test
+  public void testLazyGeneration () throws IOException
+  {
+    Properties properties = new Properties();
+    FileInputStream cfgFile = new FileInputStream("src/main/resources/Household.properties");
+    properties.load(cfgFile);
+    cfgFile.close();
+    HouseholdConfiguration eagerConf = new HouseholdConfiguration(properties);
+    properties.setProperty("LazyGeneration", "true");
+    HouseholdConfiguration lazyConf = new HouseholdConfiguration(properties);
+    assertFalse("eager generation by default", eagerConf.lazyGeneration);
+
+    Vector<Integer> publicVacationVector = new Vector<Integer>();
+    publicVacationVector.add(5);
+    Household eager = new Household();
+    eager.initialize("Eager House", eagerConf, publicVacationVector, new RandomStreams(42));
+    Household lazy = new Household();
+    lazy.initialize("Lazy House", lazyConf, publicVacationVector, new RandomStreams(42));
+    assertEquals("only the first week generated", HouseholdConstants.DAYS_OF_WEEK, lazy.getGeneratedDays());
+
+    int days = HouseholdConstants.DAYS_OF_COMPETITION + HouseholdConstants.DAYS_OF_BOOTSTRAP;
+    lazy.generateUntil(days - 1);
+    assertEquals("all the weeks generated", days, lazy.getGeneratedDays());
+    for (int day = 0; day < days; day++) {
+      for (int hour = 0; hour < HouseholdConstants.HOURS_OF_DAY; hour++) {
+        assertEquals("same base load", eager.getBaseLoadInHours(day, hour), lazy.getBaseLoadInHours(day, hour));
+        assertEquals("same controllable load", eager.getControllableLoadInHours(day, hour), lazy.getControllableLoadInHours(day, hour));
+      }
+    }
+
+    lazy.release(HouseholdConstants.DAYS_OF_WEEK);
+    assertEquals("day after the released ones kept", eager.getBaseLoadInHours(HouseholdConstants.DAYS_OF_WEEK, 0),
+        lazy.getBaseLoadInHours(HouseholdConstants.DAYS_OF_WEEK, 0));
+    try {
+      lazy.getBaseLoadInHours(0, 0);
+      fail("released day rejected");
+    } catch (IllegalStateException e) {
+    }
+  }
+
+  @Test
+  public void testLoadWindow () throws IOException
+  {
+    Properties properties = new Properties();
+    FileInputStream cfgFile = new FileInputStream("src/main/resources/Household.properties");
+    properties.load(cfgFile);
+    cfgFile.close();
+    HouseholdConfiguration eagerConf = new HouseholdConfiguration(properties);
+    properties.setProperty("LoadWindowDays", "21");
+    HouseholdConfiguration windowConf = new HouseholdConfiguration(properties);
+    assertTrue("the window implies lazy generation", windowConf.lazyGeneration);
+
+    Vector<Integer> publicVacationVector = new Vector<Integer>();
+    publicVacationVector.add(5);
+    Household eager = new Household();
+    eager.initialize("Eager House", eagerConf, publicVacationVector, new RandomStreams(42));
+    Household window = new Household();
+    window.initialize("Window House", windowConf, publicVacationVector, new RandomStreams(42));
+
+    int days = HouseholdConstants.DAYS_OF_COMPETITION + HouseholdConstants.DAYS_OF_BOOTSTRAP;
+    for (int day = 0; day < 2 * days; day++) {
+      window.generateUntil(day + 1);
+      if (day >= HouseholdConstants.DAYS_OF_WEEK)
+        window.release(day - HouseholdConstants.DAYS_OF_WEEK);
+      if (day < days) {
+        for (int hour = 0; hour < HouseholdConstants.HOURS_OF_DAY; hour++) {
+          assertEquals("same base load", eager.getBaseLoadInHours(day, hour), window.getBaseLoadInHours(day, hour));
+          assertEquals("same controllable load", eager.getControllableLoadInHours(day, hour), window.getControllableLoadInHours(day, hour));
+        }
+      }
+    }
+    assertTrue("generation goes on past the competition", window.getGeneratedDays() > 2 * days);
+
+    properties.setProperty("LoadWindowDays", "10");
+    try {
+      new HouseholdConfiguration(properties);
+      fail("short window rejected");
+    } catch (IllegalArgumentException e) {
+    }
+  }
+
+  @Test
+  public void testProfileStorage () throws IOException
+  {
+    Properties properties = new Properties();
+    FileInputStream cfgFile = new FileInputStream("src/main/resources/Household.properties");
+    properties.load(cfgFile);
+    cfgFile.close();
+    HouseholdConfiguration heapConf = new HouseholdConfiguration(properties);
+    properties.setProperty("LoadWindowDays", "21");
+    properties.setProperty("ProfileStorage", "Mapped");
+    HouseholdConfiguration mappedConf = new HouseholdConfiguration(properties);
+    assertTrue("mapped storage is off the heap", mappedConf.isOffHeapStorage());
+
+    Vector<Integer> publicVacationVector = new Vector<Integer>();
+    publicVacationVector.add(5);
+    Household heap = new Household();
+    heap.initialize("Heap House", heapConf, publicVacationVector, new RandomStreams(42));
+    ProfileStore profiles = new ProfileStore(mappedConf.profileStorage, mappedConf.profileDirectory, 1, mappedConf.getStoreDays());
+    Household mapped = new Household();
+    mapped.setLoadStores(profiles.createLoadStore(0, ProfileStore.BASE), profiles.createLoadStore(0, ProfileStore.CONTROLLABLE));
+    mapped.initialize("Mapped House", mappedConf, publicVacationVector, new RandomStreams(42));
+
+    int days = HouseholdConstants.DAYS_OF_COMPETITION + HouseholdConstants.DAYS_OF_BOOTSTRAP;
+    for (int day = 0; day < days; day++) {
+      mapped.generateUntil(day + 1);
+      if (day >= HouseholdConstants.DAYS_OF_WEEK)
+        mapped.release(day - HouseholdConstants.DAYS_OF_WEEK);
+      for (int hour = 0; hour < HouseholdConstants.HOURS_OF_DAY; hour++) {
+        assertEquals("same base load", heap.getBaseLoadInHours(day, hour), mapped.getBaseLoadInHours(day, hour));
+        assertEquals("same controllable load", heap.getControllableLoadInHours(day, hour), mapped.getControllableLoadInHours(day, hour));
+      }
+    }
+
+    properties.setProperty("ProfileStorage", "Disk");
+    try {
+      new HouseholdConfiguration(properties);
+      fail("unknown storage rejected");
+    } catch (IllegalArgumentException e) {
+    }
+  }
+
+  @Test
+  public void testPopulationSnapshot () throws IOException
+  {
+    Properties properties = new Properties();
+    FileInputStream cfgFile = new FileInputStream("src/main/resources/Household.properties");
+    properties.load(cfgFile);
+    cfgFile.close();
+    File directory = File.createTempFile("snapshots", "");
+    directory.delete();
+    properties.setProperty("SnapshotDirectory", directory.getPath());
+    File configFile = File.createTempFile("Household", ".properties");
+    configFile.deleteOnExit();
+    FileOutputStream out = new FileOutputStream(configFile);
+    properties.store(out, "Population snapshot test");
+    out.close();
+
+    int days = HouseholdConstants.DAYS_OF_COMPETITION + HouseholdConstants.DAYS_OF_BOOTSTRAP;
+    long[] loads = new long[2];
+    for (int run = 0; run < 2; run++) {
+      randomSeedRepo.recycle();
+      customerRepo.recycle();
+      householdCustomerInitializationService.setDefaults();
+      PluginConfig config = pluginConfigRepo.findByRoleName("HouseholdCustomer");
+      config.getConfiguration().put("configFile", configFile.getPath());
+      List<String> inits = new ArrayList<String>();
+      inits.add("DefaultBroker");
+      householdCustomerInitializationService.initialize(comp, inits);
+
+      assertEquals("one snapshot written", 1, directory.listFiles().length);
+      for (Village customer : householdCustomerService.getVillageList()) {
+        for (Household house : customer.getHouses()) {
+          for (int day = 0; day < days; day++) {
+            for (int hour = 0; hour < HouseholdConstants.HOURS_OF_DAY; hour++)
+              loads[run] = 31 * loads[run] + house.getBaseLoadInHours(day, hour) + 7 * house.getControllableLoadInHours(day, hour);
+          }
+        }
+      }
+    }
+    assertEquals("same population restored", loads[0], loads[1]);
+
+    // the execution keys do not change the key of the snapshot, the other values do
+    long[] seeds = { 1, 2 };
+    String key = new PopulationSnapshot(directory.getPath(), properties, new HouseholdConfiguration(properties), seeds).getKey();
+    Properties threads = new Properties();
+    threads.putAll(properties);
+    threads.setProperty("InitializationThreads", "3");
+    threads.setProperty("ProfileStorage", "Mapped");
+    assertEquals("execution keys ignored", key, new PopulationSnapshot(directory.getPath(), threads, new HouseholdConfiguration(threads), seeds).getKey());
+    Properties vacation = new Properties();
+    vacation.putAll(properties);
+    vacation.setProperty("PublicVacationDuration", "1" + properties.getProperty("PublicVacationDuration").trim());
+    assertFalse("population keys hashed", key.equals(new PopulationSnapshot(directory.getPath(), vacation, new HouseholdConfiguration(vacation), seeds).getKey()));
+
+    for (File file : directory.listFiles())
+      file.delete();
+    directory.delete();
+  }
+
+  @Test
+  public void testRandomEngines ()
+  {
+    // the legacy engine draws the same stream as java.util.Random for the seed
+    Random legacy = RandomEngine.LEGACY.create(42);
+    Random expected = new Random(42);
+    for (int i = 0; i < 1000; i++) {
+      assertEquals("same int", expected.nextInt(HouseholdConstants.QUARTERS_OF_DAY), legacy.nextInt(HouseholdConstants.QUARTERS_OF_DAY));
+      assertEquals("same double", expected.nextDouble(), legacy.nextDouble(), 0);
+      assertEquals("same gaussian", expected.nextGaussian(), legacy.nextGaussian(), 0);
+    }
+
+    // the ziggurat draws standard Gaussians, with the tail beyond its last layer
+    Random gen = RandomEngine.XOROSHIRO.create(42);
+    int draws = 1000000;
+    double sum = 0;
+    double squares = 0;
+    int tail = 0;
+    for (int i = 0; i < draws; i++) {
+      double x = gen.nextGaussian();
+      assertTrue("gaussian in range", Math.abs(x) < 10);
+      sum += x;
+      squares += x * x;
+      if (Math.abs(x) > 3.442619855899)
+        tail++;
+    }
+    double mean = sum / draws;
+    assertEquals("zero mean", 0, mean, 0.01);
+    assertEquals("unit variance", 1, squares / draws - mean * mean, 0.01);
+    assertTrue("tail drawn", tail > 400 && tail < 750);
+
+    // the bounded integers stay below the bound and cover it
+    int[] bounds = { 1, 2, 7, HouseholdConstants.QUARTERS_OF_DAY, 1000, Integer.MAX_VALUE };
+    for (int bound : bounds) {
+      for (int i = 0; i < 10000; i++) {
+        int x = gen.nextInt(bound);
+        assertTrue("int in range", x >= 0 && x < bound);
+      }
+    }
+    int[] counts = new int[7];
+    for (int i = 0; i < 70000; i++)
+      counts[gen.nextInt(counts.length)]++;
+    for (int count : counts)
+      assertTrue("uniform ints", Math.abs(count - 10000) < 500);
+  }
+
+  @Test
+  public void testOperationCalendar ()
+  {
+    // a day mask holds each quarter in its own bit, across the two words
+    int[] quarters = { 0, 1, 63, 64, 95 };
+    long[] day = OperationCalendar.createDay();
+    for (int quarter : quarters)
+      OperationCalendar.set(day, quarter);
+    for (int quarter = 0; quarter < HouseholdConstants.QUARTERS_OF_DAY; quarter++)
+      assertEquals("quarter " + quarter, Arrays.binarySearch(quarters, quarter) >= 0, OperationCalendar.get(day, quarter));
+
+    // every quarter folds into its own hour
+    OperationCalendar calendar = new OperationCalendar();
+    for (int quarter = 0; quarter < HouseholdConstants.QUARTERS_OF_DAY; quarter++) {
+      long[] single = OperationCalendar.createDay();
+      OperationCalendar.set(single, quarter);
+      calendar.add(single);
+      assertEquals("hour of quarter " + quarter, 1 << (quarter / HouseholdConstants.QUARTERS_OF_HOUR), calendar.getHours(quarter));
+      assertTrue("operating on day " + quarter, calendar.isOperating(quarter));
+    }
+    calendar.add(day);
+    int hours = calendar.getHours(HouseholdConstants.QUARTERS_OF_DAY);
+    assertEquals("folded hours", (1 << 0) | (1 << 15) | (1 << 16) | (1 << 23), hours);
+    calendar.add(OperationCalendar.createDay());
+    assertFalse("no operation", calendar.isOperating(HouseholdConstants.QUARTERS_OF_DAY + 1));
+    assertEquals("no hours", 0, calendar.getHours(HouseholdConstants.QUARTERS_OF_DAY + 1));
+
+    // the released days are gone and the others keep their numbers
+    calendar.release(HouseholdConstants.QUARTERS_OF_DAY);
+    assertEquals("first day kept", HouseholdConstants.QUARTERS_OF_DAY, calendar.getFirstDay());
+    assertEquals("days kept", HouseholdConstants.QUARTERS_OF_DAY + 2, calendar.size());
+    assertEquals("same hours", hours, calendar.getHours(HouseholdConstants.QUARTERS_OF_DAY));
+    calendar.set(HouseholdConstants.QUARTERS_OF_DAY + 1, 10);
+    assertTrue("set quarter", calendar.get(HouseholdConstants.QUARTERS_OF_DAY + 1, 10));
+    assertEquals("hour of set quarter", 1 << 2, calendar.getHours(HouseholdConstants.QUARTERS_OF_DAY + 1));
+    try {
+      calendar.get(0, 0);
+      fail("released day read");
+    } catch (IllegalStateException e) {
+    }
+    try {
+      calendar.get(HouseholdConstants.QUARTERS_OF_DAY + 2, 0);
+      fail("day after the calendar read");
+    } catch (ArrayIndexOutOfBoundsException e) {
+    }
+  }
+
+  @Test
+  public void testCategoricalDistribution ()
+  {
+    // the outcomes take the draws in their order, and an outcome without weight is never drawn
+    int[] weights = { 3, 0, 1, 4 };
+    CategoricalDistribution distribution = new CategoricalDistribution(weights);
+    assertEquals("total weight", 8, distribution.getTotal());
+    int[] expected = { 0, 0, 0, 2, 3, 3, 3, 3 };
+    for (int unit = 0; unit < expected.length; unit++)
+      assertEquals("outcome of unit " + unit, expected[unit], distribution.sample(unit / 8.0));
+    assertEquals("first draw", 0, distribution.sample(0.0));
+    assertEquals("before the third outcome", 0, distribution.sample(3 / 8.0 - 1e-12));
+    assertEquals("last draw", 3, distribution.sample(1 - 1e-12));
+    try {
+      distribution.sample(1.0);
+      fail("draw of one sampled");
+    } catch (ArrayIndexOutOfBoundsException e) {
+    }
+
+    // a draw gives the outcome found by walking the cumulative sums
+    Random gen = new Random(42);
+    int[] counts = new int[weights.length];
+    for (int i = 0; i < 10000; i++) {
+      double uniform = gen.nextDouble();
+      int outcome = 0;
+      int cumulative = weights[0];
+      while (uniform * distribution.getTotal() >= cumulative)
+        cumulative += weights[++outcome];
+      assertEquals("same outcome as the walk", outcome, distribution.sample(uniform));
+      counts[distribution.sample(gen)]++;
+    }
+    assertEquals("no outcome without weight", 0, counts[1]);
+
+    // the table is compiled again for the first outcomes only
+    distribution.compile(new int[] { 0, 2, 5 }, 2);
+    assertEquals("total of the first outcomes", 2, distribution.getTotal());
+    assertEquals("only outcome with weight", 1, distribution.sample(0.0));
+    assertEquals("only outcome with weight", 1, distribution.sample(1 - 1e-12));
+  }
+
   class MockCC implements CompetitionControl
   {
 